@@ -0,0 +1,99 @@
+package benchmark;
+
+import model.Credencial;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import service.CredencialStorage;
+import service.EncriptacaoService;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tempo de gravação e carga de um cofre sintético ({@link CofreSintetico}) de 1 mil, 10 mil e
+ * 100 mil credenciais. {@code gravaCompleta} criptografa todos os registros (a chave da sessão é
+ * renovada antes de cada gravação, o que esvazia o cache de registros); {@code gravaSemAlteracoes}
+ * é a gravação comum, em que todos os registros já gravados são reaproveitados.
+ * <p>
+ * O {@link CredencialStorage} grava no diretório atual; o perfil {@code benchmark} executa o JMH em
+ * {@code target/jmh}, e o benchmark se recusa a rodar em um diretório que já tenha um cofre.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+public class ArmazenamentoBenchmark {
+
+    private static final String SENHA = "senhaMestraDeBenchmark";
+    private static final String SALT = "c2FsdERlQmVuY2htYXJrMTY=";
+    private static final List<Path> ARQUIVOS = List.of(Paths.get("credentials.dat"),
+            Paths.get("credentials_backup.dat"), Paths.get("credentials.journal"));
+
+    @Param({"1000", "10000", "100000"})
+    public int registros;
+
+    private List<Credencial> credenciais;
+
+    @Setup
+    public void setUp() throws Exception {
+        if (Files.exists(ARQUIVOS.get(0))) {
+            throw new IllegalStateException("Já existe um cofre em " + Paths.get("").toAbsolutePath()
+                    + "; rode os benchmarks pelo perfil benchmark, que usa target/jmh.");
+        }
+        EncriptacaoService.setSessionKeyAndSalt(SENHA, SALT);
+        credenciais = CofreSintetico.gera(registros, registros);
+        CredencialStorage.saveCredenciais(credenciais);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        EncriptacaoService.clearSessionKeyAndSalt();
+        for (Path arquivo : ARQUIVOS) {
+            Files.deleteIfExists(arquivo);
+        }
+    }
+
+    /**
+     * Renova a chave da sessão (mesma senha e salt) antes de cada gravação completa, descartando os
+     * registros criptografados guardados para a sessão anterior.
+     */
+    @State(Scope.Thread)
+    public static class NovaSessao {
+        @Setup(Level.Invocation)
+        public void renova() {
+            EncriptacaoService.clearSessionKeyAndSalt();
+            EncriptacaoService.setSessionKeyAndSalt(SENHA, SALT);
+        }
+    }
+
+    @Benchmark
+    public List<Credencial> carrega() throws Exception {
+        return CredencialStorage.carregaCredenciais();
+    }
+
+    @Benchmark
+    public List<Credencial> gravaSemAlteracoes() throws Exception {
+        CredencialStorage.saveCredenciais(credenciais);
+        return credenciais;
+    }
+
+    @Benchmark
+    public List<Credencial> gravaCompleta(NovaSessao sessao) throws Exception {
+        CredencialStorage.saveCredenciais(credenciais);
+        return credenciais;
+    }
+}
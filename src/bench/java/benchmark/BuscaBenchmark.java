@@ -0,0 +1,75 @@
+package benchmark;
+
+import model.Credencial;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import service.CredentialRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latência da busca do menu sobre o repositório, por tipo de consulta, comparada com a varredura
+ * linear que comparava a consulta com todas as credenciais.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class BuscaBenchmark {
+
+    private static final int LIMITE = 20;
+
+    @Param({"1000", "100000"})
+    private int credenciais;
+
+    private CredentialRepository repositorio;
+    private List<Credencial> lista;
+
+    @Setup
+    public void setUp() {
+        lista = new ArrayList<>(credenciais);
+        for (int i = 0; i < credenciais; i++) {
+            lista.add(new Credencial("servico" + i + ".com.br", "usuario" + (i % 5000), "c2VuaGE="));
+        }
+        lista.add(new Credencial("Mercado Livre", "ana", "c2VuaGE="));
+        repositorio = new CredentialRepository(lista);
+    }
+
+    @Benchmark
+    public Object prefixo() {
+        return repositorio.pesquisa("servico42", LIMITE);
+    }
+
+    @Benchmark
+    public Object comErroEntreMuitosParecidos() {
+        return repositorio.pesquisa("servico4z2", LIMITE);
+    }
+
+    @Benchmark
+    public Object substring() {
+        return repositorio.pesquisa("livre", LIMITE);
+    }
+
+    @Benchmark
+    public Object comErroDeDigitacao() {
+        return repositorio.pesquisa("mercaod liv", LIMITE);
+    }
+
+    @Benchmark
+    public Object varreduraLinear() {
+        List<Credencial> encontradas = new ArrayList<>();
+        for (Credencial c : lista) {
+            if (c.nomeServico().toLowerCase().contains("livre") || c.nomeUsuario().toLowerCase().contains("livre")) {
+                encontradas.add(c);
+            }
+        }
+        return encontradas;
+    }
+}
@@ -0,0 +1,161 @@
+package benchmark;
+
+import com.sun.net.httpserver.HttpServer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import service.ClienteVazamentos;
+import service.FaixaHibp;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latência das consultas de faixa contra um servidor local que responde como a API Pwned Passwords
+ * (cerca de 800 linhas por faixa): a forma antiga, com uma {@link HttpURLConnection} nova por consulta,
+ * contra o {@link ClienteVazamentos} compartilhado, uma a uma e em lotes de 16 consultas simultâneas
+ * (a forma antiga em 16 threads, o cliente com {@code baixaAsync}), para que o lote compare as conexões
+ * e não a concorrência. A latência simulada no servidor faz o papel da ida e volta pela rede até a API.
+ * <p>
+ * O {@link HttpServer} do JDK só fala HTTP/1.1: o cliente reaproveita as conexões do seu pool, mas a
+ * multiplexação do HTTP/2, usada contra a API real, não é exercitada aqui.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ClienteBenchmark {
+
+    private static final int LOTE = 16;
+    private static final String SUFIXO = "0018A45C4D1DEF81644B54AB7F969B88D65";
+
+    @Param({"0", "20"})
+    public int latenciaMs;
+
+    private HttpServer servidor;
+    private ExecutorService executor;
+    private ExecutorService consultasAntigas;
+    private URI base;
+    private ClienteVazamentos cliente;
+    private int proximo;
+
+    @Setup
+    public void setUp() throws Exception {
+        Random random = new Random(42);
+        StringBuilder corpo = new StringBuilder();
+        byte[] sufixo = new byte[18];
+        for (int i = 0; i < 800; i++) {
+            random.nextBytes(sufixo);
+            corpo.append(HexFormat.of().withUpperCase().formatHex(sufixo), 1, 36).append(':')
+                    .append(random.nextInt(1000) + 1).append("\r\n");
+        }
+        byte[] resposta = corpo.toString().getBytes(StandardCharsets.US_ASCII);
+
+        // Sem isso, o atraso de ACK do servidor do JDK (cerca de 40 ms) domina todas as medidas
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+        servidor = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        servidor.createContext("/range/", troca -> {
+            if (latenciaMs > 0) {
+                try {
+                    Thread.sleep(latenciaMs);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            troca.sendResponseHeaders(200, resposta.length);
+            try (OutputStream saida = troca.getResponseBody()) {
+                saida.write(resposta);
+            }
+        });
+        executor = Executors.newFixedThreadPool(LOTE);
+        servidor.setExecutor(executor);
+        servidor.start();
+        base = URI.create("http://127.0.0.1:" + servidor.getAddress().getPort() + "/range/");
+        cliente = new ClienteVazamentos(base);
+        consultasAntigas = Executors.newFixedThreadPool(LOTE);
+    }
+
+    @TearDown
+    public void tearDown() {
+        servidor.stop(0);
+        executor.shutdownNow();
+        consultasAntigas.shutdownNow();
+    }
+
+    private String prefixo() {
+        return String.format("%05X", proximo++ & 0xFFFFF);
+    }
+
+    /**
+     * A consulta como era feita antes: conexão nova, leitura linha a linha comparando o sufixo.
+     */
+    private int consultaAntiga(String prefixo) throws Exception {
+        HttpURLConnection conn = (HttpURLConnection) base.resolve(prefixo).toURL().openConnection();
+        conn.setRequestMethod("GET");
+        try (BufferedReader leitor = new BufferedReader(new InputStreamReader(conn.getInputStream()))) {
+            String linha;
+            while ((linha = leitor.readLine()) != null) {
+                if (linha.startsWith(SUFIXO)) {
+                    return Integer.parseInt(linha.split(":")[1].trim());
+                }
+            }
+        }
+        return 0;
+    }
+
+    @Benchmark
+    public int httpUrlConnection() throws Exception {
+        return consultaAntiga(prefixo());
+    }
+
+    @Benchmark
+    public int clienteSincrono() throws Exception {
+        return cliente.baixa(prefixo()).ocorrencias(SUFIXO);
+    }
+
+    @Benchmark
+    public int loteHttpUrlConnection() throws Exception {
+        List<Future<Integer>> consultas = new ArrayList<>(LOTE);
+        for (int i = 0; i < LOTE; i++) {
+            String prefixo = prefixo();
+            consultas.add(consultasAntigas.submit(() -> consultaAntiga(prefixo)));
+        }
+        int total = 0;
+        for (Future<Integer> consulta : consultas) {
+            total += consulta.get();
+        }
+        return total;
+    }
+
+    @Benchmark
+    public int loteClienteAssincrono() {
+        List<CompletableFuture<FaixaHibp>> consultas = new ArrayList<>(LOTE);
+        for (int i = 0; i < LOTE; i++) {
+            consultas.add(cliente.baixaAsync(prefixo()));
+        }
+        int total = 0;
+        for (CompletableFuture<FaixaHibp> consulta : consultas) {
+            total += consulta.join().ocorrencias(SUFIXO);
+        }
+        return total;
+    }
+}
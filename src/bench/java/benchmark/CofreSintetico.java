@@ -0,0 +1,49 @@
+package benchmark;
+
+import model.Credencial;
+import service.EncriptacaoService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Gera cofres sintéticos para os benchmarks: credenciais com nomes de serviço e usuário no formato
+ * dos reais e senhas aleatórias de 12 a 24 caracteres, criptografadas com a chave da sessão atual.
+ * A mesma semente produz sempre as mesmas credenciais, para que execuções de versões diferentes
+ * meçam o mesmo cofre.
+ */
+public final class CofreSintetico {
+
+    private static final String ALFABETO =
+            "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789!@#$%&*()-_=+[]{}";
+    private static final String[] DOMINIOS = {"exemplo.com", "correio.com.br", "empresa.net", "mail.org"};
+
+    private CofreSintetico() {
+        // Classe utilitária, não deve ser instanciada
+    }
+
+    /**
+     * Gera as credenciais. A chave da sessão precisa estar definida.
+     *
+     * @param quantidade número de credenciais
+     * @param semente    semente do gerador; a mesma semente gera o mesmo cofre
+     * @return as credenciais, com as senhas já criptografadas
+     * @throws Exception se a criptografia falhar
+     */
+    public static List<Credencial> gera(int quantidade, long semente) throws Exception {
+        Random random = new Random(semente);
+        List<Credencial> credenciais = new ArrayList<>(quantidade);
+        char[] senha = new char[24];
+        for (int i = 0; i < quantidade; i++) {
+            int tamanho = 12 + random.nextInt(13);
+            for (int j = 0; j < tamanho; j++) {
+                senha[j] = ALFABETO.charAt(random.nextInt(ALFABETO.length()));
+            }
+            String servico = String.format("servico-%06d", i);
+            String usuario = "usuario" + random.nextInt(1_000_000) + "@" + DOMINIOS[random.nextInt(DOMINIOS.length)];
+            credenciais.add(new Credencial(servico, usuario, EncriptacaoService.encrypt(new String(senha, 0, tamanho))));
+        }
+        return credenciais;
+    }
+}
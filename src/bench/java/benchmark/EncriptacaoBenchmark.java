@@ -0,0 +1,88 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import service.EncriptacaoService;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Custo por operação de encrypt/decrypt antes e depois do cache da chave de sessão,
+ * e das APIs com String (Base64) em comparação com as APIs de byte[].
+ * Os métodos "derivandoChave" reproduzem o comportamento antigo, que executava o PBKDF2
+ * (65.536 iterações) a cada chamada.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class EncriptacaoBenchmark {
+
+    private static final String SENHA = "senhaMestraDeBenchmark";
+    private static final String SALT = "c2FsdERlQmVuY2htYXJrMTY=";
+    private static final String TEXTO = "servico-exemplo,usuario@exemplo.com,c2VuaGFFbmNyaXB0YWRh";
+    private static final byte[] BYTES = TEXTO.getBytes(StandardCharsets.UTF_8);
+
+    private String textoEncriptado;
+    private byte[] bytesEncriptados;
+    private byte[] buffer;
+
+    @Setup
+    public void setUp() throws Exception {
+        EncriptacaoService.setSessionKeyAndSalt(SENHA, SALT);
+        textoEncriptado = EncriptacaoService.encrypt(TEXTO);
+        bytesEncriptados = EncriptacaoService.encryptBytes(BYTES);
+        buffer = new byte[bytesEncriptados.length];
+    }
+
+    @TearDown
+    public void tearDown() {
+        EncriptacaoService.clearSessionKeyAndSalt();
+    }
+
+    @Benchmark
+    public String encryptComChaveDeSessao() throws Exception {
+        return EncriptacaoService.encrypt(TEXTO);
+    }
+
+    @Benchmark
+    public String decryptComChaveDeSessao() throws Exception {
+        return EncriptacaoService.decrypt(textoEncriptado);
+    }
+
+    @Benchmark
+    public byte[] encryptBytes() throws Exception {
+        return EncriptacaoService.encryptBytes(BYTES);
+    }
+
+    @Benchmark
+    public int decryptInPlace() throws Exception {
+        System.arraycopy(bytesEncriptados, 0, buffer, 0, buffer.length);
+        return EncriptacaoService.decryptInPlace(buffer, 0, buffer.length);
+    }
+
+    @Benchmark
+    public byte[] encryptDerivandoChave() throws Exception {
+        SecretKey key = EncriptacaoService.getSecretKey(SENHA, SALT);
+        byte[] iv = new byte[12];
+        new SecureRandom().nextBytes(iv);
+        Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+        cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(128, iv));
+        return cipher.doFinal(TEXTO.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Benchmark
+    public SecretKey derivacaoDeChave() throws Exception {
+        return EncriptacaoService.getSecretKey(SENHA, SALT);
+    }
+}
@@ -0,0 +1,88 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import service.FaixaHibp;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.HexFormat;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Custo de interpretar uma resposta de faixa com enchimento ({@code Add-Padding}, cerca de 1000 linhas):
+ * a leitura antiga com {@code readLine()} e {@code split(":")}, a leitura byte a byte para o cache e a
+ * procura em fluxo que para no sufixo. Rodar com {@code -prof gc} para ver a alocação por operação.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class FaixaBenchmark {
+
+    private static final String PREFIXO = "ABCDE";
+
+    private byte[] corpo;
+    private byte[] sha1;
+    private String sufixo;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        TreeSet<String> sufixos = new TreeSet<>();
+        byte[] bytes = new byte[18];
+        while (sufixos.size() < 1000) {
+            random.nextBytes(bytes);
+            sufixos.add(HexFormat.of().withUpperCase().formatHex(bytes).substring(1));
+        }
+        StringBuilder texto = new StringBuilder();
+        int linha = 0;
+        for (String s : sufixos) {
+            // Como na API, cerca de um quinto das linhas é enchimento com contagem zero
+            int contagem = linha++ % 5 == 0 ? 0 : random.nextInt(1000) + 1;
+            texto.append(s).append(':').append(contagem).append("\r\n");
+        }
+        corpo = texto.toString().getBytes(StandardCharsets.US_ASCII);
+        // Um sufixo no meio da faixa, com contagem não nula
+        sufixo = sufixos.stream().skip(501).findFirst().orElseThrow();
+        sha1 = HexFormat.of().parseHex(PREFIXO + sufixo);
+    }
+
+    @Benchmark
+    public int readLineSplit() throws Exception {
+        StringBuilder sb = new StringBuilder();
+        for (byte b : sha1) {
+            sb.append(String.format("%02X", b));
+        }
+        String procurado = sb.substring(5);
+        try (BufferedReader leitor = new BufferedReader(
+                new InputStreamReader(new ByteArrayInputStream(corpo)))) {
+            String linha;
+            while ((linha = leitor.readLine()) != null) {
+                String[] partes = linha.split(":");
+                if (partes[0].equalsIgnoreCase(procurado)) {
+                    return Integer.parseInt(partes[1].trim());
+                }
+            }
+        }
+        return 0;
+    }
+
+    @Benchmark
+    public FaixaHibp leFaixa() throws Exception {
+        return FaixaHibp.le(new ByteArrayInputStream(corpo));
+    }
+
+    @Benchmark
+    public int procuraEmFluxo() throws Exception {
+        return FaixaHibp.procura(new ByteArrayInputStream(corpo), sha1);
+    }
+}
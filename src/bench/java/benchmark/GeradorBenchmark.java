@@ -0,0 +1,141 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import service.CacheFaixas;
+import service.ClienteVazamentos;
+import service.FaixaHibp;
+import service.VerificadorSenha;
+import utils.MotorSenhas;
+import utils.PasswordGenerator;
+import utils.PoliticaSenha;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.SecureRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Senhas de 16 caracteres por segundo com 1 a 32 threads gerando ao mesmo tempo: a forma antiga
+ * (um {@code SecureRandom} estático, o conjunto de caracteres remontado e uma {@code String} por senha)
+ * contra o {@link MotorSenhas}, com um DRBG por thread e o buffer {@code char[]} do chamador.
+ * O resultado de cada método é o total somado das threads.
+ * <p>
+ * {@code generate} mede o {@link PasswordGenerator#generate(PoliticaSenha)} completo, com a verificação
+ * de vazamentos trocada por uma fonte que devolve sempre uma faixa vazia, sem rede nem cache em disco.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class GeradorBenchmark {
+
+    private static final int TAMANHO = 16;
+    private static final SecureRandom RANDOM = new SecureRandom();
+    private static final PoliticaSenha POLITICA = PoliticaSenha.completa(TAMANHO);
+    private static final MotorSenhas MOTOR = new MotorSenhas(POLITICA);
+
+    @State(Scope.Thread)
+    public static class Buffer {
+        final char[] senha = new char[TAMANHO];
+    }
+
+    @State(Scope.Benchmark)
+    public static class VerificacaoSimulada {
+        private static final FaixaHibp VAZIA = vazia();
+
+        @Setup
+        public void setUp() {
+            VerificadorSenha.usaCacheFaixas(null);
+            VerificadorSenha.usaFonteFaixas(prefixo -> VAZIA);
+        }
+
+        @TearDown
+        public void tearDown() {
+            VerificadorSenha.usaFonteFaixas(new ClienteVazamentos());
+            VerificadorSenha.usaCacheFaixas(new CacheFaixas());
+        }
+
+        private static FaixaHibp vazia() {
+            try {
+                return FaixaHibp.deResposta("");
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private static String antigo() {
+        StringBuilder characterPool = new StringBuilder();
+        characterPool.append("ABCDEFGHIJKLMNOPQRSTUVWXYZ").append("abcdefghijklmnopqrstuvwxyz")
+                .append("0123456789").append("!@#$%&*()-_=+[]{}");
+        StringBuilder passwordBuilder = new StringBuilder(TAMANHO);
+        for (int i = 0; i < TAMANHO; i++) {
+            passwordBuilder.append(characterPool.charAt(RANDOM.nextInt(characterPool.length())));
+        }
+        return passwordBuilder.toString();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public String antigo01() {
+        return antigo();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public String antigo04() {
+        return antigo();
+    }
+
+    @Benchmark
+    @Threads(16)
+    public String antigo16() {
+        return antigo();
+    }
+
+    @Benchmark
+    @Threads(32)
+    public String antigo32() {
+        return antigo();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public char[] motor01(Buffer buffer) {
+        MOTOR.gera(buffer.senha);
+        return buffer.senha;
+    }
+
+    @Benchmark
+    @Threads(4)
+    public char[] motor04(Buffer buffer) {
+        MOTOR.gera(buffer.senha);
+        return buffer.senha;
+    }
+
+    @Benchmark
+    @Threads(16)
+    public char[] motor16(Buffer buffer) {
+        MOTOR.gera(buffer.senha);
+        return buffer.senha;
+    }
+
+    @Benchmark
+    @Threads(32)
+    public char[] motor32(Buffer buffer) {
+        MOTOR.gera(buffer.senha);
+        return buffer.senha;
+    }
+
+    @Benchmark
+    @Threads(1)
+    public String generate(VerificacaoSimulada verificacao) {
+        return PasswordGenerator.generate(POLITICA);
+    }
+}
@@ -0,0 +1,66 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import service.CredentialRepository;
+import service.EncriptacaoService;
+import service.ImportadorCsv;
+
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Importação de um CSV exportado pelo Chrome com {@link ImportadorCsv}, da leitura à criptografia
+ * (sem a gravação do cofre), com uma linha inválida e uma duplicada a cada cem. O tempo por importação
+ * dividido pelo número de linhas dá a vazão em linhas por segundo; compare {@code paralelismo} 1 e o
+ * número de núcleos para ver a escala da etapa de criptografia.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ImportacaoBenchmark {
+
+    private static final String SENHA = "senhaMestraDeBenchmark";
+    private static final String SALT = "c2FsdERlQmVuY2htYXJrMTY=";
+
+    @Param({"10000"})
+    public int linhas;
+
+    @Param({"1", "4"})
+    public int paralelismo;
+
+    private String csv;
+    private ImportadorCsv importador;
+    private final CredentialRepository existentes = new CredentialRepository();
+
+    @Setup
+    public void setUp() {
+        EncriptacaoService.setSessionKeyAndSalt(SENHA, SALT);
+        StringBuilder texto = new StringBuilder("name,url,username,password,note\n");
+        for (int i = 0; i < linhas; i++) {
+            int indice = i % 100 == 99 ? i - 1 : i;
+            texto.append("servico").append(indice).append(",https://servico").append(indice)
+                    .append(".com.br/login,usuario").append(indice).append("@exemplo.com,")
+                    .append(i % 100 == 50 ? "senha;invalida" : "S3nh@-Forte-" + i).append(",\n");
+        }
+        csv = texto.toString();
+        importador = new ImportadorCsv(paralelismo);
+    }
+
+    @TearDown
+    public void tearDown() {
+        EncriptacaoService.clearSessionKeyAndSalt();
+    }
+
+    @Benchmark
+    public ImportadorCsv.Resultado importa() throws Exception {
+        return importador.importa(new StringReader(csv), existentes);
+    }
+}
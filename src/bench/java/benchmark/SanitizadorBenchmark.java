@@ -0,0 +1,93 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import utils.InputSanitizer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Custo de {@link InputSanitizer#sanitize(String, int, boolean)} nos usos da aplicação: nomes de serviço
+ * e usuário, a senha criptografada em Base64 (até 128 caracteres, sanitizada a cada gravação), o código
+ * TOTP numérico e uma entrada rejeitada por conter caractere inseguro; e de
+ * {@link InputSanitizer#validateAll(List, InputSanitizer.FieldRule...)} em um lote de registros de
+ * importação (serviço, usuário e senha), com um registro inválido a cada cem.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class SanitizadorBenchmark {
+
+    private String servico = "  servico-exemplo  ";
+    private String usuario = "usuario.de.teste@exemplo.com.br";
+    private String senhaEncriptada =
+            "q83vEjRWeJCrze8SNFZ4kKvN7xI0VniQq83vEjRWeJCrze8SNFZ4kKvN7xI0VniQq83vEjRWeJCrze8SNFZ4kA==";
+    private String codigoTotp = "123456";
+    private String insegura = "servico<script>";
+
+    @Param({"10000"})
+    public int registros;
+
+    private List<String[]> lote;
+
+    private static final InputSanitizer.FieldRule[] REGRAS = {
+            new InputSanitizer.FieldRule(50, false),
+            new InputSanitizer.FieldRule(50, false),
+            new InputSanitizer.FieldRule(64, false)
+    };
+
+    @Setup
+    public void setUp() {
+        lote = new ArrayList<>(registros);
+        for (int i = 0; i < registros; i++) {
+            lote.add(new String[]{"servico" + i + ".com.br", "usuario" + i + "@exemplo.com",
+                    i % 100 == 0 ? "senha;invalida" : "S3nh@-Forte-" + i});
+        }
+    }
+
+    @Benchmark
+    public String nomeServico() {
+        return InputSanitizer.sanitize(servico, 50, false);
+    }
+
+    @Benchmark
+    public String nomeUsuario() {
+        return InputSanitizer.sanitize(usuario, 50, false);
+    }
+
+    @Benchmark
+    public String senhaEncriptada() {
+        return InputSanitizer.sanitize(senhaEncriptada, 128, false);
+    }
+
+    @Benchmark
+    public String codigoNumerico() {
+        return InputSanitizer.sanitize(codigoTotp, 6, true);
+    }
+
+    /**
+     * Os campos válidos já estão sem espaços, então só a primeira execução os substitui no lote.
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public List<InputSanitizer.Violation> loteImportacao() {
+        return InputSanitizer.validateAll(lote, REGRAS);
+    }
+
+    @Benchmark
+    public String entradaInsegura() {
+        try {
+            return InputSanitizer.sanitize(insegura, 50, false);
+        } catch (IllegalArgumentException e) {
+            return e.getMessage();
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import service.MotorTOTP;
+import service.TOTPService;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Custo de {@link TOTPService#validateCode(String, String)} com um código válido, o caso do login,
+ * e do {@link MotorTOTP} direto, com os parâmetros padrão e com HMAC-SHA512 e 8 dígitos.
+ * O código esperado é recalculado no início de cada iteração (RFC 6238, passos de 30 s) para
+ * continuar dentro da janela aceita. Com {@code -prof gc}, os métodos do motor devem mostrar
+ * zero bytes alocados por operação.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TotpBenchmark {
+
+    private static final String SEGREDO = Base64.getEncoder()
+            .encodeToString("12345678901234567890".getBytes());
+
+    private static final MotorTOTP MOTOR_SHA512 = new MotorTOTP(Base64.getDecoder().decode(SEGREDO),
+            MotorTOTP.Algoritmo.SHA512, 8, 30);
+
+    private final MotorTOTP motor = new MotorTOTP(Base64.getDecoder().decode(SEGREDO));
+    private String codigo;
+    private String codigoSha512;
+
+    @Setup(Level.Iteration)
+    public void setUp() throws Exception {
+        long passo = Instant.now().getEpochSecond() / 30;
+        Mac mac = Mac.getInstance("HmacSHA1");
+        mac.init(new SecretKeySpec(Base64.getDecoder().decode(SEGREDO), "HmacSHA1"));
+        byte[] hmac = mac.doFinal(ByteBuffer.allocate(Long.BYTES).putLong(passo).array());
+        int offset = hmac[hmac.length - 1] & 0xF;
+        int binario = (ByteBuffer.wrap(hmac, offset, 4).getInt() & 0x7FFFFFFF) % 1_000_000;
+        codigo = String.format("%06d", binario);
+        codigoSha512 = MOTOR_SHA512.formata(MOTOR_SHA512.gera(Instant.now().getEpochSecond()));
+    }
+
+    @Benchmark
+    public boolean validaCodigo() {
+        return TOTPService.validateCode(SEGREDO, codigo);
+    }
+
+    @Benchmark
+    public boolean motorValida() {
+        return motor.valida(codigo);
+    }
+
+    @Benchmark
+    public boolean motorValidaSha512OitoDigitos() {
+        return MOTOR_SHA512.valida(codigoSha512);
+    }
+}
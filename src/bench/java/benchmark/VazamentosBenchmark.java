@@ -0,0 +1,105 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import service.BaseVazamentos;
+import service.FiltroVazamentos;
+
+import java.io.BufferedWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HexFormat;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Custo de uma verificação local de senha vazada: o filtro de Bloom (que descarta quase todas as
+ * senhas) e a busca exata na base mapeada em memória, sobre 1 milhão de hashes aleatórios.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class VazamentosBenchmark {
+
+    private static final int HASHES = 1_000_000;
+    private static final int CONSULTAS = 1024;
+
+    private Path diretorio;
+    private BaseVazamentos base;
+    private FiltroVazamentos filtro;
+    private byte[][] presentes;
+    private byte[][] ausentes;
+    private int proxima;
+
+    @Setup
+    public void setUp() throws Exception {
+        Random random = new Random(42);
+        TreeMap<String, Integer> hashes = new TreeMap<>();
+        FiltroVazamentos.Construtor construtor = FiltroVazamentos.construtor(HASHES, 0.01);
+        byte[] hash = new byte[20];
+        while (hashes.size() < HASHES) {
+            random.nextBytes(hash);
+            if (hashes.put(HexFormat.of().withUpperCase().formatHex(hash), random.nextInt(1000) + 1) == null) {
+                construtor.adiciona(hash);
+            }
+        }
+        filtro = construtor.constroi();
+
+        diretorio = Files.createTempDirectory("vazamentos");
+        Path dump = diretorio.resolve("dump.txt");
+        try (BufferedWriter saida = Files.newBufferedWriter(dump)) {
+            for (var entrada : hashes.entrySet()) {
+                saida.write(entrada.getKey() + ":" + entrada.getValue() + "\n");
+            }
+        }
+        Path arquivo = diretorio.resolve("hibp.dat");
+        BaseVazamentos.importa(dump, arquivo);
+        base = BaseVazamentos.abre(arquivo);
+
+        presentes = new byte[CONSULTAS][];
+        ausentes = new byte[CONSULTAS][];
+        String[] chaves = hashes.keySet().toArray(new String[0]);
+        for (int i = 0; i < CONSULTAS; i++) {
+            presentes[i] = HexFormat.of().parseHex(chaves[random.nextInt(chaves.length)]);
+            ausentes[i] = new byte[20];
+            random.nextBytes(ausentes[i]);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        base.close();
+        try (var arquivos = Files.list(diretorio)) {
+            for (Path arquivo : arquivos.toList()) {
+                Files.delete(arquivo);
+            }
+        }
+        Files.delete(diretorio);
+    }
+
+    private int proxima() {
+        return proxima = proxima + 1 & CONSULTAS - 1;
+    }
+
+    @Benchmark
+    public boolean filtroAusente() {
+        return filtro.podeConter(ausentes[proxima()]);
+    }
+
+    @Benchmark
+    public long baseAusente() {
+        return base.ocorrencias(ausentes[proxima()]);
+    }
+
+    @Benchmark
+    public long basePresente() {
+        return base.ocorrencias(presentes[proxima()]);
+    }
+}
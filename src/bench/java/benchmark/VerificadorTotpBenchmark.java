@@ -0,0 +1,87 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import service.MotorTOTP;
+import service.VerificadorTOTP;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Vazão de {@link VerificadorTOTP#valida(String, CharSequence, long)} com muitos usuários e várias
+ * threads validando ao mesmo tempo. Rode com {@code -t 1}, {@code -t 4} e {@code -t max} para ver a
+ * escala por núcleo; o resultado é em validações por segundo somando todas as threads.
+ * <p>
+ * Os códigos são calculados uma vez, no instante fixo {@link #INSTANTE}, e cada thread percorre os
+ * usuários a partir de uma posição própria. Só a primeira validação de cada usuário é aceita; as
+ * demais são recusadas como repetição, depois do mesmo cálculo das três janelas, então o custo medido
+ * é o de uma validação completa mais a leitura (e, na primeira vez, o CAS) da última janela.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class VerificadorTotpBenchmark {
+
+    static final long INSTANTE = 1_700_000_000L;
+
+    @Param({"10000"})
+    public int usuarios;
+
+    String[] nomes;
+    String[] codigos;
+    VerificadorTOTP verificador;
+
+    @Setup
+    public void setUp() {
+        Random aleatorio = new Random(42);
+        nomes = new String[usuarios];
+        codigos = new String[usuarios];
+        verificador = new VerificadorTOTP();
+        byte[] segredo = new byte[20];
+        for (int i = 0; i < usuarios; i++) {
+            aleatorio.nextBytes(segredo);
+            MotorTOTP motor = new MotorTOTP(segredo);
+            nomes[i] = "usuario" + i;
+            codigos[i] = motor.formata(motor.gera(INSTANTE));
+            verificador.registra(nomes[i], motor);
+        }
+    }
+
+    /**
+     * Posição de cada thread na lista de usuários.
+     */
+    @State(Scope.Thread)
+    public static class Cursor {
+        int posicao;
+
+        @Setup
+        public void setUp(VerificadorTotpBenchmark benchmark) {
+            posicao = (int) (Thread.currentThread().threadId() * 7919 % benchmark.usuarios);
+        }
+
+        int proximo(int total) {
+            int atual = posicao;
+            posicao = atual + 1 == total ? 0 : atual + 1;
+            return atual;
+        }
+    }
+
+    @Benchmark
+    public boolean valida(Cursor cursor) {
+        int i = cursor.proximo(usuarios);
+        return verificador.valida(nomes[i], codigos[i], INSTANTE);
+    }
+
+    @Benchmark
+    public boolean usuarioDesconhecido(Cursor cursor) {
+        int i = cursor.proximo(usuarios);
+        return verificador.valida("desconhecido", codigos[i], INSTANTE);
+    }
+}
@@ -1,29 +1,53 @@
-import model.Credencial;
 import service.AuthService;
+import service.BaseVazamentos;
 import service.CredencialStorage;
+import service.CredentialRepository;
+import service.FiltroVazamentos;
 import service.GerenciadorCredential;
+import service.ImportadorCsv;
+import service.JournalCredenciais;
+import service.ParametrosKdf;
+import service.VerificadorSenha;
 import utils.InputSanitizer;
 
 import java.io.IOException;
-import java.net.URI;
-import java.net.URISyntaxException;
-import java.util.List;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
 import java.util.Scanner;
-import java.net.HttpURLConnection;
-import java.net.URL;
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
 
 public class App {
 
     /**
      * Principal ponto de entrada do Secure Password Manager.
      * Lida com a autenticação e interage com o usuário por meio da interface de linha de comando.
-     * Argumentos de linha de comando (atualmente não utilizados).
+     * Com {@code --importar-hibp <arquivo> [destino]}, apenas importa o arquivo do Pwned Passwords
+     * para a base local de senhas vazadas e encerra; com
+     * {@code --construir-filtro <arquivo> [taxa] [destino]}, gera o filtro de Bloom desse arquivo; com
+     * {@code --calibrar-kdf [alvo em ms]}, recalibra os parâmetros do KDF, aplicados ao cofre no próximo desbloqueio;
+     * com {@code --importar-csv <arquivo>}, importa para o cofre as senhas exportadas pelo Chrome, pelo Firefox
+     * ou pelo Bitwarden.
      *
-     * @param args Command-line arguments (currently unused).
+     * @param args Argumentos de linha de comando.
      */
     public static void main(String[] args) {
+        if (args.length > 0 && args[0].equals("--importar-hibp")) {
+            importaBaseVazamentos(args);
+            return;
+        }
+        if (args.length > 0 && args[0].equals("--construir-filtro")) {
+            constroiFiltroVazamentos(args);
+            return;
+        }
+        if (args.length > 0 && args[0].equals("--calibrar-kdf")) {
+            calibraKdf(args);
+            return;
+        }
+        if (args.length > 0 && args[0].equals("--importar-csv")) {
+            importaCsv(args);
+            return;
+        }
+
         Scanner input = new Scanner(System.in);
 
         try {
@@ -33,18 +57,136 @@ public class App {
             return;
         }
 
-        List<Credencial> credenciais;
+        CredentialRepository credenciais;
         try {
-            credenciais = CredencialStorage.carregaCredenciais();
+            credenciais = CredencialStorage.carregaRepositorio();
         } catch (Exception e) {
             System.err.println("Falha ao carregar credenciais: " + e.getMessage());
             return;
         }
 
-        GerenciadorCredential gerenciador = new GerenciadorCredential(credenciais);
+        CredencialStorage.EstatisticasCarga carga = CredencialStorage.getUltimaCarga();
+        if (carga != null) {
+            System.out.printf("%d credenciais carregadas em %d ms (%.0f registros/s, %d threads).%n",
+                    carga.registros(), carga.duracaoNanos() / 1_000_000, carga.registrosPorSegundo(), carga.paralelismo());
+        }
+
+        JournalCredenciais journal;
+        try {
+            journal = CredencialStorage.abreJournal(credenciais);
+        } catch (Exception e) {
+            System.err.println("Falha ao abrir o journal de credenciais: " + e.getMessage());
+            return;
+        }
+
+        GerenciadorCredential gerenciador = new GerenciadorCredential(credenciais, journal);
         gerenciador.showMenu();
     }
 
+    /**
+     * Importa o arquivo ordenado por hash do Pwned Passwords para a base local usada por
+     * {@link VerificadorSenha#checarSenha(String)}.
+     */
+    private static void importaBaseVazamentos(String[] args) {
+        if (args.length < 2 || args.length > 3) {
+            System.err.println("Uso: --importar-hibp <pwned-passwords-sha1-ordered-by-hash.txt> [destino]");
+            return;
+        }
+        Path destino = args.length == 3 ? Paths.get(args[2]) : VerificadorSenha.BASE_LOCAL_PADRAO;
+        System.out.println("Importando " + args[1] + " para " + destino + "...");
+        try {
+            BaseVazamentos.EstatisticasImportacao estatisticas = BaseVazamentos.importa(Paths.get(args[1]), destino);
+            System.out.printf("%d hashes importados em %d s (%d MiB).%n", estatisticas.hashes(),
+                    estatisticas.duracaoNanos() / 1_000_000_000, estatisticas.bytes() >> 20);
+        } catch (IOException e) {
+            System.err.println("Falha ao importar a base de senhas vazadas: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Gera o filtro de Bloom consultado por {@link VerificadorSenha#checarSenha(String)} antes da
+     * consulta exata, a partir do arquivo do Pwned Passwords.
+     */
+    private static void constroiFiltroVazamentos(String[] args) {
+        if (args.length < 2 || args.length > 4) {
+            System.err.println("Uso: --construir-filtro <pwned-passwords-sha1.txt> [taxa de falsos positivos] [destino]");
+            return;
+        }
+        Path destino = args.length == 4 ? Paths.get(args[3]) : VerificadorSenha.FILTRO_PADRAO;
+        try {
+            double taxa = args.length >= 3 ? Double.parseDouble(args[2]) : 0.01;
+            long inicio = System.nanoTime();
+            FiltroVazamentos filtro = FiltroVazamentos.constroi(Paths.get(args[1]), taxa);
+            filtro.salva(destino);
+            System.out.printf("Filtro com %d hashes gravado em %s em %d s: %d MiB, %d bits por hash, "
+                            + "taxa de falsos positivos estimada de %.4f%%.%n", filtro.elementos(), destino,
+                    (System.nanoTime() - inicio) / 1_000_000_000, filtro.bytesMemoria() >> 20,
+                    filtro.bitsPorHash(), filtro.taxaEstimada() * 100);
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Falha ao construir o filtro de senhas vazadas: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Autentica o usuário, importa o CSV exportado por um navegador ou pelo Bitwarden e grava as
+     * credenciais novas no cofre de uma só vez.
+     */
+    private static void importaCsv(String[] args) {
+        if (args.length != 2) {
+            System.err.println("Uso: --importar-csv <senhas exportadas.csv>");
+            return;
+        }
+        try {
+            new AuthService(new Scanner(System.in));
+        } catch (Exception e) {
+            System.err.println("Autenticação falhou: " + e.getMessage());
+            return;
+        }
+        try {
+            CredentialRepository repositorio = CredencialStorage.carregaRepositorio();
+            ImportadorCsv.Resultado resultado = new ImportadorCsv().importa(Paths.get(args[1]), repositorio);
+            resultado.importadas().forEach(repositorio::adiciona);
+            if (!resultado.importadas().isEmpty()) {
+                CredencialStorage.saveCredenciais(repositorio.credenciais());
+            }
+            System.out.printf("Formato %s: %d linhas lidas em %d ms (%.0f linhas/s), %d credenciais importadas, "
+                            + "%d rejeitadas.%n", resultado.formato(), resultado.linhas(),
+                    resultado.duracaoNanos() / 1_000_000, resultado.linhasPorSegundo(),
+                    resultado.importadas().size(), resultado.rejeitadas());
+            int exibidas = Math.min(resultado.rejeicoes().size(), 20);
+            for (ImportadorCsv.Rejeicao rejeicao : resultado.rejeicoes().subList(0, exibidas)) {
+                System.out.println("  linha " + rejeicao.linha() + ": " + rejeicao.motivo());
+            }
+            if (resultado.rejeitadas() > exibidas) {
+                System.out.println("  ... e mais " + (resultado.rejeitadas() - exibidas) + " linhas rejeitadas.");
+            }
+        } catch (Exception e) {
+            System.err.println("Falha ao importar o CSV: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Mede esta máquina e grava novos {@link ParametrosKdf}; o cofre e o hash da senha mestra são
+     * regravados com eles no próximo desbloqueio.
+     */
+    private static void calibraKdf(String[] args) {
+        if (args.length > 2) {
+            System.err.println("Uso: --calibrar-kdf [tempo alvo do desbloqueio em ms]");
+            return;
+        }
+        try {
+            Duration alvo = args.length == 2 ? Duration.ofMillis(Long.parseLong(args[1]))
+                    : ParametrosKdf.LATENCIA_ALVO_PADRAO;
+            ParametrosKdf parametros = ParametrosKdf.calibra(alvo);
+            parametros.salva(ParametrosKdf.ARQUIVO_PADRAO);
+            System.out.printf("Parâmetros gravados em %s: %d iterações do PBKDF2, custo %d do BCrypt. "
+                            + "O cofre será atualizado no próximo desbloqueio.%n", ParametrosKdf.ARQUIVO_PADRAO,
+                    parametros.iteracoesPbkdf2(), parametros.custoBcrypt());
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Falha ao calibrar o KDF: " + e.getMessage());
+        }
+    }
+
     /**
     * Verifica se um sufixo de hash de senha foi encontrado em violações de dados conhecidas
     * usando a API Have I Been Pwned (HIBP).
@@ -52,7 +194,8 @@ public class App {
     * é enviado para verificação.
     * Os primeiros 5 caracteres do hash SHA-1 da senha.
     * Os caracteres restantes do hash SHA-1 da senha.
-    * Se a validação ou a conexão falhar.
+    * Se a validação ou a conexão falhar. A faixa do prefixo vem do cache de
+    * faixas, quando já consultada.
      
      * @param prefixo 
      * @param sufixo 
@@ -67,51 +210,22 @@ public class App {
             throw new IllegalArgumentException("Falha na validação de entrada: " + e.getMessage());
         }
 
-        HttpURLConnection conn = getHttpURLConnection(prefixo, sufixo);
-
-        try (BufferedReader in = new BufferedReader(new InputStreamReader(conn.getInputStream()))) {
-            String linha;
-            while ((linha = in.readLine()) != null) {
-                String[] parts = linha.split(":");
-                if (parts.length > 0 && parts[0].equalsIgnoreCase(sufixo)) {
-                    return true;
-                }
-            }
-        }
-        return false;
+        validaHash(prefixo, sufixo);
+        return VerificadorSenha.faixa(prefixo).ocorrencias(sufixo) > 0;
     }
 
     /**
-     * Configura uma conexão HTTP para consultar a API HIBP em busca de informações sobre violação de senha.
-     * Os primeiros 5 caracteres do hash SHA-1 da senha.
-     * Os caracteres restantes do hash SHA-1 (usados ​​apenas para validação).
-     * Um objeto {@link HttpURLConnection} configurado, pronto para consultar a API.
-     * Se o URI construído for inválido.
-     * Se a conexão falhar. 
-
-     * @param prefixo 
-     * @param sufixo only).
-     * @return 
-     * @throws URISyntaxException 
-     * @throws IOException 
+     * Confere se o prefixo e o sufixo têm o formato de um hash SHA-1 dividido para a API HIBP.
+     *
+     * @param prefixo os primeiros 5 caracteres do hash SHA-1 da senha
+     * @param sufixo os caracteres restantes do hash SHA-1
      */
-    private static HttpURLConnection getHttpURLConnection(String prefixo, String sufixo)
-            throws URISyntaxException, IOException {
-
+    private static void validaHash(String prefixo, String sufixo) {
         if (!prefixo.matches("[A-Fa-f0-9]{5}")) {
             throw new IllegalArgumentException("O prefixo deve conter exatamente 5 caracteres hexadecimais.");
         }
         if (!sufixo.matches("[A-Fa-f0-9]+")) {
             throw new IllegalArgumentException("O sufixo deve conter apenas caracteres hexadecimais.");
         }
-
-        URI uri = new URI("https", "api.pwnedpasswords.com", "/range/" + prefixo, null);
-        URL url = uri.toURL();
-
-        HttpURLConnection conn = (HttpURLConnection) url.openConnection();
-        conn.setRequestMethod("GET");
-        conn.setConnectTimeout(5000);
-        conn.setReadTimeout(5000);
-        return conn;
     }
-}
\ No newline at end of file
+}
@@ -3,7 +3,7 @@ package model;
 /**
 * Representa uma credencial de usuário salva para um serviço específico.
 */
-public record Credencial(String nomeServico, String nomeUsuario, String senhaEncriptada) {
+public record Credencial(String nomeServico, String nomeUsuario, String senhaEncriptada, String seedTotpEncriptada) {
 	/**
 	 * Constructs a new Credential.
 	 
@@ -15,10 +15,29 @@ public record Credencial(String nomeServico, String nomeUsuario, String senhaEnc
 	 * @param nomeServico       
 	 * @param nomeUsuario          
 	 * @param senhaEncriptada 
+	 * @param seedTotpEncriptada semente TOTP da conta em Base32, já criptografada, ou {@code null}
 	 */
 	public Credencial {
 	}
 
+	/**
+	 * Credencial sem semente TOTP.
+	 *
+	 * @param nomeServico     o nome do serviço (e.g., "Gmail")
+	 * @param nomeUsuario     o nome de usuário associado ao serviço
+	 * @param senhaEncriptada senha, já criptografada
+	 */
+	public Credencial(String nomeServico, String nomeUsuario, String senhaEncriptada) {
+		this(nomeServico, nomeUsuario, senhaEncriptada, null);
+	}
+
+	/**
+	 * Indica se a conta tem uma semente TOTP (2FA) guardada junto com a senha.
+	 */
+	public boolean possuiSeedTotp() {
+		return seedTotpEncriptada != null;
+	}
+
 
 	@Override
 	public String toString() {
@@ -0,0 +1,212 @@
+package service;
+
+import model.Credencial;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalInt;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Verifica todas as senhas do cofre contra vazamentos conhecidos de uma só vez.
+ * <p>
+ * As senhas são agrupadas pelo prefixo de 5 dígitos do SHA-1, então cada faixa é consultada uma
+ * única vez, por mais senhas (ou senhas repetidas) que caiam nela. As consultas rodam em threads
+ * virtuais, no máximo {@code concorrencia} ao mesmo tempo, e cada resultado é entregue assim que
+ * a faixa da senha chega. Senhas que o filtro de Bloom ou a base local resolvem não geram consulta.
+ */
+public final class AuditoriaVazamentos {
+
+    /**
+     * Consultas simultâneas padrão; o suficiente para esconder a latência sem sobrecarregar a API.
+     */
+    public static final int CONCORRENCIA_PADRAO = 16;
+
+    private final int concorrencia;
+    private final FonteFaixas faixas;
+
+    /**
+     * Auditoria com a concorrência padrão, consultando as faixas pelo cache de {@link VerificadorSenha}.
+     */
+    public AuditoriaVazamentos() {
+        this(CONCORRENCIA_PADRAO, VerificadorSenha::faixa);
+    }
+
+    /**
+     * @param concorrencia número máximo de consultas de faixa simultâneas
+     * @param faixas       origem das faixas
+     */
+    public AuditoriaVazamentos(int concorrencia, FonteFaixas faixas) {
+        if (concorrencia < 1) {
+            throw new IllegalArgumentException("A concorrência da auditoria deve ser positiva.");
+        }
+        this.concorrencia = concorrencia;
+        this.faixas = faixas;
+    }
+
+    /**
+     * Audita as credenciais, entregando um resultado por credencial, na ordem em que ficam prontos.
+     * O consumidor é chamado de várias threads, mas nunca ao mesmo tempo.
+     *
+     * @param credenciais credenciais com as senhas criptografadas
+     * @param saida       recebe cada resultado
+     * @return os totais da auditoria
+     * @throws InterruptedException se a thread for interrompida enquanto aguarda as consultas
+     */
+    public Estatisticas audita(List<Credencial> credenciais, Consumer<Resultado> saida) throws InterruptedException {
+        return executa(credenciais, credencial -> EncriptacaoService.decrypt(credencial.senhaEncriptada()),
+                (credencial, ocorrencias, erro) -> saida.accept(new Resultado(credencial, ocorrencias, erro)));
+    }
+
+    /**
+     * Verifica senhas em texto claro da mesma forma, entregando as ocorrências de cada uma (ou -1, se
+     * a consulta da sua faixa falhar) na ordem em que ficam prontas. O consumidor é chamado de várias
+     * threads, mas nunca ao mesmo tempo.
+     *
+     * @param senhas senhas a verificar
+     * @param saida  recebe cada senha e suas ocorrências
+     * @return os totais da verificação
+     * @throws InterruptedException se a thread for interrompida enquanto aguarda as consultas
+     */
+    public Estatisticas verifica(List<String> senhas, ObjIntConsumer<String> saida) throws InterruptedException {
+        return executa(senhas, senha -> senha, (senha, ocorrencias, erro) -> saida.accept(senha, ocorrencias));
+    }
+
+    private <T> Estatisticas executa(List<T> itens, Senha<T> senha, Entrega<T> saida) throws InterruptedException {
+        long inicio = System.nanoTime();
+        Contadores<T> contadores = new Contadores<>(saida);
+        Map<String, List<Pendente<T>>> porPrefixo = new LinkedHashMap<>();
+        int locais = 0;
+        int pendentes = 0;
+
+        for (T item : itens) {
+            byte[] hash;
+            try {
+                hash = BaseVazamentos.sha1(senha.de(item));
+            } catch (Exception e) {
+                contadores.entrega(item, -1, e);
+                continue;
+            }
+            OptionalInt local = VerificadorSenha.ocorrenciasLocais(hash);
+            if (local.isPresent()) {
+                locais++;
+                contadores.entrega(item, local.getAsInt(), null);
+                continue;
+            }
+            porPrefixo.computeIfAbsent(FaixaHibp.prefixo(hash), p -> new ArrayList<>())
+                    .add(new Pendente<>(item, hash));
+            pendentes++;
+        }
+
+        Semaphore permissoes = new Semaphore(concorrencia);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (Map.Entry<String, List<Pendente<T>>> grupo : porPrefixo.entrySet()) {
+                executor.execute(() -> consulta(grupo.getKey(), grupo.getValue(), permissoes, contadores));
+            }
+        }
+        // close() espera todas as consultas; a interrupção durante a espera fica registrada na thread
+        if (Thread.interrupted()) {
+            throw new InterruptedException("Auditoria de vazamentos interrompida.");
+        }
+
+        return new Estatisticas(itens.size(), locais, porPrefixo.size(),
+                pendentes - porPrefixo.size(), contadores.comprometidas.get(), contadores.erros.get(),
+                Duration.ofNanos(System.nanoTime() - inicio));
+    }
+
+    private <T> void consulta(String prefixo, List<Pendente<T>> pendentes, Semaphore permissoes,
+                              Contadores<T> contadores) {
+        FaixaHibp faixa;
+        try {
+            permissoes.acquire();
+            try {
+                faixa = faixas.baixa(prefixo);
+            } finally {
+                permissoes.release();
+            }
+        } catch (Exception e) {
+            for (Pendente<T> pendente : pendentes) {
+                contadores.entrega(pendente.item(), -1, e);
+            }
+            return;
+        }
+        for (Pendente<T> pendente : pendentes) {
+            contadores.entrega(pendente.item(), faixa.ocorrencias(pendente.sha1()), null);
+        }
+    }
+
+    @FunctionalInterface
+    private interface Senha<T> {
+        String de(T item) throws Exception;
+    }
+
+    @FunctionalInterface
+    private interface Entrega<T> {
+        void aceita(T item, int ocorrencias, Exception erro);
+    }
+
+    private record Pendente<T>(T item, byte[] sha1) {
+    }
+
+    private static final class Contadores<T> {
+        private final Entrega<T> saida;
+        private final AtomicInteger comprometidas = new AtomicInteger();
+        private final AtomicInteger erros = new AtomicInteger();
+
+        Contadores(Entrega<T> saida) {
+            this.saida = saida;
+        }
+
+        void entrega(T item, int ocorrencias, Exception erro) {
+            if (erro != null) {
+                erros.incrementAndGet();
+            } else if (ocorrencias > 0) {
+                comprometidas.incrementAndGet();
+            }
+            synchronized (this) {
+                saida.aceita(item, ocorrencias, erro);
+            }
+        }
+    }
+
+    /**
+     * Resultado de uma credencial.
+     *
+     * @param credencial  a credencial verificada
+     * @param ocorrencias vezes que a senha aparece em vazamentos, ou -1 em caso de erro
+     * @param erro        a falha ao decifrar a senha ou consultar a faixa, ou {@code null}
+     */
+    public record Resultado(Credencial credencial, int ocorrencias, Exception erro) {
+
+        /**
+         * Se a senha foi encontrada em algum vazamento.
+         */
+        public boolean comprometida() {
+            return ocorrencias > 0;
+        }
+    }
+
+    /**
+     * Totais de uma auditoria.
+     *
+     * @param credenciais          credenciais (ou senhas) verificadas
+     * @param verificadasLocalmente credenciais resolvidas pelo filtro de Bloom ou pela base local
+     * @param consultas            faixas consultadas (uma por prefixo distinto)
+     * @param consultasEvitadas    consultas a menos que uma por senha que precisou da API, graças ao
+     *                             agrupamento por prefixo
+     * @param comprometidas        senhas encontradas em vazamentos
+     * @param erros                credenciais que não puderam ser verificadas
+     * @param duracao              tempo total da auditoria
+     */
+    public record Estatisticas(int credenciais, int verificadasLocalmente, int consultas, int consultasEvitadas,
+                               int comprometidas, int erros, Duration duracao) {
+    }
+}
@@ -2,9 +2,12 @@ package service;
 
 import utils.InputSanitizer;
 
+import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Optional;
 import java.util.Scanner;
 import java.util.regex.Pattern;
 import org.mindrot.jbcrypt.BCrypt;
@@ -12,6 +15,7 @@ import org.mindrot.jbcrypt.BCrypt;
 /**
 * Gerencia a autenticação do usuário com senha mestra e verificação TOTP.
 * Garante acesso seguro usando credenciais com hash e códigos baseados em tempo.
+* O custo do BCrypt e as iterações do PBKDF2 vêm de {@link ParametrosKdf}, calibrados na criação do cofre.
 */
 public class AuthService {
 
@@ -78,7 +82,59 @@ public class AuthService {
         }
 
         String salt = EncriptacaoService.getOrCreatePersistentSalt();
-        EncriptacaoService.setSessionKeyAndSalt(sessionPassword, salt);
+        ParametrosKdf parametros = carregaOuCalibraParametros();
+        int iteracoesCofre = CredencialStorage.iteracoesDoCofre().orElse(parametros.iteracoesPbkdf2());
+        EncriptacaoService.setSessionKeyAndSalt(sessionPassword, salt, iteracoesCofre);
+        atualizaParametros(sessionPassword, salt, senhaMestreHash, parametros);
+    }
+
+    /**
+     * Parâmetros do KDF gravados ao lado do salt. Na criação do cofre, ou no primeiro desbloqueio de um
+     * cofre anterior à calibração, mede esta máquina e grava o resultado.
+     *
+     * @return os parâmetros a serem usados pelo cofre
+     * @throws IOException se o arquivo de parâmetros não puder ser lido ou gravado
+     */
+    static ParametrosKdf carregaOuCalibraParametros() throws IOException {
+        Optional<ParametrosKdf> gravados = ParametrosKdf.carrega(ParametrosKdf.ARQUIVO_PADRAO);
+        if (gravados.isPresent()) {
+            return gravados.get();
+        }
+        System.out.println("Calibrando a derivação de chave para esta máquina...");
+        ParametrosKdf calibrados = ParametrosKdf.calibra(ParametrosKdf.LATENCIA_ALVO_PADRAO);
+        calibrados.salva(ParametrosKdf.ARQUIVO_PADRAO);
+        return calibrados;
+    }
+
+    /**
+     * Leva o cofre e o hash da senha mestra para os parâmetros gravados, se foram criados com outros:
+     * o cofre é regravado com as novas iterações do PBKDF2 e o hash é refeito com o novo custo do BCrypt.
+     * Uma falha é apenas reportada; o desbloqueio continua valendo com os parâmetros antigos.
+     */
+    private static void atualizaParametros(String senha, String salt, String senhaMestreHash,
+                                           ParametrosKdf parametros) {
+        if (EncriptacaoService.getSessionIteracoes() != parametros.iteracoesPbkdf2()) {
+            try {
+                int regravadas = CredencialStorage.reparametriza(senha, salt, parametros.iteracoesPbkdf2());
+                System.out.printf("Cofre atualizado para %d iterações do PBKDF2 (%d credenciais regravadas).%n",
+                        parametros.iteracoesPbkdf2(), regravadas);
+            } catch (Exception e) {
+                System.err.println("Falha ao atualizar os parâmetros do cofre: " + e.getMessage());
+            }
+        }
+
+        try {
+            if (ParametrosKdf.custoDoHash(senhaMestreHash) != parametros.custoBcrypt()) {
+                Path path = Paths.get(ARQUIVO_DE_SENHA);
+                Path temporario = path.resolveSibling(ARQUIVO_DE_SENHA + ".tmp");
+                Files.writeString(temporario, BCrypt.hashpw(senha, BCrypt.gensalt(parametros.custoBcrypt())));
+                Files.move(temporario, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                System.out.printf("Hash da senha mestra atualizado para o custo %d do BCrypt.%n",
+                        parametros.custoBcrypt());
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Falha ao atualizar o hash da senha mestra: " + e.getMessage());
+        }
     }
 
     /**
@@ -137,7 +193,7 @@ public class AuthService {
             }
         }
 
-        String hash = BCrypt.hashpw(novaSenha, BCrypt.gensalt());
+        String hash = BCrypt.hashpw(novaSenha, BCrypt.gensalt(carregaOuCalibraParametros().custoBcrypt()));
         Files.writeString(path, hash);
         System.out.println("Senha mestra salva.");
         return hash;
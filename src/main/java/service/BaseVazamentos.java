@@ -0,0 +1,401 @@
+package service;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+/**
+ * Base local de senhas vazadas, importada do arquivo do Pwned Passwords (hashes SHA-1 ordenados,
+ * uma linha {@code HASH:CONTAGEM} por senha), para verificar senhas sem acesso à rede.
+ * <p>
+ * Formato (big-endian): magic {@code 0x89 'G' 'D' 'H'}, versão (u16), número de hashes (i64) e
+ * intervalo das amostras (i32); uma tabela de distribuição com 65.537 posições (i64), em que a posição
+ * {@code p} guarda o índice do primeiro hash cujos dois primeiros bytes valem {@code p} ou mais; os
+ * hashes ordenados sem esses dois bytes, já implícitos na tabela (18 bytes cada); o deslocamento (i64)
+ * da contagem de um a cada {@code intervalo} hashes; e as contagens, em varint (LEB128).
+ * <p>
+ * A tabela fica no heap e limita a busca binária aos hashes do mesmo prefixo, lidos diretamente do
+ * arquivo mapeado em memória. O mapeamento é feito em blocos de até 1 GiB que se sobrepõem em alguns
+ * bytes, para que nenhum hash ou contagem fique dividido entre dois blocos: a base completa tem
+ * dezenas de GiB, acima do limite de 2 GiB de cada {@link MappedByteBuffer}.
+ */
+public final class BaseVazamentos implements Closeable {
+
+    static final int VERSAO = 1;
+    static final int TAMANHO_HASH = 20;
+    static final int TAMANHO_SUFIXO = TAMANHO_HASH - 2;
+    static final int INTERVALO_AMOSTRAS = 64;
+    private static final int POSICOES_TABELA = 65_537;
+    private static final byte[] MAGIC = {(byte) 0x89, 'G', 'D', 'H'};
+    private static final int TAMANHO_CABECALHO = MAGIC.length + 2 + 8 + 4;
+    private static final long INICIO_HASHES = TAMANHO_CABECALHO + POSICOES_TABELA * 8L;
+    private static final long TAMANHO_BLOCO_PADRAO = 1L << 30;
+    // Maior leitura feita de uma vez: um sufixo (18 bytes), um long ou um varint (até 10 bytes)
+    private static final int SOBREPOSICAO = 32;
+
+    private final FileChannel canal;
+    private final MappedByteBuffer[] blocos;
+    private final long tamanhoBloco;
+    private final int deslocamentoBloco;
+    private final long[] tabela;
+    private final long totalHashes;
+    private final int intervalo;
+    private final long inicioAmostras;
+    private final long inicioContagens;
+
+    /**
+     * Abre uma base gerada por {@link #importa(Path, Path)}.
+     *
+     * @param arquivo arquivo da base
+     * @return a base aberta, que deve ser fechada pelo chamador
+     * @throws IOException se o arquivo não puder ser mapeado ou não for uma base válida
+     */
+    public static BaseVazamentos abre(Path arquivo) throws IOException {
+        return new BaseVazamentos(arquivo, TAMANHO_BLOCO_PADRAO);
+    }
+
+    BaseVazamentos(Path arquivo, long tamanhoBloco) throws IOException {
+        if (Long.bitCount(tamanhoBloco) != 1) {
+            throw new IllegalArgumentException("O tamanho do bloco deve ser uma potência de 2.");
+        }
+        this.tamanhoBloco = tamanhoBloco;
+        this.deslocamentoBloco = Long.numberOfTrailingZeros(tamanhoBloco);
+        this.canal = FileChannel.open(arquivo, StandardOpenOption.READ);
+        try {
+            long tamanho = canal.size();
+            ByteBuffer cabecalho = ByteBuffer.allocate((int) INICIO_HASHES);
+            while (cabecalho.hasRemaining() && canal.read(cabecalho, cabecalho.position()) > 0) {
+                // lê o cabeçalho e a tabela inteiros
+            }
+            cabecalho.flip();
+            byte[] magic = new byte[MAGIC.length];
+            if (cabecalho.remaining() == INICIO_HASHES) {
+                cabecalho.get(magic);
+            }
+            if (!Arrays.equals(magic, MAGIC)) {
+                throw new IOException("Arquivo não é uma base de senhas vazadas: " + arquivo);
+            }
+            int versao = Short.toUnsignedInt(cabecalho.getShort());
+            if (versao != VERSAO) {
+                throw new IOException("Versão não suportada da base de senhas vazadas: " + versao);
+            }
+            this.totalHashes = cabecalho.getLong();
+            this.intervalo = cabecalho.getInt();
+            if (totalHashes < 0 || intervalo <= 0) {
+                throw new IOException("Cabeçalho inválido na base de senhas vazadas.");
+            }
+            this.tabela = new long[POSICOES_TABELA];
+            for (int i = 0; i < POSICOES_TABELA; i++) {
+                tabela[i] = cabecalho.getLong();
+                if (i > 0 && tabela[i] < tabela[i - 1]) {
+                    throw new IOException("Tabela de distribuição inválida na base de senhas vazadas.");
+                }
+            }
+            if (tabela[0] != 0 || tabela[POSICOES_TABELA - 1] != totalHashes) {
+                throw new IOException("Tabela de distribuição inválida na base de senhas vazadas.");
+            }
+            this.inicioAmostras = INICIO_HASHES + totalHashes * TAMANHO_SUFIXO;
+            this.inicioContagens = inicioAmostras + amostras(totalHashes, intervalo) * 8;
+            if (inicioContagens > tamanho) {
+                throw new IOException("Base de senhas vazadas truncada.");
+            }
+            this.blocos = mapeia(tamanho);
+        } catch (IOException | RuntimeException e) {
+            canal.close();
+            throw e;
+        }
+    }
+
+    private MappedByteBuffer[] mapeia(long tamanho) throws IOException {
+        int quantidade = (int) Math.max(1, (tamanho + tamanhoBloco - 1) / tamanhoBloco);
+        MappedByteBuffer[] mapeados = new MappedByteBuffer[quantidade];
+        for (int i = 0; i < quantidade; i++) {
+            long inicio = i * tamanhoBloco;
+            long fim = Math.min(tamanho, inicio + tamanhoBloco + SOBREPOSICAO);
+            mapeados[i] = canal.map(FileChannel.MapMode.READ_ONLY, inicio, fim - inicio);
+        }
+        return mapeados;
+    }
+
+    /**
+     * Quantas vezes a senha aparece em vazamentos.
+     *
+     * @param senha senha em texto
+     * @return o número de ocorrências, ou 0 se a senha não estiver na base
+     */
+    public long ocorrencias(String senha) {
+        return ocorrencias(sha1(senha));
+    }
+
+    /**
+     * Quantas vezes o hash aparece em vazamentos.
+     *
+     * @param sha1 hash SHA-1 (20 bytes)
+     * @return o número de ocorrências, ou 0 se o hash não estiver na base
+     * @throws IllegalArgumentException se o hash não tiver 20 bytes
+     */
+    public long ocorrencias(byte[] sha1) {
+        if (sha1.length != TAMANHO_HASH) {
+            throw new IllegalArgumentException("O hash SHA-1 deve ter 20 bytes.");
+        }
+        int prefixo = (sha1[0] & 0xFF) << 8 | sha1[1] & 0xFF;
+        long inicio = tabela[prefixo];
+        long fim = tabela[prefixo + 1] - 1;
+        while (inicio <= fim) {
+            long meio = (inicio + fim) >>> 1;
+            int comparacao = comparaSufixo(meio, sha1);
+            if (comparacao < 0) {
+                inicio = meio + 1;
+            } else if (comparacao > 0) {
+                fim = meio - 1;
+            } else {
+                return contagem(meio);
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Número de hashes na base.
+     */
+    public long tamanho() {
+        return totalHashes;
+    }
+
+    @Override
+    public void close() throws IOException {
+        canal.close();
+    }
+
+    private int comparaSufixo(long indice, byte[] sha1) {
+        long posicao = INICIO_HASHES + indice * TAMANHO_SUFIXO;
+        MappedByteBuffer bloco = bloco(posicao);
+        int offset = offset(posicao);
+        for (int i = 0; i < TAMANHO_SUFIXO; i++) {
+            int diferenca = (bloco.get(offset + i) & 0xFF) - (sha1[i + 2] & 0xFF);
+            if (diferenca != 0) {
+                return diferenca;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Contagem do hash de índice informado: parte da amostra anterior e pula as contagens até ele.
+     */
+    private long contagem(long indice) {
+        long amostra = indice / intervalo;
+        long posicaoAmostra = inicioAmostras + amostra * 8;
+        long posicao = inicioContagens + bloco(posicaoAmostra).getLong(offset(posicaoAmostra));
+        long pular = indice - amostra * intervalo;
+
+        // Quase sempre as contagens a pular estão no mesmo bloco e são lidas direto dele
+        MappedByteBuffer bloco = bloco(posicao);
+        int offset = offset(posicao);
+        int inicio = offset;
+        while (pular > 0 && offset < bloco.limit()) {
+            if ((bloco.get(offset++) & 0x80) == 0) {
+                pular--;
+            }
+        }
+        posicao += offset - inicio;
+        while (pular > 0) {
+            if ((leByte(posicao++) & 0x80) == 0) {
+                pular--;
+            }
+        }
+        long valor = 0;
+        for (int deslocamento = 0; ; deslocamento += 7) {
+            byte b = leByte(posicao++);
+            valor |= (long) (b & 0x7F) << deslocamento;
+            if ((b & 0x80) == 0) {
+                return valor;
+            }
+        }
+    }
+
+    private byte leByte(long posicao) {
+        return bloco(posicao).get(offset(posicao));
+    }
+
+    private MappedByteBuffer bloco(long posicao) {
+        return blocos[(int) (posicao >>> deslocamentoBloco)];
+    }
+
+    private int offset(long posicao) {
+        return (int) (posicao & tamanhoBloco - 1);
+    }
+
+    private static long amostras(long hashes, int intervalo) {
+        return (hashes + intervalo - 1) / intervalo;
+    }
+
+    static byte[] sha1(String senha) {
+        try {
+            return MessageDigest.getInstance("SHA-1").digest(senha.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-1 indisponível.", e);
+        }
+    }
+
+    /**
+     * Importa o arquivo do Pwned Passwords na versão ordenada por hash (SHA-1). O arquivo é lido uma
+     * única vez e em fluxo; os hashes vão direto para a base e as contagens e amostras para arquivos
+     * temporários, anexados no final. A base só substitui o destino depois de gravada e sincronizada.
+     *
+     * @param dump    arquivo texto com linhas {@code HASH:CONTAGEM}, em ordem crescente de hash
+     * @param destino arquivo da base
+     * @return estatísticas da importação
+     * @throws IOException se a leitura ou a gravação falhar, ou se o arquivo estiver fora de ordem ou malformado
+     */
+    public static EstatisticasImportacao importa(Path dump, Path destino) throws IOException {
+        long inicio = System.nanoTime();
+        Path temporario = destino.resolveSibling(destino.getFileName() + ".tmp");
+        Path contagens = destino.resolveSibling(destino.getFileName() + ".contagens.tmp");
+        Path amostras = destino.resolveSibling(destino.getFileName() + ".amostras.tmp");
+        try {
+            long[] distribuicao = new long[POSICOES_TABELA];
+            long total = 0;
+            try (FileChannel saida = FileChannel.open(temporario, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                saida.position(INICIO_HASHES);
+                // Não é fechado: fechar o stream fecharia também o canal, que ainda recebe o restante
+                OutputStream hashes = new BufferedOutputStream(Channels.newOutputStream(saida), 1 << 16);
+                try (BufferedReader leitor = Files.newBufferedReader(dump, StandardCharsets.US_ASCII);
+                     OutputStream saidaContagens = new BufferedOutputStream(Files.newOutputStream(contagens), 1 << 16);
+                     DataOutputStream saidaAmostras = new DataOutputStream(
+                             new BufferedOutputStream(Files.newOutputStream(amostras)))) {
+                    byte[] hash = new byte[TAMANHO_HASH];
+                    byte[] anterior = null;
+                    long bytesContagens = 0;
+                    long numeroLinha = 0;
+                    String linha;
+                    while ((linha = leitor.readLine()) != null) {
+                        numeroLinha++;
+                        linha = linha.strip();
+                        if (linha.isEmpty()) {
+                            continue;
+                        }
+                        long ocorrencias = leLinha(linha, hash, numeroLinha);
+                        if (anterior != null && Arrays.compareUnsigned(anterior, hash) >= 0) {
+                            throw new IOException("A base deve estar ordenada por hash, sem repetições (linha "
+                                    + numeroLinha + "). Use a versão \"ordered by hash\" do Pwned Passwords.");
+                        }
+                        anterior = anterior == null ? hash.clone() : copia(hash, anterior);
+
+                        distribuicao[((hash[0] & 0xFF) << 8 | hash[1] & 0xFF) + 1]++;
+                        hashes.write(hash, 2, TAMANHO_SUFIXO);
+                        if (total % INTERVALO_AMOSTRAS == 0) {
+                            saidaAmostras.writeLong(bytesContagens);
+                        }
+                        bytesContagens += escreveVarint(saidaContagens, ocorrencias);
+                        total++;
+                    }
+                    hashes.flush();
+                }
+                anexa(saida, amostras);
+                anexa(saida, contagens);
+
+                ByteBuffer cabecalho = ByteBuffer.allocate((int) INICIO_HASHES);
+                cabecalho.put(MAGIC).putShort((short) VERSAO).putLong(total).putInt(INTERVALO_AMOSTRAS);
+                for (int i = 1; i < POSICOES_TABELA; i++) {
+                    distribuicao[i] += distribuicao[i - 1];
+                }
+                for (long posicao : distribuicao) {
+                    cabecalho.putLong(posicao);
+                }
+                cabecalho.flip();
+                while (cabecalho.hasRemaining()) {
+                    saida.write(cabecalho, cabecalho.position());
+                }
+                saida.force(true);
+            }
+            Files.move(temporario, destino, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return new EstatisticasImportacao(total, Files.size(destino), System.nanoTime() - inicio);
+        } finally {
+            Files.deleteIfExists(temporario);
+            Files.deleteIfExists(contagens);
+            Files.deleteIfExists(amostras);
+        }
+    }
+
+    private static byte[] copia(byte[] origem, byte[] destino) {
+        System.arraycopy(origem, 0, destino, 0, origem.length);
+        return destino;
+    }
+
+    /**
+     * Lê {@code HASH:CONTAGEM} (40 dígitos hexadecimais) para {@code hash} e devolve a contagem.
+     */
+    private static long leLinha(String linha, byte[] hash, long numeroLinha) throws IOException {
+        int separador = TAMANHO_HASH * 2;
+        if (linha.length() <= separador + 1 || linha.length() > separador + 19 || linha.charAt(separador) != ':') {
+            throw new IOException("Linha inválida na base de senhas vazadas (linha " + numeroLinha + ").");
+        }
+        for (int i = 0; i < TAMANHO_HASH; i++) {
+            int alto = Character.digit(linha.charAt(2 * i), 16);
+            int baixo = Character.digit(linha.charAt(2 * i + 1), 16);
+            if (alto < 0 || baixo < 0) {
+                throw new IOException("Hash inválido na base de senhas vazadas (linha " + numeroLinha + ").");
+            }
+            hash[i] = (byte) (alto << 4 | baixo);
+        }
+        long contagem = 0;
+        for (int i = separador + 1; i < linha.length(); i++) {
+            int digito = linha.charAt(i) - '0';
+            if (digito < 0 || digito > 9) {
+                throw new IOException("Contagem inválida na base de senhas vazadas (linha " + numeroLinha + ").");
+            }
+            contagem = contagem * 10 + digito;
+        }
+        return contagem;
+    }
+
+    private static int escreveVarint(OutputStream saida, long valor) throws IOException {
+        int bytes = 1;
+        while ((valor & ~0x7FL) != 0) {
+            saida.write((int) (valor & 0x7F) | 0x80);
+            valor >>>= 7;
+            bytes++;
+        }
+        saida.write((int) valor);
+        return bytes;
+    }
+
+    private static void anexa(FileChannel saida, Path arquivo) throws IOException {
+        try (FileChannel entrada = FileChannel.open(arquivo, StandardOpenOption.READ)) {
+            long tamanho = entrada.size();
+            long posicao = saida.position();
+            long copiados = 0;
+            while (copiados < tamanho) {
+                copiados += saida.transferFrom(entrada, posicao + copiados, tamanho - copiados);
+            }
+            saida.position(posicao + tamanho);
+        }
+    }
+
+    /**
+     * Estatísticas de uma importação.
+     *
+     * @param hashes       número de hashes importados
+     * @param bytes        tamanho da base gerada
+     * @param duracaoNanos duração da importação
+     */
+    public record EstatisticasImportacao(long hashes, long bytes, long duracaoNanos) {
+    }
+}
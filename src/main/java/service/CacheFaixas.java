@@ -0,0 +1,387 @@
+package service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Cache das faixas da API Pwned Passwords, por prefixo de 5 dígitos, em dois níveis: poucas faixas
+ * em memória e muitas mais em disco (um arquivo {@code PREFIXO.faixa} por faixa, com o instante da
+ * consulta e a forma binária de {@link FaixaHibp}). As faixas baixadas são gravadas nos dois níveis, então
+ * continuam valendo na próxima execução; ao sair da memória, continuam no disco.
+ * <p>
+ * Os dois níveis descartam a faixa usada há mais tempo (LRU) quando ultrapassam a capacidade, e uma
+ * faixa mais antiga que a validade é tratada como ausente e baixada de novo. A ordem de uso do disco
+ * é mantida também na data de modificação dos arquivos, para sobreviver a reinícios.
+ * <p>
+ * Thread-safe. O lock protege só os índices em memória: a leitura, a gravação e a remoção dos arquivos
+ * e o download de uma faixa ausente acontecem fora dele, então as consultas concorrentes da auditoria
+ * (threads virtuais) não passam pelo disco uma de cada vez nem prendem a thread portadora.
+ */
+public class CacheFaixas {
+
+    /**
+     * Diretório padrão das faixas em disco.
+     */
+    public static final Path DIRETORIO_PADRAO = Paths.get("hibp_cache");
+    public static final int CAPACIDADE_MEMORIA_PADRAO = 512;
+    public static final int CAPACIDADE_DISCO_PADRAO = 8192;
+    public static final Duration VALIDADE_PADRAO = Duration.ofDays(1);
+    private static final String EXTENSAO = ".faixa";
+
+    private final int capacidadeMemoria;
+    private final int capacidadeDisco;
+    private final Duration validade;
+    private final Path diretorio;
+    private final Clock relogio;
+
+    // Protege só os índices em memória; nenhum acesso a disco acontece com ele
+    private final ReentrantLock trava = new ReentrantLock();
+    private final LinkedHashMap<String, Entrada> memoria = new LinkedHashMap<>(16, 0.75f, true);
+    // Prefixo -> instante da consulta, na ordem de uso; carregado do diretório no primeiro acesso
+    private volatile LinkedHashMap<String, Long> disco;
+
+    private final LongAdder acertosMemoria = new LongAdder();
+    private final LongAdder acertosDisco = new LongAdder();
+    private final LongAdder faltas = new LongAdder();
+    private final LongAdder expiradas = new LongAdder();
+
+    /**
+     * Cache com as capacidades e a validade padrão, em {@link #DIRETORIO_PADRAO}.
+     */
+    public CacheFaixas() {
+        this(CAPACIDADE_MEMORIA_PADRAO, CAPACIDADE_DISCO_PADRAO, VALIDADE_PADRAO, DIRETORIO_PADRAO);
+    }
+
+    /**
+     * @param capacidadeMemoria número máximo de faixas em memória (cerca de 20 KiB cada)
+     * @param capacidadeDisco   número máximo de faixas em disco; 0 desliga o disco
+     * @param validade          idade máxima de uma faixa
+     * @param diretorio         diretório das faixas em disco, ou {@code null} para usar só a memória
+     */
+    public CacheFaixas(int capacidadeMemoria, int capacidadeDisco, Duration validade, Path diretorio) {
+        this(capacidadeMemoria, capacidadeDisco, validade, diretorio, Clock.systemUTC());
+    }
+
+    CacheFaixas(int capacidadeMemoria, int capacidadeDisco, Duration validade, Path diretorio, Clock relogio) {
+        if (capacidadeMemoria < 1 || capacidadeDisco < 0) {
+            throw new IllegalArgumentException("Capacidade inválida para o cache de faixas.");
+        }
+        if (validade.isNegative() || validade.isZero()) {
+            throw new IllegalArgumentException("A validade do cache de faixas deve ser positiva.");
+        }
+        this.capacidadeMemoria = capacidadeMemoria;
+        this.capacidadeDisco = diretorio == null ? 0 : capacidadeDisco;
+        this.validade = validade;
+        this.diretorio = diretorio;
+        this.relogio = relogio;
+    }
+
+    /**
+     * Faixa do prefixo, do cache ou, se ausente ou vencida, da fonte (e guardada em seguida).
+     *
+     * @param prefixo os 5 primeiros dígitos hexadecimais do SHA-1
+     * @param fonte   origem da faixa em caso de falta
+     * @return a faixa
+     * @throws IOException se a faixa não estiver no cache e a fonte falhar
+     * @throws IllegalArgumentException se o prefixo não tiver 5 dígitos hexadecimais
+     */
+    public FaixaHibp busca(String prefixo, FonteFaixas fonte) throws IOException {
+        if (!prefixoValido(prefixo)) {
+            throw new IllegalArgumentException("O prefixo deve conter exatamente 5 caracteres hexadecimais.");
+        }
+        prefixo = prefixo.toUpperCase(Locale.ROOT);
+        FaixaHibp faixa = buscaGuardada(prefixo);
+        if (faixa != null) {
+            return faixa;
+        }
+        faltas.increment();
+        faixa = fonte.baixa(prefixo);
+        guarda(prefixo, faixa);
+        return faixa;
+    }
+
+    private static boolean prefixoValido(String prefixo) {
+        if (prefixo.length() != 5) {
+            return false;
+        }
+        for (int i = 0; i < 5; i++) {
+            if (!HexFormat.isHexDigit(prefixo.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private FaixaHibp buscaGuardada(String prefixo) {
+        long agora = relogio.millis();
+        LinkedHashMap<String, Long> indice = indiceDisco();
+        Long instante;
+        trava.lock();
+        try {
+            Entrada entrada = memoria.get(prefixo);
+            if (entrada != null) {
+                if (valida(entrada.instante(), agora)) {
+                    acertosMemoria.increment();
+                    return entrada.faixa();
+                }
+                memoria.remove(prefixo);
+                expiradas.increment();
+            }
+            instante = indice.get(prefixo);
+            if (instante == null) {
+                return null;
+            }
+            if (!valida(instante, agora)) {
+                expiradas.increment();
+                indice.remove(prefixo);
+            }
+        } finally {
+            trava.unlock();
+        }
+
+        Path arquivo = arquivo(prefixo);
+        if (!valida(instante, agora)) {
+            apaga(List.of(prefixo));
+            return null;
+        }
+        try {
+            FaixaHibp faixa = FaixaHibp.desserializa(corpo(Files.readAllBytes(arquivo)));
+            Files.setLastModifiedTime(arquivo, FileTime.fromMillis(agora));
+            trava.lock();
+            try {
+                poeNaMemoria(prefixo, new Entrada(faixa, instante));
+            } finally {
+                trava.unlock();
+            }
+            acertosDisco.increment();
+            return faixa;
+        } catch (IOException e) {
+            // Também acontece se outra thread removeu o arquivo entre a consulta ao índice e a leitura
+            System.err.println("Descartando faixa inválida do cache: " + arquivo + " (" + e.getMessage() + ")");
+            boolean removida;
+            trava.lock();
+            try {
+                removida = indice.remove(prefixo, instante);
+            } finally {
+                trava.unlock();
+            }
+            if (removida) {
+                apaga(List.of(prefixo));
+            }
+            return null;
+        }
+    }
+
+    private void guarda(String prefixo, FaixaHibp faixa) {
+        long agora = relogio.millis();
+        trava.lock();
+        try {
+            poeNaMemoria(prefixo, new Entrada(faixa, agora));
+        } finally {
+            trava.unlock();
+        }
+        if (capacidadeDisco == 0) {
+            return;
+        }
+        LinkedHashMap<String, Long> indice = indiceDisco();
+        byte[] serializada = faixa.serializa();
+        ByteBuffer conteudo = ByteBuffer.allocate(Long.BYTES + serializada.length).putLong(agora).put(serializada);
+        try {
+            Files.createDirectories(diretorio);
+            // Nome único, para que duas threads guardando o mesmo prefixo não gravem no mesmo temporário
+            Path temporario = Files.createTempFile(diretorio, prefixo, EXTENSAO + ".tmp");
+            try {
+                Files.write(temporario, conteudo.array());
+                Files.setLastModifiedTime(temporario, FileTime.fromMillis(agora));
+                Files.move(temporario, arquivo(prefixo), StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temporario);
+            }
+        } catch (IOException e) {
+            // O cache em disco é só uma otimização: a faixa continua em memória
+            System.err.println("Erro ao gravar a faixa no cache em disco: " + e.getMessage());
+            return;
+        }
+        List<String> excedentes = new ArrayList<>();
+        trava.lock();
+        try {
+            indice.put(prefixo, agora);
+            Iterator<String> maisAntigas = indice.keySet().iterator();
+            while (indice.size() > capacidadeDisco) {
+                excedentes.add(maisAntigas.next());
+                maisAntigas.remove();
+            }
+        } finally {
+            trava.unlock();
+        }
+        apaga(excedentes);
+    }
+
+    private void poeNaMemoria(String prefixo, Entrada entrada) {
+        memoria.put(prefixo, entrada);
+        Iterator<String> maisAntigas = memoria.keySet().iterator();
+        while (memoria.size() > capacidadeMemoria) {
+            maisAntigas.next();
+            maisAntigas.remove();
+        }
+    }
+
+    /**
+     * Apaga os arquivos de faixas já retiradas do índice; chamado fora do lock.
+     */
+    private void apaga(List<String> prefixos) {
+        for (String prefixo : prefixos) {
+            try {
+                Files.deleteIfExists(arquivo(prefixo));
+            } catch (IOException e) {
+                System.err.println("Erro ao remover a faixa do cache em disco: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Índice das faixas em disco, montado na primeira consulta a partir dos arquivos do diretório,
+     * em ordem de data de modificação (a do último uso). A varredura do diretório acontece fora do
+     * lock; se duas threads a fizerem ao mesmo tempo, vale a primeira publicada.
+     */
+    private LinkedHashMap<String, Long> indiceDisco() {
+        LinkedHashMap<String, Long> atual = disco;
+        if (atual != null) {
+            return atual;
+        }
+        LinkedHashMap<String, Long> carregado = carregaIndiceDisco();
+        trava.lock();
+        try {
+            if (disco == null) {
+                disco = carregado;
+            }
+            return disco;
+        } finally {
+            trava.unlock();
+        }
+    }
+
+    private LinkedHashMap<String, Long> carregaIndiceDisco() {
+        LinkedHashMap<String, Long> indice = new LinkedHashMap<>(16, 0.75f, true);
+        if (capacidadeDisco == 0 || !Files.isDirectory(diretorio)) {
+            return indice;
+        }
+        List<Map.Entry<Path, Long>> arquivos = new ArrayList<>();
+        try (DirectoryStream<Path> listagem = Files.newDirectoryStream(diretorio, "*" + EXTENSAO)) {
+            for (Path arquivo : listagem) {
+                arquivos.add(Map.entry(arquivo, Files.getLastModifiedTime(arquivo).toMillis()));
+            }
+        } catch (IOException e) {
+            System.err.println("Erro ao ler o cache de faixas em disco: " + e.getMessage());
+            return indice;
+        }
+        arquivos.sort(Map.Entry.comparingByValue(Comparator.naturalOrder()));
+        for (Map.Entry<Path, Long> arquivo : arquivos) {
+            String nome = arquivo.getKey().getFileName().toString();
+            String prefixo = nome.substring(0, nome.length() - EXTENSAO.length());
+            try {
+                indice.put(prefixo, ByteBuffer.wrap(lePrimeirosBytes(arquivo.getKey())).getLong());
+            } catch (IOException e) {
+                System.err.println("Descartando faixa inválida do cache: " + arquivo.getKey());
+            }
+        }
+        return indice;
+    }
+
+    private static byte[] lePrimeirosBytes(Path arquivo) throws IOException {
+        try (var entrada = Files.newInputStream(arquivo)) {
+            byte[] bytes = entrada.readNBytes(Long.BYTES);
+            if (bytes.length < Long.BYTES) {
+                throw new IOException("Faixa armazenada inválida.");
+            }
+            return bytes;
+        }
+    }
+
+    private static byte[] corpo(byte[] conteudo) throws IOException {
+        if (conteudo.length < Long.BYTES) {
+            throw new IOException("Faixa armazenada inválida.");
+        }
+        byte[] corpo = new byte[conteudo.length - Long.BYTES];
+        System.arraycopy(conteudo, Long.BYTES, corpo, 0, corpo.length);
+        return corpo;
+    }
+
+    private boolean valida(long instante, long agora) {
+        return agora - instante < validade.toMillis();
+    }
+
+    private Path arquivo(String prefixo) {
+        return diretorio.resolve(prefixo + EXTENSAO);
+    }
+
+    /**
+     * Descarta as faixas em memória; as do disco são mantidas.
+     */
+    public void limpaMemoria() {
+        trava.lock();
+        try {
+            memoria.clear();
+        } finally {
+            trava.unlock();
+        }
+    }
+
+    /**
+     * Contadores de uso desde a criação do cache.
+     */
+    public Estatisticas getEstatisticas() {
+        LinkedHashMap<String, Long> indice = indiceDisco();
+        trava.lock();
+        try {
+            return new Estatisticas(acertosMemoria.sum(), acertosDisco.sum(), faltas.sum(), expiradas.sum(),
+                    memoria.size(), indice.size());
+        } finally {
+            trava.unlock();
+        }
+    }
+
+    private record Entrada(FaixaHibp faixa, long instante) {
+    }
+
+    /**
+     * Contadores do cache.
+     *
+     * @param acertosMemoria consultas atendidas pela memória
+     * @param acertosDisco   consultas atendidas pelo disco
+     * @param faltas         consultas que precisaram da fonte (inclui as vencidas)
+     * @param expiradas      faixas descartadas por passarem da validade
+     * @param faixasMemoria  faixas em memória
+     * @param faixasDisco    faixas em disco
+     */
+    public record Estatisticas(long acertosMemoria, long acertosDisco, long faltas, long expiradas,
+                               int faixasMemoria, int faixasDisco) {
+
+        /**
+         * Fração das consultas atendidas sem a fonte.
+         */
+        public double taxaAcerto() {
+            long total = acertosMemoria + acertosDisco + faltas;
+            return total == 0 ? 0 : (double) (acertosMemoria + acertosDisco) / total;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package service;
+
+import model.Credencial;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Corpos de registro criptografados (ver {@link FormatoCofre#codificaRegistro(Credencial)}) que já
+ * estão no disco, indexados pela credencial que representam. Como {@link Credencial} é imutável,
+ * uma credencial alterada é outro valor e não encontra o corpo antigo: só as adicionadas ou alteradas
+ * precisam ser criptografadas de novo, e as removidas simplesmente deixam de ser gravadas.
+ * <p>
+ * Os corpos valem apenas para a chave de sessão com que foram criados; quando a chave muda, o cache
+ * é descartado na próxima consulta.
+ */
+final class CacheRegistros {
+
+    private static volatile Estado estado = new Estado(null, new ConcurrentHashMap<>());
+
+    private CacheRegistros() {
+        // Classe utilitária, não deve ser instanciada
+    }
+
+    /**
+     * Corpo já gravado da credencial, se houver.
+     *
+     * @param credencial credencial sanitizada
+     * @return o corpo do registro, ou {@code null}
+     * @throws IllegalStateException se a chave da sessão não estiver definida
+     */
+    static byte[] busca(Credencial credencial) {
+        return corposDaSessao().get(credencial);
+    }
+
+    /**
+     * Registra o corpo gravado de uma credencial.
+     *
+     * @param credencial credencial sanitizada
+     * @param corpo      corpo do registro, criptografado com a chave da sessão atual
+     */
+    static void registra(Credencial credencial, byte[] corpo) {
+        corposDaSessao().put(credencial, corpo);
+    }
+
+    /**
+     * Substitui o cache pelos corpos de um arquivo recém-gravado ou carregado, descartando os
+     * das credenciais que não estão mais nele.
+     *
+     * @param corpos corpos por credencial, criptografados com a chave da sessão atual
+     */
+    static synchronized void substitui(Map<Credencial, byte[]> corpos) {
+        estado = new Estado(EncriptacaoService.getSessionSecretKey(), new ConcurrentHashMap<>(corpos));
+    }
+
+    /**
+     * Descarta todos os corpos.
+     */
+    static synchronized void limpa() {
+        estado = new Estado(null, new ConcurrentHashMap<>());
+    }
+
+    /**
+     * Número de corpos guardados.
+     */
+    static int tamanho() {
+        return estado.corpos().size();
+    }
+
+    private static Map<Credencial, byte[]> corposDaSessao() {
+        SessionKeyContext chave = EncriptacaoService.getSessionSecretKey();
+        Estado atual = estado;
+        if (atual.chave() == chave) {
+            return atual.corpos();
+        }
+        synchronized (CacheRegistros.class) {
+            if (estado.chave() != chave) {
+                estado = new Estado(chave, new ConcurrentHashMap<>());
+            }
+            return estado.corpos();
+        }
+    }
+
+    private record Estado(SessionKeyContext chave, Map<Credencial, byte[]> corpos) {
+    }
+}
@@ -0,0 +1,174 @@
+package service;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cliente da API Pwned Passwords ({@code GET <base>/PREFIXO}) sobre um único {@link HttpClient}:
+ * as conexões são reaproveitadas entre consultas (keep-alive) e, quando o servidor aceita HTTP/2,
+ * as consultas simultâneas compartilham a mesma conexão.
+ * <p>
+ * O tempo limite de conexão vale para abrir cada conexão; o de leitura, para receber a resposta
+ * inteira (cabeçalhos e corpo) depois de enviada a requisição. Ao fim dele a troca é abortada, de modo
+ * que um servidor que pare no meio do corpo não prende a thread chamadora nem a conexão. Thread-safe;
+ * uma instância deve ser compartilhada.
+ */
+public class ClienteVazamentos implements FonteFaixas {
+
+    /**
+     * Endereço da API pública.
+     */
+    public static final URI API_PADRAO = URI.create("https://api.pwnedpasswords.com/range/");
+    public static final Duration TIMEOUT_CONEXAO_PADRAO = Duration.ofSeconds(5);
+    public static final Duration TIMEOUT_LEITURA_PADRAO = Duration.ofSeconds(10);
+
+    private final URI base;
+    private final Duration timeoutLeitura;
+    private final HttpClient http;
+
+    /**
+     * Usa a API pública com os tempos limite padrão.
+     */
+    public ClienteVazamentos() {
+        this(API_PADRAO);
+    }
+
+    /**
+     * Usa outro endereço com a mesma interface, como um espelho interno ou um servidor de testes.
+     *
+     * @param base endereço ao qual o prefixo é acrescentado
+     */
+    public ClienteVazamentos(URI base) {
+        this(base, TIMEOUT_CONEXAO_PADRAO, TIMEOUT_LEITURA_PADRAO);
+    }
+
+    /**
+     * @param base           endereço ao qual o prefixo é acrescentado
+     * @param timeoutConexao tempo limite para abrir uma conexão
+     * @param timeoutLeitura tempo limite para receber a resposta inteira, corpo incluído
+     */
+    public ClienteVazamentos(URI base, Duration timeoutConexao, Duration timeoutLeitura) {
+        this.base = base.toString().endsWith("/") ? base : URI.create(base + "/");
+        this.timeoutLeitura = timeoutLeitura;
+        this.http = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(timeoutConexao)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+    }
+
+    private HttpRequest requisicao(String prefixo) {
+        return HttpRequest.newBuilder(base.resolve(prefixo))
+                .timeout(timeoutLeitura)
+                // Completa a resposta com linhas de contagem zero, para o tamanho não revelar a faixa
+                .header("Add-Padding", "true")
+                .GET()
+                .build();
+    }
+
+    private static void confereStatus(HttpResponse<?> resposta) throws IOException {
+        if (resposta.statusCode() != 200) {
+            throw new IOException("A API Pwned Passwords respondeu com HTTP " + resposta.statusCode() + ".");
+        }
+    }
+
+    /**
+     * Consulta a faixa de um prefixo.
+     *
+     * @param prefixo os 5 primeiros dígitos hexadecimais do SHA-1
+     * @return a faixa
+     * @throws IOException se a consulta falhar, exceder o tempo limite ou for interrompida
+     */
+    @Override
+    public FaixaHibp baixa(String prefixo) throws IOException {
+        return FaixaHibp.le(new ByteArrayInputStream(corpo(prefixo)));
+    }
+
+    /**
+     * Consulta um hash sem montar a faixa, parando a decodificação assim que a resposta passa do sufixo.
+     *
+     * @param sha1 SHA-1 completo da senha (20 bytes)
+     * @return o número de ocorrências
+     * @throws IOException se a consulta falhar, exceder o tempo limite ou for interrompida
+     */
+    @Override
+    public int ocorrencias(byte[] sha1) throws IOException {
+        return FaixaHibp.procura(new ByteArrayInputStream(corpo(FaixaHibp.prefixo(sha1))), sha1);
+    }
+
+    private byte[] corpo(String prefixo) throws IOException {
+        CompletableFuture<HttpResponse<byte[]>> envio = envia(prefixo);
+        HttpResponse<byte[]> resposta;
+        try {
+            resposta = envio.get();
+        } catch (InterruptedException e) {
+            envio.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IOException("Consulta à API Pwned Passwords interrompida.", e);
+        } catch (CancellationException | ExecutionException e) {
+            throw falha(e);
+        }
+        confereStatus(resposta);
+        return resposta.body();
+    }
+
+    /**
+     * Consulta a faixa de um prefixo sem bloquear a thread chamadora.
+     *
+     * @param prefixo os 5 primeiros dígitos hexadecimais do SHA-1
+     * @return a faixa; em caso de falha, completa com uma {@link IOException} (como
+     * {@link HttpTimeoutException}) como causa
+     */
+    public CompletableFuture<FaixaHibp> baixaAsync(String prefixo) {
+        return envia(prefixo)
+                .handle((resposta, erro) -> {
+                    try {
+                        if (erro != null) {
+                            throw falha(erro);
+                        }
+                        confereStatus(resposta);
+                        return FaixaHibp.le(new ByteArrayInputStream(resposta.body()));
+                    } catch (IOException e) {
+                        throw new CompletionException(e);
+                    }
+                });
+    }
+
+    /**
+     * Envia a consulta com o prazo de leitura valendo também para o corpo: o tempo limite da requisição
+     * só cobre a espera pelos cabeçalhos, então a troca é cancelada (e a conexão fechada) se a resposta
+     * não tiver chegado inteira até lá.
+     */
+    private CompletableFuture<HttpResponse<byte[]>> envia(String prefixo) {
+        CompletableFuture<HttpResponse<byte[]>> envio =
+                http.sendAsync(requisicao(prefixo), HttpResponse.BodyHandlers.ofByteArray());
+        CompletableFuture.delayedExecutor(timeoutLeitura.toNanos(), TimeUnit.NANOSECONDS)
+                .execute(() -> envio.cancel(true));
+        return envio;
+    }
+
+    private IOException falha(Throwable erro) {
+        Throwable causa = erro;
+        while ((causa instanceof CompletionException || causa instanceof ExecutionException)
+                && causa.getCause() != null) {
+            causa = causa.getCause();
+        }
+        if (causa instanceof CancellationException) {
+            return new HttpTimeoutException("A API Pwned Passwords não concluiu a resposta em "
+                    + timeoutLeitura.toMillis() + " ms.");
+        }
+        return causa instanceof IOException io ? io
+                : new IOException("Falha na consulta à API Pwned Passwords.", causa);
+    }
+}
@@ -0,0 +1,187 @@
+package service;
+
+import model.Credencial;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Códigos TOTP atuais das credenciais que têm semente (ver {@link Credencial#possuiSeedTotp()}), para a
+ * opção "mostrar códigos" do menu.
+ * <p>
+ * Os códigos da janela atual e da próxima são calculados de uma vez, em lote, por um agendador que roda
+ * no início de cada janela, e publicados como um {@link Quadro} imutável; exibir os códigos só lê o quadro,
+ * sem descriptografar nem calcular nada, mesmo com centenas de sementes. Se o agendador se atrasar na
+ * virada da janela, os códigos da próxima janela já calculados passam a ser os atuais. Cada semente é
+ * descriptografada uma vez e o {@link MotorTOTP} criado por {@link TOTPService#motorDaSemente(String)}
+ * é mantido enquanto a credencial existir.
+ */
+public final class CodigosAutenticador implements AutoCloseable {
+
+    private final Supplier<List<Credencial>> credenciais;
+    private final LongSupplier relogioMillis;
+    private final long passoSegundos = MotorTOTP.PASSO_PADRAO_SEGUNDOS;
+    // Motores por semente criptografada; só é acessado dentro de atualiza(long), sincronizado
+    private Map<String, MotorTOTP> motores = new HashMap<>();
+    private volatile Quadro quadro;
+    private ScheduledExecutorService agendador;
+
+    /**
+     * @param credenciais fornece as credenciais atuais a cada atualização (por exemplo,
+     *                    {@code repositorio::credenciais})
+     */
+    public CodigosAutenticador(Supplier<List<Credencial>> credenciais) {
+        this(credenciais, System::currentTimeMillis);
+    }
+
+    CodigosAutenticador(Supplier<List<Credencial>> credenciais, LongSupplier relogioMillis) {
+        this.credenciais = credenciais;
+        this.relogioMillis = relogioMillis;
+    }
+
+    /**
+     * Calcula o primeiro quadro e agenda as próximas atualizações para o início de cada janela.
+     */
+    public synchronized void inicia() {
+        if (agendador != null) {
+            return;
+        }
+        long agora = relogioMillis.getAsLong();
+        atualiza(agora / 1000);
+        agendador = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("codigos-totp").daemon().factory());
+        long passoMillis = passoSegundos * 1000;
+        long ateProximaJanela = passoMillis - Math.floorMod(agora, passoMillis);
+        agendador.scheduleAtFixedRate(this::atualizaAgendado, ateProximaJanela, passoMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private void atualizaAgendado() {
+        try {
+            atualiza(relogioMillis.getAsLong() / 1000);
+        } catch (RuntimeException e) {
+            // Uma exceção cancelaria as próximas execuções; o quadro é recalculado na próxima exibição
+            System.err.println("Falha ao atualizar os códigos TOTP: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Descarta o quadro atual, para que credenciais adicionadas ou removidas apareçam na próxima exibição
+     * sem esperar a virada da janela.
+     */
+    public synchronized void invalida() {
+        quadro = null;
+    }
+
+    /**
+     * Códigos da janela atual, do quadro já calculado quando possível.
+     *
+     * @return os códigos, na ordem das credenciais
+     */
+    public List<Codigo> codigos() {
+        return codigos(relogioMillis.getAsLong() / 1000);
+    }
+
+    /**
+     * Códigos da janela que contém o instante.
+     *
+     * @param instanteSegundos segundos desde a época Unix
+     * @return os códigos, na ordem das credenciais
+     */
+    List<Codigo> codigos(long instanteSegundos) {
+        long janela = Math.floorDiv(instanteSegundos, passoSegundos);
+        Quadro atual = quadro;
+        if (atual == null || (atual.janela() != janela && atual.janela() + 1 != janela)) {
+            atual = atualiza(instanteSegundos);
+        }
+        int restantes = (int) (passoSegundos - Math.floorMod(instanteSegundos, passoSegundos));
+        boolean adiantado = atual.janela() + 1 == janela;
+        List<Codigo> codigos = new ArrayList<>(atual.contas().size());
+        for (Conta conta : atual.contas()) {
+            codigos.add(adiantado
+                    ? new Codigo(conta.servico(), conta.usuario(), conta.proximo(), null, restantes, conta.erro())
+                    : new Codigo(conta.servico(), conta.usuario(), conta.atual(), conta.proximo(), restantes, conta.erro()));
+        }
+        return codigos;
+    }
+
+    /**
+     * Calcula em lote os códigos da janela do instante e da seguinte para todas as credenciais com
+     * semente e publica o novo quadro.
+     *
+     * @param instanteSegundos segundos desde a época Unix
+     * @return o quadro publicado
+     */
+    synchronized Quadro atualiza(long instanteSegundos) {
+        long janela = Math.floorDiv(instanteSegundos, passoSegundos);
+        Map<String, MotorTOTP> usados = new HashMap<>();
+        List<Conta> contas = new ArrayList<>();
+        for (Credencial credencial : credenciais.get()) {
+            if (!credencial.possuiSeedTotp()) {
+                continue;
+            }
+            String seed = credencial.seedTotpEncriptada();
+            MotorTOTP motor = usados.get(seed);
+            if (motor == null) {
+                motor = motores.get(seed);
+            }
+            if (motor == null) {
+                try {
+                    motor = TOTPService.motorDaSemente(EncriptacaoService.decrypt(seed));
+                } catch (Exception e) {
+                    contas.add(new Conta(credencial.nomeServico(), credencial.nomeUsuario(), null, null,
+                            "Erro ao descriptografar a semente TOTP: " + e.getMessage()));
+                    continue;
+                }
+            }
+            usados.put(seed, motor);
+            contas.add(new Conta(credencial.nomeServico(), credencial.nomeUsuario(),
+                    motor.formata(motor.geraNaJanela(janela)), motor.formata(motor.geraNaJanela(janela + 1)), null));
+        }
+        // Sementes de credenciais removidas deixam de ser mantidas
+        motores = usados;
+        Quadro novo = new Quadro(janela, List.copyOf(contas));
+        quadro = novo;
+        return novo;
+    }
+
+    /**
+     * Interrompe o agendador.
+     */
+    @Override
+    public synchronized void close() {
+        if (agendador != null) {
+            agendador.shutdownNow();
+            agendador = null;
+        }
+    }
+
+    /**
+     * Código de uma credencial para exibição.
+     *
+     * @param servico           nome do serviço
+     * @param usuario           nome de usuário
+     * @param codigo            código da janela atual, ou {@code null} se a semente não pôde ser lida
+     * @param proximo           código da próxima janela, ou {@code null} se ainda não calculado
+     * @param segundosRestantes segundos até o código atual expirar
+     * @param erro              mensagem de erro, ou {@code null}
+     */
+    public record Codigo(String servico, String usuario, String codigo, String proximo, int segundosRestantes,
+                         String erro) {
+    }
+
+    /**
+     * Códigos calculados em lote para uma janela e a seguinte.
+     */
+    record Quadro(long janela, List<Conta> contas) {
+    }
+
+    record Conta(String servico, String usuario, String atual, String proximo, String erro) {
+    }
+}
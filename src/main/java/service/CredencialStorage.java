@@ -3,21 +3,48 @@ package service;
 import model.Credencial;
 import utils.InputSanitizer;
 
-import java.io.BufferedReader;
-import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 /**
  * Responsável por salvar e carregar credenciais de/para um arquivo criptografado.
+ * O arquivo é gravado no formato binário descrito em {@link FormatoCofre}; um arquivo no formato
+ * legado (uma linha Base64 por credencial) é lido normalmente e migrado na primeira carga.
+ * As alterações feitas durante a sessão vão para o journal ({@link JournalCredenciais}), que é
+ * reaplicado sobre o arquivo na carga.
  */
 public class CredencialStorage {
     private static final Path FILE_PATH = Paths.get("credentials.dat");
+    private static final Path LEGADO_PATH = Paths.get("credentials_v1.dat");
+    private static final Path JOURNAL_PATH = Paths.get("credentials.journal");
+    private static final int PARALELISMO_PADRAO =
+            Integer.getInteger("gerenciador.paralelismo", Runtime.getRuntime().availableProcessors());
+    private static final int REGISTROS_POR_TAREFA = 64;
+    private static final int BLOCOS_POR_THREAD = 4;
+
+    private static volatile EstatisticasCarga ultimaCarga = null;
+    private static volatile EstatisticasGravacao ultimaGravacao = null;
 
     /**
      * Salva uma lista de credenciais em um arquivo criptografado.
@@ -27,82 +54,571 @@ public class CredencialStorage {
      * @param credentials 
      * @throws Exception 
      */
-    public static void saveCredenciais(List<Credencial> credenciais) throws Exception {
-        List<String> encryptedLines = new ArrayList<>();
+    public static void saveCredenciais(Collection<Credencial> credenciais) throws Exception {
+        saveCredenciais(credenciais, PARALELISMO_PADRAO);
+    }
 
-        for (Credencial cred : credenciais) {
-            String nomeServico;
-            String nomeUsuario;
-            String senhaEncriptada;
+    /**
+     * Salva uma lista de credenciais em um arquivo criptografado, em pipeline: blocos de
+     * {@link #REGISTROS_POR_TAREFA} credenciais são sanitizados e criptografados em paralelo enquanto
+     * a thread chamadora, como única escritora, grava os blocos prontos em ordem. Credenciais que não
+     * mudaram desde a última carga ou gravação têm o registro criptografado copiado sem alteração
+     * (ver {@link CacheRegistros}); só as novas ou alteradas são criptografadas. No máximo
+     * {@link #BLOCOS_POR_THREAD} blocos por thread ficam em memória ao mesmo tempo, independentemente
+     * do tamanho da lista. O arquivo é gravado em um temporário e só substitui o atual no final.
+     * A lista é gravada por completo, então o journal existente deixa de valer e é apagado; não use
+     * este método enquanto um {@link JournalCredenciais} estiver aberto.
+     *
+     * @param credenciais credenciais a serem salvas
+     * @param paralelismo número de threads de criptografia
+     * @throws Exception Se ocorrer um erro durante a criptografia ou gravação do arquivo.
+     */
+    public static void saveCredenciais(Collection<Credencial> credenciais, int paralelismo) throws Exception {
+        List<Credencial> lista = credenciais instanceof List<Credencial> l ? l : new ArrayList<>(credenciais);
+        gravaBase(lista, paralelismo, JournalCredenciais.proximaGeracao(JOURNAL_PATH), true);
+        JournalCredenciais.descarta(JOURNAL_PATH);
+    }
 
-            try {
-                // Garante que todos os campos estão sanitizados
-                nomeServico = InputSanitizer.sanitize(cred.nomeServico(), 50, false);
-                nomeUsuario = InputSanitizer.sanitize(cred.nomeUsuario(), 50, false);
-                senhaEncriptada = InputSanitizer.sanitize(cred.senhaEncriptada(), 128, false);
+    /**
+     * Grava o arquivo base com a geração de journal informada, opcionalmente guardando o anterior
+     * em {@code credentials_backup.dat}.
+     */
+    private static void gravaBase(List<Credencial> credenciais, int paralelismo, long geracao,
+                                  boolean backup) throws Exception {
+        if (paralelismo < 1) {
+            throw new IllegalArgumentException("O paralelismo deve ser maior que zero.");
+        }
+        long inicio = System.nanoTime();
+        Path temporario = FILE_PATH.resolveSibling(FILE_PATH.getFileName() + ".tmp");
+        Map<Credencial, byte[]> gravados = new HashMap<>();
+        int reaproveitados = 0;
+        ExecutorService executor = Executors.newFixedThreadPool(paralelismo);
+        Deque<Future<BlocoEncriptado>> pendentes = new ArrayDeque<>();
+        int janela = paralelismo * BLOCOS_POR_THREAD;
 
-                String line = String.format("%s,%s,%s", nomeServico, nomeUsuario, senhaEncriptada);
-                encryptedLines.add(EncriptacaoService.encrypt(line));
-            } catch (IllegalArgumentException e) {
-                System.err.println("Ignorando credencial inválida: " + e.getMessage());
+        try (FormatoCofre.Escritor writer = new FormatoCofre.Escritor(temporario, geracao)) {
+            int proximo = 0;
+            while (proximo < credenciais.size() || !pendentes.isEmpty()) {
+                while (proximo < credenciais.size() && pendentes.size() < janela) {
+                    List<Credencial> bloco = credenciais.subList(proximo,
+                            Math.min(proximo + REGISTROS_POR_TAREFA, credenciais.size()));
+                    pendentes.addLast(executor.submit(() -> encriptaBloco(bloco)));
+                    proximo += bloco.size();
+                }
+                BlocoEncriptado pronto = aguardaBloco(pendentes.removeFirst());
+                pronto.avisos().forEach(System.err::println);
+                for (RegistroGravado registro : pronto.registros()) {
+                    writer.escreve(registro.corpo());
+                    gravados.put(registro.credencial(), registro.corpo());
+                    if (registro.reaproveitado()) {
+                        reaproveitados++;
+                    }
+                }
             }
+        } catch (IOException e) {
+            Files.deleteIfExists(temporario);
+            throw new IOException("Erro ao gravar no arquivo de credenciais: " + e.getMessage(), e);
+        } catch (Exception e) {
+            Files.deleteIfExists(temporario);
+            throw e;
+        } finally {
+            pendentes.forEach(f -> f.cancel(true));
+            executor.shutdownNow();
         }
 
         // Cria um backup do arquivo atual se ele existir
-        if (Files.exists(FILE_PATH)) {
+        if (backup && Files.exists(FILE_PATH)) {
             Files.copy(FILE_PATH, Paths.get("credentials_backup.dat"), StandardCopyOption.REPLACE_EXISTING);
         }
+        Files.move(temporario, FILE_PATH, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        // Só as credenciais gravadas continuam no cache; as removidas são descartadas
+        CacheRegistros.substitui(gravados);
+        ultimaGravacao = new EstatisticasGravacao(gravados.size(), reaproveitados,
+                System.nanoTime() - inicio);
+    }
+
+    /**
+     * Sanitiza, formata e criptografa um bloco de credenciais, reaproveitando o registro já gravado
+     * das que não mudaram. Credenciais inválidas são ignoradas e geram um aviso, como na gravação sequencial.
+     */
+    private static BlocoEncriptado encriptaBloco(List<Credencial> bloco) throws Exception {
+        List<RegistroGravado> registros = new ArrayList<>(bloco.size());
+        List<String> avisos = new ArrayList<>(0);
+
+        for (Credencial cred : bloco) {
+            byte[] gravado = CacheRegistros.busca(cred);
+            if (gravado != null) {
+                registros.add(new RegistroGravado(cred, gravado, true));
+                continue;
+            }
+            try {
+                // Garante que todos os campos estão sanitizados
+                Credencial sanitizada = sanitiza(cred.nomeServico(), cred.nomeUsuario(), cred.senhaEncriptada(),
+                        cred.seedTotpEncriptada());
+                registros.add(new RegistroGravado(sanitizada, FormatoCofre.codificaRegistro(sanitizada), false));
+            } catch (IllegalArgumentException e) {
+                avisos.add("Ignorando credencial inválida: " + e.getMessage());
+            }
+        }
+        return new BlocoEncriptado(registros, avisos);
+    }
 
-        try (BufferedWriter writer = Files.newBufferedWriter(FILE_PATH)) {
-            for (String line : encryptedLines) {
-                writer.write(line);
-                writer.newLine();
+    /**
+     * Espera o próximo bloco da fila, repassando a exceção original de uma tarefa que falhou.
+     */
+    private static BlocoEncriptado aguardaBloco(Future<BlocoEncriptado> futuro) throws Exception {
+        try {
+            return futuro.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception causa) {
+                throw causa;
             }
-        } catch (IOException e) {
-            throw new IOException("Erro ao gravar no arquivo de credenciais: " + e.getMessage(), e);
+            throw e;
         }
     }
 
     /**
-     * Carrega e descriptografa credenciais do arquivo.
+     * Registros criptografados de um bloco, na ordem original, e os avisos das credenciais ignoradas.
+     */
+    private record BlocoEncriptado(List<RegistroGravado> registros, List<String> avisos) {
+    }
+
+    /**
+     * Corpo do registro de uma credencial sanitizada, e se ele veio do cache em vez de ser criptografado.
+     */
+    private record RegistroGravado(Credencial credencial, byte[] corpo, boolean reaproveitado) {
+    }
+
+    /**
+     * Carrega e descriptografa credenciais do arquivo, usando o paralelismo padrão
+     * (propriedade de sistema {@code gerenciador.paralelismo} ou o número de processadores).
      *
      * @return Uma lista de credenciais descriptografadas.
      * @throws Exception Se ocorrer um erro durante a descriptografia ou leitura do arquivo.
      */
     public static List<Credencial> carregaCredenciais() throws Exception {
-        List<Credencial> credenciais = new ArrayList<>();
+        return carregaCredenciais(PARALELISMO_PADRAO);
+    }
 
-        if (!Files.exists(FILE_PATH)) {
-            return credenciais;
-        }
+    /**
+     * Carrega e descriptografa credenciais do arquivo com o paralelismo informado
+     * (ver {@link #carregaRepositorio(int)}).
+     *
+     * @param paralelismo número de threads usadas na decodificação (1 = na thread atual).
+     * @return Uma lista de credenciais descriptografadas, na ordem do arquivo.
+     * @throws Exception Se ocorrer um erro durante a descriptografia ou leitura do arquivo.
+     */
+    public static List<Credencial> carregaCredenciais(int paralelismo) throws Exception {
+        return carregaRepositorio(paralelismo).credenciais();
+    }
 
-        try (BufferedReader reader = Files.newBufferedReader(FILE_PATH)) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                try {
-                    String decrypted = EncriptacaoService.decrypt(line);
-                    String[] parts = decrypted.split(",", 3);
+    /**
+     * Carrega as credenciais em um {@link CredentialRepository}, usando o paralelismo padrão.
+     *
+     * @return o repositório com as credenciais carregadas
+     * @throws Exception Se ocorrer um erro durante a descriptografia ou leitura do arquivo.
+     */
+    public static CredentialRepository carregaRepositorio() throws Exception {
+        return carregaRepositorio(PARALELISMO_PADRAO);
+    }
 
-                    if (parts.length == 3) {
-                        // Sanitiza e valida as partes descriptografadas
-                        String serviceName = InputSanitizer.sanitize(parts[0], 50, false);
-                        String username = InputSanitizer.sanitize(parts[1], 50, false);
-                        String senhaEncriptada = InputSanitizer.sanitize(parts[2], 128, false);
+    /**
+     * Carrega e descriptografa credenciais do arquivo. A descriptografia, a separação dos campos
+     * e a sanitização de cada registro são independentes e rodam em um ForkJoinPool com o paralelismo
+     * informado; a ordem do arquivo é preservada e os erros são reportados por registro, na ordem.
+     * Em seguida o journal é reaplicado sobre o repositório. Um arquivo no formato legado é migrado
+     * para o formato binário ao final da carga.
+     *
+     * @param paralelismo número de threads usadas na decodificação (1 = na thread atual).
+     * @return o repositório com as credenciais carregadas, na ordem do arquivo
+     * @throws Exception Se ocorrer um erro durante a descriptografia ou leitura do arquivo.
+     */
+    public static CredentialRepository carregaRepositorio(int paralelismo) throws Exception {
+        if (paralelismo < 1) {
+            throw new IllegalArgumentException("O paralelismo deve ser maior que zero.");
+        }
+        long inicio = System.nanoTime();
+        CredentialRepository credenciais = new CredentialRepository();
 
-                        credenciais.add(new Credencial(serviceName, username, senhaEncriptada));
-                    } else {
-                        System.err.println("Formato de linha inválido: " + decrypted);
+        if (!Files.exists(FILE_PATH) && !JournalCredenciais.temEntradas(JOURNAL_PATH)) {
+            return credenciais;
+        }
+
+        boolean legado = false;
+        long geracao = 0;
+        ResultadoRegistro[] resultados = new ResultadoRegistro[0];
+        try {
+            if (Files.exists(FILE_PATH)) {
+                legado = !FormatoCofre.ehFormatoBinario(FILE_PATH);
+                if (legado) {
+                    resultados = decodifica(Files.readAllLines(FILE_PATH), CredencialStorage::decodificaLinha, paralelismo);
+                } else {
+                    try (FormatoCofre.Leitor leitor = new FormatoCofre.Leitor(FILE_PATH)) {
+                        geracao = leitor.getGeracaoJournal();
+                        resultados = decodifica(leRegistros(leitor), CredencialStorage::decodificaRegistro, paralelismo);
                     }
-                } catch (IllegalArgumentException ex) {
-                    System.err.println("Formato de credencial inválido: " + ex.getMessage());
-                } catch (Exception ex) {
-                    System.err.println("Erro ao descriptografar linha: " + ex.getMessage());
                 }
             }
         } catch (IOException e) {
             throw new IOException("Erro ao ler o arquivo de credenciais: " + e.getMessage(), e);
         }
 
+        int falhas = 0;
+        Map<Credencial, byte[]> corpos = new HashMap<>();
+        for (ResultadoRegistro resultado : resultados) {
+            if (resultado.credencial() != null) {
+                credenciais.adiciona(resultado.credencial());
+                if (resultado.corpo() != null) {
+                    corpos.put(resultado.credencial(), resultado.corpo());
+                }
+            } else {
+                System.err.println(resultado.erro());
+                falhas++;
+            }
+        }
+        CacheRegistros.substitui(corpos);
+        try {
+            JournalCredenciais.reaplica(JOURNAL_PATH, geracao, credenciais);
+        } catch (IOException e) {
+            throw new IOException("Erro ao ler o journal de credenciais: " + e.getMessage(), e);
+        }
+
+        ultimaCarga = new EstatisticasCarga(credenciais.tamanho(), falhas, paralelismo, System.nanoTime() - inicio);
+        if (legado) {
+            migraFormatoLegado(credenciais.credenciais(), falhas, paralelismo);
+        }
         return credenciais;
     }
-}
\ No newline at end of file
+
+    /**
+     * Regrava um arquivo legado no formato binário, guardando uma cópia do original em
+     * {@code credentials_v1.dat}. A migração é adiada se alguma linha não pôde ser lida,
+     * para não descartar registros que ainda podem ser recuperados.
+     */
+    private static void migraFormatoLegado(List<Credencial> credenciais, int falhas, int paralelismo) {
+        if (falhas > 0) {
+            System.err.println("Migração para o formato binário adiada: " + falhas + " linha(s) não puderam ser lidas.");
+            return;
+        }
+        try {
+            Files.copy(FILE_PATH, LEGADO_PATH, StandardCopyOption.REPLACE_EXISTING);
+            saveCredenciais(credenciais, paralelismo);
+            System.out.println("Arquivo de credenciais migrado para o formato binário. Cópia do formato antigo: " + LEGADO_PATH);
+        } catch (Exception e) {
+            System.err.println("Falha ao migrar o arquivo de credenciais: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Iterações do PBKDF2 com que o cofre em disco foi gravado, lidas do cabeçalho do arquivo de
+     * credenciais ou, se ele não existir, do journal. O arquivo no formato legado sempre usou
+     * {@link EncriptacaoService#ITERACOES_PBKDF2}.
+     *
+     * @return as iterações, ou vazio se ainda não houver cofre
+     * @throws IOException se o cabeçalho não puder ser lido
+     */
+    public static OptionalInt iteracoesDoCofre() throws IOException {
+        if (Files.exists(FILE_PATH)) {
+            OptionalInt iteracoes = FormatoCofre.leIteracoes(FILE_PATH);
+            return iteracoes.isPresent() ? iteracoes : OptionalInt.of(EncriptacaoService.ITERACOES_PBKDF2);
+        }
+        if (Files.exists(JOURNAL_PATH)) {
+            return FormatoCofre.leIteracoes(JOURNAL_PATH);
+        }
+        return OptionalInt.empty();
+    }
+
+    /**
+     * Regrava o cofre inteiro com outro número de iterações do PBKDF2. O cofre é carregado com a chave
+     * da sessão atual (incluindo o journal), a senha de cada credencial é decifrada e cifrada de novo
+     * com a chave derivada com as novas iterações, e o resultado é gravado como um novo arquivo base.
+     * A chave da sessão passa a ser a nova; se a gravação falhar, a anterior é restaurada e o arquivo
+     * em disco não muda. Nada é regravado se algum registro não puder ser lido.
+     *
+     * @param senha     senha mestra da sessão
+     * @param salt      salt da sessão
+     * @param iteracoes novas iterações do PBKDF2
+     * @return número de credenciais regravadas
+     * @throws Exception se o cofre não puder ser lido, decifrado ou gravado
+     */
+    public static int reparametriza(String senha, String salt, int iteracoes) throws Exception {
+        int anteriores = EncriptacaoService.getSessionIteracoes();
+        if (anteriores == iteracoes) {
+            return 0;
+        }
+        CredentialRepository repositorio = carregaRepositorio();
+        EstatisticasCarga carga = ultimaCarga;
+        if (carga != null && carga.falhas() > 0) {
+            throw new IOException("Reparametrização adiada: " + carga.falhas() + " registro(s) não puderam ser lidos.");
+        }
+        List<Credencial> antigas = repositorio.credenciais();
+        List<String> senhas = new ArrayList<>(antigas.size());
+        List<String> seeds = new ArrayList<>(antigas.size());
+        for (Credencial credencial : antigas) {
+            senhas.add(EncriptacaoService.decrypt(credencial.senhaEncriptada()));
+            seeds.add(credencial.possuiSeedTotp() ? EncriptacaoService.decrypt(credencial.seedTotpEncriptada()) : null);
+        }
+
+        // A geração é lida antes da troca da chave, enquanto o cabeçalho do journal ainda confere com a sessão
+        long geracao = JournalCredenciais.proximaGeracao(JOURNAL_PATH);
+        EncriptacaoService.setSessionKeyAndSalt(senha, salt, iteracoes);
+        try {
+            List<Credencial> novas = new ArrayList<>(antigas.size());
+            for (int i = 0; i < antigas.size(); i++) {
+                Credencial antiga = antigas.get(i);
+                String seed = seeds.get(i);
+                novas.add(new Credencial(antiga.nomeServico(), antiga.nomeUsuario(),
+                        EncriptacaoService.encrypt(senhas.get(i)), seed == null ? null : EncriptacaoService.encrypt(seed)));
+            }
+            gravaBase(novas, PARALELISMO_PADRAO, geracao, true);
+            JournalCredenciais.descarta(JOURNAL_PATH);
+            return novas.size();
+        } catch (Exception e) {
+            EncriptacaoService.setSessionKeyAndSalt(senha, salt, anteriores);
+            throw e;
+        }
+    }
+
+    /**
+     * Abre o journal da sessão sobre o repositório carregado por {@link #carregaRepositorio()}. A
+     * compactação do journal grava um novo arquivo base, sem cópia de backup, com o paralelismo padrão.
+     *
+     * @param credenciais repositório carregado, alterado apenas pelo journal daqui em diante
+     * @return o journal aberto
+     * @throws Exception Se o journal não puder ser aberto.
+     */
+    public static JournalCredenciais abreJournal(CredentialRepository credenciais) throws Exception {
+        long geracaoBase = 0;
+        if (Files.exists(FILE_PATH) && FormatoCofre.ehFormatoBinario(FILE_PATH)) {
+            try (FormatoCofre.Leitor leitor = new FormatoCofre.Leitor(FILE_PATH)) {
+                geracaoBase = leitor.getGeracaoJournal();
+            }
+        }
+        return JournalCredenciais.abre(JOURNAL_PATH, credenciais, geracaoBase,
+                (instantaneo, geracao) -> gravaBase(instantaneo, PARALELISMO_PADRAO, geracao, false));
+    }
+
+    /**
+     * Lê os corpos de todos os registros restantes de um arquivo no formato binário.
+     */
+    private static List<byte[]> leRegistros(FormatoCofre.Leitor leitor) throws IOException {
+        List<byte[]> registros = new ArrayList<>();
+        byte[] corpo;
+        while ((corpo = leitor.proximo()) != null) {
+            registros.add(corpo);
+        }
+        return registros;
+    }
+
+    /**
+     * Decodifica as unidades (linhas ou registros) com o paralelismo informado, preservando a ordem.
+     */
+    private static <T> ResultadoRegistro[] decodifica(List<T> unidades, Function<T, ResultadoRegistro> decodificador,
+                                                      int paralelismo) {
+        ResultadoRegistro[] resultados = new ResultadoRegistro[unidades.size()];
+        DecodificaRegistros<T> tarefa = new DecodificaRegistros<>(unidades, decodificador, resultados, 0, resultados.length);
+        if (paralelismo == 1) {
+            tarefa.compute();
+        } else {
+            ForkJoinPool pool = new ForkJoinPool(paralelismo);
+            try {
+                pool.invoke(tarefa);
+            } finally {
+                pool.shutdown();
+            }
+        }
+        return resultados;
+    }
+
+    /**
+     * Abre o arquivo de credenciais mapeado em memória e devolve as credenciais sob demanda, na ordem
+     * do arquivo. Registros inválidos são reportados e ignorados. O Stream deve ser fechado
+     * (try-with-resources) para liberar o arquivo. Um arquivo legado, ou com journal a reaplicar,
+     * é carregado por completo.
+     *
+     * @return Stream preguiçoso das credenciais
+     * @throws Exception Se o arquivo não puder ser aberto ou tiver cabeçalho inválido.
+     */
+    public static Stream<Credencial> streamCredenciais() throws Exception {
+        boolean journal = JournalCredenciais.temEntradas(JOURNAL_PATH);
+        if (!Files.exists(FILE_PATH) && !journal) {
+            return Stream.empty();
+        }
+        if (journal || !FormatoCofre.ehFormatoBinario(FILE_PATH)) {
+            return carregaCredenciais().stream();
+        }
+        LeitorCofreMapeado leitor = new LeitorCofreMapeado(FILE_PATH);
+        return leitor.registros()
+                .map(CredencialStorage::decodificaRegistro)
+                .<Credencial>mapMulti((resultado, saida) -> {
+                    if (resultado.credencial() != null) {
+                        saida.accept(resultado.credencial());
+                    } else {
+                        System.err.println(resultado.erro());
+                    }
+                })
+                .onClose(() -> {
+                    try {
+                        leitor.close();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+    }
+
+    /**
+     * Procura a primeira credencial de um serviço (sem diferenciar maiúsculas) lendo o arquivo sob demanda;
+     * a leitura para no primeiro registro encontrado.
+     *
+     * @param nomeServico nome do serviço
+     * @return a credencial, se existir
+     * @throws Exception Se o arquivo não puder ser lido.
+     */
+    public static Optional<Credencial> buscaPorServico(String nomeServico) throws Exception {
+        try (Stream<Credencial> credenciais = streamCredenciais()) {
+            return credenciais.filter(c -> c.nomeServico().equalsIgnoreCase(nomeServico)).findFirst();
+        }
+    }
+
+    /**
+     * Estatísticas da carga mais recente feita por {@link #carregaCredenciais(int)}, ou {@code null}
+     * se nenhum arquivo foi carregado ainda.
+     */
+    public static EstatisticasCarga getUltimaCarga() {
+        return ultimaCarga;
+    }
+
+    /**
+     * Estatísticas da gravação mais recente do arquivo base, ou {@code null} se nenhum foi gravado ainda.
+     */
+    public static EstatisticasGravacao getUltimaGravacao() {
+        return ultimaGravacao;
+    }
+
+    /**
+     * Descriptografa e sanitiza um registro do formato binário. O corpo só é guardado para
+     * reaproveitamento se a sanitização não alterou a credencial.
+     */
+    private static ResultadoRegistro decodificaRegistro(byte[] corpo) {
+        try {
+            Credencial credencial = FormatoCofre.decodificaRegistro(corpo);
+            Credencial sanitizada = sanitiza(credencial.nomeServico(), credencial.nomeUsuario(),
+                    credencial.senhaEncriptada(), credencial.seedTotpEncriptada());
+            return new ResultadoRegistro(sanitizada, sanitizada.equals(credencial) ? corpo : null, null);
+        } catch (IllegalArgumentException ex) {
+            return new ResultadoRegistro(null, null, "Formato de credencial inválido: " + ex.getMessage());
+        } catch (Exception ex) {
+            return new ResultadoRegistro(null, null, "Erro ao descriptografar registro: " + ex.getMessage());
+        }
+    }
+
+    /**
+     * Descriptografa, separa e sanitiza uma linha do arquivo legado.
+     * Em caso de falha devolve a mesma mensagem de erro que a carga sequencial reportava.
+     */
+    private static ResultadoRegistro decodificaLinha(String line) {
+        try {
+            String decrypted = EncriptacaoService.decrypt(line);
+            String[] parts = decrypted.split(",", 3);
+
+            if (parts.length != 3) {
+                return new ResultadoRegistro(null, null, "Formato de linha inválido: " + decrypted);
+            }
+            return new ResultadoRegistro(sanitiza(parts[0], parts[1], parts[2], null), null, null);
+        } catch (IllegalArgumentException ex) {
+            return new ResultadoRegistro(null, null, "Formato de credencial inválido: " + ex.getMessage());
+        } catch (Exception ex) {
+            return new ResultadoRegistro(null, null, "Erro ao descriptografar linha: " + ex.getMessage());
+        }
+    }
+
+    /**
+     * Sanitiza e valida os campos descriptografados de uma credencial. A semente TOTP é opcional.
+     */
+    private static Credencial sanitiza(String nomeServico, String nomeUsuario, String senhaEncriptada,
+                                       String seedTotpEncriptada) {
+        String serviceName = InputSanitizer.sanitize(nomeServico, 50, false);
+        String username = InputSanitizer.sanitize(nomeUsuario, 50, false);
+        String senha = InputSanitizer.sanitize(senhaEncriptada, 128, false);
+        String seed = seedTotpEncriptada == null ? null : InputSanitizer.sanitize(seedTotpEncriptada, 128, false);
+        return new Credencial(serviceName, username, senha, seed);
+    }
+
+    /**
+     * Resultado da decodificação de uma linha ou registro: a credencial, com o corpo a reaproveitar
+     * na próxima gravação (só no formato binário), ou a mensagem de erro.
+     */
+    private record ResultadoRegistro(Credencial credencial, byte[] corpo, String erro) {
+    }
+
+    /**
+     * Divide o intervalo de unidades ao meio até {@link #REGISTROS_POR_TAREFA} e decodifica cada parte,
+     * gravando o resultado na mesma posição da unidade de origem.
+     */
+    @SuppressWarnings("serial") // Tarefa do ForkJoinPool, nunca serializada
+    private static final class DecodificaRegistros<T> extends RecursiveAction {
+        private final List<T> unidades;
+        private final Function<T, ResultadoRegistro> decodificador;
+        private final ResultadoRegistro[] resultados;
+        private final int inicio;
+        private final int fim;
+
+        DecodificaRegistros(List<T> unidades, Function<T, ResultadoRegistro> decodificador,
+                            ResultadoRegistro[] resultados, int inicio, int fim) {
+            this.unidades = unidades;
+            this.decodificador = decodificador;
+            this.resultados = resultados;
+            this.inicio = inicio;
+            this.fim = fim;
+        }
+
+        @Override
+        protected void compute() {
+            if (fim - inicio <= REGISTROS_POR_TAREFA) {
+                for (int i = inicio; i < fim; i++) {
+                    resultados[i] = decodificador.apply(unidades.get(i));
+                }
+                return;
+            }
+            int meio = (inicio + fim) >>> 1;
+            invokeAll(new DecodificaRegistros<>(unidades, decodificador, resultados, inicio, meio),
+                    new DecodificaRegistros<>(unidades, decodificador, resultados, meio, fim));
+        }
+    }
+
+    /**
+     * Estatísticas de uma carga do arquivo de credenciais.
+     *
+     * @param registros    credenciais carregadas com sucesso
+     * @param falhas       registros descartados por erro
+     * @param paralelismo  threads usadas na decodificação
+     * @param duracaoNanos tempo total da carga, incluindo a leitura do arquivo
+     */
+    public record EstatisticasCarga(int registros, int falhas, int paralelismo, long duracaoNanos) {
+
+        /**
+         * Vazão da carga em registros processados por segundo.
+         */
+        public double registrosPorSegundo() {
+            return duracaoNanos == 0 ? 0 : (registros + falhas) * 1_000_000_000.0 / duracaoNanos;
+        }
+    }
+
+    /**
+     * Estatísticas de uma gravação do arquivo base.
+     *
+     * @param registros      registros gravados
+     * @param reaproveitados registros copiados do cache, sem nova criptografia
+     * @param duracaoNanos   tempo total da gravação
+     */
+    public record EstatisticasGravacao(int registros, int reaproveitados, long duracaoNanos) {
+
+        /**
+         * Registros que precisaram ser criptografados.
+         */
+        public int encriptados() {
+            return registros - reaproveitados;
+        }
+    }
+}
@@ -0,0 +1,273 @@
+package service;
+
+import model.Credencial;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.Set;
+
+/**
+ * Repositório em memória das credenciais da sessão. Cada credencial recebe um id estável, que não
+ * muda quando outras são removidas, e fica indexada pelo nome do serviço e pelo nome de usuário
+ * (sem diferenciar maiúsculas). Inserção, remoção e busca por id, serviço ou usuário custam O(1)
+ * esperado; a ordem de inserção é preservada na listagem e na gravação. Um {@link IndiceBusca}
+ * sobre os mesmos nomes, atualizado a cada alteração, atende a busca por prefixo, substring e
+ * aproximada de {@link #pesquisa(String, int)}.
+ * <p>
+ * Os métodos são sincronizados, para que o journal e a compactação em segundo plano possam usar o
+ * mesmo repositório que o menu. As listas devolvidas são cópias.
+ */
+public class CredentialRepository {
+
+    private final Map<Long, Credencial> porId = new LinkedHashMap<>();
+    private final Map<String, Set<Long>> porServico = new HashMap<>();
+    private final Map<String, Set<Long>> porUsuario = new HashMap<>();
+    private final IndiceBusca indice = new IndiceBusca();
+    private long proximoId = 1;
+
+    /**
+     * Cria um repositório vazio.
+     */
+    public CredentialRepository() {
+    }
+
+    /**
+     * Cria um repositório com as credenciais informadas, na mesma ordem.
+     *
+     * @param credenciais credenciais iniciais
+     */
+    public CredentialRepository(Collection<Credencial> credenciais) {
+        for (Credencial credencial : credenciais) {
+            Objects.requireNonNull(credencial, "credencial");
+            insere(proximoId++, credencial);
+        }
+    }
+
+    /**
+     * Adiciona uma credencial.
+     *
+     * @param credencial credencial a adicionar
+     * @return o id atribuído
+     */
+    public synchronized long adiciona(Credencial credencial) {
+        Objects.requireNonNull(credencial, "credencial");
+        long id = proximoId++;
+        insere(id, credencial);
+        return id;
+    }
+
+    /**
+     * Recoloca uma credencial removida com o mesmo id e na mesma posição da listagem (os ids crescem na
+     * ordem de inserção). Desfaz uma remoção cuja entrada no journal não pôde ser sincronizada; custa O(n).
+     *
+     * @param id         id que a credencial tinha
+     * @param credencial credencial removida
+     * @throws IllegalStateException se o id estiver em uso
+     */
+    synchronized void restaura(long id, Credencial credencial) {
+        Objects.requireNonNull(credencial, "credencial");
+        if (porId.containsKey(id) || id >= proximoId) {
+            throw new IllegalStateException("Id de credencial inválido para restauração: " + id);
+        }
+        List<Map.Entry<Long, Credencial>> seguintes = new ArrayList<>();
+        for (Map.Entry<Long, Credencial> entrada : porId.entrySet()) {
+            if (entrada.getKey() > id) {
+                seguintes.add(Map.entry(entrada.getKey(), entrada.getValue()));
+            }
+        }
+        insere(id, credencial);
+        // Reinserir as posteriores as coloca de novo depois da restaurada
+        for (Map.Entry<Long, Credencial> entrada : seguintes) {
+            porId.remove(entrada.getKey());
+            porId.put(entrada.getKey(), entrada.getValue());
+        }
+    }
+
+    private void insere(long id, Credencial credencial) {
+        porId.put(id, credencial);
+        indexa(porServico, credencial.nomeServico(), id);
+        indexa(porUsuario, credencial.nomeUsuario(), id);
+        indice.adiciona(chave(credencial.nomeServico()));
+        indice.adiciona(chave(credencial.nomeUsuario()));
+    }
+
+    /**
+     * Remove a credencial com o id informado.
+     *
+     * @param id id da credencial
+     * @return a credencial removida, ou {@code null} se o id não existir
+     */
+    public synchronized Credencial remove(long id) {
+        Credencial removida = porId.remove(id);
+        if (removida != null) {
+            desindexa(porServico, removida.nomeServico(), id);
+            desindexa(porUsuario, removida.nomeUsuario(), id);
+            indice.remove(chave(removida.nomeServico()));
+            indice.remove(chave(removida.nomeUsuario()));
+        }
+        return removida;
+    }
+
+    /**
+     * Id da primeira credencial igual à informada, procurando apenas entre as do mesmo serviço.
+     *
+     * @param credencial valor procurado
+     * @return o id, se existir
+     */
+    public synchronized OptionalLong localiza(Credencial credencial) {
+        for (long id : porServico.getOrDefault(chave(credencial.nomeServico()), Set.of())) {
+            if (porId.get(id).equals(credencial)) {
+                return OptionalLong.of(id);
+            }
+        }
+        return OptionalLong.empty();
+    }
+
+    /**
+     * Credencial com o id informado.
+     *
+     * @param id id da credencial
+     * @return a credencial, se existir
+     */
+    public synchronized Optional<Credencial> busca(long id) {
+        return Optional.ofNullable(porId.get(id));
+    }
+
+    /**
+     * Credenciais de um serviço, sem diferenciar maiúsculas, na ordem de inserção.
+     *
+     * @param nomeServico nome do serviço
+     * @return as credenciais encontradas
+     */
+    public synchronized List<Credencial> buscaPorServico(String nomeServico) {
+        return resolve(porServico.get(chave(nomeServico)));
+    }
+
+    /**
+     * Credenciais de um usuário, sem diferenciar maiúsculas, na ordem de inserção.
+     *
+     * @param nomeUsuario nome de usuário
+     * @return as credenciais encontradas
+     */
+    public synchronized List<Credencial> buscaPorUsuario(String nomeUsuario) {
+        return resolve(porUsuario.get(chave(nomeUsuario)));
+    }
+
+    /**
+     * Busca credenciais pelo nome do serviço ou de usuário, sem diferenciar maiúsculas. Os resultados
+     * vêm do melhor para o pior: nome igual à consulta, começando por ela, contendo-a e, para consultas
+     * com mais de três caracteres, com até uma (quatro a seis caracteres) ou duas edições de diferença
+     * no início do nome. Em cada nível, correspondências pelo serviço vêm antes das pelo usuário.
+     *
+     * @param consulta texto digitado
+     * @param limite   número máximo de resultados
+     * @return os resultados, sem credenciais repetidas
+     */
+    public synchronized List<ResultadoBusca> pesquisa(String consulta, int limite) {
+        String termo = chave(consulta.strip());
+        if (termo.isEmpty() || limite <= 0) {
+            return List.of();
+        }
+        Map<Long, ResultadoBusca> resultados = new LinkedHashMap<>();
+        for (IndiceBusca.Correspondencia correspondencia : indice.procura(termo, limite)) {
+            adicionaResultados(resultados, porServico.get(correspondencia.termo()), correspondencia, limite);
+            adicionaResultados(resultados, porUsuario.get(correspondencia.termo()), correspondencia, limite);
+            if (resultados.size() >= limite) {
+                break;
+            }
+        }
+        return new ArrayList<>(resultados.values());
+    }
+
+    private void adicionaResultados(Map<Long, ResultadoBusca> resultados, Set<Long> ids,
+                                    IndiceBusca.Correspondencia correspondencia, int limite) {
+        if (ids == null) {
+            return;
+        }
+        for (long id : ids) {
+            if (resultados.size() >= limite) {
+                return;
+            }
+            resultados.putIfAbsent(id, new ResultadoBusca(id, porId.get(id), correspondencia.tipo(),
+                    correspondencia.distancia()));
+        }
+    }
+
+    /**
+     * Todas as credenciais, na ordem de inserção.
+     */
+    public synchronized List<Credencial> credenciais() {
+        return new ArrayList<>(porId.values());
+    }
+
+    /**
+     * Todas as credenciais com seus ids, na ordem de inserção.
+     */
+    public synchronized List<Map.Entry<Long, Credencial>> entradas() {
+        List<Map.Entry<Long, Credencial>> entradas = new ArrayList<>(porId.size());
+        porId.forEach((id, credencial) -> entradas.add(Map.entry(id, credencial)));
+        return entradas;
+    }
+
+    public synchronized int tamanho() {
+        return porId.size();
+    }
+
+    public synchronized boolean estaVazio() {
+        return porId.isEmpty();
+    }
+
+    private List<Credencial> resolve(Set<Long> ids) {
+        if (ids == null) {
+            return List.of();
+        }
+        List<Credencial> encontradas = new ArrayList<>(ids.size());
+        for (long id : ids) {
+            encontradas.add(porId.get(id));
+        }
+        return encontradas;
+    }
+
+    private static void indexa(Map<String, Set<Long>> indice, String valor, long id) {
+        indice.computeIfAbsent(chave(valor), k -> new LinkedHashSet<>()).add(id);
+    }
+
+    private static void desindexa(Map<String, Set<Long>> indice, String valor, long id) {
+        String chave = chave(valor);
+        Set<Long> ids = indice.get(chave);
+        if (ids != null && ids.remove(id) && ids.isEmpty()) {
+            indice.remove(chave);
+        }
+    }
+
+    private static String chave(String valor) {
+        return valor.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Como o nome encontrado corresponde à consulta, do melhor para o pior.
+     */
+    public enum TipoCorrespondencia {
+        EXATA, PREFIXO, SUBSTRING, APROXIMADA
+    }
+
+    /**
+     * Resultado de {@link #pesquisa(String, int)}.
+     *
+     * @param id         id da credencial no repositório
+     * @param credencial a credencial
+     * @param tipo       tipo de correspondência
+     * @param distancia  edições de diferença, para correspondências aproximadas
+     */
+    public record ResultadoBusca(long id, Credencial credencial, TipoCorrespondencia tipo, int distancia) {
+    }
+}
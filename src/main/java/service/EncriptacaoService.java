@@ -6,41 +6,113 @@ import javax.crypto.SecretKeyFactory;
 import javax.crypto.spec.GCMParameterSpec;
 import javax.crypto.spec.PBEKeySpec;
 import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
 import java.security.SecureRandom;
-import java.security.spec.KeySpec;
+import java.util.Arrays;
 import java.util.Base64;
 
 /**
 * O EncryptionService fornece criptografia e descriptografia seguras de dados confidenciais usando AES-GCM.
 * A chave de criptografia é derivada da senha mestra do usuário e de um salt persistente usando PBKDF2.
 * A chave e o salt são mantidos na memória apenas durante a sessão e limpos no desligamento da JVM.
+* A chave AES é derivada uma única vez por sessão (ver {@link SessionKeyContext}); encrypt() e decrypt()
+* reutilizam a chave já derivada em vez de repetir o PBKDF2 a cada chamada.
 * - Após a autenticação, chame setSessionKeyAndSalt(masterPassword, salt) para inicializar a chave de sessão.
 * A  `setSessionKeyAndSalt` deve ser chamado antes de encrypt() ou decrypt() para evitar erros.
 * - Use encrypt() e decrypt() para operações de dados seguras.
+* - encryptBytes()/decryptInPlace() e as variantes com ByteBuffer evitam Base64 e cópias; os métodos
+*   com String são apenas uma camada Base64 sobre elas. Cada thread reutiliza seu próprio Cipher e gerador de nonces.
 * - O salt persistente é gerenciado em encryption_salt.dat.
 * - Chaves e salts são limpos da memória no desligamento da JVM por meio de um hook de desligamento.
 * - AES/GCM/NoPadding é usado para criptografia, garantindo a criptografia autenticada.
 */
 public class EncriptacaoService {
 
-	private static String chaveDeSessao = null;
-	private static String sessaoSalt = null;
+	/**
+	 * Iterações do PBKDF2 usadas quando nenhuma outra é informada, e por cofres criados antes da
+	 * calibração (ver {@link ParametrosKdf}).
+	 */
+	static final int ITERACOES_PBKDF2 = 65536;
+	private static final int TAMANHO_IV = 12;
+	private static final int TAMANHO_TAG = 16;
+	private static final int TAMANHO_TAG_BITS = TAMANHO_TAG * 8;
+	private static final ThreadLocal<MotorCifra> MOTOR = ThreadLocal.withInitial(MotorCifra::new);
+
+	private static volatile SessionKeyContext contextoSessao = null;
 
+	/**
+	 * Define a senha mestra e o salt da sessão, derivando a chave AES uma única vez com
+	 * {@link #ITERACOES_PBKDF2} iterações.
+	 * A chave só é derivada novamente quando a senha ou o salt mudam.
+	 *
+	 * @param key  senha mestra da sessão
+	 * @param salt salt persistente usado no PBKDF2
+	 */
 	public static void setSessionKeyAndSalt(String key, String salt) {
-		chaveDeSessao = key;
-		sessaoSalt = salt;
+		setSessionKeyAndSalt(key, salt, ITERACOES_PBKDF2);
+	}
+
+	/**
+	 * Define a senha mestra, o salt e as iterações do PBKDF2 da sessão, derivando a chave AES uma única vez.
+	 * A chave só é derivada novamente quando algum dos três muda.
+	 *
+	 * @param key       senha mestra da sessão
+	 * @param salt      salt persistente usado no PBKDF2
+	 * @param iteracoes iterações do PBKDF2
+	 */
+	public static synchronized void setSessionKeyAndSalt(String key, String salt, int iteracoes) {
+		if (iteracoes < 1) {
+			throw new IllegalArgumentException("O número de iterações do PBKDF2 deve ser positivo.");
+		}
+		SessionKeyContext atual = contextoSessao;
+		if (atual != null && atual.correspondeA(key, salt, iteracoes)) {
+			return;
+		}
+		SessionKeyContext novo = null;
+		if (key != null && salt != null) {
+			try {
+				novo = SessionKeyContext.derive(key, salt, iteracoes);
+			} catch (GeneralSecurityException e) {
+				throw new IllegalStateException("Falha ao derivar a chave de sessão: " + e.getMessage(), e);
+			}
+		}
+		contextoSessao = novo;
+		if (atual != null) {
+			atual.destroy();
+		}
 	}
 
-	private static SecretKey getSessionSecretKey() throws Exception {
-		if (chaveDeSessao == null || sessaoSalt == null) {
+	static SessionKeyContext getSessionSecretKey() {
+		SessionKeyContext contexto = contextoSessao;
+		if (contexto == null) {
 			throw new IllegalStateException("Session key and salt must be set before encryption/decryption.");
 		}
-		return getSecretKey(chaveDeSessao, sessaoSalt);
+		return contexto;
+	}
+
+	/**
+	 * Salt da sessão atual, usado para registrar os parâmetros do KDF no cabeçalho do cofre.
+	 */
+	static String getSessionSalt() {
+		return getSessionSecretKey().getSalt();
 	}
 
-	public static void clearSessionKeyAndSalt() {
-		chaveDeSessao = null;
-		sessaoSalt = null;
+	/**
+	 * Iterações do PBKDF2 da chave da sessão atual, registradas no cabeçalho do cofre junto com o salt.
+	 */
+	static int getSessionIteracoes() {
+		return getSessionSecretKey().getIteracoes();
+	}
+
+	public static synchronized void clearSessionKeyAndSalt() {
+		SessionKeyContext atual = contextoSessao;
+		contextoSessao = null;
+		if (atual != null) {
+			atual.destroy();
+		}
+		CacheRegistros.limpa();
 	}
 
 	// Chame este método no desligamento da JVM para limpar dados confidenciais da memória
@@ -61,15 +133,30 @@ public class EncriptacaoService {
 	 * @throws Exception 
 	 */
 	public static SecretKey getSecretKey(String password, String salt) throws Exception {
+		byte[] material = deriveKeyMaterial(password, salt, ITERACOES_PBKDF2);
+		try {
+			return new SecretKeySpec(material, "AES");
+		} finally {
+			Arrays.fill(material, (byte) 0);
+		}
+	}
+
+	/**
+	 * Executa o PBKDF2 e devolve os bytes brutos da chave. O chamador é responsável por zerar o array.
+	 */
+	static byte[] deriveKeyMaterial(String password, String salt, int iteracoes) throws GeneralSecurityException {
 		byte[] saltBytes = salt.getBytes();
 		SecretKeyFactory factory = SecretKeyFactory.getInstance("PBKDF2WithHmacSHA256");
-		KeySpec spec = new PBEKeySpec(password.toCharArray(), saltBytes, 65536, 256);
-		SecretKey tmp = factory.generateSecret(spec);
-		return new SecretKeySpec(tmp.getEncoded(), "AES");
+		PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), saltBytes, iteracoes, 256);
+		try {
+			return factory.generateSecret(spec).getEncoded();
+		} finally {
+			spec.clearPassword();
+		}
 	}
 
 	/**
-	* Criptografa uma string de texto simples usando AES/CBC/PKCS5Padding.
+	* Criptografa uma string de texto simples usando AES/GCM/NoPadding.
 	* Um IV aleatório é gerado e anexado aos dados criptografados.
 	* O resultado é codificado em Base64.
 	* String de texto simples a ser criptografada
@@ -84,22 +171,11 @@ public class EncriptacaoService {
 		if (strToEncrypt == null) {
 			throw new NullPointerException("A entrada para criptografar não pode ser nula");
 		}
-		SecretKey key = getSessionSecretKey();
-		Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
-		byte[] iv = new byte[12];
-		SecureRandom sr = new SecureRandom();
-		sr.nextBytes(iv);
-		GCMParameterSpec gcmSpec = new GCMParameterSpec(128, iv);
-		cipher.init(Cipher.ENCRYPT_MODE, key, gcmSpec);
-		byte[] encrypted = cipher.doFinal(strToEncrypt.getBytes());
-		byte[] encryptedWithIv = new byte[iv.length + encrypted.length];
-		System.arraycopy(iv, 0, encryptedWithIv, 0, iv.length);
-		System.arraycopy(encrypted, 0, encryptedWithIv, iv.length, encrypted.length);
-		return Base64.getEncoder().encodeToString(encryptedWithIv);
+		return Base64.getEncoder().encodeToString(encryptBytes(strToEncrypt.getBytes(StandardCharsets.UTF_8)));
 	}
 
 	/**
-	 * Descriptografa uma string codificada em Base64 que contém um IV de 16 bytes prefixado aos dados criptografados.
+	 * Descriptografa uma string codificada em Base64 que contém um IV de 12 bytes prefixado aos dados criptografados.
 	 * String codificada em Base64 contendo IV + dados criptografados
 	 * A string de texto plano descriptografada
 	 * Se a descriptografia falhar
@@ -110,25 +186,182 @@ public class EncriptacaoService {
 	 */
 	public static String decrypt(Object strToDecrypt) throws Exception {
 		try {
-			SecretKey key = getSessionSecretKey();
-			byte[] encryptedIvTextBytes = Base64.getDecoder().decode((String) strToDecrypt);
-			if (encryptedIvTextBytes.length < 13) {
-				throw new IllegalArgumentException("Invalid encrypted input length");
+			byte[] buffer = Base64.getDecoder().decode((String) strToDecrypt);
+			try {
+				int tamanho = decryptInPlace(buffer, 0, buffer.length);
+				return new String(buffer, 0, tamanho, StandardCharsets.UTF_8);
+			} finally {
+				Arrays.fill(buffer, (byte) 0);
 			}
-			byte[] iv = new byte[12];
-			System.arraycopy(encryptedIvTextBytes, 0, iv, 0, iv.length);
-			byte[] encryptedBytes = new byte[encryptedIvTextBytes.length - iv.length];
-			System.arraycopy(encryptedIvTextBytes, iv.length, encryptedBytes, 0, encryptedBytes.length);
-			Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
-			GCMParameterSpec gcmSpec = new GCMParameterSpec(128, iv);
-			cipher.init(Cipher.DECRYPT_MODE, key, gcmSpec);
-			byte[] decrypted = cipher.doFinal(encryptedBytes);
-			return new String(decrypted);
 		} catch (Exception e) {
 			throw new Exception("Decryption failed", e);
 		}
 	}
 
+	/**
+	 * Tamanho do bloco criptografado (IV + dados + tag) para um texto simples de {@code plaintextLength} bytes.
+	 */
+	public static int encryptedLength(int plaintextLength) {
+		return TAMANHO_IV + plaintextLength + TAMANHO_TAG;
+	}
+
+	/**
+	 * Criptografa bytes com a chave de sessão e devolve IV + dados criptografados + tag em um único array.
+	 *
+	 * @param plaintext bytes a serem criptografados
+	 * @return IV seguido dos dados criptografados
+	 * @throws GeneralSecurityException se a criptografia falhar
+	 */
+	public static byte[] encryptBytes(byte[] plaintext) throws GeneralSecurityException {
+		byte[] saida = new byte[encryptedLength(plaintext.length)];
+		MOTOR.get().encrypt(plaintext, 0, plaintext.length, saida, 0, null, 0, 0);
+		return saida;
+	}
+
+	/**
+	 * Criptografa {@code length} bytes de {@code input} e grava IV + dados + tag em {@code output}
+	 * a partir de {@code outputOffset}. O destino precisa de {@link #encryptedLength(int)} bytes livres.
+	 *
+	 * @return o número de bytes gravados
+	 * @throws GeneralSecurityException se a criptografia falhar
+	 */
+	public static int encrypt(byte[] input, int offset, int length, byte[] output, int outputOffset)
+			throws GeneralSecurityException {
+		return MOTOR.get().encrypt(input, offset, length, output, outputOffset, null, 0, 0);
+	}
+
+	/**
+	 * Igual a {@link #encrypt(byte[], int, int, byte[], int)}, mas autentica também
+	 * {@code aad[aadOffset, aadOffset + aadLength)} sem criptografá-lo (dados associados do GCM).
+	 * A descriptografia precisa receber exatamente os mesmos dados associados.
+	 *
+	 * @return o número de bytes gravados
+	 * @throws GeneralSecurityException se a criptografia falhar
+	 */
+	public static int encrypt(byte[] input, int offset, int length, byte[] output, int outputOffset,
+			byte[] aad, int aadOffset, int aadLength) throws GeneralSecurityException {
+		return MOTOR.get().encrypt(input, offset, length, output, outputOffset, aad, aadOffset, aadLength);
+	}
+
+	/**
+	 * Criptografa os bytes restantes de {@code input} e grava IV + dados + tag em {@code output}.
+	 *
+	 * @return o número de bytes gravados em {@code output}
+	 * @throws GeneralSecurityException se a criptografia falhar
+	 */
+	public static int encrypt(ByteBuffer input, ByteBuffer output) throws GeneralSecurityException {
+		return MOTOR.get().encrypt(input, output);
+	}
+
+	/**
+	 * Descriptografa um array no formato IV + dados + tag.
+	 *
+	 * @param encrypted bloco produzido por {@link #encryptBytes(byte[])}
+	 * @return o texto simples
+	 * @throws GeneralSecurityException se a tag de autenticação não conferir
+	 */
+	public static byte[] decryptBytes(byte[] encrypted) throws GeneralSecurityException {
+		byte[] copia = encrypted.clone();
+		int tamanho = decryptInPlace(copia, 0, copia.length);
+		return Arrays.copyOf(copia, tamanho);
+	}
+
+	/**
+	 * Descriptografa {@code buffer[offset, offset + length)} no próprio array. O texto simples é
+	 * gravado a partir de {@code offset}, sem cópias intermediárias.
+	 *
+	 * @return o tamanho do texto simples
+	 * @throws GeneralSecurityException se a tag de autenticação não conferir
+	 */
+	public static int decryptInPlace(byte[] buffer, int offset, int length) throws GeneralSecurityException {
+		return MOTOR.get().decrypt(buffer, offset, length, buffer, offset, null, 0, 0);
+	}
+
+	/**
+	 * Descriptografa {@code input[offset, offset + length)} (IV + dados + tag) em {@code output}, conferindo
+	 * também os dados associados {@code aad[aadOffset, aadOffset + aadLength)} usados na criptografia.
+	 * O destino precisa de {@code length - encryptedLength(0)} bytes livres.
+	 *
+	 * @return o tamanho do texto simples
+	 * @throws GeneralSecurityException se a tag de autenticação não conferir
+	 */
+	public static int decrypt(byte[] input, int offset, int length, byte[] output, int outputOffset,
+			byte[] aad, int aadOffset, int aadLength) throws GeneralSecurityException {
+		return MOTOR.get().decrypt(input, offset, length, output, outputOffset, aad, aadOffset, aadLength);
+	}
+
+	/**
+	 * Descriptografa os bytes restantes de {@code input} (IV + dados + tag) e grava o texto simples em {@code output}.
+	 *
+	 * @return o número de bytes gravados em {@code output}
+	 * @throws GeneralSecurityException se a tag de autenticação não conferir
+	 */
+	public static int decrypt(ByteBuffer input, ByteBuffer output) throws GeneralSecurityException {
+		return MOTOR.get().decrypt(input, output);
+	}
+
+	/**
+	 * Cipher e gerador de nonces confinados a uma thread. Evitam o Cipher.getInstance e o
+	 * new SecureRandom() por chamada; apenas o GCMParameterSpec é criado a cada operação.
+	 */
+	private static final class MotorCifra {
+		private final Cipher cipher;
+		private final SecureRandom geradorNonce;
+		private final byte[] iv = new byte[TAMANHO_IV];
+
+		private MotorCifra() {
+			try {
+				cipher = Cipher.getInstance("AES/GCM/NoPadding");
+				geradorNonce = SecureRandom.getInstance("DRBG");
+			} catch (GeneralSecurityException e) {
+				throw new IllegalStateException("AES/GCM indisponível: " + e.getMessage(), e);
+			}
+		}
+
+		int encrypt(byte[] input, int offset, int length, byte[] output, int outputOffset,
+				byte[] aad, int aadOffset, int aadLength) throws GeneralSecurityException {
+			SecretKey key = getSessionSecretKey();
+			geradorNonce.nextBytes(iv);
+			cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(TAMANHO_TAG_BITS, iv));
+			if (aad != null) {
+				cipher.updateAAD(aad, aadOffset, aadLength);
+			}
+			System.arraycopy(iv, 0, output, outputOffset, TAMANHO_IV);
+			return TAMANHO_IV + cipher.doFinal(input, offset, length, output, outputOffset + TAMANHO_IV);
+		}
+
+		int encrypt(ByteBuffer input, ByteBuffer output) throws GeneralSecurityException {
+			SecretKey key = getSessionSecretKey();
+			geradorNonce.nextBytes(iv);
+			cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(TAMANHO_TAG_BITS, iv));
+			output.put(iv);
+			return TAMANHO_IV + cipher.doFinal(input, output);
+		}
+
+		int decrypt(byte[] input, int offset, int length, byte[] output, int outputOffset,
+				byte[] aad, int aadOffset, int aadLength) throws GeneralSecurityException {
+			SecretKey key = getSessionSecretKey();
+			if (length < TAMANHO_IV + TAMANHO_TAG) {
+				throw new IllegalArgumentException("Invalid encrypted input length");
+			}
+			cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(TAMANHO_TAG_BITS, input, offset, TAMANHO_IV));
+			if (aad != null) {
+				cipher.updateAAD(aad, aadOffset, aadLength);
+			}
+			return cipher.doFinal(input, offset + TAMANHO_IV, length - TAMANHO_IV, output, outputOffset);
+		}
+
+		int decrypt(ByteBuffer input, ByteBuffer output) throws GeneralSecurityException {
+			SecretKey key = getSessionSecretKey();
+			if (input.remaining() < TAMANHO_IV + TAMANHO_TAG) {
+				throw new IllegalArgumentException("Invalid encrypted input length");
+			}
+			input.get(iv);
+			cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(TAMANHO_TAG_BITS, iv));
+			return cipher.doFinal(input, output);
+		}
+	}
+
 	//Utilitário para gerar ou carregar um salt persistente para PBKDF2
 	public static String getOrCreatePersistentSalt() throws Exception {
 		java.nio.file.Path saltPath = java.nio.file.Paths.get("encryption_salt.dat"); // Alterado para .dat
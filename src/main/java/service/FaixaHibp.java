@@ -0,0 +1,341 @@
+package service;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HexFormat;
+
+/**
+ * Resposta de uma consulta de faixa da API Pwned Passwords ({@code /range/PREFIXO}) em forma compacta:
+ * os sufixos de 35 dígitos hexadecimais, ordenados, em 18 bytes cada (com um zero à esquerda), e as
+ * contagens em um {@code int[]}. São 22 bytes por linha, contra quase 100 da linha como String, e a
+ * consulta é uma busca binária.
+ */
+public final class FaixaHibp {
+
+    static final int DIGITOS_SUFIXO = 35;
+    static final int TAMANHO_SUFIXO = 18;
+    private static final HexFormat HEX = HexFormat.of().withUpperCase();
+    // Valor de cada byte ASCII como dígito hexadecimal, ou -1
+    private static final byte[] VALOR_HEX = new byte[256];
+
+    static {
+        Arrays.fill(VALOR_HEX, (byte) -1);
+        for (int i = 0; i < 16; i++) {
+            VALOR_HEX[Character.forDigit(i, 16)] = (byte) i;
+            VALOR_HEX[Character.toUpperCase(Character.forDigit(i, 16))] = (byte) i;
+        }
+    }
+
+    private final byte[] sufixos;
+    private final int[] contagens;
+
+    private FaixaHibp(byte[] sufixos, int[] contagens) {
+        this.sufixos = sufixos;
+        this.contagens = contagens;
+    }
+
+    /**
+     * Interpreta o corpo de uma resposta da API, com linhas {@code SUFIXO:CONTAGEM}.
+     *
+     * @param corpo corpo da resposta
+     * @return a faixa
+     * @throws IOException se alguma linha for inválida
+     */
+    public static FaixaHibp deResposta(String corpo) throws IOException {
+        return le(new ByteArrayInputStream(corpo.getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    /**
+     * Lê uma resposta da API em fluxo, decodificando os sufixos direto dos bytes recebidos, sem criar
+     * objetos por linha. As linhas com contagem zero (o enchimento das respostas com
+     * {@code Add-Padding}) são descartadas.
+     *
+     * @param corpo corpo da resposta
+     * @return a faixa
+     * @throws IOException se a leitura falhar ou alguma linha for inválida
+     */
+    public static FaixaHibp le(InputStream corpo) throws IOException {
+        Leitor leitor = new Leitor(corpo);
+        byte[] sufixos = new byte[1024 * TAMANHO_SUFIXO];
+        int[] contagens = new int[1024];
+        int linhas = 0;
+        boolean ordenada = true;
+        while (leitor.proxima()) {
+            if (leitor.contagem == 0) {
+                continue;
+            }
+            if (linhas == contagens.length) {
+                contagens = Arrays.copyOf(contagens, linhas * 2);
+                sufixos = Arrays.copyOf(sufixos, linhas * 2 * TAMANHO_SUFIXO);
+            }
+            System.arraycopy(leitor.sufixo, 0, sufixos, linhas * TAMANHO_SUFIXO, TAMANHO_SUFIXO);
+            contagens[linhas] = leitor.contagem;
+            if (linhas > 0 && compara(sufixos, linhas - 1, sufixos, linhas) >= 0) {
+                ordenada = false;
+            }
+            linhas++;
+        }
+        FaixaHibp faixa = new FaixaHibp(Arrays.copyOf(sufixos, linhas * TAMANHO_SUFIXO), Arrays.copyOf(contagens, linhas));
+        return ordenada ? faixa : faixa.ordenada();
+    }
+
+    /**
+     * Procura um hash em uma resposta da API sem montar a faixa: cada linha é comparada com o hash
+     * assim que lida, e a leitura para na primeira linha além dele, já que a API responde em ordem.
+     *
+     * @param corpo corpo da resposta
+     * @param sha1  SHA-1 completo da senha (20 bytes)
+     * @return o número de ocorrências, ou 0 se o hash não estiver na resposta
+     * @throws IOException se a leitura falhar ou alguma linha lida for inválida
+     */
+    public static int procura(InputStream corpo, byte[] sha1) throws IOException {
+        Leitor leitor = new Leitor(corpo);
+        while (leitor.proxima()) {
+            int comparacao = compara(leitor.sufixo, 0, sha1);
+            if (comparacao == 0) {
+                return leitor.contagem;
+            }
+            if (comparacao > 0) {
+                return 0;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Os 5 primeiros dígitos hexadecimais, em maiúsculas, de um SHA-1: o prefixo da consulta à API.
+     *
+     * @param sha1 SHA-1 completo (20 bytes)
+     * @return o prefixo
+     */
+    public static String prefixo(byte[] sha1) {
+        return HEX.formatHex(sha1, 0, 3).substring(0, 5);
+    }
+
+    /**
+     * Lê as linhas {@code SUFIXO:CONTAGEM} de um corpo byte a byte, decodificando o sufixo para os
+     * mesmos 18 bytes usados na faixa. Os buffers são reaproveitados entre as linhas.
+     */
+    private static final class Leitor {
+        private final InputStream entrada;
+        private final byte[] buffer = new byte[8192];
+        private int posicao;
+        private int limite;
+        private int linha;
+        final byte[] sufixo = new byte[TAMANHO_SUFIXO];
+        int contagem;
+
+        Leitor(InputStream entrada) {
+            this.entrada = entrada;
+        }
+
+        private int le() throws IOException {
+            if (posicao == limite) {
+                limite = entrada.read(buffer);
+                posicao = 0;
+                if (limite <= 0) {
+                    limite = 0;
+                    return -1;
+                }
+            }
+            return buffer[posicao++] & 0xFF;
+        }
+
+        private IOException invalida() {
+            return new IOException("Linha " + linha + " inválida na resposta da API Pwned Passwords.");
+        }
+
+        /**
+         * Avança para a próxima linha não vazia.
+         *
+         * @return {@code false} no fim do corpo
+         */
+        boolean proxima() throws IOException {
+            int b;
+            do {
+                b = le();
+                if (b == '\n') {
+                    linha++;
+                }
+            } while (b == '\r' || b == '\n' || b == ' ');
+            if (b < 0) {
+                return false;
+            }
+            linha++;
+            // Um zero implícito à esquerda completa 36 dígitos: o dígito i ocupa o meio-byte i + 1
+            sufixo[0] = 0;
+            for (int i = 0; i < DIGITOS_SUFIXO; i++, b = le()) {
+                int digito = b < 0 ? -1 : VALOR_HEX[b];
+                if (digito < 0) {
+                    throw invalida();
+                }
+                int meioByte = i + 1;
+                if ((meioByte & 1) == 0) {
+                    sufixo[meioByte >> 1] = (byte) (digito << 4);
+                } else {
+                    sufixo[meioByte >> 1] |= (byte) digito;
+                }
+            }
+            if (b != ':') {
+                throw invalida();
+            }
+            long valor = 0;
+            int digitos = 0;
+            while ((b = le()) >= '0' && b <= '9') {
+                valor = Math.min(valor * 10 + (b - '0'), Integer.MAX_VALUE);
+                digitos++;
+            }
+            while (b == ' ' || b == '\r') {
+                b = le();
+            }
+            if (digitos == 0 || (b != '\n' && b != -1)) {
+                throw invalida();
+            }
+            contagem = (int) valor;
+            return true;
+        }
+    }
+
+    /**
+     * Cópia com as linhas em ordem de sufixo; a API já responde em ordem, então isso é só uma salvaguarda.
+     */
+    private FaixaHibp ordenada() {
+        Integer[] ordem = new Integer[contagens.length];
+        for (int i = 0; i < ordem.length; i++) {
+            ordem[i] = i;
+        }
+        Arrays.sort(ordem, (a, b) -> compara(sufixos, a, sufixos, b));
+        byte[] novosSufixos = new byte[sufixos.length];
+        int[] novasContagens = new int[contagens.length];
+        for (int i = 0; i < ordem.length; i++) {
+            System.arraycopy(sufixos, ordem[i] * TAMANHO_SUFIXO, novosSufixos, i * TAMANHO_SUFIXO, TAMANHO_SUFIXO);
+            novasContagens[i] = contagens[ordem[i]];
+        }
+        return new FaixaHibp(novosSufixos, novasContagens);
+    }
+
+    /**
+     * Converte os 35 primeiros dígitos de {@code texto} para 18 bytes em {@code destino}.
+     *
+     * @return {@code false} se algum caractere não for hexadecimal
+     */
+    private static boolean codifica(String texto, byte[] destino, int offset) {
+        // Um zero implícito à esquerda completa 36 dígitos: o byte j junta os dígitos 2j - 1 e 2j
+        for (int j = 0; j < TAMANHO_SUFIXO; j++) {
+            int alto = j == 0 ? 0 : Character.digit(texto.charAt(2 * j - 1), 16);
+            int baixo = Character.digit(texto.charAt(2 * j), 16);
+            if (alto < 0 || baixo < 0) {
+                return false;
+            }
+            destino[offset + j] = (byte) (alto << 4 | baixo);
+        }
+        return true;
+    }
+
+    private static int compara(byte[] a, int indiceA, byte[] b, int indiceB) {
+        return Arrays.compareUnsigned(a, indiceA * TAMANHO_SUFIXO, (indiceA + 1) * TAMANHO_SUFIXO,
+                b, indiceB * TAMANHO_SUFIXO, (indiceB + 1) * TAMANHO_SUFIXO);
+    }
+
+    /**
+     * Compara o sufixo {@code indice} de {@code sufixos} com o sufixo de um SHA-1 completo: o meio-byte
+     * baixo do byte 2 e os bytes 3 a 19, sem converter o hash para hexadecimal.
+     */
+    private static int compara(byte[] sufixos, int indice, byte[] sha1) {
+        int inicio = indice * TAMANHO_SUFIXO;
+        int comparacao = Integer.compare(sufixos[inicio] & 0xFF, sha1[2] & 0x0F);
+        return comparacao != 0 ? comparacao
+                : Arrays.compareUnsigned(sufixos, inicio + 1, inicio + TAMANHO_SUFIXO, sha1, 3, 20);
+    }
+
+    /**
+     * Quantas vezes um hash desta faixa aparece em vazamentos.
+     *
+     * @param sha1 SHA-1 completo da senha (20 bytes), cujo prefixo é o desta faixa
+     * @return o número de ocorrências, ou 0 se o hash não estiver na faixa
+     */
+    public int ocorrencias(byte[] sha1) {
+        int inicio = 0;
+        int fim = contagens.length - 1;
+        while (inicio <= fim) {
+            int meio = (inicio + fim) >>> 1;
+            int comparacao = compara(sufixos, meio, sha1);
+            if (comparacao < 0) {
+                inicio = meio + 1;
+            } else if (comparacao > 0) {
+                fim = meio - 1;
+            } else {
+                return contagens[meio];
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Quantas vezes o hash com este sufixo aparece em vazamentos.
+     *
+     * @param sufixo os 35 últimos dígitos hexadecimais do SHA-1
+     * @return o número de ocorrências, ou 0 se o sufixo não estiver na faixa ou for inválido
+     */
+    public int ocorrencias(String sufixo) {
+        byte[] procurado = new byte[TAMANHO_SUFIXO];
+        if (sufixo.length() != DIGITOS_SUFIXO || !codifica(sufixo, procurado, 0)) {
+            return 0;
+        }
+        int inicio = 0;
+        int fim = contagens.length - 1;
+        while (inicio <= fim) {
+            int meio = (inicio + fim) >>> 1;
+            int comparacao = compara(sufixos, meio, procurado, 0);
+            if (comparacao < 0) {
+                inicio = meio + 1;
+            } else if (comparacao > 0) {
+                fim = meio - 1;
+            } else {
+                return contagens[meio];
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Número de linhas da faixa.
+     */
+    public int tamanho() {
+        return contagens.length;
+    }
+
+    /**
+     * Forma binária da faixa: número de linhas (i32), os sufixos e as contagens (i32).
+     */
+    public byte[] serializa() {
+        ByteBuffer buffer = ByteBuffer.allocate(4 + sufixos.length + contagens.length * 4);
+        buffer.putInt(contagens.length).put(sufixos);
+        buffer.asIntBuffer().put(contagens);
+        return buffer.array();
+    }
+
+    /**
+     * Lê a forma binária gerada por {@link #serializa()}.
+     *
+     * @param bytes forma binária
+     * @return a faixa
+     * @throws IOException se os dados estiverem truncados ou inconsistentes
+     */
+    public static FaixaHibp desserializa(byte[] bytes) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        int linhas = bytes.length >= 4 ? buffer.getInt() : -1;
+        if (linhas < 0 || bytes.length != 4 + (long) linhas * (TAMANHO_SUFIXO + 4)) {
+            throw new IOException("Faixa armazenada inválida.");
+        }
+        byte[] sufixos = new byte[linhas * TAMANHO_SUFIXO];
+        int[] contagens = new int[linhas];
+        buffer.get(sufixos);
+        buffer.asIntBuffer().get(contagens);
+        return new FaixaHibp(sufixos, contagens);
+    }
+}
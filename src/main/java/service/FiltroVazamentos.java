@@ -0,0 +1,377 @@
+package service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Filtro de Bloom em blocos sobre os hashes SHA-1 de senhas vazadas. Responde "certamente não
+ * vazada" sem acesso a disco nem à rede; só as possíveis ocorrências precisam ir para a consulta
+ * exata ({@link BaseVazamentos} ou a API).
+ * <p>
+ * Cada hash escolhe um bloco de 512 bits (uma linha de cache) e marca {@code k} bits dentro dele, então
+ * uma consulta lê uma única linha de cache. Como o SHA-1 já é uniforme, as posições saem direto dos
+ * bytes do hash, sem outra função de hash criptográfica: os 8 primeiros escolhem o bloco e os 12
+ * seguintes geram as posições dos bits por hash duplo em 64 bits. Os blocos aumentam a taxa de falsos positivos em relação a um filtro clássico do
+ * mesmo tamanho, porque alguns recebem mais hashes que a média; o dimensionamento modela a carga de cada
+ * bloco como uma distribuição de Poisson e aumenta os bits por hash até atingir a taxa pedida.
+ * <p>
+ * Arquivo (big-endian): magic {@code 0x89 'G' 'D' 'B'}, versão (u16), bits por hash (u8), número de
+ * hashes (i64), número de blocos (i32) e os blocos (8 longs cada).
+ */
+public final class FiltroVazamentos {
+
+    static final int VERSAO = 1;
+    private static final byte[] MAGIC = {(byte) 0x89, 'G', 'D', 'B'};
+    private static final int TAMANHO_CABECALHO = MAGIC.length + 2 + 1 + 8 + 4;
+    private static final int BITS_POR_BLOCO = 512;
+    private static final int LONGS_POR_BLOCO = BITS_POR_BLOCO / 64;
+    private static final int MAXIMO_BITS_POR_HASH = 16;
+    // Os 9 bits mais altos de cada posição misturada escolhem um dos 512 bits do bloco
+    private static final int DESLOCAMENTO_BIT = Long.SIZE - Integer.numberOfTrailingZeros(BITS_POR_BLOCO);
+
+    private final long[] bits;
+    private final int blocos;
+    private final int bitsPorHash;
+    private final long elementos;
+
+    private FiltroVazamentos(long[] bits, int bitsPorHash, long elementos) {
+        this.bits = bits;
+        this.blocos = bits.length / LONGS_POR_BLOCO;
+        this.bitsPorHash = bitsPorHash;
+        this.elementos = elementos;
+    }
+
+    /**
+     * Cria um construtor dimensionado para o número de hashes e a taxa de falsos positivos desejada.
+     *
+     * @param elementosEsperados número de hashes que serão adicionados
+     * @param taxaFalsosPositivos taxa desejada, entre 0 e 1 (exclusivos)
+     * @return o construtor
+     * @throws IllegalArgumentException se os parâmetros forem inválidos ou o filtro não couber em um array
+     */
+    public static Construtor construtor(long elementosEsperados, double taxaFalsosPositivos) {
+        if (elementosEsperados < 0) {
+            throw new IllegalArgumentException("O número de elementos não pode ser negativo.");
+        }
+        if (!(taxaFalsosPositivos > 0 && taxaFalsosPositivos < 1)) {
+            throw new IllegalArgumentException("A taxa de falsos positivos deve estar entre 0 e 1.");
+        }
+        double ln2 = Math.log(2);
+        // Parte do tamanho de um filtro clássico e cresce 1% por vez até os blocos atingirem a taxa
+        double bitsPorElemento = -Math.log(taxaFalsosPositivos) / (ln2 * ln2);
+        int k;
+        while ((k = melhorBitsPorHash(bitsPorElemento, taxaFalsosPositivos)) == 0) {
+            bitsPorElemento *= 1.01;
+        }
+        long blocos = Math.max(1, (long) Math.ceil(Math.max(1, elementosEsperados) * bitsPorElemento / BITS_POR_BLOCO));
+        if (blocos * LONGS_POR_BLOCO > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Filtro grande demais para a taxa de falsos positivos pedida.");
+        }
+        return new Construtor(new long[(int) blocos * LONGS_POR_BLOCO], k);
+    }
+
+    /**
+     * Menor número de bits por hash com que blocos de {@code bitsPorElemento} bits por hash atingem a
+     * taxa, ou 0 se nenhum atingir.
+     */
+    private static int melhorBitsPorHash(double bitsPorElemento, double taxa) {
+        for (int k = 1; k <= MAXIMO_BITS_POR_HASH; k++) {
+            if (taxaBlocos(bitsPorElemento, k) <= taxa) {
+                return k;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Taxa de falsos positivos esperada: a média, sobre a carga Poisson de um bloco, da taxa de um
+     * filtro de 512 bits com essa carga.
+     */
+    static double taxaBlocos(double bitsPorElemento, int k) {
+        double media = BITS_POR_BLOCO / bitsPorElemento;
+        double probabilidade = Math.exp(-media);
+        double taxa = 0;
+        for (int carga = 0; carga <= media + 10 * Math.sqrt(media) + 10; carga++) {
+            if (carga > 0) {
+                probabilidade *= media / carga;
+            }
+            double bitLivre = Math.pow(1 - 1.0 / BITS_POR_BLOCO, (double) k * carga);
+            taxa += probabilidade * Math.pow(1 - bitLivre, k);
+        }
+        return taxa;
+    }
+
+    /**
+     * Constrói o filtro a partir de uma lista de hashes em texto (uma linha {@code HASH} ou
+     * {@code HASH:CONTAGEM} por hash, como no arquivo do Pwned Passwords, em qualquer ordem). O arquivo
+     * é lido duas vezes em fluxo: uma para contar as linhas e dimensionar o filtro, outra para preenchê-lo.
+     *
+     * @param lista               arquivo com os hashes SHA-1 em hexadecimal
+     * @param taxaFalsosPositivos taxa desejada, entre 0 e 1 (exclusivos)
+     * @return o filtro
+     * @throws IOException se a leitura falhar ou uma linha não começar por um hash válido
+     */
+    public static FiltroVazamentos constroi(Path lista, double taxaFalsosPositivos) throws IOException {
+        long linhas;
+        try (var leitor = Files.lines(lista, StandardCharsets.US_ASCII)) {
+            linhas = leitor.filter(linha -> !linha.isBlank()).count();
+        }
+        Construtor construtor = construtor(linhas, taxaFalsosPositivos);
+        byte[] hash = new byte[BaseVazamentos.TAMANHO_HASH];
+        try (BufferedReader leitor = Files.newBufferedReader(lista, StandardCharsets.US_ASCII)) {
+            long numeroLinha = 0;
+            String linha;
+            while ((linha = leitor.readLine()) != null) {
+                numeroLinha++;
+                if (linha.isBlank()) {
+                    continue;
+                }
+                if (!leHash(linha.strip(), hash)) {
+                    throw new IOException("Hash inválido na lista de senhas vazadas (linha " + numeroLinha + ").");
+                }
+                construtor.adiciona(hash);
+            }
+        }
+        return construtor.constroi();
+    }
+
+    private static boolean leHash(String linha, byte[] hash) {
+        int digitos = hash.length * 2;
+        if (linha.length() < digitos || linha.length() > digitos && linha.charAt(digitos) != ':') {
+            return false;
+        }
+        for (int i = 0; i < hash.length; i++) {
+            int alto = Character.digit(linha.charAt(2 * i), 16);
+            int baixo = Character.digit(linha.charAt(2 * i + 1), 16);
+            if (alto < 0 || baixo < 0) {
+                return false;
+            }
+            hash[i] = (byte) (alto << 4 | baixo);
+        }
+        return true;
+    }
+
+    /**
+     * Indica se a senha pode estar entre as vazadas.
+     *
+     * @param senha senha em texto
+     * @return {@code false} se a senha certamente não está na lista
+     */
+    public boolean podeConter(String senha) {
+        return podeConter(BaseVazamentos.sha1(senha));
+    }
+
+    /**
+     * Indica se o hash pode estar entre os vazados.
+     *
+     * @param sha1 hash SHA-1 (20 bytes)
+     * @return {@code false} se o hash certamente não está na lista
+     * @throws IllegalArgumentException se o hash não tiver 20 bytes
+     */
+    public boolean podeConter(byte[] sha1) {
+        int base = bloco(sha1, blocos) * LONGS_POR_BLOCO;
+        long a = leLong(sha1, 8);
+        long b = leLong(sha1, 12) | 1;
+        for (int i = 0; i < bitsPorHash; i++) {
+            int bit = posicao(a + i * b);
+            if ((bits[base + (bit >>> 6)] & 1L << bit) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int bloco(byte[] sha1, int blocos) {
+        if (sha1.length != BaseVazamentos.TAMANHO_HASH) {
+            throw new IllegalArgumentException("O hash SHA-1 deve ter 20 bytes.");
+        }
+        return (int) Math.unsignedMultiplyHigh(leLong(sha1, 0), blocos);
+    }
+
+    /**
+     * Bit do bloco para uma posição do hash duplo. A posição passa pelo finalizador do MurmurHash3
+     * antes de ter os 9 bits mais altos extraídos: uma progressão aritmética sem mistura repetiria o
+     * padrão inteiro de bits entre hashes próximos, e a taxa real ficaria várias vezes acima da pedida.
+     */
+    private static int posicao(long x) {
+        x = (x ^ x >>> 33) * 0xff51afd7ed558ccdL;
+        x = (x ^ x >>> 33) * 0xc4ceb9fe1a85ec53L;
+        return (int) ((x ^ x >>> 33) >>> DESLOCAMENTO_BIT);
+    }
+
+    private static long leLong(byte[] bytes, int offset) {
+        long valor = 0;
+        for (int i = offset; i < offset + 8; i++) {
+            valor = valor << 8 | bytes[i] & 0xFF;
+        }
+        return valor;
+    }
+
+    /**
+     * Número de hashes adicionados.
+     */
+    public long elementos() {
+        return elementos;
+    }
+
+    /**
+     * Bits marcados por hash.
+     */
+    public int bitsPorHash() {
+        return bitsPorHash;
+    }
+
+    /**
+     * Memória ocupada pelos bits do filtro, em bytes.
+     */
+    public long bytesMemoria() {
+        return (long) bits.length * Long.BYTES;
+    }
+
+    /**
+     * Taxa de falsos positivos esperada para os hashes adicionados: a média, sobre os blocos, de
+     * {@code (bits marcados no bloco / 512)^k}.
+     */
+    public double taxaEstimada() {
+        double soma = 0;
+        for (int bloco = 0; bloco < blocos; bloco++) {
+            int marcados = 0;
+            for (int i = bloco * LONGS_POR_BLOCO; i < (bloco + 1) * LONGS_POR_BLOCO; i++) {
+                marcados += Long.bitCount(bits[i]);
+            }
+            soma += Math.pow((double) marcados / BITS_POR_BLOCO, bitsPorHash);
+        }
+        return soma / blocos;
+    }
+
+    /**
+     * Grava o filtro; o destino só é substituído depois da gravação completa.
+     *
+     * @param destino arquivo do filtro
+     * @throws IOException se a gravação falhar
+     */
+    public void salva(Path destino) throws IOException {
+        Path temporario = destino.resolveSibling(destino.getFileName() + ".tmp");
+        try {
+            try (FileChannel canal = FileChannel.open(temporario, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                ByteBuffer cabecalho = ByteBuffer.allocate(TAMANHO_CABECALHO);
+                cabecalho.put(MAGIC).putShort((short) VERSAO).put((byte) bitsPorHash).putLong(elementos).putInt(blocos);
+                escreve(canal, cabecalho.flip());
+                ByteBuffer bloco = ByteBuffer.allocate(1 << 16);
+                for (int i = 0; i < bits.length; ) {
+                    bloco.clear();
+                    int quantidade = Math.min(bits.length - i, bloco.capacity() / Long.BYTES);
+                    bloco.asLongBuffer().put(bits, i, quantidade);
+                    bloco.limit(quantidade * Long.BYTES);
+                    escreve(canal, bloco);
+                    i += quantidade;
+                }
+                canal.force(true);
+            }
+            Files.move(temporario, destino, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporario);
+        }
+    }
+
+    private static void escreve(FileChannel canal, ByteBuffer dados) throws IOException {
+        while (dados.hasRemaining()) {
+            canal.write(dados);
+        }
+    }
+
+    /**
+     * Carrega um filtro gravado por {@link #salva(Path)}.
+     *
+     * @param arquivo arquivo do filtro
+     * @return o filtro
+     * @throws IOException se a leitura falhar ou o arquivo não for um filtro válido
+     */
+    public static FiltroVazamentos carrega(Path arquivo) throws IOException {
+        try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.READ)) {
+            ByteBuffer cabecalho = ByteBuffer.allocate(TAMANHO_CABECALHO);
+            le(canal, cabecalho);
+            byte[] magic = new byte[MAGIC.length];
+            if (cabecalho.remaining() == TAMANHO_CABECALHO) {
+                cabecalho.get(magic);
+            }
+            if (!Arrays.equals(magic, MAGIC)) {
+                throw new IOException("Arquivo não é um filtro de senhas vazadas: " + arquivo);
+            }
+            int versao = Short.toUnsignedInt(cabecalho.getShort());
+            if (versao != VERSAO) {
+                throw new IOException("Versão não suportada do filtro de senhas vazadas: " + versao);
+            }
+            int bitsPorHash = cabecalho.get();
+            long elementos = cabecalho.getLong();
+            int blocos = cabecalho.getInt();
+            if (bitsPorHash < 1 || bitsPorHash > MAXIMO_BITS_POR_HASH || blocos < 1
+                    || (long) blocos * LONGS_POR_BLOCO > Integer.MAX_VALUE - 8
+                    || canal.size() != TAMANHO_CABECALHO + (long) blocos * BITS_POR_BLOCO / 8) {
+                throw new IOException("Filtro de senhas vazadas inválido ou truncado: " + arquivo);
+            }
+            long[] bits = new long[blocos * LONGS_POR_BLOCO];
+            ByteBuffer bloco = ByteBuffer.allocate(1 << 16);
+            for (int i = 0; i < bits.length; ) {
+                bloco.clear().limit(Math.min(bloco.capacity(), (bits.length - i) * Long.BYTES));
+                le(canal, bloco);
+                int quantidade = bloco.remaining() / Long.BYTES;
+                bloco.asLongBuffer().get(bits, i, quantidade);
+                i += quantidade;
+            }
+            return new FiltroVazamentos(bits, bitsPorHash, elementos);
+        }
+    }
+
+    private static void le(FileChannel canal, ByteBuffer destino) throws IOException {
+        while (destino.hasRemaining() && canal.read(destino) > 0) {
+            // lê até preencher o buffer ou chegar ao fim do arquivo
+        }
+        destino.flip();
+    }
+
+    /**
+     * Preenche um filtro dimensionado por {@link #construtor(long, double)}. Não é thread-safe.
+     */
+    public static final class Construtor {
+        private final long[] bits;
+        private final int bitsPorHash;
+        private long elementos;
+
+        private Construtor(long[] bits, int bitsPorHash) {
+            this.bits = bits;
+            this.bitsPorHash = bitsPorHash;
+        }
+
+        /**
+         * Adiciona um hash SHA-1 (20 bytes).
+         */
+        public Construtor adiciona(byte[] sha1) {
+            int base = bloco(sha1, bits.length / LONGS_POR_BLOCO) * LONGS_POR_BLOCO;
+            long a = leLong(sha1, 8);
+            long b = leLong(sha1, 12) | 1;
+            for (int i = 0; i < bitsPorHash; i++) {
+                int bit = posicao(a + i * b);
+                bits[base + (bit >>> 6)] |= 1L << bit;
+            }
+            elementos++;
+            return this;
+        }
+
+        /**
+         * O filtro com os hashes adicionados; o construtor não deve ser usado depois.
+         */
+        public FiltroVazamentos constroi() {
+            return new FiltroVazamentos(bits, bitsPorHash, elementos);
+        }
+    }
+}
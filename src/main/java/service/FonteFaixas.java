@@ -0,0 +1,32 @@
+package service;
+
+import java.io.IOException;
+
+/**
+ * Origem das faixas da API Pwned Passwords consultadas pelo {@link CacheFaixas} quando a faixa não
+ * está guardada.
+ */
+@FunctionalInterface
+public interface FonteFaixas {
+
+    /**
+     * Obtém a faixa de um prefixo.
+     *
+     * @param prefixo os 5 primeiros dígitos hexadecimais do SHA-1, em maiúsculas
+     * @return a faixa
+     * @throws IOException se a consulta falhar
+     */
+    FaixaHibp baixa(String prefixo) throws IOException;
+
+    /**
+     * Quantas vezes um hash aparece em vazamentos, sem passar por cache. Por padrão, obtém a faixa
+     * inteira; fontes que leem a resposta em fluxo podem parar antes.
+     *
+     * @param sha1 SHA-1 completo da senha (20 bytes)
+     * @return o número de ocorrências
+     * @throws IOException se a consulta falhar
+     */
+    default int ocorrencias(byte[] sha1) throws IOException {
+        return baixa(FaixaHibp.prefixo(sha1)).ocorrencias(sha1);
+    }
+}
@@ -0,0 +1,398 @@
+package service;
+
+import model.Credencial;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.DataOutput;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.GeneralSecurityException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.OptionalInt;
+
+/**
+ * Formato binário (v4) do arquivo de credenciais.
+ * <p>
+ * Cabeçalho: magic {@code 0x89 'G' 'D' 'S'}, versão (u16), identificador do KDF (u8),
+ * iterações do PBKDF2 (i32), o salt (u16 + bytes) e, a partir da v3, a geração do journal (i64)
+ * já incorporada ao arquivo (ver {@link JournalCredenciais}). O primeiro byte não pertence ao
+ * alfabeto Base64, o que distingue o formato do arquivo legado, uma linha Base64 por credencial.
+ * Arquivos v2 continuam sendo lidos, com geração zero, e v3, cujos registros nunca têm semente TOTP.
+ * <p>
+ * Cada registro é gravado como {@code i32 tamanho + corpo}, e o corpo é:
+ * <pre>
+ *   u16 tamanho | senha criptografada (IV + dados + tag, já produzida por EncriptacaoService)
+ *   IV + AES-GCM(u16 + serviço UTF-8, u16 + usuário UTF-8 [, u16 + semente TOTP criptografada]) + tag
+ * </pre>
+ * A senha já está criptografada, então entra apenas como dado associado do GCM: fica autenticada
+ * junto com o registro, sem uma segunda criptografia nem uma segunda camada de Base64. A semente TOTP
+ * (v4) é opcional e só é gravada nas credenciais que a têm, no fim dos campos cifrados, então o corpo
+ * de uma credencial sem semente é igual ao da v3; a versão muda para que uma versão anterior do
+ * programa recuse o arquivo em vez de descartar as sementes ao regravá-lo.
+ */
+public final class FormatoCofre {
+
+    static final int VERSAO = 4;
+    static final int VERSAO_SEM_SEED_TOTP = 3;
+    static final int VERSAO_SEM_GERACAO = 2;
+    static final int KDF_PBKDF2_HMAC_SHA256 = 1;
+    static final int TAMANHO_MAXIMO_REGISTRO = 64 * 1024;
+    private static final byte[] MAGIC = {(byte) 0x89, 'G', 'D', 'S'};
+    static final byte[] MAGIC_JOURNAL = {(byte) 0x89, 'G', 'D', 'J'};
+
+    private FormatoCofre() {
+        // Classe utilitária, não deve ser instanciada
+    }
+
+    /**
+     * Indica se o arquivo começa com o magic do formato binário.
+     *
+     * @param arquivo arquivo de credenciais
+     * @return {@code true} para o formato binário, {@code false} para o formato legado ou arquivo vazio
+     * @throws IOException se a leitura falhar
+     */
+    public static boolean ehFormatoBinario(Path arquivo) throws IOException {
+        try (InputStream in = Files.newInputStream(arquivo)) {
+            return Arrays.equals(in.readNBytes(MAGIC.length), MAGIC);
+        }
+    }
+
+    /**
+     * Iterações do PBKDF2 registradas no cabeçalho, lidas sem validar o cabeçalho contra a sessão,
+     * para que a sessão possa ser aberta com os parâmetros com que o arquivo foi gravado.
+     *
+     * @param arquivo arquivo de credenciais ou journal
+     * @return as iterações, ou vazio se o arquivo não estiver no formato binário
+     * @throws IOException se a leitura falhar, o cabeçalho estiver truncado ou usar outro KDF
+     */
+    static OptionalInt leIteracoes(Path arquivo) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(arquivo)))) {
+            byte[] magic = in.readNBytes(MAGIC.length);
+            if (!Arrays.equals(magic, MAGIC) && !Arrays.equals(magic, MAGIC_JOURNAL)) {
+                return OptionalInt.empty();
+            }
+            in.readUnsignedShort();
+            int kdf = in.readUnsignedByte();
+            int iteracoes = in.readInt();
+            if (kdf != KDF_PBKDF2_HMAC_SHA256 || iteracoes < 1) {
+                throw new IOException("Parâmetros de KDF do arquivo de credenciais não suportados.");
+            }
+            return OptionalInt.of(iteracoes);
+        } catch (EOFException e) {
+            throw new IOException("Cabeçalho do arquivo de credenciais truncado.", e);
+        }
+    }
+
+    /**
+     * Codifica e criptografa uma credencial como corpo de registro, com a chave da sessão.
+     *
+     * @param credencial credencial já sanitizada
+     * @return o corpo do registro, sem o prefixo de tamanho
+     * @throws GeneralSecurityException se a criptografia falhar
+     * @throws IllegalArgumentException se a senha ou a semente não estiverem em Base64 ou algum campo for grande demais
+     */
+    public static byte[] codificaRegistro(Credencial credencial) throws GeneralSecurityException {
+        byte[] senha = Base64.getDecoder().decode(credencial.senhaEncriptada());
+        byte[] servico = credencial.nomeServico().getBytes(StandardCharsets.UTF_8);
+        byte[] usuario = credencial.nomeUsuario().getBytes(StandardCharsets.UTF_8);
+        byte[] seed = credencial.possuiSeedTotp() ? Base64.getDecoder().decode(credencial.seedTotpEncriptada()) : null;
+        validaTamanhoCampo(senha.length);
+        validaTamanhoCampo(servico.length);
+        validaTamanhoCampo(usuario.length);
+        validaTamanhoCampo(seed == null ? 0 : seed.length);
+
+        byte[] campos = new byte[2 + servico.length + 2 + usuario.length + (seed == null ? 0 : 2 + seed.length)];
+        ByteBuffer escrita = ByteBuffer.wrap(campos)
+                .putShort((short) servico.length).put(servico)
+                .putShort((short) usuario.length).put(usuario);
+        if (seed != null) {
+            escrita.putShort((short) seed.length).put(seed);
+        }
+
+        byte[] corpo = new byte[2 + senha.length + EncriptacaoService.encryptedLength(campos.length)];
+        ByteBuffer.wrap(corpo).putShort((short) senha.length).put(senha);
+        try {
+            EncriptacaoService.encrypt(campos, 0, campos.length, corpo, 2 + senha.length, corpo, 2, senha.length);
+        } finally {
+            Arrays.fill(campos, (byte) 0);
+        }
+        return corpo;
+    }
+
+    /**
+     * Descriptografa e decodifica o corpo de um registro. O array de entrada não é alterado.
+     *
+     * @param corpo corpo do registro
+     * @return a credencial, ainda sem sanitização
+     * @throws GeneralSecurityException se a autenticação do registro falhar
+     * @throws IllegalArgumentException se a estrutura do registro for inválida
+     */
+    public static Credencial decodificaRegistro(byte[] corpo) throws GeneralSecurityException {
+        ByteBuffer leitura = ByteBuffer.wrap(corpo);
+        int tamanhoSenha = leCampoTamanho(leitura);
+        int inicioCifrado = 2 + tamanhoSenha;
+        int tamanhoCifrado = corpo.length - inicioCifrado;
+        if (tamanhoCifrado < EncriptacaoService.encryptedLength(0)) {
+            throw new IllegalArgumentException("Formato de registro inválido.");
+        }
+
+        byte[] campos = new byte[tamanhoCifrado - EncriptacaoService.encryptedLength(0)];
+        try {
+            EncriptacaoService.decrypt(corpo, inicioCifrado, tamanhoCifrado, campos, 0, corpo, 2, tamanhoSenha);
+            ByteBuffer leituraCampos = ByteBuffer.wrap(campos);
+            String servico = leTexto(leituraCampos);
+            String usuario = leTexto(leituraCampos);
+            String seed = null;
+            if (leituraCampos.hasRemaining()) {
+                int tamanhoSeed = leCampoTamanho(leituraCampos);
+                seed = Base64.getEncoder().encodeToString(
+                        Arrays.copyOfRange(campos, leituraCampos.position(), leituraCampos.position() + tamanhoSeed));
+            }
+            String senha = Base64.getEncoder().encodeToString(Arrays.copyOfRange(corpo, 2, inicioCifrado));
+            return new Credencial(servico, usuario, senha, seed);
+        } finally {
+            Arrays.fill(campos, (byte) 0);
+        }
+    }
+
+    /**
+     * Grava o cabeçalho com os parâmetros do KDF da sessão atual.
+     *
+     * @param out     destino posicionado no início do arquivo
+     * @param magic   {@link #MAGIC} para o arquivo de credenciais ou {@link #MAGIC_JOURNAL} para o journal
+     * @param geracao geração do journal
+     * @throws IOException se a escrita falhar
+     * @throws IllegalStateException se a chave da sessão não estiver definida
+     */
+    static void escreveCabecalho(DataOutput out, byte[] magic, long geracao) throws IOException {
+        byte[] salt = EncriptacaoService.getSessionSalt().getBytes(StandardCharsets.UTF_8);
+        out.write(magic);
+        out.writeShort(VERSAO);
+        out.writeByte(KDF_PBKDF2_HMAC_SHA256);
+        out.writeInt(EncriptacaoService.getSessionIteracoes());
+        out.writeShort(salt.length);
+        out.write(salt);
+        out.writeLong(geracao);
+    }
+
+    /**
+     * Lê e valida o cabeçalho do arquivo de credenciais contra os parâmetros do KDF da sessão atual,
+     * deixando a entrada posicionada no primeiro registro.
+     *
+     * @param in entrada posicionada no início do arquivo
+     * @return a geração do journal incorporada ao arquivo (zero na v2)
+     * @throws IOException se o arquivo não for binário, estiver truncado ou usar outro salt/KDF
+     */
+    static long leCabecalho(DataInput in) throws IOException {
+        return leCabecalho(in, MAGIC);
+    }
+
+    /**
+     * Lê e valida um cabeçalho com o magic informado.
+     *
+     * @param in    entrada posicionada no início do arquivo
+     * @param magic magic esperado
+     * @return a geração do journal (zero na v2)
+     * @throws IOException se o magic ou a versão não conferirem, o cabeçalho estiver truncado ou usar outro salt/KDF
+     */
+    static long leCabecalho(DataInput in, byte[] magic) throws IOException {
+        try {
+            byte[] lido = new byte[magic.length];
+            in.readFully(lido);
+            if (!Arrays.equals(lido, magic)) {
+                throw new IOException("O arquivo não está no formato binário de credenciais.");
+            }
+            int versao = in.readUnsignedShort();
+            if (versao != VERSAO && versao != VERSAO_SEM_SEED_TOTP && versao != VERSAO_SEM_GERACAO) {
+                throw new IOException("Versão de arquivo de credenciais não suportada: " + versao);
+            }
+            int kdf = in.readUnsignedByte();
+            int iteracoes = in.readInt();
+            if (kdf != KDF_PBKDF2_HMAC_SHA256 || iteracoes < 1) {
+                throw new IOException("Parâmetros de KDF do arquivo de credenciais não suportados.");
+            }
+            if (iteracoes != EncriptacaoService.getSessionIteracoes()) {
+                throw new IOException("O arquivo de credenciais foi criado com " + iteracoes
+                        + " iterações do PBKDF2, e a sessão usa " + EncriptacaoService.getSessionIteracoes() + ".");
+            }
+            byte[] salt = new byte[in.readUnsignedShort()];
+            in.readFully(salt);
+            if (!Arrays.equals(salt, EncriptacaoService.getSessionSalt().getBytes(StandardCharsets.UTF_8))) {
+                throw new IOException("O arquivo de credenciais foi criado com outro salt.");
+            }
+            return versao == VERSAO_SEM_GERACAO ? 0 : in.readLong();
+        } catch (EOFException e) {
+            throw new IOException("Cabeçalho do arquivo de credenciais truncado.", e);
+        }
+    }
+
+    /**
+     * Valida o tamanho lido do prefixo de um registro.
+     *
+     * @throws IOException se o tamanho for negativo ou maior que {@link #TAMANHO_MAXIMO_REGISTRO}
+     */
+    static int validaTamanhoRegistro(int tamanho) throws IOException {
+        if (tamanho < 0 || tamanho > TAMANHO_MAXIMO_REGISTRO) {
+            throw new IOException("Tamanho de registro inválido: " + tamanho);
+        }
+        return tamanho;
+    }
+
+    private static void validaTamanhoCampo(int tamanho) {
+        if (tamanho > 0xFFFF) {
+            throw new IllegalArgumentException("Campo grande demais para o formato do cofre.");
+        }
+    }
+
+    private static int leCampoTamanho(ByteBuffer leitura) {
+        if (leitura.remaining() < 2) {
+            throw new IllegalArgumentException("Formato de registro inválido.");
+        }
+        int tamanho = Short.toUnsignedInt(leitura.getShort());
+        if (tamanho > leitura.remaining()) {
+            throw new IllegalArgumentException("Formato de registro inválido.");
+        }
+        return tamanho;
+    }
+
+    private static String leTexto(ByteBuffer leitura) {
+        int tamanho = leCampoTamanho(leitura);
+        String texto = new String(leitura.array(), leitura.position(), tamanho, StandardCharsets.UTF_8);
+        leitura.position(leitura.position() + tamanho);
+        return texto;
+    }
+
+    /**
+     * Grava o cabeçalho e, em seguida, os registros em sequência.
+     */
+    public static final class Escritor implements Closeable {
+        private final FileChannel canal;
+        private final DataOutputStream out;
+
+        /**
+         * Abre o arquivo para escrita e grava o cabeçalho com os parâmetros do KDF da sessão atual
+         * e geração zero.
+         *
+         * @param arquivo destino (sobrescrito)
+         * @throws IOException se a escrita falhar
+         */
+        public Escritor(Path arquivo) throws IOException {
+            this(arquivo, 0);
+        }
+
+        /**
+         * Abre o arquivo para escrita e grava o cabeçalho com os parâmetros do KDF da sessão atual.
+         *
+         * @param arquivo         destino (sobrescrito)
+         * @param geracaoJournal geração do journal cujas entradas já estão incorporadas aos registros
+         * @throws IOException se a escrita falhar
+         */
+        public Escritor(Path arquivo, long geracaoJournal) throws IOException {
+            EncriptacaoService.getSessionSalt(); // falha antes de criar o arquivo se não houver sessão
+            this.canal = FileChannel.open(arquivo, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+            this.out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(canal)));
+            try {
+                escreveCabecalho(out, MAGIC, geracaoJournal);
+            } catch (IOException | RuntimeException e) {
+                out.close();
+                throw e;
+            }
+        }
+
+        /**
+         * Grava um registro já codificado por {@link #codificaRegistro(Credencial)}.
+         *
+         * @param corpo corpo do registro
+         * @throws IOException se a escrita falhar
+         */
+        public void escreve(byte[] corpo) throws IOException {
+            out.writeInt(corpo.length);
+            out.write(corpo);
+        }
+
+        /**
+         * Descarrega o buffer e sincroniza o arquivo com o disco antes de fechá-lo, para que uma
+         * substituição atômica logo em seguida não publique um arquivo incompleto.
+         */
+        @Override
+        public void close() throws IOException {
+            try (out) {
+                out.flush();
+                canal.force(true);
+            }
+        }
+    }
+
+    /**
+     * Lê o cabeçalho e depois entrega os corpos dos registros um a um, sem carregar o arquivo inteiro.
+     */
+    public static final class Leitor implements Closeable {
+        private final DataInputStream in;
+        private final long geracaoJournal;
+
+        /**
+         * Abre o arquivo e valida o cabeçalho contra os parâmetros do KDF da sessão atual.
+         *
+         * @param arquivo arquivo no formato binário
+         * @throws IOException se o arquivo não for binário, estiver truncado ou usar outro salt/KDF
+         */
+        public Leitor(Path arquivo) throws IOException {
+            this.in = new DataInputStream(new BufferedInputStream(Files.newInputStream(arquivo)));
+            try {
+                this.geracaoJournal = leCabecalho(in);
+            } catch (IOException | RuntimeException e) {
+                in.close();
+                throw e;
+            }
+        }
+
+        /**
+         * Geração do journal já incorporada aos registros deste arquivo.
+         */
+        public long getGeracaoJournal() {
+            return geracaoJournal;
+        }
+
+        /**
+         * Lê o próximo registro.
+         *
+         * @return o corpo do registro, ou {@code null} no fim do arquivo
+         * @throws IOException se o arquivo estiver truncado ou um tamanho for inválido
+         */
+        public byte[] proximo() throws IOException {
+            int primeiro = in.read();
+            if (primeiro < 0) {
+                return null;
+            }
+            try {
+                int tamanho = validaTamanhoRegistro((primeiro << 24) | (in.readUnsignedByte() << 16)
+                        | (in.readUnsignedByte() << 8) | in.readUnsignedByte());
+                byte[] corpo = new byte[tamanho];
+                in.readFully(corpo);
+                return corpo;
+            } catch (EOFException e) {
+                throw new IOException("Arquivo de credenciais truncado.", e);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
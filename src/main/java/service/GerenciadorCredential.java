@@ -9,16 +9,24 @@ import java.awt.datatransfer.Clipboard;
 import java.awt.datatransfer.StringSelection;
 import java.awt.Toolkit;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Scanner;
 
 /**
  * Gerencia a interação do usuário para o gerenciamento de credenciais, incluindo
- * listar, adicionar, remover, buscar, descriptografar e copiar senhas.
+ * listar, adicionar, remover, buscar, descriptografar e copiar senhas, e exibir os códigos TOTP
+ * das contas que têm semente.
  */
 public class GerenciadorCredential {
-	private final List<Credencial> credenciais;
+	private static final int LIMITE_BUSCA = 20;
+	private final CredentialRepository credenciais;
+	private final JournalCredenciais journal;
+	private final CodigosAutenticador autenticador;
 	private final Scanner input = new Scanner(System.in);
+	// Ids na ordem da última listagem, para traduzir o número escolhido pelo usuário
+	private List<Long> idsListados = List.of();
 
 	/**
 	 * Inicializa o gerenciador de credenciais com uma lista de credenciais.
@@ -26,13 +34,30 @@ public class GerenciadorCredential {
 	 * @param credenciais 
 	 */
 	public GerenciadorCredential(List<Credencial> credenciais) {
+		this(new CredentialRepository(credenciais), null);
+	}
+
+	/**
+	 * Inicializa o gerenciador com o repositório de credenciais e o journal aberto sobre ele.
+	 * Cada adição e remoção é gravada no journal assim que feita; sem journal, as alterações
+	 * só são gravadas ao encerrar.
+	 *
+	 * @param credenciais As credenciais a serem gerenciadas.
+	 * @param journal     Journal aberto sobre o mesmo repositório, ou {@code null}.
+	 */
+	public GerenciadorCredential(CredentialRepository credenciais, JournalCredenciais journal) {
 		this.credenciais = credenciais;
+		this.journal = journal;
+		this.autenticador = new CodigosAutenticador(credenciais::credenciais);
 	}
 
 	/**
 	 * Exibe o menu interativo para gerenciamento de credenciais.
 	 */
 	public void showMenu() {
+		if (credenciais.credenciais().stream().anyMatch(Credencial::possuiSeedTotp)) {
+			autenticador.inicia();
+		}
 		while (true) {
 			System.out.println("\n=== Gerenciador de Credenciais ===");
 			System.out.println("1. Listar todas as credenciais");
@@ -40,7 +65,9 @@ public class GerenciadorCredential {
 			System.out.println("3. Delete a credencial");
 			System.out.println("4. Copie uma senha para o clipboard");
 			System.out.println("5. Verifique se alguma senha foi comprometida");
-			System.out.println("6. Encerrar");
+			System.out.println("6. Buscar credenciais");
+			System.out.println("7. Mostrar códigos do autenticador (2FA)");
+			System.out.println("8. Encerrar");
 			System.out.print("Escolha uma opção: ");
 			String option = input.nextLine();
 
@@ -62,6 +89,12 @@ public class GerenciadorCredential {
 					checkCompromisedPasswords();
 					break;
 				case "6":
+					searchCredentials();
+					break;
+				case "7":
+					showAuthenticatorCodes();
+					break;
+				case "8":
 					saveAndExit();
 					return;
 				default:
@@ -74,15 +107,62 @@ public class GerenciadorCredential {
 	 * Lista todas as credenciais armazenadas com índice, nome do serviço e nome de usuário.
 	 */
 	private void listCredentials() {
-		if (credenciais.isEmpty()) {
+		List<Map.Entry<Long, Credencial>> entradas = credenciais.entradas();
+		if (entradas.isEmpty()) {
 			System.out.println("Nenhuma credencial armazenada.");
+			idsListados = List.of();
 			return;
 		}
 		System.out.println("Credenciais Armazenadas:");
-		for (int i = 0; i < credenciais.size(); i++) {
-			Credencial c = credenciais.get(i);
-			System.out.printf("%d. Serviço: %s | Usuário: %s%n", i + 1, c.nomeServico(), c.nomeUsuario());
+		List<Long> ids = new ArrayList<>(entradas.size());
+		for (Map.Entry<Long, Credencial> entrada : entradas) {
+			Credencial c = entrada.getValue();
+			ids.add(entrada.getKey());
+			System.out.printf("%d. Serviço: %s | Usuário: %s%n", ids.size(), c.nomeServico(), c.nomeUsuario());
 		}
+		idsListados = ids;
+	}
+
+	/**
+	 * Busca credenciais pelo nome do serviço ou de usuário, tolerando erros de digitação, e lista
+	 * os resultados do mais ao menos relevante. A numeração vale para excluir ou copiar em seguida.
+	 */
+	private void searchCredentials() {
+		System.out.print("Digite o termo de busca: ");
+		String consulta = input.nextLine();
+		List<CredentialRepository.ResultadoBusca> resultados = credenciais.pesquisa(consulta, LIMITE_BUSCA);
+		if (resultados.isEmpty()) {
+			System.out.println("Nenhuma credencial encontrada.");
+			idsListados = List.of();
+			return;
+		}
+		System.out.println("Resultados da busca:");
+		List<Long> ids = new ArrayList<>(resultados.size());
+		for (CredentialRepository.ResultadoBusca resultado : resultados) {
+			Credencial c = resultado.credencial();
+			ids.add(resultado.id());
+			System.out.printf("%d. Serviço: %s | Usuário: %s (%s)%n", ids.size(), c.nomeServico(), c.nomeUsuario(),
+					descreve(resultado.tipo()));
+		}
+		idsListados = ids;
+	}
+
+	private static String descreve(CredentialRepository.TipoCorrespondencia tipo) {
+		return switch (tipo) {
+			case EXATA -> "exato";
+			case PREFIXO -> "começa com o termo";
+			case SUBSTRING -> "contém o termo";
+			case APROXIMADA -> "aproximado";
+		};
+	}
+
+	/**
+	 * Traduz o número escolhido na última listagem para o id da credencial.
+	 *
+	 * @return O id, ou -1 se o número for inválido.
+	 */
+	private long idListado(int numero) {
+		return numero >= 1 && numero <= idsListados.size() ? idsListados.get(numero - 1) : -1;
 	}
 
 	/**
@@ -141,13 +221,42 @@ public class GerenciadorCredential {
         }
     }
 
-    // Criptografa a senha e armazena a nova credencial
+    String seed = null;
+    if (askIncludeOption("Adicionar a semente TOTP (2FA) da conta?")) {
+        System.out.print("Digite a semente TOTP (Base32, como exibida pelo serviço): ");
+        try {
+            seed = TOTPService.normalizaSemente(InputSanitizer.sanitize(input.nextLine(), 128, false));
+            TOTPService.motorDaSemente(seed);
+        } catch (IllegalArgumentException ex) {
+            System.out.println("Semente TOTP inválida. " + ex.getMessage());
+            return;
+        }
+    }
+
+    // Criptografa a senha (e a semente) e armazena a nova credencial
+    Credencial nova;
     try {
         String senhaEncriptada = EncriptacaoService.encrypt(senha);
-        credenciais.add(new Credencial(service, username, senhaEncriptada));
-        System.out.println("Credencial adicionada com sucesso.");
+        String seedEncriptada = seed == null ? null : EncriptacaoService.encrypt(seed);
+        nova = new Credencial(service, username, senhaEncriptada, seedEncriptada);
     } catch (Exception e) {
         System.err.println("Erro ao criptografar a senha: " + e.getMessage());
+        return;
+    }
+
+    try {
+        if (journal != null) {
+            journal.adiciona(nova);
+        } else {
+            credenciais.adiciona(nova);
+        }
+        if (nova.possuiSeedTotp()) {
+            autenticador.invalida();
+            autenticador.inicia();
+        }
+        System.out.println("Credencial adicionada com sucesso.");
+    } catch (Exception e) {
+        System.err.println("Erro ao salvar a credencial: " + e.getMessage());
     }
 }
 
@@ -199,14 +308,21 @@ private boolean askIncludeOption(String message) {
 	 */
 	void removeCredential() {
 		listCredentials();
-		if (credenciais.isEmpty()) return;
+		if (idsListados.isEmpty()) return;
 
 		System.out.print("Digite o número a ser removido: ");
-		int index = getIntInput() - 1;
+		long id = idListado(getIntInput());
 
-		if (index >= 0 && index < credenciais.size()) {
-			Credencial removed = credenciais.remove(index);
-			System.out.println("Removido: " + removed.nomeServico());
+		if (id >= 0 && credenciais.busca(id).isPresent()) {
+			try {
+				Credencial removed = journal != null ? journal.remove(id) : credenciais.remove(id);
+				if (removed.possuiSeedTotp()) {
+					autenticador.invalida();
+				}
+				System.out.println("Removido: " + removed.nomeServico());
+			} catch (Exception e) {
+				System.err.println("Erro ao remover a credencial: " + e.getMessage());
+			}
 		} else {
 			System.out.println("Índice inválido.");
 		}
@@ -216,16 +332,16 @@ private boolean askIncludeOption(String message) {
 	 * Copia uma senha descriptografada para a área de transferência após verificar a senha mestra.
 	 */
 	private void copyPasswordToClipboard() {
-		if (credenciais.isEmpty()) {
+		if (credenciais.estaVazio()) {
 			System.out.println("Nenhuma credencial armazenada.");
 			return;
 		}
 
 		listCredentials();
 		System.out.print("Digite o número para copiar a senha: ");
-		int index = getIntInput() - 1;
+		Credencial selected = credenciais.busca(idListado(getIntInput())).orElse(null);
 
-		if (index < 0 || index >= credenciais.size()) {
+		if (selected == null) {
 			System.out.println("Índice inválido.");
 			return;
 		}
@@ -248,7 +364,6 @@ private boolean askIncludeOption(String message) {
 			}
 
 			// Descriptografa e copia a senha
-			Credencial selected = credenciais.get(index);
 			String decrypted = EncriptacaoService.decrypt(selected.senhaEncriptada());
 			copyToClipboard(decrypted);
 			System.out.printf("Senha para %s copiada para a área de transferência.%n", selected.nomeServico());
@@ -275,43 +390,79 @@ private boolean askIncludeOption(String message) {
 	}
 
 	/**
-	 * Verifica todas as senhas armazenadas quanto a vazamentos de dados via API.
+	 * Verifica todas as senhas armazenadas quanto a vazamentos de dados, consultando cada faixa
+	 * de prefixo uma única vez e em paralelo (ver {@link AuditoriaVazamentos}).
 	 */
 	private void checkCompromisedPasswords() {
-		if (credenciais.isEmpty()) {
+		if (credenciais.estaVazio()) {
 			System.out.println("Nenhuma credencial armazenada.");
 			return;
 		}
 		System.out.println("Verificando todas as senhas armazenadas quanto a vazamentos...");
-		boolean anyCompromised = false;
-
-		for (Credencial c : credenciais) {
-			try {
-				String decrypted = EncriptacaoService.decrypt(c.senhaEncriptada());
-				int contador = VerificadorSenha.checarSenha(decrypted);
-				if (contador > 0) {
+		AuditoriaVazamentos.Estatisticas estatisticas;
+		try {
+			estatisticas = new AuditoriaVazamentos().audita(credenciais.credenciais(), resultado -> {
+				Credencial c = resultado.credencial();
+				if (resultado.erro() != null) {
+					System.err.println("Erro ao verificar a senha do serviço '" + c.nomeServico() + "': "
+							+ resultado.erro().getMessage());
+				} else if (resultado.comprometida()) {
 					System.out.printf(
 							"AVISO: A senha do serviço '%s' (nome de usuário: %s) foi encontrada %d vezes em vazamentos!%n",
-							c.nomeServico(), c.nomeUsuario(), contador
+							c.nomeServico(), c.nomeUsuario(), resultado.ocorrencias()
 					);
-					anyCompromised = true;
 				}
-			} catch (Exception e) {
-				System.err.println("Erro ao verificar a senha do serviço '" + c.nomeServico() + "': " + e.getMessage());
-			}
+			});
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			System.err.println("Verificação de vazamentos interrompida.");
+			return;
 		}
 
-		if (!anyCompromised) {
+		if (estatisticas.comprometidas() == 0) {
 			System.out.println("Nenhuma senha comprometida encontrada em suas credenciais.");
 		}
+		System.out.printf("%d senhas verificadas em %d ms (%d consultas de faixa, %d evitadas).%n",
+				estatisticas.credenciais(), estatisticas.duracao().toMillis(), estatisticas.consultas(),
+				estatisticas.consultasEvitadas());
+	}
+
+	/**
+	 * Exibe os códigos TOTP atuais das contas com semente, já calculados pelo {@link CodigosAutenticador}
+	 * na virada da janela, com o tempo restante e o código seguinte.
+	 */
+	private void showAuthenticatorCodes() {
+		List<CodigosAutenticador.Codigo> codigos = autenticador.codigos();
+		if (codigos.isEmpty()) {
+			System.out.println("Nenhuma credencial com semente TOTP.");
+			return;
+		}
+		System.out.println("Códigos do autenticador:");
+		for (CodigosAutenticador.Codigo c : codigos) {
+			if (c.erro() != null) {
+				System.err.printf("Serviço: %s | Usuário: %s | %s%n", c.servico(), c.usuario(), c.erro());
+			} else if (c.proximo() != null) {
+				System.out.printf("Serviço: %s | Usuário: %s | Código: %s (expira em %d s; próximo: %s)%n",
+						c.servico(), c.usuario(), c.codigo(), c.segundosRestantes(), c.proximo());
+			} else {
+				System.out.printf("Serviço: %s | Usuário: %s | Código: %s (expira em %d s)%n",
+						c.servico(), c.usuario(), c.codigo(), c.segundosRestantes());
+			}
+		}
 	}
 
 	/**
-	 * Salva as credenciais e encerra a aplicação.
+	 * Salva as credenciais e encerra a aplicação. Com journal, as alterações já estão no disco
+	 * e basta fechá-lo.
 	 */
 	private void saveAndExit() {
+		autenticador.close();
 		try {
-			CredencialStorage.saveCredenciais(credenciais);
+			if (journal != null) {
+				journal.close();
+			} else {
+				CredencialStorage.saveCredenciais(credenciais.credenciais());
+			}
 			System.out.println("Credenciais salvas. Saindo...");
 		} catch (Exception e) {
 			System.err.println("Erro ao salvar credenciais: " + e.getMessage());
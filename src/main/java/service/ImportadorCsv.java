@@ -0,0 +1,536 @@
+package service;
+
+import model.Credencial;
+import utils.InputSanitizer;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Importa credenciais de arquivos CSV exportados pelo Chrome, pelo Firefox ou pelo Bitwarden.
+ * <p>
+ * O arquivo passa por um pipeline de etapas separadas, cada uma na sua thread, ligadas por filas
+ * limitadas de lotes de {@link #LINHAS_POR_LOTE} linhas:
+ * <ol>
+ *   <li>leitura e separação dos campos ({@link LeitorCsv}), de acordo com o cabeçalho;</li>
+ *   <li>normalização (nome do serviço a partir da URL, semente TOTP do Bitwarden) e sanitização do lote
+ *       inteiro com {@link InputSanitizer#validateAll(List, InputSanitizer.FieldRule...)}, com as mesmas
+ *       regras da inclusão manual;</li>
+ *   <li>remoção das duplicadas, pelo serviço (sem distinguir maiúsculas) e usuário, contra as credenciais
+ *       existentes e as já importadas; vem antes da criptografia para não criptografar o que será
+ *       descartado e para que, no arquivo, sempre fique a primeira ocorrência;</li>
+ *   <li>criptografia das senhas e sementes, em paralelo.</li>
+ * </ol>
+ * As filas bloqueiam a etapa anterior quando a seguinte se atrasa, então a memória do pipeline não
+ * depende do tamanho do arquivo; só as credenciais importadas (que serão gravadas de uma vez, em lote,
+ * por quem chamou) e as chaves de duplicidade crescem com ele. As linhas rejeitadas são contadas
+ * todas, mas só as primeiras {@link #LIMITE_REJEICOES_DETALHADAS} são guardadas com o motivo.
+ */
+public final class ImportadorCsv {
+
+    public static final int LINHAS_POR_LOTE = 256;
+    public static final int LIMITE_REJEICOES_DETALHADAS = 1000;
+    private static final int LOTES_POR_THREAD = 2;
+    // Limite do armazenamento para a senha e a semente criptografadas em Base64 (ver CredencialStorage)
+    private static final int TAMANHO_MAXIMO_ENCRIPTADO = 128;
+    private static final int PARALELISMO_PADRAO =
+            Integer.getInteger("gerenciador.paralelismo", Runtime.getRuntime().availableProcessors());
+    private static final InputSanitizer.FieldRule[] REGRAS = {
+            new InputSanitizer.FieldRule(50, false),
+            new InputSanitizer.FieldRule(50, false),
+            new InputSanitizer.FieldRule(64, false)
+    };
+    private static final String[] NOMES_CAMPOS = {"serviço", "usuário", "senha"};
+
+    /**
+     * Exportador de origem, reconhecido pelas colunas do cabeçalho.
+     */
+    public enum Formato {
+        CHROME, FIREFOX, BITWARDEN
+    }
+
+    private final int paralelismo;
+
+    /**
+     * Importador com o paralelismo padrão (propriedade de sistema {@code gerenciador.paralelismo} ou o
+     * número de processadores).
+     */
+    public ImportadorCsv() {
+        this(PARALELISMO_PADRAO);
+    }
+
+    /**
+     * @param paralelismo número de threads de criptografia
+     */
+    public ImportadorCsv(int paralelismo) {
+        if (paralelismo < 1) {
+            throw new IllegalArgumentException("O paralelismo deve ser maior que zero.");
+        }
+        this.paralelismo = paralelismo;
+    }
+
+    /**
+     * Importa um arquivo CSV em UTF-8. A sessão de criptografia já deve estar aberta.
+     *
+     * @param arquivo     arquivo exportado
+     * @param existentes  credenciais já cadastradas, usadas apenas para descartar duplicadas
+     * @return as credenciais novas, na ordem do arquivo, e as estatísticas da importação
+     * @throws IOException          se o arquivo não puder ser lido ou o cabeçalho não for reconhecido
+     * @throws InterruptedException se a importação for interrompida
+     */
+    public Resultado importa(Path arquivo, CredentialRepository existentes) throws IOException, InterruptedException {
+        return importa(Files.newBufferedReader(arquivo, StandardCharsets.UTF_8), existentes);
+    }
+
+    /**
+     * Importa um CSV já aberto, que é fechado ao final.
+     *
+     * @see #importa(Path, CredentialRepository)
+     */
+    public Resultado importa(Reader csv, CredentialRepository existentes) throws IOException, InterruptedException {
+        long inicio = System.nanoTime();
+        try (LeitorCsv leitor = new LeitorCsv(csv)) {
+            String[] cabecalho = leitor.proximo();
+            if (cabecalho == null) {
+                throw new IOException("O arquivo CSV está vazio.");
+            }
+            Colunas colunas = Colunas.de(cabecalho);
+            Set<String> chaves = new HashSet<>();
+            for (Credencial credencial : existentes.credenciais()) {
+                chaves.add(chave(credencial.nomeServico(), credencial.nomeUsuario()));
+            }
+            int capacidade = paralelismo * LOTES_POR_THREAD;
+            BlockingQueue<Lote<Linha>> lidas = new ArrayBlockingQueue<>(capacidade);
+            BlockingQueue<Lote<Linha>> normalizadas = new ArrayBlockingQueue<>(capacidade);
+            BlockingQueue<Lote<Linha>> unicas = new ArrayBlockingQueue<>(capacidade);
+            BlockingQueue<Lote<Credencial>> encriptadas = new ArrayBlockingQueue<>(capacidade);
+
+            ExecutorService executor = Executors.newFixedThreadPool(3 + paralelismo,
+                    Thread.ofPlatform().name("importacao-csv-", 0).daemon().factory());
+            List<Future<?>> etapas = new ArrayList<>();
+            try {
+                etapas.add(executor.submit(() -> {
+                    le(leitor, colunas, lidas);
+                    return null;
+                }));
+                etapas.add(executor.submit(() -> {
+                    normaliza(lidas, normalizadas, colunas.formato());
+                    return null;
+                }));
+                etapas.add(executor.submit(() -> {
+                    deduplica(normalizadas, unicas, chaves);
+                    return null;
+                }));
+                for (int i = 0; i < paralelismo; i++) {
+                    etapas.add(executor.submit(() -> {
+                        encripta(unicas, encriptadas);
+                        return null;
+                    }));
+                }
+                return coleta(encriptadas, etapas, colunas.formato(), inicio);
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+    }
+
+    /**
+     * Etapa 1: lê o arquivo e agrupa as linhas em lotes. Linhas com menos colunas que o cabeçalho
+     * já seguem rejeitadas.
+     */
+    private static void le(LeitorCsv leitor, Colunas colunas, BlockingQueue<Lote<Linha>> saida)
+            throws IOException, InterruptedException {
+        long sequencia = 0;
+        List<Linha> linhas = new ArrayList<>(LINHAS_POR_LOTE);
+        List<Rejeicao> rejeicoes = new ArrayList<>(0);
+        try {
+            String[] campos;
+            while ((campos = leitor.proximo()) != null) {
+                if (campos.length < colunas.minimo()) {
+                    rejeicoes.add(new Rejeicao(leitor.getLinha(), "esperadas " + colunas.minimo()
+                            + " colunas, encontradas " + campos.length));
+                } else {
+                    linhas.add(colunas.linha(leitor.getLinha(), campos));
+                }
+                if (linhas.size() + rejeicoes.size() == LINHAS_POR_LOTE) {
+                    saida.put(new Lote<>(sequencia++, linhas, rejeicoes));
+                    linhas = new ArrayList<>(LINHAS_POR_LOTE);
+                    rejeicoes = new ArrayList<>(0);
+                }
+            }
+            if (!linhas.isEmpty() || !rejeicoes.isEmpty()) {
+                saida.put(new Lote<>(sequencia, linhas, rejeicoes));
+            }
+        } finally {
+            saida.put(Lote.fim());
+        }
+    }
+
+    /**
+     * Etapa 2: deriva o nome do serviço, normaliza a semente TOTP e sanitiza o lote inteiro de uma vez.
+     */
+    private static void normaliza(BlockingQueue<Lote<Linha>> entrada, BlockingQueue<Lote<Linha>> saida,
+                                  Formato formato) throws InterruptedException {
+        try {
+            for (Lote<Linha> lote = entrada.take(); !lote.ehFim(); lote = entrada.take()) {
+                List<Rejeicao> rejeicoes = new ArrayList<>(lote.rejeicoes());
+                List<Linha> candidatas = new ArrayList<>(lote.itens().size());
+                List<String[]> campos = new ArrayList<>(lote.itens().size());
+                for (Linha linha : lote.itens()) {
+                    if (linha.tipo() != null && !linha.tipo().equalsIgnoreCase("login")) {
+                        rejeicoes.add(new Rejeicao(linha.numero(), "item do tipo '" + linha.tipo()
+                                + "' não é um login"));
+                        continue;
+                    }
+                    String seed;
+                    try {
+                        seed = normalizaSemente(linha.seed());
+                    } catch (IllegalArgumentException e) {
+                        rejeicoes.add(new Rejeicao(linha.numero(), "semente TOTP: " + e.getMessage()));
+                        continue;
+                    }
+                    candidatas.add(new Linha(linha.numero(), servico(linha), linha.usuario(), linha.senha(), seed,
+                            null));
+                    campos.add(new String[]{candidatas.getLast().servico(), linha.usuario(), linha.senha()});
+                }
+
+                List<InputSanitizer.Violation> violacoes = InputSanitizer.validateAll(campos, REGRAS);
+                List<Linha> validas = new ArrayList<>(candidatas.size());
+                int v = 0;
+                for (int i = 0; i < candidatas.size(); i++) {
+                    StringBuilder motivo = null;
+                    for (; v < violacoes.size() && violacoes.get(v).record() == i; v++) {
+                        InputSanitizer.Violation violacao = violacoes.get(v);
+                        motivo = motivo == null ? new StringBuilder() : motivo.append("; ");
+                        motivo.append(NOMES_CAMPOS[violacao.field()]).append(": ").append(violacao.reason().message());
+                    }
+                    Linha linha = candidatas.get(i);
+                    if (motivo != null) {
+                        rejeicoes.add(new Rejeicao(linha.numero(), motivo.toString()));
+                    } else {
+                        String[] limpos = campos.get(i);
+                        validas.add(new Linha(linha.numero(), limpos[0], limpos[1], limpos[2], linha.seed(), null));
+                    }
+                }
+                saida.put(new Lote<>(lote.sequencia(), validas, rejeicoes));
+            }
+        } finally {
+            saida.put(Lote.fim());
+        }
+    }
+
+    /**
+     * Etapa 3: descarta as linhas cujo serviço e usuário já existem, no cofre ou antes no arquivo.
+     * Roda em uma única thread, na ordem dos lotes, então a primeira ocorrência é a que fica.
+     */
+    private void deduplica(BlockingQueue<Lote<Linha>> entrada, BlockingQueue<Lote<Linha>> saida,
+                           Set<String> chaves) throws InterruptedException {
+        try {
+            for (Lote<Linha> lote = entrada.take(); !lote.ehFim(); lote = entrada.take()) {
+                List<Rejeicao> rejeicoes = new ArrayList<>(lote.rejeicoes());
+                List<Linha> unicas = new ArrayList<>(lote.itens().size());
+                for (Linha linha : lote.itens()) {
+                    if (chaves.add(chave(linha.servico(), linha.usuario()))) {
+                        unicas.add(linha);
+                    } else {
+                        rejeicoes.add(new Rejeicao(linha.numero(), "duplicada: já existe uma credencial para '"
+                                + linha.servico() + "' com o usuário '" + linha.usuario() + "'"));
+                    }
+                }
+                saida.put(new Lote<>(lote.sequencia(), unicas, rejeicoes));
+            }
+        } finally {
+            // Um marcador de fim para cada thread de criptografia
+            for (int i = 0; i < paralelismo; i++) {
+                saida.put(Lote.fim());
+            }
+        }
+    }
+
+    /**
+     * Etapa 4: criptografa as senhas e sementes de cada lote. Várias threads consomem a mesma fila,
+     * então os lotes chegam à coleta fora de ordem.
+     */
+    private static void encripta(BlockingQueue<Lote<Linha>> entrada, BlockingQueue<Lote<Credencial>> saida)
+            throws InterruptedException {
+        try {
+            for (Lote<Linha> lote = entrada.take(); !lote.ehFim(); lote = entrada.take()) {
+                List<Rejeicao> rejeicoes = new ArrayList<>(lote.rejeicoes());
+                List<Credencial> credenciais = new ArrayList<>(lote.itens().size());
+                for (Linha linha : lote.itens()) {
+                    try {
+                        String senha = EncriptacaoService.encrypt(linha.senha());
+                        String seed = linha.seed() == null ? null : EncriptacaoService.encrypt(linha.seed());
+                        if (senha.length() > TAMANHO_MAXIMO_ENCRIPTADO) {
+                            rejeicoes.add(new Rejeicao(linha.numero(), "senha: longa demais depois de criptografada"));
+                        } else if (seed != null && seed.length() > TAMANHO_MAXIMO_ENCRIPTADO) {
+                            rejeicoes.add(new Rejeicao(linha.numero(), "semente TOTP: longa demais depois de criptografada"));
+                        } else {
+                            credenciais.add(new Credencial(linha.servico(), linha.usuario(), senha, seed));
+                        }
+                    } catch (Exception e) {
+                        rejeicoes.add(new Rejeicao(linha.numero(), "erro ao criptografar: " + e.getMessage()));
+                    }
+                }
+                saida.put(new Lote<>(lote.sequencia(), credenciais, rejeicoes));
+            }
+        } finally {
+            saida.put(Lote.fim());
+        }
+    }
+
+    /**
+     * Recebe os lotes prontos, recoloca as credenciais na ordem do arquivo e monta o resultado. Se alguma
+     * etapa falhar, a exceção dela é repassada.
+     */
+    private Resultado coleta(BlockingQueue<Lote<Credencial>> entrada, List<Future<?>> etapas, Formato formato,
+                             long inicio) throws IOException, InterruptedException {
+        Map<Long, List<Credencial>> porSequencia = new HashMap<>();
+        // As rejeições das primeiras linhas, com a de linha mais alta no topo; os lotes chegam fora de ordem,
+        // então a que sai quando o limite estoura é sempre a mais adiante no arquivo
+        PriorityQueue<Rejeicao> rejeicoes = new PriorityQueue<>(
+                Comparator.comparingLong(Rejeicao::linha).reversed());
+        long linhas = 0;
+        long rejeitadas = 0;
+        for (int fins = 0; fins < paralelismo; ) {
+            Lote<Credencial> lote = entrada.take();
+            if (lote.ehFim()) {
+                fins++;
+                continue;
+            }
+            linhas += lote.itens().size() + lote.rejeicoes().size();
+            rejeitadas += lote.rejeicoes().size();
+            for (Rejeicao rejeicao : lote.rejeicoes()) {
+                rejeicoes.add(rejeicao);
+                if (rejeicoes.size() > LIMITE_REJEICOES_DETALHADAS) {
+                    rejeicoes.poll();
+                }
+            }
+            if (!lote.itens().isEmpty()) {
+                porSequencia.put(lote.sequencia(), lote.itens());
+            }
+        }
+        for (Future<?> etapa : etapas) {
+            aguarda(etapa);
+        }
+
+        List<Long> sequencias = new ArrayList<>(porSequencia.keySet());
+        sequencias.sort(null);
+        List<Credencial> importadas = new ArrayList<>();
+        for (Long sequencia : sequencias) {
+            importadas.addAll(porSequencia.get(sequencia));
+        }
+        List<Rejeicao> detalhadas = new ArrayList<>(rejeicoes);
+        detalhadas.sort(Comparator.comparingLong(Rejeicao::linha));
+        return new Resultado(formato, importadas, linhas, rejeitadas, List.copyOf(detalhadas),
+                System.nanoTime() - inicio);
+    }
+
+    private static void aguarda(Future<?> etapa) throws IOException, InterruptedException {
+        try {
+            etapa.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException causa) {
+                throw causa;
+            }
+            if (e.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            throw new IOException("Falha na importação: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    private static String chave(String servico, String usuario) {
+        return servico.toLowerCase(Locale.ROOT) + '\n' + usuario;
+    }
+
+    /**
+     * Nome do serviço: a coluna de nome, quando preenchida, ou o host da URL, sem {@code www.}.
+     */
+    private static String servico(Linha linha) {
+        if (linha.servico() != null && !linha.servico().isBlank()) {
+            return linha.servico();
+        }
+        String url = linha.url();
+        if (url == null || url.isBlank()) {
+            return "";
+        }
+        try {
+            String host = URI.create(url.trim()).getHost();
+            if (host != null) {
+                return host.startsWith("www.") ? host.substring(4) : host;
+            }
+        } catch (IllegalArgumentException e) {
+            // URL inválida: o texto é usado como está e validado como nome do serviço
+        }
+        return url;
+    }
+
+    /**
+     * Semente TOTP normalizada: Base32 puro ou uma URI {@code otpauth://totp/} com os parâmetros padrão
+     * (HMAC-SHA1, 6 dígitos, 30 s), os únicos com que os códigos são gerados.
+     *
+     * @return a semente em Base32, ou {@code null} se a coluna estiver vazia
+     * @throws IllegalArgumentException se a semente for inválida ou usar outros parâmetros
+     */
+    static String normalizaSemente(String valor) {
+        if (valor == null || valor.isBlank()) {
+            return null;
+        }
+        String texto = valor.trim();
+        if (!texto.regionMatches(true, 0, "otpauth://", 0, 10)) {
+            String seed = TOTPService.normalizaSemente(texto);
+            TOTPService.motorDaSemente(seed);
+            return seed;
+        }
+        URI uri = URI.create(texto);
+        if (!"totp".equalsIgnoreCase(uri.getHost())) {
+            throw new IllegalArgumentException("apenas URIs otpauth://totp/ são suportadas.");
+        }
+        String seed = null;
+        String consulta = uri.getRawQuery() == null ? "" : uri.getRawQuery();
+        for (String parametro : consulta.split("&")) {
+            int igual = parametro.indexOf('=');
+            String nome = igual < 0 ? parametro : parametro.substring(0, igual);
+            String conteudo = igual < 0 ? "" : URLDecoder.decode(parametro.substring(igual + 1), StandardCharsets.UTF_8);
+            switch (nome.toLowerCase(Locale.ROOT)) {
+                case "secret" -> seed = conteudo;
+                case "algorithm" -> exige(conteudo.equalsIgnoreCase("SHA1"), "algoritmo " + conteudo);
+                case "digits" -> exige(conteudo.equals("6"), conteudo + " dígitos");
+                case "period" -> exige(conteudo.equals("30"), "período de " + conteudo + " s");
+                default -> {
+                    // issuer e outros parâmetros não afetam os códigos
+                }
+            }
+        }
+        if (seed == null) {
+            throw new IllegalArgumentException("a URI otpauth não tem o parâmetro secret.");
+        }
+        String normalizada = TOTPService.normalizaSemente(seed);
+        TOTPService.motorDaSemente(normalizada);
+        return normalizada;
+    }
+
+    private static void exige(boolean condicao, String parametro) {
+        if (!condicao) {
+            throw new IllegalArgumentException("parâmetro não suportado: " + parametro + ".");
+        }
+    }
+
+    /**
+     * Posição das colunas usadas, encontradas pelo nome no cabeçalho de cada exportador.
+     */
+    private record Colunas(Formato formato, int nome, int url, int usuario, int senha, int totp, int tipo,
+                           int minimo) {
+
+        static Colunas de(String[] cabecalho) throws IOException {
+            Map<String, Integer> indices = new HashMap<>();
+            for (int i = 0; i < cabecalho.length; i++) {
+                indices.putIfAbsent(cabecalho[i].trim().toLowerCase(Locale.ROOT), i);
+            }
+            Colunas colunas;
+            if (indices.containsKey("login_username") && indices.containsKey("login_password")) {
+                colunas = new Colunas(Formato.BITWARDEN, indices.getOrDefault("name", -1),
+                        indices.getOrDefault("login_uri", -1), indices.get("login_username"),
+                        indices.get("login_password"), indices.getOrDefault("login_totp", -1),
+                        indices.getOrDefault("type", -1), 0);
+            } else if (indices.containsKey("username") && indices.containsKey("password")) {
+                colunas = new Colunas(indices.containsKey("name") ? Formato.CHROME : Formato.FIREFOX,
+                        indices.getOrDefault("name", -1), indices.getOrDefault("url", -1), indices.get("username"),
+                        indices.get("password"), -1, -1, 0);
+            } else {
+                throw new IOException("Cabeçalho CSV não reconhecido: esperado o formato de exportação do Chrome, "
+                        + "do Firefox ou do Bitwarden.");
+            }
+            if (colunas.nome() < 0 && colunas.url() < 0) {
+                throw new IOException("O CSV não tem coluna de nome nem de URL para identificar o serviço.");
+            }
+            int minimo = 1 + Math.max(Math.max(colunas.nome(), colunas.url()),
+                    Math.max(Math.max(colunas.usuario(), colunas.senha()), Math.max(colunas.totp(), colunas.tipo())));
+            return new Colunas(colunas.formato(), colunas.nome(), colunas.url(), colunas.usuario(), colunas.senha(),
+                    colunas.totp(), colunas.tipo(), minimo);
+        }
+
+        Linha linha(long numero, String[] campos) {
+            return new Linha(numero, campo(campos, nome), campos[usuario], campos[senha], campo(campos, totp),
+                    campo(campos, tipo), campo(campos, url));
+        }
+
+        private static String campo(String[] campos, int indice) {
+            return indice < 0 ? null : campos[indice];
+        }
+    }
+
+    /**
+     * Uma linha do CSV, já com as colunas usadas separadas.
+     */
+    private record Linha(long numero, String servico, String usuario, String senha, String seed, String tipo,
+                         String url) {
+
+        Linha(long numero, String servico, String usuario, String senha, String seed, String tipo) {
+            this(numero, servico, usuario, senha, seed, tipo, null);
+        }
+    }
+
+    /**
+     * Lote de uma etapa: os itens que seguem e as linhas rejeitadas até aqui. O lote com sequência
+     * {@code -1} marca o fim da fila.
+     */
+    private record Lote<T>(long sequencia, List<T> itens, List<Rejeicao> rejeicoes) {
+
+        static <T> Lote<T> fim() {
+            return new Lote<>(-1, List.of(), List.of());
+        }
+
+        boolean ehFim() {
+            return sequencia < 0;
+        }
+    }
+
+    /**
+     * Uma linha rejeitada.
+     *
+     * @param linha  linha do arquivo em que o registro começa
+     * @param motivo o motivo da rejeição
+     */
+    public record Rejeicao(long linha, String motivo) {
+    }
+
+    /**
+     * Resultado de uma importação.
+     *
+     * @param formato      exportador reconhecido pelo cabeçalho
+     * @param importadas   credenciais novas, criptografadas, na ordem do arquivo
+     * @param linhas       linhas de dados lidas, sem o cabeçalho
+     * @param rejeitadas   total de linhas rejeitadas
+     * @param rejeicoes    as primeiras {@link #LIMITE_REJEICOES_DETALHADAS} rejeições, na ordem das linhas
+     * @param duracaoNanos duração da importação, sem a gravação
+     */
+    public record Resultado(Formato formato, List<Credencial> importadas, long linhas, long rejeitadas,
+                            List<Rejeicao> rejeicoes, long duracaoNanos) {
+
+        public double linhasPorSegundo() {
+            return duracaoNanos == 0 ? 0 : linhas * 1_000_000_000.0 / duracaoNanos;
+        }
+    }
+}
@@ -0,0 +1,327 @@
+package service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Índice de busca sobre os termos (nomes de serviço e de usuário já em minúsculas) do
+ * {@link CredentialRepository}, atualizado a cada inserção e remoção.
+ * <p>
+ * Os termos ficam em um TreeMap, que responde buscas por prefixo em O(log n + resultados), e em um
+ * índice de trigramas (as sequências de três caracteres de cada termo), usado para encontrar termos que contêm a
+ * consulta intersectando as listas dos seus trigramas. Cada termo distinto recebe um id inteiro e
+ * as listas de trigramas guardam esses ids em arrays ordenados, bem mais compactos que conjuntos de
+ * String com 100 mil termos.
+ * <p>
+ * A busca aproximada compara a consulta com o início de cada termo (distância de edição até algum
+ * prefixo), então um erro de digitação no meio da palavra ainda encontra o termo enquanto ela é
+ * digitada. Ela percorre o TreeMap como uma trie, podando os prefixos que já estão longe demais.
+ */
+final class IndiceBusca {
+
+    private static final Comparator<Correspondencia> ORDEM_APROXIMADAS =
+            Comparator.comparingInt(Correspondencia::distancia).thenComparing(Correspondencia::termo);
+
+    private final NavigableMap<String, Integer> idsTermos = new TreeMap<>();
+    private final List<String> termos = new ArrayList<>();
+    private int[] referencias = new int[16];
+    private final Deque<Integer> idsLivres = new ArrayDeque<>();
+    private final Map<String, Postagens> trigramas = new HashMap<>();
+
+    /**
+     * Registra mais uma ocorrência do termo.
+     */
+    void adiciona(String termo) {
+        Integer existente = idsTermos.get(termo);
+        if (existente != null) {
+            referencias[existente]++;
+            return;
+        }
+        int id = novoId(termo);
+        idsTermos.put(termo, id);
+        for (String trigrama : trigramas(termo)) {
+            trigramas.computeIfAbsent(trigrama, t -> new Postagens()).adiciona(id);
+        }
+    }
+
+    /**
+     * Remove uma ocorrência do termo; o termo sai do índice quando não restar nenhuma.
+     */
+    void remove(String termo) {
+        Integer id = idsTermos.get(termo);
+        if (id == null || --referencias[id] > 0) {
+            return;
+        }
+        idsTermos.remove(termo);
+        for (String trigrama : trigramas(termo)) {
+            Postagens postagens = trigramas.get(trigrama);
+            postagens.remove(id);
+            if (postagens.tamanho == 0) {
+                trigramas.remove(trigrama);
+            }
+        }
+        termos.set(id, null);
+        idsLivres.push(id);
+    }
+
+    /**
+     * Termos que correspondem à consulta, do melhor para o pior: igual, começando pela consulta
+     * (em ordem alfabética), contendo a consulta (em ordem alfabética) e, por fim, a poucas edições
+     * dela (por distância e ordem alfabética). Cada categoria só é calculada se as
+     * anteriores não preencheram o limite.
+     *
+     * @param consulta consulta já em minúsculas, não vazia
+     * @param limite   número máximo de termos
+     * @return os termos encontrados
+     */
+    List<Correspondencia> procura(String consulta, int limite) {
+        List<Correspondencia> encontradas = new ArrayList<>(Math.min(limite, 64));
+        if (idsTermos.containsKey(consulta)) {
+            encontradas.add(new Correspondencia(consulta, CredentialRepository.TipoCorrespondencia.EXATA, 0));
+        }
+
+        for (String termo : idsTermos.tailMap(consulta, false).navigableKeySet()) {
+            if (encontradas.size() >= limite || !termo.startsWith(consulta)) {
+                break;
+            }
+            encontradas.add(new Correspondencia(termo, CredentialRepository.TipoCorrespondencia.PREFIXO, 0));
+        }
+
+        if (encontradas.size() < limite && consulta.length() >= 3) {
+            adicionaOrdenadas(encontradas, contendo(consulta), limite);
+        }
+        int maximoEdicoes = maximoEdicoes(consulta.length());
+        if (encontradas.size() < limite && maximoEdicoes > 0) {
+            encontradas.addAll(aproximadas(consulta, maximoEdicoes, limite - encontradas.size()));
+        }
+        return encontradas;
+    }
+
+    /**
+     * Edições toleradas para uma consulta do tamanho informado.
+     */
+    static int maximoEdicoes(int tamanho) {
+        if (tamanho <= 3) {
+            return 0;
+        }
+        return tamanho <= 6 ? 1 : 2;
+    }
+
+    /**
+     * Número de termos distintos no índice.
+     */
+    int tamanho() {
+        return idsTermos.size();
+    }
+
+    private static void adicionaOrdenadas(List<Correspondencia> encontradas, List<Correspondencia> novas, int limite) {
+        novas.sort(Comparator.comparing(Correspondencia::termo));
+        for (Correspondencia nova : novas) {
+            if (encontradas.size() >= limite) {
+                return;
+            }
+            encontradas.add(nova);
+        }
+    }
+
+    /**
+     * Termos que contêm a consulta sem começar por ela: interseção das listas dos trigramas
+     * da consulta, começando pela menor.
+     */
+    private List<Correspondencia> contendo(String consulta) {
+        List<Postagens> listas = new ArrayList<>();
+        for (int i = 0; i + 3 <= consulta.length(); i++) {
+            Postagens postagens = trigramas.get(consulta.substring(i, i + 3));
+            if (postagens == null) {
+                return new ArrayList<>();
+            }
+            listas.add(postagens);
+        }
+        listas.sort(Comparator.comparingInt(p -> p.tamanho));
+
+        List<Correspondencia> encontradas = new ArrayList<>();
+        Postagens menor = listas.getFirst();
+        candidatos:
+        for (int i = 0; i < menor.tamanho; i++) {
+            int id = menor.ids[i];
+            for (int j = 1; j < listas.size(); j++) {
+                if (!listas.get(j).contem(id)) {
+                    continue candidatos;
+                }
+            }
+            String termo = termos.get(id);
+            if (!termo.startsWith(consulta) && termo.contains(consulta)) {
+                encontradas.add(new Correspondencia(termo, CredentialRepository.TipoCorrespondencia.SUBSTRING, 0));
+            }
+        }
+        return encontradas;
+    }
+
+    /**
+     * Termos cujo início está a até {@code maximoEdicoes} edições da consulta (distância de Levenshtein
+     * até algum prefixo do termo), excluindo os que já contêm a consulta, ordenados por distância e
+     * ordem alfabética.
+     * <p>
+     * Os termos são percorridos em ordem, como os caminhos de uma trie: a linha {@code j} da matriz de
+     * distâncias só depende dos {@code j} primeiros caracteres do termo, então as linhas do prefixo em
+     * comum com o termo anterior são reaproveitadas. Quando nenhuma linha a partir de um prefixo pode
+     * ficar dentro do limite (ou abaixo do pior dos {@code limite} melhores já encontrados), todos os
+     * termos com esse prefixo são pulados de uma vez.
+     */
+    private List<Correspondencia> aproximadas(String consulta, int maximoEdicoes, int limite) {
+        int n = consulta.length();
+        int profundidade = n + maximoEdicoes;
+        int[][] linhas = new int[profundidade + 1][n + 1];
+        // Menor distância da consulta a algum prefixo de até j caracteres, e menor valor da linha j
+        int[] melhorAte = new int[profundidade + 1];
+        int[] minimoLinha = new int[profundidade + 1];
+        for (int i = 0; i <= n; i++) {
+            linhas[0][i] = i;
+        }
+        melhorAte[0] = n;
+
+        PriorityQueue<Correspondencia> melhores = new PriorityQueue<>(limite, ORDEM_APROXIMADAS.reversed());
+        String anterior = "";
+        int calculadas = 0;
+        String termo = idsTermos.isEmpty() ? null : idsTermos.firstKey();
+        while (termo != null) {
+            int aceitavel = melhores.size() < limite ? maximoEdicoes : melhores.peek().distancia() - 1;
+            if (aceitavel < 1) {
+                break;
+            }
+            int comum = Math.min(prefixoComum(anterior, termo), calculadas);
+            int poda = 0;
+            for (int j = 1; j <= comum; j++) {
+                if (Math.min(melhorAte[j], minimoLinha[j]) > aceitavel) {
+                    poda = j;
+                    break;
+                }
+            }
+            int j = comum;
+            while (poda == 0 && j < Math.min(termo.length(), profundidade)) {
+                char c = termo.charAt(j);
+                int[] linhaAnterior = linhas[j];
+                int[] linha = linhas[++j];
+                linha[0] = j;
+                int minimo = j;
+                for (int i = 1; i <= n; i++) {
+                    int substituicao = linhaAnterior[i - 1] + (consulta.charAt(i - 1) == c ? 0 : 1);
+                    linha[i] = Math.min(substituicao, Math.min(linhaAnterior[i], linha[i - 1]) + 1);
+                    minimo = Math.min(minimo, linha[i]);
+                }
+                melhorAte[j] = Math.min(melhorAte[j - 1], linha[n]);
+                minimoLinha[j] = minimo;
+                if (Math.min(melhorAte[j], minimo) > aceitavel) {
+                    poda = j;
+                }
+            }
+
+            if (poda > 0) {
+                calculadas = poda;
+                anterior = termo;
+                termo = idsTermos.higherKey(termo.substring(0, poda) + Character.MAX_VALUE);
+                continue;
+            }
+            int distancia = melhorAte[j];
+            if (distancia <= aceitavel && !termo.contains(consulta)) {
+                melhores.add(new Correspondencia(termo, CredentialRepository.TipoCorrespondencia.APROXIMADA, distancia));
+                if (melhores.size() > limite) {
+                    melhores.poll();
+                }
+            }
+            calculadas = j;
+            anterior = termo;
+            termo = idsTermos.higherKey(termo);
+        }
+
+        List<Correspondencia> encontradas = new ArrayList<>(melhores);
+        encontradas.sort(ORDEM_APROXIMADAS);
+        return encontradas;
+    }
+
+    private static int prefixoComum(String a, String b) {
+        int limite = Math.min(a.length(), b.length());
+        int i = 0;
+        while (i < limite && a.charAt(i) == b.charAt(i)) {
+            i++;
+        }
+        return i;
+    }
+
+    private int novoId(String termo) {
+        int id;
+        if (idsLivres.isEmpty()) {
+            id = termos.size();
+            termos.add(termo);
+            if (id == referencias.length) {
+                referencias = Arrays.copyOf(referencias, id * 2);
+            }
+        } else {
+            id = idsLivres.pop();
+            termos.set(id, termo);
+        }
+        referencias[id] = 1;
+        return id;
+    }
+
+    private static Set<String> trigramas(String termo) {
+        Set<String> trigramas = new HashSet<>();
+        for (int i = 0; i + 3 <= termo.length(); i++) {
+            trigramas.add(termo.substring(i, i + 3));
+        }
+        return trigramas;
+    }
+
+    /**
+     * Termo encontrado, com o tipo de correspondência e a distância de edição (zero se não for aproximada).
+     */
+    record Correspondencia(String termo, CredentialRepository.TipoCorrespondencia tipo, int distancia) {
+    }
+
+    /**
+     * Ids de termos em um array ordenado; os ids novos costumam ser os maiores, então a inserção
+     * normalmente só acrescenta no final.
+     */
+    private static final class Postagens {
+        private int[] ids = new int[4];
+        private int tamanho = 0;
+
+        void adiciona(int id) {
+            int posicao = Arrays.binarySearch(ids, 0, tamanho, id);
+            if (posicao >= 0) {
+                return;
+            }
+            posicao = -posicao - 1;
+            if (tamanho == ids.length) {
+                ids = Arrays.copyOf(ids, tamanho * 2);
+            }
+            System.arraycopy(ids, posicao, ids, posicao + 1, tamanho - posicao);
+            ids[posicao] = id;
+            tamanho++;
+        }
+
+        void remove(int id) {
+            int posicao = Arrays.binarySearch(ids, 0, tamanho, id);
+            if (posicao < 0) {
+                return;
+            }
+            System.arraycopy(ids, posicao + 1, ids, posicao, tamanho - posicao - 1);
+            tamanho--;
+        }
+
+        boolean contem(int id) {
+            return Arrays.binarySearch(ids, 0, tamanho, id) >= 0;
+        }
+    }
+}
@@ -0,0 +1,735 @@
+package service;
+
+import model.Credencial;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.GeneralSecurityException;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Journal somente-anexação das alterações feitas no repositório de credenciais desde o último arquivo base.
+ * <p>
+ * Cada adição ou remoção grava uma entrada {@code u8 operação | i32 tamanho | corpo}, em que o corpo
+ * é o registro criptografado de {@link FormatoCofre#codificaRegistro(Credencial)}; o custo não depende
+ * do tamanho do cofre. A entrada só é confirmada depois do {@code fsync}, feito em grupo: enquanto uma
+ * thread sincroniza o arquivo, as entradas gravadas por outras ficam esperando e são confirmadas pelo
+ * próximo {@code fsync}, um para todas.
+ * <p>
+ * Quando o journal passa de um limite de tamanho, ou o número de entradas passa de uma fração do
+ * número de registros do arquivo base, ele é rotacionado: o arquivo atual vira
+ * {@code <journal>.compactando}, um novo journal com a geração seguinte passa a receber as entradas e
+ * uma thread em segundo plano grava um novo arquivo base com essa geração. O cabeçalho do arquivo base
+ * guarda a geração já incorporada, então na carga só são reaplicados os journals de geração igual ou
+ * maior, e uma compactação interrompida no meio nunca aplica a mesma entrada duas vezes.
+ * <p>
+ * Se um {@code fsync} falhar, as entradas ainda não sincronizadas são cortadas do arquivo e quem as
+ * gravou desfaz a sua alteração no repositório, então o disco e a memória continuam iguais. A próxima
+ * entrada só é aceita depois de um arquivo base completo ser gravado com uma geração nova.
+ * <p>
+ * Uma remoção é reaplicada removendo a primeira credencial igual à removida.
+ */
+public class JournalCredenciais implements Closeable {
+
+    static final int OPERACAO_ADICAO = 1;
+    static final int OPERACAO_REMOCAO = 2;
+    static final long LIMITE_BYTES_PADRAO = 4L * 1024 * 1024;
+    static final double RAZAO_PADRAO = 0.5;
+    static final int MINIMO_ENTRADAS_PADRAO = 256;
+    private static final String SUFIXO_CONGELADO = ".compactando";
+
+    /**
+     * Força a gravação do journal no disco; substituído nos testes para simular uma falha do {@code fsync}.
+     */
+    @FunctionalInterface
+    interface Sincronizador {
+        void sincroniza(FileChannel canal) throws IOException;
+    }
+
+    /**
+     * Grava um arquivo base completo com a geração de journal informada.
+     */
+    @FunctionalInterface
+    public interface Compactador {
+        void grava(List<Credencial> credenciais, long geracao) throws Exception;
+    }
+
+    private final Path arquivo;
+    private final Path congelado;
+    private final CredentialRepository repositorio;
+    private final Compactador compactador;
+    private final long limiteBytes;
+    private final double razao;
+    private final int minimoEntradas;
+    private final ExecutorService executorCompactacao;
+    private final Object trava = new Object();
+    private volatile Sincronizador sincronizador = canal -> canal.force(false);
+
+    // Estado protegido por "trava"
+    private FileChannel canal;
+    private long geracao;
+    private long tamanho;
+    private int entradas;
+    private int registrosBase;
+    private long escritas = 0;
+    private long sincronizadas = 0;
+    // Tamanho do arquivo até a última entrada sincronizada
+    private long tamanhoSincronizado;
+    // Entradas anexadas cujo autor ainda não concluiu (sincronizou ou desfez a alteração)
+    private int pendentes = 0;
+    // Um fsync falhou: as entradas não sincronizadas foram descartadas e nada é anexado até a recuperação
+    private boolean falhou = false;
+    private boolean sincronizando = false;
+    private boolean fechado = false;
+    private Future<?> compactacao = null;
+
+    private JournalCredenciais(Path arquivo, CredentialRepository repositorio, Compactador compactador,
+                               long limiteBytes, double razao, int minimoEntradas) {
+        this.arquivo = arquivo;
+        this.congelado = arquivoCongelado(arquivo);
+        this.repositorio = repositorio;
+        this.compactador = compactador;
+        this.limiteBytes = limiteBytes;
+        this.razao = razao;
+        this.minimoEntradas = minimoEntradas;
+        this.executorCompactacao = Executors.newSingleThreadExecutor(
+                Thread.ofPlatform().name("compactacao-journal").daemon().factory());
+    }
+
+    /**
+     * Abre o journal para anexar as alterações feitas em {@code repositorio}, com os limites de
+     * compactação padrão. O repositório já deve conter o arquivo base e o journal reaplicado
+     * (ver {@link #reaplica(Path, long, CredentialRepository)}).
+     *
+     * @param arquivo      caminho do journal
+     * @param repositorio  repositório carregado, alterado apenas por este journal daqui em diante
+     * @param geracaoBase  geração gravada no cabeçalho do arquivo base carregado
+     * @param compactador  grava um novo arquivo base durante a compactação
+     * @return o journal pronto para uso
+     * @throws Exception se o journal não puder ser aberto ou uma compactação pendente falhar
+     */
+    public static JournalCredenciais abre(Path arquivo, CredentialRepository repositorio, long geracaoBase,
+                                          Compactador compactador) throws Exception {
+        return abre(arquivo, repositorio, geracaoBase, compactador,
+                LIMITE_BYTES_PADRAO, RAZAO_PADRAO, MINIMO_ENTRADAS_PADRAO);
+    }
+
+    /**
+     * Igual a {@link #abre(Path, CredentialRepository, long, Compactador)}, com limites de compactação explícitos.
+     *
+     * @param limiteBytes    tamanho do journal que dispara a compactação
+     * @param razao          fração de entradas sobre os registros do arquivo base que dispara a compactação
+     * @param minimoEntradas número mínimo de entradas para a compactação por razão
+     */
+    static JournalCredenciais abre(Path arquivo, CredentialRepository repositorio, long geracaoBase,
+                                   Compactador compactador, long limiteBytes, double razao,
+                                   int minimoEntradas) throws Exception {
+        JournalCredenciais journal = new JournalCredenciais(arquivo, repositorio, compactador,
+                limiteBytes, razao, minimoEntradas);
+        try {
+            journal.inicializa(geracaoBase);
+        } catch (Exception e) {
+            journal.executorCompactacao.shutdownNow();
+            throw e;
+        }
+        return journal;
+    }
+
+    private void inicializa(long geracaoBase) throws Exception {
+        long geracaoAtual = Files.exists(arquivo) ? leGeracao(arquivo) : -1;
+
+        if (Files.exists(congelado)) {
+            // Compactação interrompida: o repositório já contém os dois journals, grava uma base completa agora.
+            geracao = Math.max(geracaoAtual, geracaoBase) + 1;
+            compactador.grava(repositorio.credenciais(), geracao);
+            Files.deleteIfExists(congelado);
+            criaArquivo(arquivo, geracao);
+        } else if (geracaoAtual < geracaoBase) {
+            // Journal ausente ou já incorporado ao arquivo base
+            geracao = geracaoBase;
+            criaArquivo(arquivo, geracao);
+        } else {
+            geracao = geracaoAtual;
+        }
+
+        VarreduraJournal varredura = varre(arquivo);
+        canal = FileChannel.open(arquivo, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        if (varredura.fimValido() < canal.size()) {
+            System.err.println("Entrada incompleta no final do journal de credenciais descartada.");
+            canal.truncate(varredura.fimValido());
+        }
+        canal.position(varredura.fimValido());
+        tamanho = varredura.fimValido();
+        tamanhoSincronizado = tamanho;
+        entradas = varredura.entradas();
+        registrosBase = Math.max(repositorio.tamanho() - entradas, 0);
+    }
+
+    /**
+     * Reaplica sobre {@code repositorio} as entradas dos journals com geração igual ou maior que a do
+     * arquivo base: primeiro o de uma compactação interrompida, depois o atual. Entradas que não puderem
+     * ser descriptografadas são reportadas e ignoradas; uma entrada incompleta no final do arquivo
+     * (gravação interrompida antes do {@code fsync}) encerra a leitura daquele journal.
+     *
+     * @param arquivo     caminho do journal
+     * @param geracaoBase geração gravada no cabeçalho do arquivo base
+     * @param repositorio repositório carregado do arquivo base, alterado no lugar
+     * @return número de entradas reaplicadas
+     * @throws IOException se um journal não puder ser lido ou tiver cabeçalho inválido
+     */
+    public static int reaplica(Path arquivo, long geracaoBase, CredentialRepository repositorio) throws IOException {
+        int aplicadas = 0;
+        for (Path journal : List.of(arquivoCongelado(arquivo), arquivo)) {
+            if (!Files.exists(journal)) {
+                continue;
+            }
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(journal)))) {
+                if (FormatoCofre.leCabecalho(in, FormatoCofre.MAGIC_JOURNAL) < geracaoBase) {
+                    continue;
+                }
+                int operacao;
+                while ((operacao = in.read()) >= 0) {
+                    byte[] corpo;
+                    try {
+                        corpo = new byte[FormatoCofre.validaTamanhoRegistro(in.readInt())];
+                        in.readFully(corpo);
+                    } catch (EOFException e) {
+                        break;
+                    }
+                    if (aplica(operacao, corpo, repositorio)) {
+                        aplicadas++;
+                    }
+                }
+            }
+        }
+        return aplicadas;
+    }
+
+    private static boolean aplica(int operacao, byte[] corpo, CredentialRepository repositorio) {
+        try {
+            Credencial credencial = FormatoCofre.decodificaRegistro(corpo);
+            switch (operacao) {
+                case OPERACAO_ADICAO -> {
+                    repositorio.adiciona(credencial);
+                    CacheRegistros.registra(credencial, corpo);
+                }
+                case OPERACAO_REMOCAO -> repositorio.localiza(credencial).ifPresent(repositorio::remove);
+                default -> {
+                    System.err.println("Operação desconhecida no journal de credenciais: " + operacao);
+                    return false;
+                }
+            }
+            return true;
+        } catch (IllegalArgumentException | GeneralSecurityException e) {
+            System.err.println("Erro ao reaplicar entrada do journal: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Próxima geração livre: uma a mais que a maior geração entre os journals existentes,
+     * ou zero se não houver journal. Usada por quem grava um arquivo base completo sem passar
+     * pelo journal, para que os journals existentes deixem de ser reaplicados.
+     *
+     * @param arquivo caminho do journal
+     * @return a geração para o novo arquivo base
+     */
+    public static long proximaGeracao(Path arquivo) {
+        long maior = -1;
+        for (Path journal : List.of(arquivoCongelado(arquivo), arquivo)) {
+            if (Files.exists(journal)) {
+                try {
+                    maior = Math.max(maior, leGeracao(journal));
+                } catch (IOException e) {
+                    System.err.println("Journal de credenciais ilegível ignorado: " + e.getMessage());
+                }
+            }
+        }
+        return maior + 1;
+    }
+
+    /**
+     * Apaga o journal e o de uma compactação interrompida.
+     *
+     * @param arquivo caminho do journal
+     * @throws IOException se algum arquivo não puder ser apagado
+     */
+    public static void descarta(Path arquivo) throws IOException {
+        Files.deleteIfExists(arquivoCongelado(arquivo));
+        Files.deleteIfExists(arquivo);
+    }
+
+    /**
+     * Indica se há alguma entrada a ser reaplicada, no journal ou no de uma compactação interrompida.
+     *
+     * @param arquivo caminho do journal
+     * @return {@code true} se algum dos dois tiver pelo menos uma entrada
+     * @throws IOException se um journal existente tiver cabeçalho inválido
+     */
+    public static boolean temEntradas(Path arquivo) throws IOException {
+        for (Path journal : List.of(arquivoCongelado(arquivo), arquivo)) {
+            if (Files.exists(journal)) {
+                try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(journal)))) {
+                    FormatoCofre.leCabecalho(in, FormatoCofre.MAGIC_JOURNAL);
+                    if (in.read() >= 0) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Grava a adição no journal e a aplica no repositório. Retorna depois que a entrada estiver no disco.
+     *
+     * @param credencial credencial já sanitizada, com a senha criptografada
+     * @return o id atribuído pelo repositório
+     * @throws Exception se a criptografia ou a gravação falhar; nesse caso o repositório não é alterado
+     *                   (se a falha for no {@code fsync}, a entrada é descartada do journal e a adição,
+     *                   desfeita; ver {@link #aguardaSincronizacao(long)})
+     */
+    public long adiciona(Credencial credencial) throws Exception {
+        byte[] corpo = FormatoCofre.codificaRegistro(credencial);
+        long sequencia;
+        long id;
+        synchronized (trava) {
+            sequencia = anexa(OPERACAO_ADICAO, corpo);
+            id = repositorio.adiciona(credencial);
+        }
+        boolean descartada = true;
+        try {
+            aguardaSincronizacao(sequencia);
+            descartada = false;
+        } catch (InterruptedIOException e) {
+            // A entrada continua no journal e será sincronizada por outra thread ou no fechamento
+            descartada = false;
+            throw e;
+        } finally {
+            synchronized (trava) {
+                pendentes--;
+                if (descartada) {
+                    repositorio.remove(id);
+                }
+            }
+        }
+        // O mesmo corpo serve para a compactação, que então não precisa criptografar de novo
+        CacheRegistros.registra(credencial, corpo);
+        agendaCompactacaoSeNecessario();
+        return id;
+    }
+
+    /**
+     * Grava a remoção no journal e remove a credencial do repositório.
+     * Retorna depois que a entrada estiver no disco.
+     *
+     * @param id id da credencial no repositório
+     * @return a credencial removida
+     * @throws IllegalArgumentException se o id não existir
+     * @throws Exception se a criptografia ou a gravação falhar; nesse caso o repositório não é alterado
+     *                   (se a falha for no {@code fsync}, a entrada é descartada do journal e a credencial
+     *                   volta com o mesmo id e na mesma posição)
+     */
+    public Credencial remove(long id) throws Exception {
+        Credencial removida;
+        long sequencia;
+        synchronized (trava) {
+            removida = repositorio.busca(id)
+                    .orElseThrow(() -> new IllegalArgumentException("Credencial inexistente: " + id));
+            sequencia = anexa(OPERACAO_REMOCAO, FormatoCofre.codificaRegistro(removida));
+            repositorio.remove(id);
+        }
+        boolean descartada = true;
+        try {
+            aguardaSincronizacao(sequencia);
+            descartada = false;
+        } catch (InterruptedIOException e) {
+            descartada = false;
+            throw e;
+        } finally {
+            synchronized (trava) {
+                pendentes--;
+                if (descartada) {
+                    repositorio.restaura(id, removida);
+                }
+            }
+        }
+        agendaCompactacaoSeNecessario();
+        return removida;
+    }
+
+    /**
+     * Grava uma entrada no final do journal e devolve seu número de sequência. Em caso de falha
+     * o arquivo é truncado de volta, para que uma entrada parcial não fique antes das próximas.
+     * Depois de uma falha de {@code fsync}, primeiro recupera o journal (ver {@link #recupera()}).
+     */
+    private long anexa(int operacao, byte[] corpo) throws IOException {
+        if (fechado) {
+            throw new IllegalStateException("O journal de credenciais já foi fechado.");
+        }
+        if (falhou) {
+            recupera();
+        }
+        ByteBuffer entrada = ByteBuffer.allocate(1 + 4 + corpo.length);
+        entrada.put((byte) operacao).putInt(corpo.length).put(corpo).flip();
+        try {
+            while (entrada.hasRemaining()) {
+                canal.write(entrada);
+            }
+        } catch (IOException e) {
+            try {
+                canal.truncate(tamanho);
+                canal.position(tamanho);
+            } catch (IOException ignorada) {
+                e.addSuppressed(ignorada);
+            }
+            throw new IOException("Erro ao gravar no journal de credenciais: " + e.getMessage(), e);
+        }
+        tamanho += entrada.limit();
+        entradas++;
+        pendentes++;
+        return ++escritas;
+    }
+
+    /**
+     * Descarta as entradas ainda não sincronizadas depois de uma falha de {@code fsync}: o arquivo volta
+     * ao tamanho da última sincronização, para que nenhuma delas seja confirmada por um {@code fsync}
+     * seguinte e reapareça na próxima carga, e o journal para de aceitar entradas até a recuperação.
+     * Quem as anexou recebe a falha e desfaz a sua alteração no repositório.
+     */
+    private void descartaNaoSincronizadas(IOException erro) {
+        falhou = true;
+        try {
+            canal.truncate(tamanhoSincronizado);
+            canal.position(tamanhoSincronizado);
+            entradas -= (int) (escritas - sincronizadas);
+            tamanho = tamanhoSincronizado;
+        } catch (IOException e) {
+            // A recuperação grava uma base completa com uma geração nova, que invalida este journal
+            erro.addSuppressed(e);
+        }
+    }
+
+    /**
+     * Sai do estado de falha gravando um arquivo base completo, a partir do repositório (já sem as
+     * alterações descartadas), com a geração seguinte, e começando um journal novo com ela: o journal
+     * antigo deixa de ser reaplicado, mesmo que o truncamento tenha falhado. Chamado com a trava.
+     *
+     * @throws IOException se ainda houver alterações sendo desfeitas ou se a gravação falhar; o journal
+     *                     continua em falha e a recuperação é tentada de novo na próxima entrada
+     */
+    private void recupera() throws IOException {
+        if (pendentes > 0) {
+            throw new IOException("O journal de credenciais ainda está descartando entradas após uma falha de sincronização.");
+        }
+        if (compactacao != null && !compactacao.isDone()) {
+            // Uma compactação terminando depois gravaria uma base mais antiga por cima da nova
+            try {
+                compactacao.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrompido aguardando a compactação do journal.");
+            } catch (ExecutionException e) {
+                // Falhou: a base completa gravada abaixo também a substitui
+            }
+        }
+        long novaGeracao = geracao + 1;
+        try {
+            compactador.grava(repositorio.credenciais(), novaGeracao);
+        } catch (IOException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException("Erro ao regravar o arquivo base após a falha do journal: " + e.getMessage(), e);
+        }
+        Files.deleteIfExists(congelado);
+        canal.close();
+        criaArquivo(arquivo, novaGeracao);
+        canal = FileChannel.open(arquivo, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        tamanho = canal.size();
+        canal.position(tamanho);
+        tamanhoSincronizado = tamanho;
+        geracao = novaGeracao;
+        entradas = 0;
+        registrosBase = repositorio.tamanho();
+        sincronizadas = escritas;
+        falhou = false;
+    }
+
+    /**
+     * Commit em grupo: a primeira thread que encontra entradas pendentes faz o {@code fsync} de todas
+     * as gravadas até ali; as demais esperam e só sincronizam de novo se a sua entrada ficou de fora.
+     * Se o {@code fsync} falhar, todas as entradas não sincronizadas são descartadas
+     * ({@link #descartaNaoSincronizadas(IOException)}) e cada thread que esperava por uma delas recebe
+     * uma {@link IOException}.
+     */
+    private void aguardaSincronizacao(long sequencia) throws IOException {
+        while (true) {
+            FileChannel alvo;
+            long ate;
+            long tamanhoAte;
+            synchronized (trava) {
+                while (sincronizando && sincronizadas < sequencia) {
+                    espera();
+                }
+                if (sincronizadas >= sequencia) {
+                    return;
+                }
+                if (falhou) {
+                    throw new IOException("Entrada descartada após uma falha ao sincronizar o journal de credenciais.");
+                }
+                sincronizando = true;
+                alvo = canal;
+                ate = escritas;
+                tamanhoAte = tamanho;
+            }
+
+            IOException erro = null;
+            try {
+                sincronizador.sincroniza(alvo);
+            } catch (IOException e) {
+                erro = e;
+            }
+            synchronized (trava) {
+                sincronizando = false;
+                if (erro == null) {
+                    sincronizadas = Math.max(sincronizadas, ate);
+                    tamanhoSincronizado = Math.max(tamanhoSincronizado, tamanhoAte);
+                } else {
+                    descartaNaoSincronizadas(erro);
+                }
+                trava.notifyAll();
+            }
+            if (erro != null) {
+                throw new IOException("Erro ao sincronizar o journal de credenciais: " + erro.getMessage(), erro);
+            }
+        }
+    }
+
+    /**
+     * Rotaciona o journal e dispara a compactação em segundo plano se algum limite foi atingido.
+     * Não rotaciona enquanto houver uma compactação em andamento ou uma que falhou; nesse caso os
+     * dois journals continuam válidos e a compactação é refeita na próxima abertura.
+     */
+    private void agendaCompactacaoSeNecessario() throws IOException {
+        synchronized (trava) {
+            boolean porTamanho = tamanho >= limiteBytes;
+            boolean porRazao = entradas >= minimoEntradas && entradas >= razao * registrosBase;
+            if (fechado || falhou || (!porTamanho && !porRazao)
+                    || (compactacao != null && !compactacao.isDone()) || Files.exists(congelado)) {
+                return;
+            }
+
+            while (sincronizando) {
+                espera();
+            }
+            canal.force(false);
+            sincronizadas = escritas;
+            canal.close();
+            Files.move(arquivo, congelado, StandardCopyOption.ATOMIC_MOVE);
+
+            geracao++;
+            criaArquivo(arquivo, geracao);
+            canal = FileChannel.open(arquivo, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            tamanho = canal.size();
+            canal.position(tamanho);
+            tamanhoSincronizado = tamanho;
+            entradas = 0;
+            registrosBase = repositorio.tamanho();
+
+            List<Credencial> instantaneo = repositorio.credenciais();
+            long geracaoBase = geracao;
+            compactacao = executorCompactacao.submit(() -> compacta(instantaneo, geracaoBase));
+        }
+    }
+
+    private void compacta(List<Credencial> instantaneo, long geracaoBase) {
+        try {
+            compactador.grava(instantaneo, geracaoBase);
+            Files.deleteIfExists(congelado);
+        } catch (Exception e) {
+            System.err.println("Falha na compactação do journal de credenciais: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Troca a forma de sincronizar o journal; só para os testes.
+     */
+    void defineSincronizador(Sincronizador sincronizador) {
+        this.sincronizador = sincronizador;
+    }
+
+    /**
+     * Indica se há uma compactação em segundo plano em andamento.
+     */
+    boolean compactando() {
+        synchronized (trava) {
+            return compactacao != null && !compactacao.isDone();
+        }
+    }
+
+    /**
+     * Espera a compactação em andamento, se houver, terminar.
+     *
+     * @throws IOException se a espera for interrompida
+     */
+    public void aguardaCompactacao() throws IOException {
+        Future<?> atual;
+        synchronized (trava) {
+            atual = compactacao;
+        }
+        if (atual == null) {
+            return;
+        }
+        try {
+            atual.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrompido aguardando a compactação do journal.");
+        } catch (ExecutionException e) {
+            throw new IOException("Falha na compactação do journal de credenciais.", e.getCause());
+        }
+    }
+
+    /**
+     * Sincroniza e fecha o journal, esperando a compactação em andamento terminar.
+     *
+     * @throws IOException se a sincronização falhar
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (trava) {
+            if (fechado) {
+                return;
+            }
+            fechado = true;
+            while (sincronizando) {
+                espera();
+            }
+            try (FileChannel atual = canal) {
+                if (falhou) {
+                    // Sem recuperação na sessão: garante que as entradas descartadas não fiquem no arquivo
+                    atual.truncate(tamanhoSincronizado);
+                }
+                atual.force(false);
+                sincronizadas = escritas;
+            }
+        }
+        try {
+            aguardaCompactacao();
+        } finally {
+            executorCompactacao.shutdown();
+        }
+    }
+
+    private void espera() throws InterruptedIOException {
+        try {
+            trava.wait();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrompido aguardando a sincronização do journal.");
+        }
+    }
+
+    private static Path arquivoCongelado(Path arquivo) {
+        return arquivo.resolveSibling(arquivo.getFileName() + SUFIXO_CONGELADO);
+    }
+
+    private static long leGeracao(Path journal) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(journal)))) {
+            return FormatoCofre.leCabecalho(in, FormatoCofre.MAGIC_JOURNAL);
+        }
+    }
+
+    /**
+     * Cria um journal vazio com a geração informada. O cabeçalho é gravado e sincronizado em um
+     * temporário, que então substitui o arquivo, para que um journal nunca tenha o cabeçalho incompleto.
+     */
+    private static void criaArquivo(Path arquivo, long geracao) throws IOException {
+        ByteArrayOutputStream cabecalho = new ByteArrayOutputStream();
+        FormatoCofre.escreveCabecalho(new DataOutputStream(cabecalho), FormatoCofre.MAGIC_JOURNAL, geracao);
+
+        Path temporario = arquivo.resolveSibling(arquivo.getFileName() + ".tmp");
+        try (FileChannel novo = FileChannel.open(temporario, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer conteudo = ByteBuffer.wrap(cabecalho.toByteArray());
+            while (conteudo.hasRemaining()) {
+                novo.write(conteudo);
+            }
+            novo.force(true);
+        }
+        Files.move(temporario, arquivo, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Percorre as entradas do journal sem descriptografá-las, contando as completas e encontrando
+     * onde termina a última delas.
+     */
+    private static VarreduraJournal varre(Path journal) throws IOException {
+        try (ContadorBytes contador = new ContadorBytes(new BufferedInputStream(Files.newInputStream(journal)))) {
+            DataInputStream in = new DataInputStream(contador);
+            FormatoCofre.leCabecalho(in, FormatoCofre.MAGIC_JOURNAL);
+            long fimValido = contador.lidos;
+            int entradas = 0;
+            try {
+                while (in.read() >= 0) {
+                    in.readFully(new byte[FormatoCofre.validaTamanhoRegistro(in.readInt())]);
+                    fimValido = contador.lidos;
+                    entradas++;
+                }
+            } catch (EOFException e) {
+                // Entrada incompleta no final: descartada pelo chamador
+            }
+            return new VarreduraJournal(fimValido, entradas);
+        }
+    }
+
+    private record VarreduraJournal(long fimValido, int entradas) {
+    }
+
+    /**
+     * Conta os bytes consumidos, para localizar o fim da última entrada completa.
+     */
+    private static final class ContadorBytes extends FilterInputStream {
+        private long lidos = 0;
+
+        ContadorBytes(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                lidos++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] destino, int offset, int quantidade) throws IOException {
+            int n = super.read(destino, offset, quantidade);
+            if (n > 0) {
+                lidos += n;
+            }
+            return n;
+        }
+    }
+}
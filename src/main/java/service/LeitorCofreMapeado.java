@@ -0,0 +1,129 @@
+package service;
+
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Lê os registros de um arquivo no formato binário (ver {@link FormatoCofre}) diretamente de uma
+ * região mapeada em memória com {@link FileChannel#map}. Os registros são entregues sob demanda,
+ * um de cada vez, então uma busca que termina cedo não copia o restante do arquivo para o heap.
+ * <p>
+ * O mapeamento só é liberado pelo coletor de lixo depois do {@link #close()}; em sistemas que
+ * bloqueiam arquivos mapeados (Windows), feche o leitor antes de regravar o arquivo.
+ */
+public class LeitorCofreMapeado implements Closeable {
+
+    private final FileChannel canal;
+    private final MappedByteBuffer regiao;
+
+    /**
+     * Mapeia o arquivo e valida o cabeçalho contra os parâmetros do KDF da sessão atual.
+     *
+     * @param arquivo arquivo no formato binário
+     * @throws IOException se o arquivo não puder ser mapeado, for maior que 2 GiB ou tiver cabeçalho inválido
+     */
+    public LeitorCofreMapeado(Path arquivo) throws IOException {
+        this.canal = FileChannel.open(arquivo, StandardOpenOption.READ);
+        try {
+            long tamanho = canal.size();
+            if (tamanho > Integer.MAX_VALUE) {
+                throw new IOException("Arquivo de credenciais grande demais para ser mapeado: " + tamanho + " bytes.");
+            }
+            this.regiao = canal.map(FileChannel.MapMode.READ_ONLY, 0, tamanho);
+            FormatoCofre.leCabecalho(new DataInputStream(new EntradaRegiao(regiao)));
+        } catch (IOException | RuntimeException e) {
+            canal.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Copia o próximo registro da região mapeada.
+     *
+     * @return o corpo do registro, ou {@code null} no fim do arquivo
+     * @throws IOException se o arquivo estiver truncado ou um tamanho for inválido
+     */
+    public byte[] proximo() throws IOException {
+        if (!regiao.hasRemaining()) {
+            return null;
+        }
+        try {
+            byte[] corpo = new byte[FormatoCofre.validaTamanhoRegistro(regiao.getInt())];
+            regiao.get(corpo);
+            return corpo;
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Arquivo de credenciais truncado.", e);
+        }
+    }
+
+    /**
+     * Os registros restantes como um Stream sequencial e preguiçoso. Um erro de leitura interrompe
+     * o Stream com {@link UncheckedIOException}.
+     *
+     * @return Stream dos corpos dos registros
+     */
+    public Stream<byte[]> registros() {
+        Spliterator<byte[]> spliterator = new Spliterators.AbstractSpliterator<>(Long.MAX_VALUE,
+                Spliterator.ORDERED | Spliterator.NONNULL) {
+            @Override
+            public boolean tryAdvance(Consumer<? super byte[]> acao) {
+                try {
+                    byte[] corpo = proximo();
+                    if (corpo == null) {
+                        return false;
+                    }
+                    acao.accept(corpo);
+                    return true;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        };
+        return StreamSupport.stream(spliterator, false);
+    }
+
+    @Override
+    public void close() throws IOException {
+        canal.close();
+    }
+
+    /**
+     * InputStream sobre a região mapeada, usado apenas para ler o cabeçalho com {@link java.io.DataInput}.
+     */
+    private static final class EntradaRegiao extends InputStream {
+        private final ByteBuffer regiao;
+
+        EntradaRegiao(ByteBuffer regiao) {
+            this.regiao = regiao;
+        }
+
+        @Override
+        public int read() {
+            return regiao.hasRemaining() ? regiao.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] destino, int offset, int tamanho) {
+            if (!regiao.hasRemaining()) {
+                return -1;
+            }
+            int lidos = Math.min(tamanho, regiao.remaining());
+            regiao.get(destino, offset, lidos);
+            return lidos;
+        }
+    }
+}
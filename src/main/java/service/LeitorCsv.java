@@ -0,0 +1,153 @@
+package service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lê um arquivo CSV (RFC 4180) um registro por vez, sem carregar o arquivo inteiro: campos entre aspas
+ * podem conter vírgulas, quebras de linha e aspas duplicadas ({@code ""}). Aceita quebras de linha
+ * {@code \n} e {@code \r\n} e ignora o BOM do UTF-8 no início, como gravado por alguns exportadores.
+ * Cada campo é limitado a {@link #TAMANHO_MAXIMO_CAMPO} caracteres, para que um arquivo com aspas
+ * sem fechamento não seja lido inteiro para a memória.
+ */
+final class LeitorCsv implements Closeable {
+
+    static final int TAMANHO_MAXIMO_CAMPO = 1 << 20;
+
+    private final Reader entrada;
+    private final char[] buffer = new char[8192];
+    private int posicao;
+    private int limite;
+    private long linha = 1;
+    private long linhaDoRegistro;
+    private boolean inicio = true;
+
+    /**
+     * @param entrada texto do CSV; é fechado junto com o leitor
+     */
+    LeitorCsv(Reader entrada) {
+        this.entrada = entrada;
+    }
+
+    /**
+     * Lê o próximo registro. Linhas vazias são ignoradas.
+     *
+     * @return os campos do registro, ou {@code null} no fim do arquivo
+     * @throws IOException se a leitura falhar, um campo for grande demais ou as aspas não forem fechadas
+     */
+    String[] proximo() throws IOException {
+        List<String> campos = new ArrayList<>();
+        StringBuilder campo = new StringBuilder();
+        int c = le();
+        if (inicio) {
+            inicio = false;
+            if (c == '\uFEFF') {
+                c = le();
+            }
+        }
+        while (c == '\n' || c == '\r') {
+            pulaQuebra(c);
+            c = le();
+        }
+        if (c < 0) {
+            return null;
+        }
+        linhaDoRegistro = linha;
+
+        boolean entreAspas = false;
+        boolean campoComAspas = false;
+        while (true) {
+            if (entreAspas) {
+                if (c < 0) {
+                    throw new IOException("Aspas sem fechamento no registro da linha " + linhaDoRegistro + ".");
+                }
+                if (c == '"') {
+                    c = le();
+                    if (c == '"') {
+                        acrescenta(campo, '"');
+                        c = le();
+                    } else {
+                        entreAspas = false;
+                    }
+                    continue;
+                }
+                if (c == '\n') {
+                    linha++;
+                }
+                acrescenta(campo, (char) c);
+                c = le();
+                continue;
+            }
+            if (c == ',') {
+                campos.add(campo.toString());
+                campo.setLength(0);
+                campoComAspas = false;
+                c = le();
+            } else if (c < 0 || c == '\n' || c == '\r') {
+                campos.add(campo.toString());
+                if (c >= 0) {
+                    pulaQuebra(c);
+                }
+                return campos.toArray(new String[0]);
+            } else if (c == '"' && campo.isEmpty() && !campoComAspas) {
+                entreAspas = true;
+                campoComAspas = true;
+                c = le();
+            } else {
+                acrescenta(campo, (char) c);
+                c = le();
+            }
+        }
+    }
+
+    /**
+     * Linha do arquivo, a partir de 1, em que começa o último registro lido.
+     */
+    long getLinha() {
+        return linhaDoRegistro;
+    }
+
+    @Override
+    public void close() throws IOException {
+        entrada.close();
+    }
+
+    /**
+     * Conclui uma quebra de linha já lida: o {@code \n} de um {@code \r\n} também é consumido.
+     */
+    private void pulaQuebra(int c) throws IOException {
+        linha++;
+        if (c == '\r' && espia() == '\n') {
+            le();
+        }
+    }
+
+    private void acrescenta(StringBuilder campo, char c) throws IOException {
+        if (campo.length() >= TAMANHO_MAXIMO_CAMPO) {
+            throw new IOException("Campo grande demais no registro da linha " + linhaDoRegistro + ".");
+        }
+        campo.append(c);
+    }
+
+    private int le() throws IOException {
+        int c = espia();
+        if (c >= 0) {
+            posicao++;
+        }
+        return c;
+    }
+
+    private int espia() throws IOException {
+        if (posicao == limite) {
+            limite = Math.max(entrada.read(buffer, 0, buffer.length), 0);
+            posicao = 0;
+            if (limite == 0) {
+                return -1;
+            }
+        }
+        return buffer[posicao];
+    }
+}
@@ -0,0 +1,267 @@
+package service;
+
+import java.security.DigestException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+/**
+ * Gera e valida códigos TOTP (RFC 6238) de um segredo, sem alocar memória por código.
+ * <p>
+ * As chaves do HMAC já combinadas com os pads (RFC 2104) são calculadas uma vez, na construção; cada
+ * thread mantém um {@link MessageDigest} por algoritmo e os buffers do contador e do resumo, compartilhados
+ * por todos os motores, então gerar um código custa apenas os dois resumos do HMAC e cada motor guarda
+ * só as chaves. {@code Mac.doFinal} do JCE sempre devolve um array novo, por isso o HMAC é montado
+ * diretamente sobre o resumo.
+ * <p>
+ * A validação calcula todas as janelas aceitas e compara os códigos como inteiros, sem desvio
+ * dependente do valor, para não revelar por tempo qual janela (ou dígito) confere.
+ */
+public final class MotorTOTP {
+
+    /**
+     * Função de hash do HMAC, como no parâmetro {@code algorithm} da RFC 6238.
+     */
+    public enum Algoritmo {
+        SHA1("SHA-1", 64),
+        SHA256("SHA-256", 64),
+        SHA512("SHA-512", 128);
+
+        private final String resumo;
+        private final int tamanhoBloco;
+
+        Algoritmo(String resumo, int tamanhoBloco) {
+            this.resumo = resumo;
+            this.tamanhoBloco = tamanhoBloco;
+        }
+    }
+
+    public static final int PASSO_PADRAO_SEGUNDOS = 30;
+    public static final int DIGITOS_PADRAO = 6;
+
+    /**
+     * Janelas aceitas antes e depois da atual, para tolerar a diferença entre os relógios.
+     */
+    public static final int JANELAS_TOLERADAS = 1;
+
+    private static final int[] POTENCIAS_10 = {1, 10, 100, 1_000, 10_000, 100_000, 1_000_000, 10_000_000,
+            100_000_000};
+    private static final byte IPAD = 0x36;
+    private static final byte OPAD = 0x5C;
+    private static final ThreadLocal<Estado[]> ESTADOS =
+            ThreadLocal.withInitial(() -> new Estado[Algoritmo.values().length]);
+
+    private final Algoritmo algoritmo;
+    private final int digitos;
+    private final int modulo;
+    private final long passoSegundos;
+    private final byte[] chaveInterna;
+    private final byte[] chaveExterna;
+
+    /**
+     * Motor com os parâmetros dos aplicativos autenticadores: HMAC-SHA1, 6 dígitos e passos de 30 s.
+     *
+     * @param segredo segredo compartilhado (copiado)
+     */
+    public MotorTOTP(byte[] segredo) {
+        this(segredo, Algoritmo.SHA1, DIGITOS_PADRAO, PASSO_PADRAO_SEGUNDOS);
+    }
+
+    /**
+     * @param segredo       segredo compartilhado (copiado)
+     * @param algoritmo     função de hash do HMAC
+     * @param digitos       dígitos do código, de 6 a 8
+     * @param passoSegundos duração de cada janela
+     */
+    public MotorTOTP(byte[] segredo, Algoritmo algoritmo, int digitos, int passoSegundos) {
+        if (segredo == null || segredo.length == 0) {
+            throw new IllegalArgumentException("O segredo TOTP não pode ser vazio.");
+        }
+        if (digitos < 6 || digitos > 8) {
+            throw new IllegalArgumentException("O código TOTP deve ter de 6 a 8 dígitos.");
+        }
+        if (passoSegundos < 1) {
+            throw new IllegalArgumentException("O passo do TOTP deve ser positivo.");
+        }
+        this.algoritmo = algoritmo;
+        this.digitos = digitos;
+        this.modulo = POTENCIAS_10[digitos];
+        this.passoSegundos = passoSegundos;
+
+        // Chaves maiores que o bloco são substituídas pelo seu resumo (RFC 2104)
+        byte[] chave = segredo.length > algoritmo.tamanhoBloco ? novoResumo(algoritmo).digest(segredo) : segredo;
+        this.chaveInterna = new byte[algoritmo.tamanhoBloco];
+        this.chaveExterna = new byte[algoritmo.tamanhoBloco];
+        for (int i = 0; i < algoritmo.tamanhoBloco; i++) {
+            byte b = i < chave.length ? chave[i] : 0;
+            chaveInterna[i] = (byte) (b ^ IPAD);
+            chaveExterna[i] = (byte) (b ^ OPAD);
+        }
+        if (chave != segredo) {
+            Arrays.fill(chave, (byte) 0);
+        }
+    }
+
+    /**
+     * Código da janela que contém o instante.
+     *
+     * @param instanteSegundos segundos desde a época Unix
+     * @return o código, sem os zeros à esquerda (ver {@link #formata(int)})
+     */
+    public int gera(long instanteSegundos) {
+        return geraNaJanela(Math.floorDiv(instanteSegundos, passoSegundos));
+    }
+
+    /**
+     * Código de uma janela (o contador {@code T} da RFC 6238).
+     *
+     * @param janela número da janela
+     * @return o código
+     */
+    public int geraNaJanela(long janela) {
+        Estado[] estados = ESTADOS.get();
+        Estado atual = estados[algoritmo.ordinal()];
+        if (atual == null) {
+            atual = estados[algoritmo.ordinal()] = new Estado(novoResumo(algoritmo));
+        }
+        byte[] contador = atual.contador;
+        for (int i = 7; i >= 0; i--) {
+            contador[i] = (byte) janela;
+            janela >>>= 8;
+        }
+        MessageDigest resumo = atual.resumo;
+        byte[] saida = atual.saida;
+        int tamanho = resumo.getDigestLength();
+        try {
+            resumo.update(chaveInterna);
+            resumo.update(contador);
+            resumo.digest(saida, 0, tamanho);
+            resumo.update(chaveExterna);
+            resumo.update(saida, 0, tamanho);
+            resumo.digest(saida, 0, tamanho);
+        } catch (DigestException e) {
+            resumo.reset();
+            throw new IllegalStateException("Falha ao calcular o HMAC do TOTP.", e);
+        }
+
+        // Truncamento dinâmico (RFC 4226, seção 5.3)
+        int deslocamento = saida[tamanho - 1] & 0x0F;
+        int binario = ((saida[deslocamento] & 0x7F) << 24)
+                | ((saida[deslocamento + 1] & 0xFF) << 16)
+                | ((saida[deslocamento + 2] & 0xFF) << 8)
+                | (saida[deslocamento + 3] & 0xFF);
+        return binario % modulo;
+    }
+
+    /**
+     * Valida um código digitado contra a janela atual e as {@link #JANELAS_TOLERADAS} vizinhas.
+     *
+     * @param codigo código digitado
+     * @return {@code true} se o código tiver o número de dígitos esperado e conferir com alguma janela
+     */
+    public boolean valida(CharSequence codigo) {
+        return valida(codigo, System.currentTimeMillis() / 1000);
+    }
+
+    /**
+     * Valida um código digitado no instante informado.
+     *
+     * @param codigo           código digitado
+     * @param instanteSegundos segundos desde a época Unix
+     * @return {@code true} se o código tiver o número de dígitos esperado e conferir com alguma janela
+     */
+    public boolean valida(CharSequence codigo, long instanteSegundos) {
+        int valor = converte(codigo);
+        return valor >= 0 && janelaDe(valor, instanteSegundos) != Long.MIN_VALUE;
+    }
+
+    /**
+     * Janela em que um código confere, entre a atual e as {@link #JANELAS_TOLERADAS} vizinhas. Todas as
+     * janelas são calculadas e comparadas, confira ou não alguma delas.
+     *
+     * @param codigo           código como inteiro
+     * @param instanteSegundos segundos desde a época Unix
+     * @return a janela, ou {@link Long#MIN_VALUE} se nenhuma conferir
+     */
+    public long janelaDe(int codigo, long instanteSegundos) {
+        long atual = Math.floorDiv(instanteSegundos, passoSegundos);
+        long encontrada = Long.MIN_VALUE;
+        for (long janela = atual - JANELAS_TOLERADAS; janela <= atual + JANELAS_TOLERADAS; janela++) {
+            int diferenca = geraNaJanela(janela) ^ codigo;
+            // 0 se os códigos forem iguais, -1 caso contrário, sem desvio
+            long mascara = (long) ((diferenca | -diferenca) >> 31);
+            encontrada = (encontrada & mascara) | (janela & ~mascara);
+        }
+        return encontrada;
+    }
+
+    /**
+     * Converte o código digitado em inteiro sem expressão regular nem alocação.
+     *
+     * @param codigo código digitado
+     * @return o valor, ou -1 se for nulo, tiver outro número de dígitos ou algum caractere não numérico
+     */
+    public int converte(CharSequence codigo) {
+        if (codigo == null || codigo.length() != digitos) {
+            return -1;
+        }
+        int valor = 0;
+        for (int i = 0; i < digitos; i++) {
+            int digito = codigo.charAt(i) - '0';
+            if (digito < 0 || digito > 9) {
+                return -1;
+            }
+            valor = valor * 10 + digito;
+        }
+        return valor;
+    }
+
+    /**
+     * Código com os zeros à esquerda, como exibido pelos aplicativos autenticadores.
+     *
+     * @param codigo código gerado
+     * @return o código com {@link #getDigitos()} dígitos
+     */
+    public String formata(int codigo) {
+        char[] texto = new char[digitos];
+        for (int i = digitos - 1; i >= 0; i--) {
+            texto[i] = (char) ('0' + codigo % 10);
+            codigo /= 10;
+        }
+        return new String(texto);
+    }
+
+    public Algoritmo getAlgoritmo() {
+        return algoritmo;
+    }
+
+    public int getDigitos() {
+        return digitos;
+    }
+
+    public long getPassoSegundos() {
+        return passoSegundos;
+    }
+
+    private static MessageDigest novoResumo(Algoritmo algoritmo) {
+        try {
+            return MessageDigest.getInstance(algoritmo.resumo);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(algoritmo.resumo + " não disponível.", e);
+        }
+    }
+
+    /**
+     * Resumo e buffers de uma thread para um algoritmo.
+     */
+    private static final class Estado {
+        private final MessageDigest resumo;
+        private final byte[] contador = new byte[Long.BYTES];
+        private final byte[] saida;
+
+        Estado(MessageDigest resumo) {
+            this.resumo = resumo;
+            this.saida = new byte[resumo.getDigestLength()];
+        }
+    }
+}
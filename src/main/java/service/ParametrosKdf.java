@@ -0,0 +1,179 @@
+package service;
+
+import org.mindrot.jbcrypt.BCrypt;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.GeneralSecurityException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Custo das derivações feitas a cada desbloqueio: as iterações do PBKDF2 que derivam a chave do cofre
+ * e o custo (log2 das rodadas) do BCrypt que protege o hash da senha mestra.
+ * <p>
+ * Os valores são calibrados na máquina, na criação do cofre, para que as duas derivações juntas
+ * levem cerca de {@link #LATENCIA_ALVO_PADRAO}, e ficam em {@code kdf_params.dat}, ao lado do salt.
+ * Nunca ficam abaixo de {@link #MINIMO}, os valores fixos usados antes da calibração.
+ *
+ * @param iteracoesPbkdf2 iterações do PBKDF2-HMAC-SHA256
+ * @param custoBcrypt     custo do BCrypt
+ */
+public record ParametrosKdf(int iteracoesPbkdf2, int custoBcrypt) {
+
+    /**
+     * Arquivo padrão dos parâmetros, no mesmo diretório do salt.
+     */
+    public static final Path ARQUIVO_PADRAO = Paths.get("kdf_params.dat");
+
+    /**
+     * Parâmetros dos cofres criados antes da calibração, e o piso da calibração.
+     */
+    public static final ParametrosKdf MINIMO = new ParametrosKdf(EncriptacaoService.ITERACOES_PBKDF2, 10);
+
+    /**
+     * Tempo alvo do desbloqueio (BCrypt mais PBKDF2); pode ser alterado pela propriedade de sistema
+     * {@code gerenciador.kdf.alvoMs}.
+     */
+    public static final Duration LATENCIA_ALVO_PADRAO =
+            Duration.ofMillis(Integer.getInteger("gerenciador.kdf.alvoMs", 500));
+
+    static final int MAXIMO_ITERACOES = 10_000_000;
+    static final int MAXIMO_CUSTO_BCRYPT = 16;
+    private static final int ITERACOES_AMOSTRA = 20_000;
+    private static final int CUSTO_AMOSTRA = 8;
+    private static final int REPETICOES_AMOSTRA = 3;
+    private static final String CHAVE_PBKDF2 = "pbkdf2-sha256";
+    private static final String CHAVE_BCRYPT = "bcrypt";
+
+    public ParametrosKdf {
+        if (iteracoesPbkdf2 < 1) {
+            throw new IllegalArgumentException("O número de iterações do PBKDF2 deve ser positivo.");
+        }
+        if (custoBcrypt < 4 || custoBcrypt > 31) {
+            throw new IllegalArgumentException("O custo do BCrypt deve estar entre 4 e 31.");
+        }
+    }
+
+    /**
+     * Mede o PBKDF2 e o BCrypt nesta máquina e escolhe os maiores parâmetros com que o desbloqueio
+     * cabe no tempo alvo, metade para cada derivação, sem ficar abaixo de {@link #MINIMO}.
+     *
+     * @param alvo tempo alvo do desbloqueio
+     * @return os parâmetros calibrados
+     */
+    public static ParametrosKdf calibra(Duration alvo) {
+        if (alvo.isNegative() || alvo.isZero()) {
+            throw new IllegalArgumentException("O tempo alvo da calibração deve ser positivo.");
+        }
+        long orcamento = alvo.toNanos() / 2;
+
+        // O PBKDF2 é linear nas iterações; a melhor de algumas amostras descarta as pausas do JIT e do GC
+        double nanosPorIteracao = (double) melhorTempo(ParametrosKdf::amostraPbkdf2) / ITERACOES_AMOSTRA;
+        long iteracoes = (long) (orcamento / nanosPorIteracao) / 1000 * 1000;
+        iteracoes = Math.clamp(iteracoes, MINIMO.iteracoesPbkdf2(), MAXIMO_ITERACOES);
+
+        // Cada ponto de custo do BCrypt dobra o tempo
+        long nanosAmostra = Math.max(1, melhorTempo(ParametrosKdf::amostraBcrypt));
+        int custo = CUSTO_AMOSTRA;
+        while (custo < MAXIMO_CUSTO_BCRYPT && nanosAmostra << (custo + 1 - CUSTO_AMOSTRA) <= orcamento) {
+            custo++;
+        }
+        custo = Math.max(custo, MINIMO.custoBcrypt());
+
+        return new ParametrosKdf((int) iteracoes, custo);
+    }
+
+    private static long melhorTempo(Amostra amostra) {
+        long melhor = Long.MAX_VALUE;
+        for (int i = 0; i < REPETICOES_AMOSTRA; i++) {
+            long inicio = System.nanoTime();
+            amostra.executa();
+            melhor = Math.min(melhor, System.nanoTime() - inicio);
+        }
+        return melhor;
+    }
+
+    private static void amostraPbkdf2() {
+        try {
+            Arrays.fill(EncriptacaoService.deriveKeyMaterial("calibracao", "calibracao", ITERACOES_AMOSTRA),
+                    (byte) 0);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Falha ao medir o PBKDF2: " + e.getMessage(), e);
+        }
+    }
+
+    private static void amostraBcrypt() {
+        BCrypt.hashpw("calibracao", BCrypt.gensalt(CUSTO_AMOSTRA));
+    }
+
+    @FunctionalInterface
+    private interface Amostra {
+        void executa();
+    }
+
+    /**
+     * Carrega os parâmetros gravados.
+     *
+     * @param arquivo arquivo dos parâmetros
+     * @return os parâmetros, ou vazio se o arquivo não existir (cofre anterior à calibração)
+     * @throws IOException se o arquivo não puder ser lido ou estiver malformado
+     */
+    public static Optional<ParametrosKdf> carrega(Path arquivo) throws IOException {
+        if (!Files.exists(arquivo)) {
+            return Optional.empty();
+        }
+        Map<String, String> valores = new HashMap<>();
+        for (String linha : Files.readAllLines(arquivo, StandardCharsets.UTF_8)) {
+            int separador = linha.indexOf('=');
+            if (separador > 0) {
+                valores.put(linha.substring(0, separador).trim(), linha.substring(separador + 1).trim());
+            }
+        }
+        try {
+            return Optional.of(new ParametrosKdf(Integer.parseInt(valores.get(CHAVE_PBKDF2)),
+                    Integer.parseInt(valores.get(CHAVE_BCRYPT))));
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Arquivo de parâmetros do KDF inválido: " + arquivo, e);
+        }
+    }
+
+    /**
+     * Grava os parâmetros, substituindo o arquivo de forma atômica.
+     *
+     * @param arquivo arquivo dos parâmetros
+     * @throws IOException se a gravação falhar
+     */
+    public void salva(Path arquivo) throws IOException {
+        Path temporario = arquivo.resolveSibling(arquivo.getFileName() + ".tmp");
+        Files.writeString(temporario, CHAVE_PBKDF2 + "=" + iteracoesPbkdf2 + "\n"
+                + CHAVE_BCRYPT + "=" + custoBcrypt + "\n", StandardCharsets.UTF_8);
+        Files.move(temporario, arquivo, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Custo registrado em um hash BCrypt ({@code $2a$NN$...}).
+     *
+     * @param hash hash gerado pelo BCrypt
+     * @return o custo do hash
+     * @throws IllegalArgumentException se o hash não estiver no formato do BCrypt
+     */
+    public static int custoDoHash(String hash) {
+        if (hash == null || hash.length() < 7 || hash.charAt(0) != '$' || hash.charAt(3) != '$'
+                || hash.charAt(6) != '$') {
+            throw new IllegalArgumentException("Hash BCrypt inválido.");
+        }
+        try {
+            return Integer.parseInt(hash.substring(4, 6));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Hash BCrypt inválido.");
+        }
+    }
+}
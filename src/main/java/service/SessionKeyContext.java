@@ -0,0 +1,90 @@
+package service;
+
+import javax.crypto.SecretKey;
+import java.io.Serial;
+import java.security.GeneralSecurityException;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Chave AES da sessão, derivada uma única vez a partir da senha mestra, do salt e do número de
+ * iterações do PBKDF2. Guarda esses parâmetros para que {@link EncriptacaoService} só repita o PBKDF2
+ * quando algum deles mudar. {@link #destroy()} sobrescreve o material da chave com zeros.
+ */
+final class SessionKeyContext implements SecretKey {
+
+	@Serial
+	private static final long serialVersionUID = 1L;
+
+	private final transient String senha;
+	private final transient String salt;
+	private final int iteracoes;
+	private final byte[] material;
+	private volatile boolean destruida = false;
+
+	private SessionKeyContext(String senha, String salt, int iteracoes, byte[] material) {
+		this.senha = senha;
+		this.salt = salt;
+		this.iteracoes = iteracoes;
+		this.material = material;
+	}
+
+	/**
+	 * Deriva a chave da sessão com PBKDF2.
+	 *
+	 * @param senha senha mestra
+	 * @param salt      salt persistente
+	 * @param iteracoes iterações do PBKDF2
+	 * @return o contexto com a chave pronta para uso
+	 * @throws GeneralSecurityException se a derivação falhar
+	 */
+	static SessionKeyContext derive(String senha, String salt, int iteracoes) throws GeneralSecurityException {
+		return new SessionKeyContext(senha, salt, iteracoes,
+				EncriptacaoService.deriveKeyMaterial(senha, salt, iteracoes));
+	}
+
+	/**
+	 * Indica se este contexto foi derivado exatamente da senha, do salt e das iterações informados.
+	 */
+	boolean correspondeA(String senha, String salt, int iteracoes) {
+		return !destruida && this.iteracoes == iteracoes && Objects.equals(this.senha, senha)
+				&& Objects.equals(this.salt, salt);
+	}
+
+	String getSalt() {
+		return salt;
+	}
+
+	int getIteracoes() {
+		return iteracoes;
+	}
+
+	@Override
+	public String getAlgorithm() {
+		return "AES";
+	}
+
+	@Override
+	public String getFormat() {
+		return "RAW";
+	}
+
+	@Override
+	public byte[] getEncoded() {
+		if (destruida) {
+			throw new IllegalStateException("A chave de sessão já foi destruída.");
+		}
+		return material.clone();
+	}
+
+	@Override
+	public void destroy() {
+		Arrays.fill(material, (byte) 0);
+		destruida = true;
+	}
+
+	@Override
+	public boolean isDestroyed() {
+		return destruida;
+	}
+}
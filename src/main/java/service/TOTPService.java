@@ -2,10 +2,8 @@ package service;
 
 import org.apache.commons.codec.binary.Base32;
 
-import javax.crypto.Mac;
-import javax.crypto.spec.SecretKeySpec;
 import java.security.SecureRandom;
-import java.time.Instant;
+import java.util.Arrays;
 import java.util.Base64;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -15,8 +13,11 @@ import java.io.IOException;
 public class TOTPService {
 	private static final long TEMPO_PASSO_SEGUNDOS = 30;
 	private static final int DIGITA_CODIGO = 6;
-	private static final String ALGORITMO_HMAC = "HmacSHA1";
 	private static final String ARQUIVO_SECRETO = "totp_secret.dat"; // Alterado para .dat
+	// 320 bits; criptografada, a semente cabe nos 128 caracteres aceitos pelo armazenamento
+	static final int TAMANHO_MAXIMO_SEMENTE = 64;
+
+	private static volatile MotorCacheado motorCacheado = null;
 
 	/**
 	 * Gera uma nova chave secreta codificada em Base64 (uso interno).
@@ -51,7 +52,8 @@ public class TOTPService {
 	}
 
 	/**
-	 * Valida um código TOTP digitado pelo usuário.
+	 * Valida um código TOTP digitado pelo usuário, na janela atual ou em uma vizinha.
+	 * O motor do segredo ({@link MotorTOTP}) é reaproveitado entre as chamadas.
 	 */
 	public static boolean validateCode(String base64Secret, String inputCode) {
 	    if (inputCode == null || inputCode.length() != DIGITA_CODIGO) {
@@ -59,48 +61,95 @@ public class TOTPService {
 	        return false;
 	    }
 
-	    if (!inputCode.matches("\\d{" + DIGITA_CODIGO + "}")) {
-	        System.out.println("Código TOTP inválido. O código TOTP deve conter apenas dígitos numéricos.");
+	    MotorTOTP motor;
+	    try {
+	        motor = motor(base64Secret);
+	    } catch (IllegalArgumentException e) {
+	        System.err.println("TOTP validação falhou: " + e.getMessage());
 	        return false;
 	    }
 
-	    try {
-	        long currentWindow = Instant.now().getEpochSecond() / TEMPO_PASSO_SEGUNDOS;
-	        for (long offset = -1; offset <= 1; offset++) {
-	            String expectedCode = generateCodeAtTime(base64Secret, currentWindow + offset);
-	            if (expectedCode.equals(inputCode)) {
-	                return true;
-	            }
-	        }
-	    } catch (Exception e) {
-	        System.err.println("TOTP validação falhou: " + e.getMessage());
+	    if (motor.converte(inputCode) < 0) {
+	        System.out.println("Código TOTP inválido. O código TOTP deve conter apenas dígitos numéricos.");
 	        return false;
 	    }
 
+	    if (motor.valida(inputCode)) {
+	        return true;
+	    }
+
 	    System.out.println("Por favor, tente novamente.");
 	    return false;
 	}
 
-	private static String generateCodeAtTime(String base64Secret, long timeWindow) throws Exception {
-		byte[] key = Base64.getDecoder().decode(base64Secret);
-		byte[] data = new byte[8];
-		for (int i = 7; i >= 0; i--) {
-			data[i] = (byte) (timeWindow & 0xFF);
-			timeWindow >>= 8;
+	/**
+	 * Motor TOTP do segredo, criado na primeira validação e mantido enquanto o segredo não mudar.
+	 */
+	static MotorTOTP motor(String base64Secret) {
+		MotorCacheado atual = motorCacheado;
+		if (atual != null && atual.segredo().equals(base64Secret)) {
+			return atual.motor();
 		}
+		byte[] segredo = Base64.getDecoder().decode(base64Secret);
+		try {
+			MotorTOTP motor = new MotorTOTP(segredo, MotorTOTP.Algoritmo.SHA1, DIGITA_CODIGO, (int) TEMPO_PASSO_SEGUNDOS);
+			motorCacheado = new MotorCacheado(base64Secret, motor);
+			return motor;
+		} finally {
+			Arrays.fill(segredo, (byte) 0);
+		}
+	}
 
-		Mac mac = Mac.getInstance(ALGORITMO_HMAC);
-		mac.init(new SecretKeySpec(key, ALGORITMO_HMAC));
-		byte[] hmac = mac.doFinal(data);
+	private record MotorCacheado(String segredo, MotorTOTP motor) {
+	}
 
-		int offset = hmac[hmac.length - 1] & 0xF;
-		int binary = ((hmac[offset] & 0x7F) << 24)
-				| ((hmac[offset + 1] & 0xFF) << 16)
-				| ((hmac[offset + 2] & 0xFF) << 8)
-				| (hmac[offset + 3] & 0xFF);
+	/**
+	 * Normaliza uma semente TOTP em Base32, como as exibidas pelos serviços ao ativar o 2FA:
+	 * remove espaços e o preenchimento e converte para maiúsculas.
+	 *
+	 * @param base32Seed A semente digitada.
+	 * @return A semente normalizada.
+	 * @throws IllegalArgumentException se a semente estiver vazia, for longa demais ou tiver caracteres fora do Base32.
+	 */
+	public static String normalizaSemente(String base32Seed) {
+		if (base32Seed == null) {
+			throw new IllegalArgumentException("A semente TOTP não pode ser vazia.");
+		}
+		StringBuilder normalizada = new StringBuilder(base32Seed.length());
+		for (int i = 0; i < base32Seed.length(); i++) {
+			char c = Character.toUpperCase(base32Seed.charAt(i));
+			if (c == ' ' || c == '-' || c == '=') {
+				continue;
+			}
+			if ((c < 'A' || c > 'Z') && (c < '2' || c > '7')) {
+				throw new IllegalArgumentException("A semente TOTP deve estar em Base32 (letras A-Z e dígitos 2-7).");
+			}
+			normalizada.append(c);
+		}
+		if (normalizada.isEmpty()) {
+			throw new IllegalArgumentException("A semente TOTP não pode ser vazia.");
+		}
+		if (normalizada.length() > TAMANHO_MAXIMO_SEMENTE) {
+			throw new IllegalArgumentException("A semente TOTP deve ter no máximo " + TAMANHO_MAXIMO_SEMENTE + " caracteres.");
+		}
+		return normalizada.toString();
+	}
 
-		int otp = binary % (int) Math.pow(10, DIGITA_CODIGO);
-		return String.format("%0" + DIGITA_CODIGO + "d", otp);
+	/**
+	 * Cria o motor TOTP de uma semente em Base32, com os mesmos parâmetros da validação do login
+	 * (HMAC-SHA1, 6 dígitos e passos de 30 s), usados pelos aplicativos autenticadores.
+	 *
+	 * @param base32Seed A semente em Base32.
+	 * @return O motor da semente.
+	 * @throws IllegalArgumentException se a semente não for Base32 válido.
+	 */
+	public static MotorTOTP motorDaSemente(String base32Seed) {
+		byte[] segredo = new Base32().decode(normalizaSemente(base32Seed));
+		try {
+			return new MotorTOTP(segredo, MotorTOTP.Algoritmo.SHA1, DIGITA_CODIGO, (int) TEMPO_PASSO_SEGUNDOS);
+		} finally {
+			Arrays.fill(segredo, (byte) 0);
+		}
 	}
 
 	/**
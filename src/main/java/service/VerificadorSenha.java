@@ -1,17 +1,172 @@
 package service;
 
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
-import java.net.HttpURLConnection;
-import java.net.URL;
-import java.nio.charset.StandardCharsets;
-import java.security.MessageDigest;
-import java.net.URI;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.OptionalInt;
 
 public class VerificadorSenha {
 
     /**
-     * Verifica se uma senha foi encontrada em vazamentos de dados conhecidos usando a "Have I Been Pwned API".
+     * Base local usada por padrão, se existir (ver {@link BaseVazamentos#importa(Path, Path)}).
+     */
+    public static final Path BASE_LOCAL_PADRAO = Paths.get("hibp.dat");
+
+    /**
+     * Filtro usado por padrão, se existir (ver {@link FiltroVazamentos#constroi(Path, double)}).
+     */
+    public static final Path FILTRO_PADRAO = Paths.get("hibp.bloom");
+
+    private static Path caminhoBaseLocal = BASE_LOCAL_PADRAO;
+    private static Path caminhoFiltro = FILTRO_PADRAO;
+    private static volatile BaseVazamentos baseLocal;
+    private static volatile FiltroVazamentos filtro;
+    private static volatile boolean recursosLocaisResolvidos;
+    private static volatile CacheFaixas cacheFaixas = new CacheFaixas();
+    private static volatile FonteFaixas fonteFaixas = new ClienteVazamentos();
+
+    /**
+     * Define o cache das faixas consultadas na API. Com {@code null}, cada verificação consulta a fonte
+     * e, com {@link ClienteVazamentos}, para de ler a resposta assim que passa do hash procurado.
+     *
+     * @param cache o cache, ou {@code null}
+     */
+    public static void usaCacheFaixas(CacheFaixas cache) {
+        cacheFaixas = cache;
+    }
+
+    /**
+     * Define de onde vêm as faixas que não estão no cache (por padrão, a API pública).
+     *
+     * @param fonte a origem das faixas
+     */
+    public static void usaFonteFaixas(FonteFaixas fonte) {
+        fonteFaixas = fonte;
+    }
+
+    /**
+     * Cache das faixas em uso, para consulta das estatísticas.
+     */
+    public static CacheFaixas getCacheFaixas() {
+        return cacheFaixas;
+    }
+
+    /**
+     * Faixa da API Pwned Passwords para um prefixo, do cache quando já consultada.
+     *
+     * @param prefixo os 5 primeiros dígitos hexadecimais do SHA-1
+     * @return a faixa
+     * @throws IOException se a faixa não estiver no cache e a consulta falhar
+     */
+    public static FaixaHibp faixa(String prefixo) throws IOException {
+        CacheFaixas cache = cacheFaixas;
+        return cache != null ? cache.busca(prefixo, fonteFaixas) : fonteFaixas.baixa(prefixo);
+    }
+
+    /**
+     * Ocorrências de um hash segundo a API, pelo cache quando houver.
+     *
+     * @param hashBytes SHA-1 da senha
+     * @return o número de ocorrências
+     * @throws IOException se a faixa não estiver no cache e a consulta falhar
+     */
+    static int ocorrenciasApi(byte[] hashBytes) throws IOException {
+        CacheFaixas cache = cacheFaixas;
+        return cache != null
+                ? cache.busca(FaixaHibp.prefixo(hashBytes), fonteFaixas).ocorrencias(hashBytes)
+                : fonteFaixas.ocorrencias(hashBytes);
+    }
+
+    /**
+     * Define a base local de senhas vazadas, aberta na próxima verificação. Com {@code null}, ou se o
+     * arquivo não existir, as verificações voltam a usar apenas a API.
+     *
+     * @param arquivo arquivo da base, ou {@code null}
+     */
+    public static synchronized void usaBaseLocal(Path arquivo) {
+        descartaRecursosLocais();
+        caminhoBaseLocal = arquivo;
+    }
+
+    /**
+     * Define o filtro de Bloom consultado antes da base local e da API, carregado na próxima
+     * verificação. Com {@code null}, ou se o arquivo não existir, todas as senhas vão para a consulta exata.
+     *
+     * @param arquivo arquivo do filtro, ou {@code null}
+     */
+    public static synchronized void usaFiltro(Path arquivo) {
+        descartaRecursosLocais();
+        caminhoFiltro = arquivo;
+    }
+
+    /**
+     * Fecha a base local e descarta o filtro; os dois são reabertos na próxima verificação.
+     */
+    public static synchronized void descartaRecursosLocais() {
+        if (baseLocal != null) {
+            try {
+                baseLocal.close();
+            } catch (IOException e) {
+                System.err.println("Erro ao fechar a base local de senhas vazadas: " + e.getMessage());
+            }
+        }
+        baseLocal = null;
+        filtro = null;
+        recursosLocaisResolvidos = false;
+    }
+
+    private static void resolveRecursosLocais() {
+        if (recursosLocaisResolvidos) {
+            return;
+        }
+        synchronized (VerificadorSenha.class) {
+            if (recursosLocaisResolvidos) {
+                return;
+            }
+            if (caminhoFiltro != null && Files.exists(caminhoFiltro)) {
+                try {
+                    filtro = FiltroVazamentos.carrega(caminhoFiltro);
+                } catch (IOException e) {
+                    System.err.println("Erro ao carregar o filtro de senhas vazadas: " + e.getMessage());
+                }
+            }
+            if (caminhoBaseLocal != null && Files.exists(caminhoBaseLocal)) {
+                try {
+                    baseLocal = BaseVazamentos.abre(caminhoBaseLocal);
+                } catch (IOException e) {
+                    System.err.println("Erro ao abrir a base local de senhas vazadas: " + e.getMessage());
+                }
+            }
+            recursosLocaisResolvidos = true;
+        }
+    }
+
+    /**
+     * Resposta dos recursos locais para um hash: 0 se o filtro de Bloom o descarta, a contagem da base
+     * local se ela existir, ou vazio se só a API pode responder.
+     *
+     * @param hashBytes SHA-1 da senha
+     * @return o número de ocorrências, se conhecido localmente
+     */
+    static OptionalInt ocorrenciasLocais(byte[] hashBytes) {
+        resolveRecursosLocais();
+        FiltroVazamentos filtro = VerificadorSenha.filtro;
+        if (filtro != null && !filtro.podeConter(hashBytes)) {
+            return OptionalInt.of(0);
+        }
+        BaseVazamentos base = baseLocal;
+        if (base != null) {
+            return OptionalInt.of((int) Math.min(base.ocorrencias(hashBytes), Integer.MAX_VALUE));
+        }
+        return OptionalInt.empty();
+    }
+
+    /**
+     * Verifica se uma senha foi encontrada em vazamentos de dados conhecidos. Senhas que o filtro de
+     * Bloom descarta são seguras sem outra consulta; as demais vão para a base local importada, quando
+     * disponível, e caso contrário para a "Have I Been Pwned API", com as faixas já consultadas
+     * guardadas em {@link CacheFaixas}.
      * A senha a ser verificada.
      *  Número de vezes que a senha foi encontrada em vazamentos (0 = segura).
      
@@ -21,34 +176,13 @@ public class VerificadorSenha {
     public static int checarSenha(String senha) {
         try {
             // Passo 1: Hash SHA-1 da senha
-            MessageDigest sha1 = MessageDigest.getInstance("SHA-1");
-            byte[] hashBytes = sha1.digest(senha.getBytes(StandardCharsets.UTF_8));
-            StringBuilder sb = new StringBuilder();
-            for (byte b : hashBytes) {
-                sb.append(String.format("%02X", b));
+            byte[] hashBytes = BaseVazamentos.sha1(senha);
+            OptionalInt local = ocorrenciasLocais(hashBytes);
+            if (local.isPresent()) {
+                return local.getAsInt();
             }
-            String sha1Hash = sb.toString();
-            String prefixo = sha1Hash.substring(0, 5);
-            String sufixo = sha1Hash.substring(5);
-
-            // Passo 2: Consulta a API com o prefixo
-            URI uri = new URI("https", "api.pwnedpasswords.com", "/range/" + prefixo, null);
-            URL url = uri.toURL();
-            HttpURLConnection conn = (HttpURLConnection) url.openConnection();
-            conn.setRequestMethod("GET");
-
-            BufferedReader reader = new BufferedReader(new InputStreamReader(conn.getInputStream()));
-            String line;
-            while ((line = reader.readLine()) != null) {
-                if (line.startsWith(sufixo)) {
-                    String[] parts = line.split(":");
-                    return Integer.parseInt(parts[1].trim());
-                }
-            }
-            // Não encontrado em vazamentos
-            reader.close();
-            return 0; 
-
+            // Passo 2: Consulta a faixa do prefixo (cache ou API)
+            return ocorrenciasApi(hashBytes);
         } catch (Exception e) {
             System.err.println("Erro ao verificar violação de senha: " + e.getMessage());
             return -1;
@@ -0,0 +1,212 @@
+package service;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Valida códigos TOTP de muitos usuários, para proteger operações de vários operadores em um mesmo
+ * servidor. Os segredos ficam em uma tabela concorrente em memória, um {@link MotorTOTP} por usuário
+ * (só as chaves do HMAC; o estado de cálculo é por thread e compartilhado), e qualquer número de threads
+ * pode validar ao mesmo tempo, sem locks.
+ * <p>
+ * Cada código só vale uma vez (RFC 6238, seção 5.2): a última janela aceita de cada usuário é guardada
+ * e atualizada por compare-and-set, então um código de uma janela igual ou anterior é rejeitado, mesmo
+ * que duas threads recebam o mesmo código ao mesmo tempo. Um usuário desconhecido custa o mesmo que um
+ * código errado, para que o tempo de resposta não revele quais usuários existem.
+ */
+public final class VerificadorTOTP {
+
+    private static final MotorTOTP FICTICIO = new MotorTOTP(new byte[20]);
+
+    private final ConcurrentHashMap<String, Usuario> usuarios = new ConcurrentHashMap<>();
+    private final LongAdder aceitos = new LongAdder();
+    private final LongAdder recusados = new LongAdder();
+    private final LongAdder repetidos = new LongAdder();
+
+    /**
+     * Carrega os usuários de um arquivo com uma linha {@code usuario:segredo} por usuário, com o segredo
+     * em Base64 como em {@code totp_secret.dat}. Linhas vazias e iniciadas por {@code #} são ignoradas.
+     * Usuários já registrados têm o segredo substituído e mantêm a última janela aceita, então um código
+     * usado antes da recarga continua recusado depois dela.
+     *
+     * @param arquivo arquivo dos segredos
+     * @return número de usuários carregados
+     * @throws IOException se o arquivo não puder ser lido ou alguma linha for inválida
+     */
+    public int carrega(Path arquivo) throws IOException {
+        List<String> linhas = Files.readAllLines(arquivo, StandardCharsets.UTF_8);
+        int carregados = 0;
+        for (int i = 0; i < linhas.size(); i++) {
+            String linha = linhas.get(i).trim();
+            if (linha.isEmpty() || linha.startsWith("#")) {
+                continue;
+            }
+            int separador = linha.indexOf(':');
+            if (separador <= 0) {
+                throw new IOException("Linha " + (i + 1) + " inválida no arquivo de segredos TOTP.");
+            }
+            byte[] segredo;
+            try {
+                segredo = Base64.getDecoder().decode(linha.substring(separador + 1).trim());
+                registra(linha.substring(0, separador).trim(), segredo);
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Linha " + (i + 1) + " inválida no arquivo de segredos TOTP: "
+                        + e.getMessage(), e);
+            }
+            Arrays.fill(segredo, (byte) 0);
+            carregados++;
+        }
+        return carregados;
+    }
+
+    /**
+     * Registra um usuário com os parâmetros padrão (HMAC-SHA1, 6 dígitos, passos de 30 s).
+     *
+     * @param usuario nome do usuário
+     * @param segredo segredo compartilhado (copiado)
+     */
+    public void registra(String usuario, byte[] segredo) {
+        registra(usuario, new MotorTOTP(segredo));
+    }
+
+    /**
+     * Registra um usuário com um motor próprio, para outros algoritmos ou número de dígitos.
+     * Substituir o motor de um usuário mantém a última janela aceita dele.
+     *
+     * @param usuario nome do usuário
+     * @param motor   motor com o segredo do usuário
+     */
+    public void registra(String usuario, MotorTOTP motor) {
+        if (usuario == null || usuario.isBlank()) {
+            throw new IllegalArgumentException("O nome do usuário não pode ser vazio.");
+        }
+        usuarios.compute(usuario, (nome, anterior) ->
+                new Usuario(motor, anterior == null ? Long.MIN_VALUE : anterior.encerra()));
+    }
+
+    /**
+     * Remove um usuário.
+     *
+     * @param usuario nome do usuário
+     * @return {@code true} se o usuário estava registrado
+     */
+    public boolean remove(String usuario) {
+        return usuarios.remove(usuario) != null;
+    }
+
+    public int tamanho() {
+        return usuarios.size();
+    }
+
+    /**
+     * Valida o código de um usuário no instante atual.
+     *
+     * @param usuario nome do usuário
+     * @param codigo  código digitado
+     * @return {@code true} se o código conferir com uma janela aceita ainda não usada pelo usuário
+     */
+    public boolean valida(String usuario, CharSequence codigo) {
+        return valida(usuario, codigo, System.currentTimeMillis() / 1000);
+    }
+
+    /**
+     * Valida o código de um usuário no instante informado.
+     *
+     * @param usuario          nome do usuário
+     * @param codigo           código digitado
+     * @param instanteSegundos segundos desde a época Unix
+     * @return {@code true} se o código conferir com uma janela aceita ainda não usada pelo usuário
+     */
+    public boolean valida(String usuario, CharSequence codigo, long instanteSegundos) {
+        Usuario registro = usuario == null ? null : usuarios.get(usuario);
+        MotorTOTP motor = registro == null ? FICTICIO : registro.motor;
+        int valor = motor.converte(codigo);
+        long janela = motor.janelaDe(Math.max(valor, 0), instanteSegundos);
+        if (registro == null || valor < 0 || janela == Long.MIN_VALUE) {
+            recusados.increment();
+            return false;
+        }
+        if (!registro.marcaUsada(janela)) {
+            repetidos.increment();
+            return false;
+        }
+        aceitos.increment();
+        return true;
+    }
+
+    /**
+     * Contadores de validação desde a criação do verificador.
+     */
+    public Estatisticas getEstatisticas() {
+        return new Estatisticas(usuarios.size(), aceitos.sum(), recusados.sum(), repetidos.sum());
+    }
+
+    /**
+     * Motor de um usuário e a última janela aceita, atualizada por CAS.
+     */
+    private static final class Usuario {
+        private static final VarHandle ULTIMA_JANELA;
+
+        static {
+            try {
+                ULTIMA_JANELA = MethodHandles.lookup().findVarHandle(Usuario.class, "ultimaJanela", long.class);
+            } catch (ReflectiveOperationException e) {
+                throw new ExceptionInInitializerError(e);
+            }
+        }
+
+        private final MotorTOTP motor;
+        @SuppressWarnings("unused") // acessado por ULTIMA_JANELA
+        private volatile long ultimaJanela;
+
+        Usuario(MotorTOTP motor, long ultimaJanela) {
+            this.motor = motor;
+            this.ultimaJanela = ultimaJanela;
+        }
+
+        /**
+         * Impede novas aceitações neste registro, que está sendo substituído, e devolve a última janela
+         * aceita. Uma validação concorrente que ainda veja este registro é recusada em vez de aceitar
+         * uma janela que o substituto não conheceria.
+         */
+        long encerra() {
+            return (long) ULTIMA_JANELA.getAndSet(this, Long.MAX_VALUE);
+        }
+
+        /**
+         * Marca a janela como usada, se ela for posterior à última aceita.
+         *
+         * @return {@code false} se a janela (ou uma posterior) já foi aceita
+         */
+        boolean marcaUsada(long janela) {
+            long anterior;
+            do {
+                anterior = (long) ULTIMA_JANELA.getVolatile(this);
+                if (janela <= anterior) {
+                    return false;
+                }
+            } while (!ULTIMA_JANELA.compareAndSet(this, anterior, janela));
+            return true;
+        }
+    }
+
+    /**
+     * Contadores do verificador.
+     *
+     * @param usuarios  usuários registrados
+     * @param aceitos   códigos aceitos
+     * @param recusados códigos errados, malformados ou de usuários desconhecidos
+     * @param repetidos códigos corretos recusados por reutilizarem uma janela já aceita
+     */
+    public record Estatisticas(int usuarios, long aceitos, long recusados, long repetidos) {
+    }
+}
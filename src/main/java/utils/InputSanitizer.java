@@ -1,6 +1,27 @@
 package utils;
 
+import java.util.ArrayList;
+import java.util.List;
+
 public class InputSanitizer {
+    private static final byte DIGIT = 1;
+    private static final byte UNSAFE = 2;
+
+    /**
+     * Character classes of the ASCII range, so that {@link #sanitize(String, int, boolean)} checks each
+     * character with one table lookup. Characters above the table are neither digits nor unsafe.
+     */
+    private static final byte[] CLASSES = new byte[128];
+
+    static {
+        for (char c = '0'; c <= '9'; c++) {
+            CLASSES[c] = DIGIT;
+        }
+        for (char c : new char[]{';', '\'', '"', '<', '>', ','}) {
+            CLASSES[c] = UNSAFE;
+        }
+    }
+
     /**
      * Private constructor to prevent instantiation.
      */
@@ -10,6 +31,7 @@ public class InputSanitizer {
 
     /**
      * Sanitizes user-provided input to prevent potential injection attacks.
+     * The input is trimmed and checked in a single pass, without regular expressions.
      *
      * @param input           The raw user input.
      * @param maxLength       The maximum allowed length of input.
@@ -18,25 +40,135 @@ public class InputSanitizer {
      * @throws IllegalArgumentException If input is null, invalid, or unsafe.
      */
     public static String sanitize(String input, int maxLength, boolean numericOnly) throws IllegalArgumentException {
+        long bounds = check(input, maxLength, numericOnly);
+        if (bounds < 0) {
+            throw new IllegalArgumentException(Reason.of(bounds).message());
+        }
+        return input.substring((int) (bounds >>> 32), (int) bounds);
+    }
+
+    /**
+     * Validates a batch of records without throwing, collecting every violation. Field {@code i} of each
+     * record is checked against {@code rules[i]} exactly as {@link #sanitize(String, int, boolean)} would,
+     * and every valid field is replaced in the array by its trimmed value, so the batch needs no second pass.
+     *
+     * @param records The records, one array of fields per record.
+     * @param rules   The rule of each field position.
+     * @return The violations, in record and field order; empty if every field is valid.
+     * @throws IllegalArgumentException If a record does not have one field per rule.
+     */
+    public static List<Violation> validateAll(List<String[]> records, FieldRule... rules) {
+        List<Violation> violations = new ArrayList<>(0);
+        for (int r = 0; r < records.size(); r++) {
+            String[] fields = records.get(r);
+            if (fields.length != rules.length) {
+                throw new IllegalArgumentException("Record " + r + " has " + fields.length + " fields, expected "
+                        + rules.length + ".");
+            }
+            for (int f = 0; f < fields.length; f++) {
+                String field = fields[f];
+                long bounds = check(field, rules[f].maxLength(), rules[f].numericOnly());
+                if (bounds < 0) {
+                    violations.add(new Violation(r, f, Reason.of(bounds)));
+                } else {
+                    fields[f] = field.substring((int) (bounds >>> 32), (int) bounds);
+                }
+            }
+        }
+        return violations;
+    }
+
+    /**
+     * Checks one input in a single pass.
+     *
+     * @return The trimmed bounds packed as {@code start << 32 | end}, or the negated ordinal + 1 of the
+     *         {@link Reason} the input is rejected for.
+     */
+    private static long check(String input, int maxLength, boolean numericOnly) {
         if (input == null) {
-            throw new IllegalArgumentException("A entrada não pode ser nula.");
+            return Reason.NULL.code();
+        }
+        // Same bounds as String.trim()
+        int end = input.length();
+        int start = 0;
+        while (start < end && input.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && input.charAt(end - 1) <= ' ') {
+            end--;
         }
-        input = input.trim();
-        if (input.isEmpty() || input.length() > maxLength) {
-            throw new IllegalArgumentException("A entrada é inválida ou excede o comprimento permitido.");
+        if (start == end || end - start > maxLength) {
+            return Reason.EMPTY_OR_TOO_LONG.code();
         }
-        if (numericOnly && !input.matches("\\d+")) {
-            throw new IllegalArgumentException("A entrada deve conter apenas caracteres numéricos.");
+        if (numericOnly) {
+            // Digits only: no unsafe character can get through
+            for (int i = start; i < end; i++) {
+                char c = input.charAt(i);
+                if (c >= CLASSES.length || CLASSES[c] != DIGIT) {
+                    return Reason.NOT_NUMERIC.code();
+                }
+            }
+        } else {
+            // Accumulate the classes without a branch per character and decide once at the end
+            int seen = 0;
+            for (int i = start; i < end; i++) {
+                char c = input.charAt(i);
+                seen |= c < CLASSES.length ? CLASSES[c] : 0;
+            }
+            if ((seen & UNSAFE) != 0) {
+                return Reason.UNSAFE.code();
+            }
         }
-        if (!numericOnly && input.indexOf(';') >= 0 ||
-                input.indexOf('\'') >= 0 ||
-                input.indexOf('"') >= 0 ||
-                input.indexOf('<') >= 0 ||
-                input.indexOf('>') >= 0 ||
-                input.indexOf(',') >= 0) {
-            throw new IllegalArgumentException("A entrada contém caracteres inseguros.");
+        return (long) start << 32 | end;
+    }
+
+    /**
+     * Rule for one field position in {@link #validateAll(List, FieldRule...)}.
+     *
+     * @param maxLength   The maximum allowed length of the trimmed field.
+     * @param numericOnly Whether to allow only numbers.
+     */
+    public record FieldRule(int maxLength, boolean numericOnly) {
+    }
+
+    /**
+     * A field rejected by {@link #validateAll(List, FieldRule...)}.
+     *
+     * @param record The index of the record in the batch.
+     * @param field  The index of the field in the record.
+     * @param reason Why the field was rejected.
+     */
+    public record Violation(int record, int field, Reason reason) {
+    }
+
+    /**
+     * Why an input was rejected, with the message {@link #sanitize(String, int, boolean)} throws.
+     */
+    public enum Reason {
+        NULL("A entrada não pode ser nula."),
+        EMPTY_OR_TOO_LONG("A entrada é inválida ou excede o comprimento permitido."),
+        NOT_NUMERIC("A entrada deve conter apenas caracteres numéricos."),
+        UNSAFE("A entrada contém caracteres inseguros.");
+
+        private static final Reason[] VALUES = values();
+
+        private final String message;
+
+        Reason(String message) {
+            this.message = message;
+        }
+
+        public String message() {
+            return message;
+        }
+
+        private long code() {
+            return -(ordinal() + 1L);
+        }
+
+        private static Reason of(long code) {
+            return VALUES[(int) (-code - 1)];
         }
-        return input;
     }
 
     /**
@@ -57,4 +189,4 @@ public class InputSanitizer {
                    .replace("\"", "&quot;")
                    .replace("'", "&#39;");
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,130 @@
+package utils;
+
+import java.security.DrbgParameters;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Objects;
+
+/**
+ * Gera senhas aleatórias de uma {@link PoliticaSenha} direto em buffers {@code char[]}, que podem ser
+ * apagados depois de usados (ao contrário de uma {@code String}).
+ * <p>
+ * Os alfabetos das 16 combinações de tipos de caractere são montados uma única vez. Cada thread tem
+ * seu próprio gerador DRBG (NIST SP 800-90A), semeado pela entropia do sistema, e tira bytes dele em
+ * lotes, então threads diferentes nunca disputam o mesmo gerador. Cada caractere vem de um byte por
+ * amostragem com rejeição: bytes acima do maior múltiplo do tamanho do alfabeto são descartados, e a
+ * escolha fica uniforme.
+ * <p>
+ * Instâncias são imutáveis e podem ser compartilhadas entre threads.
+ */
+public final class MotorSenhas {
+
+    private static final String MAIUSCULO = "ABCDEFGHIJKLMNOPQRSTUVWXYZ";
+    private static final String MINUSCULO = "abcdefghijklmnopqrstuvwxyz";
+    private static final String NUMEROS = "0123456789";
+    private static final String SIMBOLOS = "!@#$%&*()-_=+[]{}";
+    private static final int LOTE_BYTES = 256;
+
+    // Alfabeto de cada combinação, indexado pelos bits maiúsculas | minúsculas << 1 | números << 2 | símbolos << 3
+    private static final char[][] ALFABETOS = new char[16][];
+
+    static {
+        for (int bits = 1; bits < ALFABETOS.length; bits++) {
+            StringBuilder alfabeto = new StringBuilder();
+            if ((bits & 1) != 0) alfabeto.append(MAIUSCULO);
+            if ((bits & 2) != 0) alfabeto.append(MINUSCULO);
+            if ((bits & 4) != 0) alfabeto.append(NUMEROS);
+            if ((bits & 8) != 0) alfabeto.append(SIMBOLOS);
+            ALFABETOS[bits] = alfabeto.toString().toCharArray();
+        }
+    }
+
+    private static final ThreadLocal<Aleatorio> ALEATORIO = ThreadLocal.withInitial(Aleatorio::new);
+
+    private final PoliticaSenha politica;
+    private final char[] alfabeto;
+    // Bytes a partir deste valor são rejeitados: 256 - 256 % alfabeto.length
+    private final int limite;
+
+    /**
+     * @param politica comprimento e tipos de caractere
+     */
+    public MotorSenhas(PoliticaSenha politica) {
+        this.politica = politica;
+        this.alfabeto = ALFABETOS[(politica.maiusculas() ? 1 : 0) | (politica.minusculas() ? 2 : 0)
+                | (politica.numeros() ? 4 : 0) | (politica.simbolos() ? 8 : 0)];
+        this.limite = 256 - 256 % alfabeto.length;
+    }
+
+    public PoliticaSenha politica() {
+        return politica;
+    }
+
+    /**
+     * Escreve {@code tamanho} caracteres aleatórios em {@code destino}, a partir de {@code inicio}.
+     *
+     * @param destino buffer do chamador
+     * @param inicio  primeira posição escrita
+     * @param tamanho número de caracteres
+     * @throws IndexOutOfBoundsException se o intervalo não couber no buffer
+     */
+    public void gera(char[] destino, int inicio, int tamanho) {
+        Objects.checkFromIndexSize(inicio, tamanho, destino.length);
+        Aleatorio aleatorio = ALEATORIO.get();
+        for (int i = inicio, fim = inicio + tamanho; i < fim; ) {
+            int b = aleatorio.proximo();
+            if (b < limite) {
+                destino[i++] = alfabeto[b % alfabeto.length];
+            }
+        }
+    }
+
+    /**
+     * Preenche {@code destino} inteiro com uma senha do tamanho do buffer.
+     *
+     * @param destino buffer do chamador
+     */
+    public void gera(char[] destino) {
+        gera(destino, 0, destino.length);
+    }
+
+    /**
+     * Gera uma senha com o comprimento da política em um buffer novo.
+     *
+     * @return a senha; apague-a com {@code Arrays.fill(senha, '\0')} depois de usar
+     */
+    public char[] gera() {
+        char[] senha = new char[politica.tamanho()];
+        gera(senha);
+        return senha;
+    }
+
+    /**
+     * Gerador e lote de bytes de uma thread.
+     */
+    private static final class Aleatorio {
+        private final SecureRandom drbg = novoDrbg();
+        private final byte[] bytes = new byte[LOTE_BYTES];
+        private int posicao = LOTE_BYTES;
+
+        int proximo() {
+            if (posicao == LOTE_BYTES) {
+                drbg.nextBytes(bytes);
+                posicao = 0;
+            }
+            int b = bytes[posicao] & 0xFF;
+            // O byte usado não fica na memória
+            bytes[posicao++] = 0;
+            return b;
+        }
+
+        private static SecureRandom novoDrbg() {
+            try {
+                return SecureRandom.getInstance("DRBG",
+                        DrbgParameters.instantiation(256, DrbgParameters.Capability.RESEED_ONLY, null));
+            } catch (NoSuchAlgorithmException e) {
+                return new SecureRandom();
+            }
+        }
+    }
+}
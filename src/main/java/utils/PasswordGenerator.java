@@ -1,14 +1,25 @@
 package utils;
 
+import service.AuditoriaVazamentos;
 import service.VerificadorSenha;
-import java.security.SecureRandom;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class PasswordGenerator {
-    private static final String MAIUSCULO = "ABCDEFGHIJKLMNOPQRSTUVWXYZ";
-    private static final String MINUSCULO = "abcdefghijklmnopqrstuvwxyz";
-    private static final String NUMEROS = "0123456789";
-    private static final String SIMBOLOS = "!@#$%&*()-_=+[]{}";
-    private static final SecureRandom random = new SecureRandom();
+    /**
+     * Rodadas de geração de um lote antes de desistir, caso a política só produza senhas vazadas.
+     */
+    static final int MAXIMO_RODADAS = 32;
+    private static final Object FIM = new Object();
 
     /**
     * Gera uma senha forte com base nas preferências do usuário.
@@ -27,26 +38,21 @@ public class PasswordGenerator {
      * @return 
      */
     public static String generate(int tamanho, boolean incluiMaisculo, boolean incluiMinusculo, boolean incluiNumeros, boolean incluiSimbolos) {
+        return generate(new PoliticaSenha(tamanho, incluiMaisculo, incluiMinusculo, incluiNumeros, incluiSimbolos));
+    }
 
-        StringBuilder characterPool = new StringBuilder();
-        if (incluiMaisculo) characterPool.append(MAIUSCULO);
-        if (incluiMinusculo) characterPool.append(MINUSCULO);
-        if (incluiNumeros) characterPool.append(NUMEROS);
-        if (incluiSimbolos) characterPool.append(SIMBOLOS);
-
-        if (characterPool.isEmpty() || tamanho <= 0) {
-            throw new IllegalArgumentException("Invalid parameters for password generation.");
-        }
-
+    /**
+     * Gera uma senha seguindo a política, regenerando enquanto ela constar em vazamentos.
+     *
+     * @param politica comprimento e tipos de caractere
+     * @return a senha
+     */
+    public static String generate(PoliticaSenha politica) {
+        MotorSenhas motor = new MotorSenhas(politica);
         String senha;
         int contador;
         do {
-            StringBuilder passwordBuilder = new StringBuilder(tamanho);
-            for (int i = 0; i < tamanho; i++) {
-                int index = random.nextInt(characterPool.length());
-                passwordBuilder.append(characterPool.charAt(index));
-            }
-            senha = passwordBuilder.toString();
+            senha = candidata(motor);
             
             // Verifique com o verificador de violação de senha
             contador = VerificadorSenha.checarSenha(senha);
@@ -58,4 +64,96 @@ public class PasswordGenerator {
 
         return senha;
     }
-}
\ No newline at end of file
+
+    /**
+     * Gera várias senhas de uma vez. Cada rodada gera todas as senhas que faltam e as verifica
+     * contra vazamentos em uma só passada concorrente ({@link AuditoriaVazamentos}, uma consulta por
+     * prefixo de hash); só as rejeitadas são geradas de novo na rodada seguinte.
+     * <p>
+     * A geração roda em segundo plano e as senhas aprovadas aparecem no stream à medida que são
+     * verificadas. Fechar o stream interrompe a geração. Uma senha cuja verificação falhou é aceita,
+     * como em {@link #generate(PoliticaSenha)}.
+     *
+     * @param quantidade número de senhas
+     * @param politica   comprimento e tipos de caractere
+     * @return stream com exatamente {@code quantidade} senhas
+     * @throws IllegalArgumentException se a quantidade for negativa
+     */
+    public static Stream<String> generateBatch(int quantidade, PoliticaSenha politica) {
+        return generateBatch(quantidade, politica, new AuditoriaVazamentos());
+    }
+
+    static Stream<String> generateBatch(int quantidade, PoliticaSenha politica, AuditoriaVazamentos auditoria) {
+        if (quantidade < 0) {
+            throw new IllegalArgumentException("A quantidade de senhas não pode ser negativa.");
+        }
+        MotorSenhas motor = new MotorSenhas(politica);
+        BlockingQueue<Object> aprovadas = new LinkedBlockingQueue<>();
+        Thread gerador = Thread.ofVirtual().name("gerador-senhas").start(() -> {
+            try {
+                int faltam = quantidade;
+                for (int rodada = 0; faltam > 0; rodada++) {
+                    if (rodada == MAXIMO_RODADAS) {
+                        throw new IllegalStateException(
+                                "Não foi possível gerar senhas que não constem em vazamentos com esta política.");
+                    }
+                    List<String> candidatas = new ArrayList<>(faltam);
+                    for (int i = 0; i < faltam; i++) {
+                        candidatas.add(candidata(motor));
+                    }
+                    int[] aceitas = {0};
+                    auditoria.verifica(candidatas, (senha, ocorrencias) -> {
+                        if (ocorrencias <= 0) {
+                            aceitas[0]++;
+                            aprovadas.add(senha);
+                        }
+                    });
+                    faltam -= aceitas[0];
+                }
+                aprovadas.add(FIM);
+            } catch (InterruptedException e) {
+                // Stream fechado: nada mais a entregar
+            } catch (RuntimeException e) {
+                aprovadas.add(e);
+            }
+        });
+
+        Spliterator<String> senhas = new Spliterators.AbstractSpliterator<>(quantidade,
+                Spliterator.ORDERED | Spliterator.NONNULL) {
+            private int entregues;
+
+            @Override
+            public boolean tryAdvance(Consumer<? super String> acao) {
+                if (entregues == quantidade) {
+                    return false;
+                }
+                Object proxima;
+                try {
+                    proxima = aprovadas.take();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Geração de senhas interrompida.", e);
+                }
+                if (proxima instanceof RuntimeException falha) {
+                    throw falha;
+                }
+                if (proxima == FIM) {
+                    return false;
+                }
+                entregues++;
+                acao.accept((String) proxima);
+                return true;
+            }
+        };
+        return StreamSupport.stream(senhas, false).onClose(gerador::interrupt);
+    }
+
+    private static String candidata(MotorSenhas motor) {
+        char[] caracteres = motor.gera();
+        try {
+            return new String(caracteres);
+        } finally {
+            Arrays.fill(caracteres, '\0');
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package utils;
+
+/**
+ * Regras para gerar uma senha: o comprimento e os tipos de caractere permitidos.
+ *
+ * @param tamanho    comprimento da senha
+ * @param maiusculas se deve incluir letras maiúsculas
+ * @param minusculas se deve incluir letras minúsculas
+ * @param numeros    se deve incluir dígitos numéricos
+ * @param simbolos   se deve incluir caracteres especiais
+ */
+public record PoliticaSenha(int tamanho, boolean maiusculas, boolean minusculas, boolean numeros, boolean simbolos) {
+
+    /**
+     * @throws IllegalArgumentException se o comprimento não for positivo ou nenhum tipo de caractere
+     *                                  for permitido
+     */
+    public PoliticaSenha {
+        if (tamanho <= 0 || !(maiusculas || minusculas || numeros || simbolos)) {
+            throw new IllegalArgumentException("Invalid parameters for password generation.");
+        }
+    }
+
+    /**
+     * Política com todos os tipos de caractere.
+     *
+     * @param tamanho comprimento da senha
+     * @return a política
+     */
+    public static PoliticaSenha completa(int tamanho) {
+        return new PoliticaSenha(tamanho, true, true, true, true);
+    }
+}
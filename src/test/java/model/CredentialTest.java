@@ -28,6 +28,21 @@ class CredencialTest {
         assertEquals("encryptedPass123", credenciais.senhaEncriptada());
     }
 
+    /**
+     * Tests that the three-argument constructor creates a credential without a TOTP seed.
+     */
+    @Test
+    @DisplayName("Deve criar Credencial sem semente TOTP pelo construtor de três campos")
+    void testCredencialWithoutSeed() {
+        Credencial semSeed = new Credencial("Gmail", "user@example.com", "encryptedPass123");
+        Credencial comSeed = new Credencial("Gmail", "user@example.com", "encryptedPass123", "encryptedSeed");
+
+        assertNull(semSeed.seedTotpEncriptada());
+        assertFalse(semSeed.possuiSeedTotp());
+        assertTrue(comSeed.possuiSeedTotp());
+        assertNotEquals(semSeed, comSeed);
+    }
+
     /**
      * Verifies the {@code toString()} method returns a correctly formatted string representation.
      */
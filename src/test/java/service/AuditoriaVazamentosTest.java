@@ -0,0 +1,163 @@
+package service;
+
+import com.sun.net.httpserver.HttpServer;
+import model.Credencial;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for the concurrent breach audit, against a local stand-in for the Pwned Passwords API.
+ */
+@DisplayName("AuditoriaVazamentos Unit Tests")
+class AuditoriaVazamentosTest {
+
+    private static final int CONCURRENCY = 4;
+
+    private HttpServer server;
+    private final Map<String, StringBuilder> ranges = new HashMap<>();
+    private final Map<String, AtomicInteger> requests = new ConcurrentHashMap<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        EncriptacaoService.setSessionKeyAndSalt("auditMasterPassword", "auditSalt");
+        VerificadorSenha.usaBaseLocal(null);
+        VerificadorSenha.usaFiltro(null);
+
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/range/", exchange -> {
+            int now = inFlight.incrementAndGet();
+            maxInFlight.accumulateAndGet(now, Math::max);
+            try {
+                String prefix = exchange.getRequestURI().getPath().substring("/range/".length());
+                requests.computeIfAbsent(prefix, p -> new AtomicInteger()).incrementAndGet();
+                Thread.sleep(20);
+                StringBuilder body;
+                synchronized (ranges) {
+                    body = ranges.getOrDefault(prefix, new StringBuilder());
+                }
+                // Padding rows like the real API, for hashes nobody stored
+                byte[] bytes = (body + "FFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFF:0\r\n").getBytes(StandardCharsets.US_ASCII);
+                exchange.sendResponseHeaders(200, bytes.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(bytes);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                inFlight.decrementAndGet();
+            }
+        });
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+        EncriptacaoService.clearSessionKeyAndSalt();
+        VerificadorSenha.usaBaseLocal(VerificadorSenha.BASE_LOCAL_PADRAO);
+        VerificadorSenha.usaFiltro(VerificadorSenha.FILTRO_PADRAO);
+    }
+
+    private void breach(String password, int count) {
+        String hash = HexFormat.of().withUpperCase().formatHex(BaseVazamentos.sha1(password));
+        synchronized (ranges) {
+            ranges.computeIfAbsent(hash.substring(0, 5), p -> new StringBuilder())
+                    .append(hash.substring(5)).append(':').append(count).append("\r\n");
+        }
+    }
+
+    private ClienteVazamentos source() {
+        return new ClienteVazamentos(URI.create("http://127.0.0.1:" + server.getAddress().getPort() + "/range/"));
+    }
+
+    /**
+     * Tests that each prefix is fetched once, concurrency stays bounded and every credential gets a result.
+     */
+    @Test
+    @DisplayName("Should fetch each prefix once with bounded concurrency")
+    void testAudit() throws Exception {
+        for (int i = 0; i < 10; i++) {
+            breach("senha" + i, i + 1);
+        }
+        List<Credencial> vault = new ArrayList<>();
+        Set<String> prefixes = new HashSet<>();
+        for (int i = 0; i < 300; i++) {
+            String password = "senha" + (i % 60);
+            vault.add(new Credencial("servico" + i, "usuario" + i, EncriptacaoService.encrypt(password)));
+            prefixes.add(HexFormat.of().withUpperCase().formatHex(BaseVazamentos.sha1(password)).substring(0, 5));
+        }
+
+        List<AuditoriaVazamentos.Resultado> results = new ArrayList<>();
+        AuditoriaVazamentos.Estatisticas stats =
+                new AuditoriaVazamentos(CONCURRENCY, source()).audita(vault, results::add);
+
+        assertEquals(300, results.size());
+        assertEquals(prefixes, requests.keySet());
+        assertTrue(requests.values().stream().allMatch(count -> count.get() == 1), "Each prefix must be fetched once.");
+        assertTrue(maxInFlight.get() <= CONCURRENCY, "At most " + CONCURRENCY + " requests at a time.");
+        assertTrue(maxInFlight.get() > 1, "Requests should overlap.");
+
+        for (AuditoriaVazamentos.Resultado result : results) {
+            int number = Integer.parseInt(result.credencial().nomeServico().substring("servico".length())) % 60;
+            assertEquals(number < 10 ? number + 1 : 0, result.ocorrencias(), result.credencial().nomeServico());
+        }
+        assertEquals(300, stats.credenciais());
+        assertEquals(prefixes.size(), stats.consultas());
+        assertEquals(300 - prefixes.size(), stats.consultasEvitadas());
+        assertEquals(50, stats.comprometidas());
+        assertEquals(0, stats.erros());
+        assertNotNull(stats.duracao());
+    }
+
+    /**
+     * Tests that a failing range is reported for its credentials without stopping the others.
+     */
+    @Test
+    @DisplayName("Should report failed ranges per credential and keep going")
+    void testFailedRange() throws Exception {
+        breach("senha1", 5);
+        List<Credencial> vault = List.of(
+                new Credencial("ok", "user", EncriptacaoService.encrypt("senha1")),
+                new Credencial("broken", "user", "not-a-ciphertext"));
+        ClienteVazamentos missing = new ClienteVazamentos(
+                URI.create("http://127.0.0.1:" + server.getAddress().getPort() + "/missing/"));
+
+        List<AuditoriaVazamentos.Resultado> results = new ArrayList<>();
+        AuditoriaVazamentos.Estatisticas stats = new AuditoriaVazamentos(2, missing).audita(vault, results::add);
+        assertEquals(2, stats.erros());
+        assertTrue(results.stream().allMatch(r -> r.erro() != null && r.ocorrencias() == -1));
+
+        results.clear();
+        stats = new AuditoriaVazamentos(2, source()).audita(vault, results::add);
+        assertEquals(1, stats.erros());
+        assertEquals(1, stats.consultas());
+        assertEquals(0, stats.consultasEvitadas(), "A credential that failed to decrypt saves no request.");
+        assertEquals(1, stats.comprometidas());
+        assertEquals(5, results.stream().filter(r -> r.erro() == null).findFirst().orElseThrow().ocorrencias());
+    }
+}
@@ -0,0 +1,131 @@
+package service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Unit tests for the offline Pwned Passwords database.
+ */
+@DisplayName("BaseVazamentos Unit Tests")
+class BaseVazamentosTest {
+
+    @TempDir
+    Path directory;
+
+    /**
+     * Builds a sorted dump with random hashes, the hashes of a few known passwords and hashes at
+     * both ends of the prefix table, with counts that need one to six varint bytes.
+     */
+    private Map<String, Long> writeDump(Path dump) throws IOException {
+        Map<String, Long> entries = new TreeMap<>();
+        Random random = new Random(42);
+        byte[] hash = new byte[20];
+        for (int i = 0; i < 5000; i++) {
+            random.nextBytes(hash);
+            entries.put(HexFormat.of().withUpperCase().formatHex(hash), (long) random.nextInt(1 << 20) + 1);
+        }
+        entries.put(hex("123456"), 37_359_195L);
+        entries.put(hex("password"), 127L);
+        entries.put(hex("qwerty"), 128L);
+        entries.put("0000000000000000000000000000000000000000", 1L);
+        entries.put("FFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFF", 1L << 40);
+
+        StringBuilder text = new StringBuilder();
+        entries.forEach((h, count) -> text.append(h).append(':').append(count).append("\r\n"));
+        Files.writeString(dump, text);
+        return entries;
+    }
+
+    private static String hex(String password) {
+        return HexFormat.of().withUpperCase().formatHex(BaseVazamentos.sha1(password));
+    }
+
+    /**
+     * Tests that every imported hash is found with its count, including across mapping blocks.
+     */
+    @Test
+    @DisplayName("Should find every imported hash with its count")
+    void testImportAndLookup() throws Exception {
+        Path dump = directory.resolve("dump.txt");
+        Path database = directory.resolve("hibp.dat");
+        Map<String, Long> entries = writeDump(dump);
+
+        BaseVazamentos.EstatisticasImportacao statistics = BaseVazamentos.importa(dump, database);
+        assertEquals(entries.size(), statistics.hashes());
+
+        for (BaseVazamentos base : List.of(BaseVazamentos.abre(database), new BaseVazamentos(database, 4096))) {
+            try (base) {
+                assertEquals(entries.size(), base.tamanho());
+                for (Map.Entry<String, Long> entry : entries.entrySet()) {
+                    assertEquals(entry.getValue(), base.ocorrencias(HexFormat.of().parseHex(entry.getKey())), entry.getKey());
+                }
+                assertEquals(37_359_195L, base.ocorrencias("123456"));
+                assertEquals(0, base.ocorrencias("Str0ngP@ssw0rd2024!"));
+                assertEquals(0, base.ocorrencias(HexFormat.of().parseHex("0000000000000000000000000000000000000001")));
+            }
+        }
+    }
+
+    /**
+     * Tests that out-of-order or malformed dumps are rejected without leaving a database behind.
+     */
+    @Test
+    @DisplayName("Should reject unsorted or malformed dumps")
+    void testRejectsInvalidDumps() throws Exception {
+        Path dump = directory.resolve("dump.txt");
+        Path database = directory.resolve("hibp.dat");
+
+        Files.writeString(dump, "FFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFF:1\n0000000000000000000000000000000000000000:2\n");
+        assertThrows(IOException.class, () -> BaseVazamentos.importa(dump, database));
+        Files.writeString(dump, "ZZ00000000000000000000000000000000000000:1\n");
+        assertThrows(IOException.class, () -> BaseVazamentos.importa(dump, database));
+        Files.writeString(dump, "0000000000000000000000000000000000000000\n");
+        assertThrows(IOException.class, () -> BaseVazamentos.importa(dump, database));
+
+        assertFalse(Files.exists(database));
+        try (var files = Files.list(directory)) {
+            assertEquals(List.of(dump), files.toList(), "Temporary files must be removed.");
+        }
+        assertThrows(IOException.class, () -> BaseVazamentos.abre(dump));
+    }
+
+    /**
+     * Tests that the breach checker answers from the local database when one is configured.
+     */
+    @Test
+    @DisplayName("Should check passwords against the local database first")
+    void testCheckerUsesLocalDatabase() throws Exception {
+        Path dump = directory.resolve("dump.txt");
+        Path database = directory.resolve("hibp.dat");
+        writeDump(dump);
+        BaseVazamentos.importa(dump, database);
+
+        VerificadorSenha.usaBaseLocal(database);
+        assertEquals(37_359_195, VerificadorSenha.checarSenha("123456"));
+        assertEquals(128, VerificadorSenha.checarSenha("qwerty"));
+        assertEquals(0, VerificadorSenha.checarSenha("Str0ngP@ssw0rd2024!"));
+    }
+
+    /**
+     * Restores the default database path so other tests keep using the API.
+     */
+    @AfterEach
+    void tearDown() {
+        VerificadorSenha.usaBaseLocal(VerificadorSenha.BASE_LOCAL_PADRAO);
+    }
+}
@@ -0,0 +1,211 @@
+package service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for the memory and disk cache of Pwned Passwords ranges.
+ */
+@DisplayName("CacheFaixas Unit Tests")
+class CacheFaixasTest {
+
+    private static final String SUFFIX = "0018A45C4D1DEF81644B54AB7F969B88D65";
+
+    @TempDir
+    Path directory;
+
+    private final List<String> downloads = new ArrayList<>();
+    private final FonteFaixas source = prefix -> {
+        downloads.add(prefix);
+        return FaixaHibp.deResposta(SUFFIX + ":" + (downloads.size()) + "\n");
+    };
+
+    @AfterEach
+    void tearDown() {
+        VerificadorSenha.usaCacheFaixas(new CacheFaixas());
+        VerificadorSenha.usaFonteFaixas(new ClienteVazamentos());
+    }
+
+    /**
+     * Clock that only moves when told to.
+     */
+    private static final class ManualClock extends Clock {
+        private Instant now = Instant.parse("2026-01-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+
+    /**
+     * Tests memory hits, LRU eviction to disk and promotion of disk hits back to memory.
+     */
+    @Test
+    @DisplayName("Should serve repeated prefixes from memory and evicted ones from disk")
+    void testMemoryAndDisk() throws IOException {
+        CacheFaixas cache = new CacheFaixas(2, 10, Duration.ofHours(1), directory);
+
+        FaixaHibp first = cache.busca("abcde", source);
+        assertSame(first, cache.busca("ABCDE", source));
+        cache.busca("11111", source);
+        cache.busca("22222", source); // evicts ABCDE from memory
+
+        assertEquals(1, cache.busca("ABCDE", source).ocorrencias(SUFFIX));
+        assertEquals(List.of("ABCDE", "11111", "22222"), downloads);
+
+        CacheFaixas.Estatisticas stats = cache.getEstatisticas();
+        assertEquals(1, stats.acertosMemoria());
+        assertEquals(1, stats.acertosDisco());
+        assertEquals(3, stats.faltas());
+        assertEquals(2, stats.faixasMemoria());
+        assertEquals(3, stats.faixasDisco());
+        assertEquals(0.4, stats.taxaAcerto(), 1e-9);
+
+        assertThrows(IllegalArgumentException.class, () -> cache.busca("ABCD", source));
+        assertThrows(IllegalArgumentException.class, () -> cache.busca("ABCDG", source));
+    }
+
+    /**
+     * Tests that entries older than the TTL are fetched again, in memory and on disk.
+     */
+    @Test
+    @DisplayName("Should fetch a range again once it expires")
+    void testExpiry() throws IOException {
+        ManualClock clock = new ManualClock();
+        CacheFaixas cache = new CacheFaixas(4, 4, Duration.ofMinutes(10), directory, clock);
+
+        cache.busca("ABCDE", source);
+        clock.advance(Duration.ofMinutes(9));
+        cache.busca("ABCDE", source);
+        assertEquals(1, downloads.size());
+
+        clock.advance(Duration.ofMinutes(2));
+        assertEquals(2, cache.busca("ABCDE", source).ocorrencias(SUFFIX));
+        assertEquals(2, downloads.size());
+
+        clock.advance(Duration.ofMinutes(11));
+        CacheFaixas restarted = new CacheFaixas(4, 4, Duration.ofMinutes(10), directory, clock);
+        restarted.busca("ABCDE", source);
+        assertEquals(3, downloads.size());
+        assertEquals(1, restarted.getEstatisticas().expiradas());
+    }
+
+    /**
+     * Tests that the disk tier survives a new cache instance and stays within its capacity.
+     */
+    @Test
+    @DisplayName("Should keep ranges on disk across instances within the disk capacity")
+    void testDiskPersistenceAndBound() throws IOException {
+        CacheFaixas cache = new CacheFaixas(1, 3, Duration.ofHours(1), directory);
+        for (int i = 0; i < 5; i++) {
+            cache.busca(String.format("%05X", i), source);
+        }
+        try (var files = Files.list(directory)) {
+            assertEquals(3, files.count());
+        }
+
+        CacheFaixas restarted = new CacheFaixas(1, 3, Duration.ofHours(1), directory);
+        assertEquals(5, restarted.busca("00004", source).ocorrencias(SUFFIX));
+        assertEquals(1, restarted.getEstatisticas().acertosDisco());
+        restarted.busca("00000", source);
+        assertEquals(6, downloads.size(), "The oldest ranges must have been evicted from disk.");
+    }
+
+    /**
+     * Tests concurrent lookups from virtual threads, as in the audit: every lookup returns its own range
+     * and the disk tier stays within its capacity, without leftover temporary files.
+     */
+    @Test
+    @DisplayName("Should serve concurrent lookups with disk I/O outside the lock")
+    void testConcurrentLookups() throws Exception {
+        CacheFaixas cache = new CacheFaixas(2, 8, Duration.ofHours(1), directory);
+        FonteFaixas perPrefix = prefix -> FaixaHibp.deResposta(SUFFIX + ":" + (Integer.parseInt(prefix, 16) + 1) + "\n");
+        List<Future<?>> lookups = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int t = 0; t < 16; t++) {
+                int offset = t;
+                lookups.add(executor.submit(() -> {
+                    for (int i = 0; i < 200; i++) {
+                        int value = (offset + i) % 24;
+                        assertEquals(value + 1, cache.busca(String.format("%05x", value), perPrefix).ocorrencias(SUFFIX));
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> lookup : lookups) {
+                lookup.get();
+            }
+        }
+
+        try (var files = Files.list(directory)) {
+            List<Path> left = files.toList();
+            assertTrue(left.size() <= 8, "Disk tier over capacity: " + left);
+            assertTrue(left.stream().allMatch(file -> file.toString().endsWith(".faixa")), "Leftover files: " + left);
+        }
+        assertTrue(cache.getEstatisticas().faixasDisco() <= 8);
+    }
+
+    /**
+     * Tests that the password checker goes through the cache when there is no local database.
+     */
+    @Test
+    @DisplayName("Should make the password checker reuse cached ranges")
+    void testCheckerUsesCache() throws IOException {
+        VerificadorSenha.usaBaseLocal(null);
+        VerificadorSenha.usaFiltro(null);
+        try {
+            String hash = HexFormat.of().withUpperCase().formatHex(BaseVazamentos.sha1("password"));
+            CacheFaixas cache = new CacheFaixas(4, 0, Duration.ofHours(1), null);
+            VerificadorSenha.usaCacheFaixas(cache);
+            VerificadorSenha.usaFonteFaixas(prefix -> {
+                downloads.add(prefix);
+                return FaixaHibp.deResposta(hash.substring(5) + ":42\n");
+            });
+
+            assertEquals(42, VerificadorSenha.checarSenha("password"));
+            assertEquals(42, VerificadorSenha.checarSenha("password"));
+            assertEquals(List.of(hash.substring(0, 5)), downloads);
+            assertTrue(cache.getEstatisticas().acertosMemoria() >= 1);
+        } finally {
+            VerificadorSenha.usaBaseLocal(VerificadorSenha.BASE_LOCAL_PADRAO);
+            VerificadorSenha.usaFiltro(VerificadorSenha.FILTRO_PADRAO);
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package service;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for the shared Pwned Passwords API client, against a local stand-in server.
+ */
+@DisplayName("ClienteVazamentos Unit Tests")
+class ClienteVazamentosTest {
+
+    private static final String SUFFIX = "0018A45C4D1DEF81644B54AB7F969B88D65";
+
+    private HttpServer server;
+    private final Set<Integer> clientPorts = ConcurrentHashMap.newKeySet();
+    private final Set<String> paddingHeaders = ConcurrentHashMap.newKeySet();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/range/", exchange -> {
+            clientPorts.add(exchange.getRemoteAddress().getPort());
+            paddingHeaders.add(String.valueOf(exchange.getRequestHeaders().getFirst("Add-Padding")));
+            String prefix = exchange.getRequestURI().getPath().substring("/range/".length());
+            if (prefix.equals("STALL")) {
+                // Sends the headers and part of the body, then stops answering
+                exchange.sendResponseHeaders(200, 0);
+                OutputStream out = exchange.getResponseBody();
+                out.write((SUFFIX + ":1\r\n").getBytes(StandardCharsets.US_ASCII));
+                out.flush();
+                try {
+                    Thread.sleep(3000);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                exchange.close();
+                return;
+            }
+            if (prefix.equals("SLOW0")) {
+                try {
+                    Thread.sleep(2000);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            byte[] body = (SUFFIX + ":" + Integer.parseInt(prefix.substring(4), 16) + "\r\n")
+                    .getBytes(StandardCharsets.US_ASCII);
+            exchange.sendResponseHeaders(prefix.equals("BAD00") ? 503 : 200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    private URI base() {
+        return URI.create("http://127.0.0.1:" + server.getAddress().getPort() + "/range");
+    }
+
+    /**
+     * Tests synchronous lookups and that sequential requests reuse one connection.
+     */
+    @Test
+    @DisplayName("Should fetch ranges synchronously over a kept-alive connection")
+    void testSyncKeepAlive() throws IOException {
+        ClienteVazamentos client = new ClienteVazamentos(base());
+        for (int i = 0; i < 10; i++) {
+            assertEquals(i, client.baixa("0000" + Integer.toHexString(i).toUpperCase()).ocorrencias(SUFFIX));
+        }
+        // The connection goes back to the pool asynchronously, so a second one may occasionally be opened
+        assertTrue(clientPorts.size() <= 2, "Sequential requests should reuse connections: " + clientPorts);
+        assertEquals(Set.of("true"), paddingHeaders, "Responses should be padded.");
+
+        byte[] sha1 = HexFormat.of().parseHex("00003" + SUFFIX);
+        assertEquals(3, client.ocorrencias(sha1));
+    }
+
+    /**
+     * Tests concurrent asynchronous lookups.
+     */
+    @Test
+    @DisplayName("Should fetch ranges asynchronously")
+    void testAsync() {
+        ClienteVazamentos client = new ClienteVazamentos(base());
+        List<CompletableFuture<FaixaHibp>> futures = IntStream.range(0, 16)
+                .mapToObj(i -> client.baixaAsync("1000" + Integer.toHexString(i).toUpperCase()))
+                .toList();
+        for (int i = 0; i < futures.size(); i++) {
+            assertEquals(i, futures.get(i).join().ocorrencias(SUFFIX));
+        }
+    }
+
+    /**
+     * Tests that HTTP errors and slow responses surface as IOExceptions in both modes.
+     */
+    @Test
+    @DisplayName("Should fail on error statuses and read timeouts")
+    void testErrors() {
+        ClienteVazamentos client = new ClienteVazamentos(base(), Duration.ofSeconds(1), Duration.ofMillis(200));
+
+        assertThrows(IOException.class, () -> client.baixa("BAD00"));
+        CompletionException status = assertThrows(CompletionException.class, () -> client.baixaAsync("BAD00").join());
+        assertInstanceOf(IOException.class, status.getCause());
+
+        assertThrows(HttpTimeoutException.class, () -> client.baixa("SLOW0"));
+        CompletionException timeout = assertThrows(CompletionException.class, () -> client.baixaAsync("SLOW0").join());
+        assertInstanceOf(HttpTimeoutException.class, timeout.getCause());
+    }
+
+    /**
+     * Tests that the read timeout also bounds a body that stops arriving after the headers.
+     */
+    @Test
+    @DisplayName("Should time out when the body stalls after the headers")
+    void testStalledBody() {
+        ClienteVazamentos client = new ClienteVazamentos(base(), Duration.ofSeconds(1), Duration.ofMillis(500));
+        byte[] sha1 = HexFormat.of().parseHex("00001" + SUFFIX);
+
+        long start = System.nanoTime();
+        assertThrows(HttpTimeoutException.class, () -> client.baixa("STALL"));
+        CompletionException timeout = assertThrows(CompletionException.class, () -> client.baixaAsync("STALL").join());
+        assertInstanceOf(HttpTimeoutException.class, timeout.getCause());
+        long elapsed = Duration.ofNanos(System.nanoTime() - start).toMillis();
+        assertTrue(elapsed < 2500, "Both lookups should give up after about 500 ms each, took " + elapsed + " ms");
+
+        assertEquals(1, assertDoesNotThrow(() -> client.ocorrencias(sha1)));
+    }
+}
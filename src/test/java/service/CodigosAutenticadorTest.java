@@ -0,0 +1,139 @@
+package service;
+
+import model.Credencial;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Unit tests for {@link CodigosAutenticador}.
+ */
+@DisplayName("CodigosAutenticador Unit Tests")
+class CodigosAutenticadorTest {
+
+    private static final String SEED = "GEZDGNBVGY3TQOJQGEZDGNBVGY3TQOJQ"; // "12345678901234567890"
+
+    private final List<Credencial> credentials = new ArrayList<>();
+    private final AtomicInteger reads = new AtomicInteger();
+    private CodigosAutenticador autenticador;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        EncriptacaoService.setSessionKeyAndSalt("testMasterPassword", "testSalt123");
+        credentials.add(new Credencial("github", "ana", EncriptacaoService.encrypt("pass"),
+                EncriptacaoService.encrypt(SEED)));
+        credentials.add(new Credencial("email", "ana", EncriptacaoService.encrypt("pass")));
+        autenticador = new CodigosAutenticador(() -> {
+            reads.incrementAndGet();
+            return List.copyOf(credentials);
+        }, () -> 0);
+    }
+
+    /**
+     * Tests that one batch computes the current and next codes of every seeded credential.
+     */
+    @Test
+    @DisplayName("Should precompute the current and next window codes")
+    void testBatchComputesCurrentAndNext() {
+        CodigosAutenticador.Quadro frame = autenticador.atualiza(59);
+
+        assertEquals(1, frame.janela());
+        assertEquals(1, frame.contas().size());
+
+        List<CodigosAutenticador.Codigo> codes = autenticador.codigos(59);
+        assertEquals(1, codes.size());
+        assertEquals("github", codes.getFirst().servico());
+        assertEquals("287082", codes.getFirst().codigo());
+        MotorTOTP motor = TOTPService.motorDaSemente(SEED);
+        assertEquals(motor.formata(motor.geraNaJanela(2)), codes.getFirst().proximo());
+        assertEquals(1, codes.getFirst().segundosRestantes());
+        assertEquals(1, reads.get(), "Rendering must reuse the precomputed frame");
+    }
+
+    /**
+     * Tests that a late tick falls back to the precomputed next-window codes.
+     */
+    @Test
+    @DisplayName("Should use the next window codes when the tick is late")
+    void testLateTickUsesNextWindow() {
+        autenticador.atualiza(59);
+        MotorTOTP motor = TOTPService.motorDaSemente(SEED);
+
+        List<CodigosAutenticador.Codigo> codes = autenticador.codigos(61);
+
+        assertEquals(motor.formata(motor.gera(61)), codes.getFirst().codigo());
+        assertNull(codes.getFirst().proximo());
+        assertEquals(1, reads.get());
+
+        // Duas janelas depois, o quadro é recalculado
+        autenticador.codigos(95);
+        assertEquals(2, reads.get());
+    }
+
+    /**
+     * Tests that invalidating the frame picks up credentials added since the last tick.
+     */
+    @Test
+    @DisplayName("Should recompute after invalidation")
+    void testInvalidateAndReuse() throws Exception {
+        autenticador.atualiza(59);
+        credentials.add(new Credencial("bank", "ana", EncriptacaoService.encrypt("pass"),
+                EncriptacaoService.encrypt("JBSWY3DPEHPK3PXP")));
+        assertEquals(1, autenticador.codigos(59).size());
+
+        autenticador.invalida();
+        List<CodigosAutenticador.Codigo> codes = autenticador.codigos(59);
+
+        assertEquals(2, codes.size());
+        assertEquals("287082", codes.getFirst().codigo());
+        assertEquals("bank", codes.get(1).servico());
+        assertNotNull(codes.get(1).codigo());
+    }
+
+    /**
+     * Tests that a seed that cannot be decrypted is reported instead of failing the whole batch.
+     */
+    @Test
+    @DisplayName("Should report seeds that cannot be decrypted")
+    void testUndecryptableSeed() throws Exception {
+        credentials.add(new Credencial("broken", "ana", EncriptacaoService.encrypt("pass"), "AAAA"));
+
+        List<CodigosAutenticador.Codigo> codes = autenticador.codigos(59);
+
+        assertEquals(2, codes.size());
+        assertEquals("287082", codes.getFirst().codigo());
+        assertNull(codes.get(1).codigo());
+        assertNotNull(codes.get(1).erro());
+    }
+
+    /**
+     * Tests that starting the scheduler publishes a frame right away.
+     */
+    @Test
+    @DisplayName("Should compute the first frame when started")
+    void testStartComputesFrame() {
+        autenticador.inicia();
+        int afterStart = reads.get();
+
+        List<CodigosAutenticador.Codigo> codes = autenticador.codigos(0);
+
+        assertEquals(1, afterStart);
+        assertEquals(afterStart, reads.get());
+        assertNull(codes.getFirst().erro());
+    }
+
+    @AfterEach
+    void tearDown() {
+        autenticador.close();
+        EncriptacaoService.clearSessionKeyAndSalt();
+    }
+}
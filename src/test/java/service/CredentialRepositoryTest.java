@@ -0,0 +1,181 @@
+package service;
+
+import model.Credencial;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.OptionalLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static service.CredentialRepository.TipoCorrespondencia.APROXIMADA;
+import static service.CredentialRepository.TipoCorrespondencia.EXATA;
+import static service.CredentialRepository.TipoCorrespondencia.PREFIXO;
+import static service.CredentialRepository.TipoCorrespondencia.SUBSTRING;
+
+/**
+ * Unit tests for the indexed in-memory {@link CredentialRepository}.
+ */
+@DisplayName("CredentialRepository Unit Tests")
+class CredentialRepositoryTest {
+
+    /**
+     * Tests that ids stay valid after other credentials are removed and that order is preserved.
+     */
+    @Test
+    @DisplayName("Should keep ids stable and preserve insertion order")
+    void testStableIds() {
+        CredentialRepository repository = new CredentialRepository();
+        Credencial first = new Credencial("Gmail", "ana", "c2VuaGE=");
+        Credencial second = new Credencial("GitHub", "bia", "c2VuaGE=");
+        Credencial third = new Credencial("Gmail", "caio", "c2VuaGE=");
+        long firstId = repository.adiciona(first);
+        long secondId = repository.adiciona(second);
+        long thirdId = repository.adiciona(third);
+
+        assertEquals(second, repository.remove(secondId));
+        assertNull(repository.remove(secondId));
+
+        assertEquals(Optional.of(first), repository.busca(firstId));
+        assertEquals(Optional.of(third), repository.busca(thirdId));
+        assertEquals(List.of(first, third), repository.credenciais());
+        assertEquals(List.of(Map.entry(firstId, first), Map.entry(thirdId, third)), repository.entradas());
+    }
+
+    /**
+     * Tests the case-folded service and user indexes, including after a removal.
+     */
+    @Test
+    @DisplayName("Should find credentials by service and user ignoring case")
+    void testIndexes() {
+        CredentialRepository repository = new CredentialRepository();
+        Credencial first = new Credencial("Gmail", "Ana", "c2VuaGE=");
+        Credencial second = new Credencial("gmail", "bia", "c2VuaGE=");
+        long firstId = repository.adiciona(first);
+        repository.adiciona(second);
+
+        assertEquals(List.of(first, second), repository.buscaPorServico("GMAIL"));
+        assertEquals(List.of(first), repository.buscaPorUsuario("ana"));
+
+        repository.remove(firstId);
+        assertEquals(List.of(second), repository.buscaPorServico("Gmail"));
+        assertTrue(repository.buscaPorUsuario("ANA").isEmpty());
+        assertTrue(repository.buscaPorServico("missing").isEmpty());
+    }
+
+    /**
+     * Tests lookup by value, used when replaying removals from the journal.
+     */
+    @Test
+    @DisplayName("Should locate the first credential equal to a value")
+    void testLocate() {
+        Credencial credential = new Credencial("Gmail", "ana", "c2VuaGE=");
+        CredentialRepository repository = new CredentialRepository(List.of(
+                new Credencial("Gmail", "bia", "c2VuaGE="), credential, credential));
+
+        OptionalLong id = repository.localiza(credential);
+        assertEquals(OptionalLong.of(2), id);
+        repository.remove(id.getAsLong());
+        assertEquals(OptionalLong.of(3), repository.localiza(credential));
+        assertTrue(repository.localiza(new Credencial("Gmail", "ana", "outra")).isEmpty());
+    }
+
+    /**
+     * Tests that lookups and removals on a large repository go through the indexes.
+     */
+    @Test
+    @DisplayName("Should look up and remove by service in a 100k-entry repository")
+    void testLargeRepository() {
+        CredentialRepository repository = new CredentialRepository();
+        for (int i = 0; i < 100_000; i++) {
+            repository.adiciona(new Credencial("service" + i, "user" + (i % 100), "c2VuaGE="));
+        }
+
+        for (int i = 0; i < 100_000; i += 2) {
+            Credencial credential = repository.buscaPorServico("SERVICE" + i).getFirst();
+            repository.remove(repository.localiza(credential).getAsLong());
+        }
+
+        assertEquals(50_000, repository.tamanho());
+        assertTrue(repository.buscaPorServico("service0").isEmpty());
+        assertEquals(1000, repository.buscaPorUsuario("user1").size());
+        assertTrue(repository.buscaPorUsuario("user2").isEmpty());
+    }
+
+    private static List<String> services(List<CredentialRepository.ResultadoBusca> results) {
+        return results.stream().map(r -> r.credencial().nomeServico()).collect(Collectors.toList());
+    }
+
+    /**
+     * Tests that exact, prefix, substring and typo matches are ranked in that order.
+     */
+    @Test
+    @DisplayName("Should rank exact, prefix, substring and fuzzy matches")
+    void testSearchRanking() {
+        CredentialRepository repository = new CredentialRepository(List.of(
+                new Credencial("Netflix", "ana", "c2VuaGE="),
+                new Credencial("mynetflix", "bia", "c2VuaGE="),
+                new Credencial("net", "caio", "c2VuaGE="),
+                new Credencial("Netflux", "duda", "c2VuaGE="),
+                new Credencial("GitHub", "net", "c2VuaGE=")));
+
+        List<CredentialRepository.ResultadoBusca> results = repository.pesquisa("NET", 10);
+        assertEquals(List.of("net", "GitHub", "Netflix", "Netflux", "mynetflix"), services(results));
+        assertEquals(List.of(EXATA, EXATA, PREFIXO, PREFIXO, SUBSTRING), results.stream().map(r -> r.tipo()).toList());
+
+        results = repository.pesquisa("netflix", 10);
+        assertEquals(List.of("Netflix", "mynetflix", "Netflux"), services(results));
+        assertEquals(List.of(EXATA, SUBSTRING, APROXIMADA), results.stream().map(r -> r.tipo()).toList());
+        assertEquals(1, results.get(2).distancia());
+
+        assertEquals(List.of("Netflix"), services(repository.pesquisa("netf", 1)));
+        assertEquals(List.of("GitHub"), services(repository.pesquisa("githib", 10)));
+        assertTrue(repository.pesquisa("zzzz", 10).isEmpty());
+        assertTrue(repository.pesquisa("   ", 10).isEmpty());
+    }
+
+    /**
+     * Tests that the search index follows additions and removals, including shared names.
+     */
+    @Test
+    @DisplayName("Should keep the search index in sync with removals")
+    void testSearchAfterRemoval() {
+        CredentialRepository repository = new CredentialRepository();
+        long firstId = repository.adiciona(new Credencial("Dropbox", "ana", "c2VuaGE="));
+        long secondId = repository.adiciona(new Credencial("dropbox", "bia", "c2VuaGE="));
+
+        repository.remove(firstId);
+        assertEquals(List.of(secondId), repository.pesquisa("drop", 10).stream().map(r -> r.id()).toList());
+        repository.remove(secondId);
+        assertTrue(repository.pesquisa("drop", 10).isEmpty());
+        assertTrue(repository.pesquisa("dropbx", 10).isEmpty());
+
+        repository.adiciona(new Credencial("Dropbox", "caio", "c2VuaGE="));
+        assertEquals(APROXIMADA, repository.pesquisa("dropbx", 10).getFirst().tipo());
+    }
+
+    /**
+     * Tests fuzzy and prefix queries on a 100k-entry repository with a typo in the query.
+     */
+    @Test
+    @DisplayName("Should answer fuzzy queries in a 100k-entry repository")
+    void testLargeSearch() {
+        CredentialRepository repository = new CredentialRepository();
+        for (int i = 0; i < 100_000; i++) {
+            repository.adiciona(new Credencial("service" + i, "user" + i, "c2VuaGE="));
+        }
+        repository.adiciona(new Credencial("Mercado Livre", "ana", "c2VuaGE="));
+
+        for (int i = 0; i < 1000; i++) {
+            assertEquals("Mercado Livre", repository.pesquisa("mercaod liv", 5).getFirst().credencial().nomeServico());
+        }
+        List<CredentialRepository.ResultadoBusca> results = repository.pesquisa("service4242", 5);
+        assertEquals(List.of("service4242", "service42420", "service42421", "service42422", "service42423"),
+                services(results));
+    }
+}
@@ -10,10 +10,16 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
@@ -25,6 +31,7 @@ class CredentialStorageTest {
 
     private static final Path TEST_FILE_PATH = Paths.get("credentials.dat");
     private static final Path BACKUP_FILE_PATH = Paths.get("credentials_backup.dat");
+    private static final Path LEGACY_FILE_PATH = Paths.get("credentials_v1.dat");
 
     /**
      * Sets a session key and salt before each test to enable encryption/decryption.
@@ -69,6 +76,240 @@ class CredentialStorageTest {
         assertTrue(loadedCredentials.isEmpty(), "Returned list should be empty when file is missing");
     }
 
+    /**
+     * Tests that the parallel load keeps the file order and skips corrupt records
+     * without affecting the records around them.
+     */
+    @Test
+    @DisplayName("Should load in parallel preserving order and skipping corrupt records")
+    void testParallelLoadPreservesOrder() throws Exception {
+        List<Credencial> credentials = new ArrayList<>();
+        try (FormatoCofre.Escritor writer = new FormatoCofre.Escritor(TEST_FILE_PATH)) {
+            for (int i = 0; i < 300; i++) {
+                Credencial credential = new Credencial("service" + i, "user" + i, EncriptacaoService.encrypt("pass" + i));
+                credentials.add(credential);
+                if (i == 150) {
+                    byte[] corrupt = FormatoCofre.codificaRegistro(credential);
+                    corrupt[corrupt.length - 1] ^= 1;
+                    writer.escreve(corrupt);
+                }
+                writer.escreve(FormatoCofre.codificaRegistro(credential));
+            }
+        }
+
+        List<Credencial> loadedCredentials = CredencialStorage.carregaCredenciais(4);
+
+        assertEquals(credentials, loadedCredentials);
+        CredencialStorage.EstatisticasCarga stats = CredencialStorage.getUltimaCarga();
+        assertEquals(300, stats.registros());
+        assertEquals(1, stats.falhas());
+        assertEquals(4, stats.paralelismo());
+        assertTrue(stats.registrosPorSegundo() > 0);
+    }
+
+    /**
+     * Tests that the pipelined save keeps the record order across many blocks
+     * and skips invalid credentials.
+     */
+    @Test
+    @DisplayName("Should save in parallel preserving order and skipping invalid credentials")
+    void testParallelSavePreservesOrder() throws Exception {
+        List<Credencial> credentials = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            credentials.add(new Credencial("service" + i, "user" + i, EncriptacaoService.encrypt("pass" + i)));
+        }
+        List<Credencial> withInvalid = new ArrayList<>(credentials);
+        withInvalid.add(500, new Credencial("bad;service", "user", "pass"));
+
+        CredencialStorage.saveCredenciais(withInvalid, 3);
+
+        assertEquals(credentials, CredencialStorage.carregaCredenciais(1));
+    }
+
+    /**
+     * Tests that a failed save leaves the previous file untouched.
+     */
+    @Test
+    @DisplayName("Should keep the previous file when saving fails")
+    void testFailedSaveKeepsPreviousFile() throws Exception {
+        List<Credencial> credentials = new ArrayList<>();
+        credentials.add(new Credencial("service1", "user1", EncriptacaoService.encrypt("pass1")));
+        CredencialStorage.saveCredenciais(credentials);
+        byte[] before = Files.readAllBytes(TEST_FILE_PATH);
+
+        EncriptacaoService.clearSessionKeyAndSalt();
+        assertThrows(IllegalStateException.class, () -> CredencialStorage.saveCredenciais(credentials, 2));
+
+        assertArrayEquals(before, Files.readAllBytes(TEST_FILE_PATH));
+    }
+
+    /**
+     * Tests that a legacy line-based file is loaded, migrated to the binary format
+     * with a copy of the original kept, and shrinks in the process.
+     */
+    @Test
+    @DisplayName("Should migrate a legacy credentials file to the binary format")
+    void testLegacyFileIsMigrated() throws Exception {
+        List<Credencial> credentials = new ArrayList<>();
+        List<String> legacyLines = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            Credencial credential = new Credencial("service" + i, "user" + i, EncriptacaoService.encrypt("pass" + i));
+            credentials.add(credential);
+            legacyLines.add(EncriptacaoService.encrypt(credential.nomeServico() + "," + credential.nomeUsuario() + ","
+                    + credential.senhaEncriptada()));
+        }
+        Files.write(TEST_FILE_PATH, legacyLines);
+        long legacySize = Files.size(TEST_FILE_PATH);
+
+        assertEquals(credentials, CredencialStorage.carregaCredenciais());
+
+        assertTrue(FormatoCofre.ehFormatoBinario(TEST_FILE_PATH), "The file must be rewritten in the binary format.");
+        assertEquals(legacyLines, Files.readAllLines(LEGACY_FILE_PATH));
+        assertTrue(Files.size(TEST_FILE_PATH) < legacySize, "The binary file must be smaller than the legacy one.");
+        assertEquals(credentials, CredencialStorage.carregaCredenciais());
+    }
+
+    /**
+     * Tests the lazy memory-mapped iteration and the early-terminating lookup.
+     */
+    @Test
+    @DisplayName("Should stream credentials from the mapped file and stop at the first match")
+    void testStreamAndLookup() throws Exception {
+        List<Credencial> credentials = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            credentials.add(new Credencial("service" + i, "user" + i, EncriptacaoService.encrypt("pass" + i)));
+        }
+        CredencialStorage.saveCredenciais(credentials);
+
+        try (Stream<Credencial> stream = CredencialStorage.streamCredenciais()) {
+            assertEquals(credentials, stream.toList());
+        }
+        assertEquals(Optional.of(credentials.get(42)), CredencialStorage.buscaPorServico("SERVICE42"));
+        assertTrue(CredencialStorage.buscaPorServico("missing").isEmpty());
+    }
+
+    /**
+     * Reads the record bodies of the credentials file, in order.
+     */
+    private static List<byte[]> readRecords() throws Exception {
+        List<byte[]> records = new ArrayList<>();
+        try (FormatoCofre.Leitor reader = new FormatoCofre.Leitor(TEST_FILE_PATH)) {
+            byte[] record;
+            while ((record = reader.proximo()) != null) {
+                records.add(record);
+            }
+        }
+        return records;
+    }
+
+    /**
+     * Tests that a save after a load only encrypts the changed credentials and copies the
+     * ciphertext of the others verbatim.
+     */
+    @Test
+    @DisplayName("Should reuse the stored ciphertext of unchanged credentials")
+    void testIncrementalSaveReusesCiphertext() throws Exception {
+        List<Credencial> credentials = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            credentials.add(new Credencial("service" + i, "user" + i, EncriptacaoService.encrypt("pass" + i)));
+        }
+        CredencialStorage.saveCredenciais(credentials);
+        List<byte[]> before = readRecords();
+
+        List<Credencial> loaded = CredencialStorage.carregaCredenciais();
+        loaded.set(10, new Credencial("service10", "changed", loaded.get(10).senhaEncriptada()));
+        loaded.remove(20);
+        loaded.add(new Credencial("new", "user", EncriptacaoService.encrypt("new")));
+        CredencialStorage.saveCredenciais(loaded);
+
+        CredencialStorage.EstatisticasGravacao stats = CredencialStorage.getUltimaGravacao();
+        assertEquals(500, stats.registros());
+        assertEquals(498, stats.reaproveitados());
+        assertEquals(2, stats.encriptados());
+
+        List<byte[]> after = readRecords();
+        assertArrayEquals(before.get(0), after.get(0));
+        assertArrayEquals(before.get(21), after.get(20));
+        assertFalse(Arrays.equals(before.get(10), after.get(10)));
+        assertEquals(loaded, CredencialStorage.carregaCredenciais());
+    }
+
+    /**
+     * Tests that cached ciphertext is not reused once the session key changes.
+     */
+    @Test
+    @DisplayName("Should encrypt every record again after the session key changes")
+    void testKeyChangeInvalidatesCiphertext() throws Exception {
+        List<Credencial> credentials = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            credentials.add(new Credencial("service" + i, "user" + i, EncriptacaoService.encrypt("pass" + i)));
+        }
+        CredencialStorage.saveCredenciais(credentials);
+        List<Credencial> loaded = CredencialStorage.carregaCredenciais();
+
+        EncriptacaoService.setSessionKeyAndSalt("anotherMasterPassword", "testSalt123");
+        CredencialStorage.saveCredenciais(loaded);
+
+        assertEquals(0, CredencialStorage.getUltimaGravacao().reaproveitados());
+        assertEquals(loaded, CredencialStorage.carregaCredenciais());
+    }
+
+    /**
+     * Tests that re-parameterizing the vault rewrites it under a key derived with the new
+     * iteration count, records the count in the header and keeps every password readable.
+     */
+    @Test
+    @DisplayName("Should rewrite the vault with a new PBKDF2 iteration count")
+    void testReparametrizaRewritesVault() throws Exception {
+        List<Credencial> credentials = new ArrayList<>();
+        credentials.add(new Credencial("service1", "user1", EncriptacaoService.encrypt("pass1")));
+        credentials.add(new Credencial("service2", "user2", EncriptacaoService.encrypt("pass2")));
+        CredencialStorage.saveCredenciais(credentials);
+        assertEquals(EncriptacaoService.ITERACOES_PBKDF2, CredencialStorage.iteracoesDoCofre().getAsInt());
+
+        assertEquals(2, CredencialStorage.reparametriza("testMasterPassword", "testSalt123", 70_000));
+
+        assertEquals(70_000, EncriptacaoService.getSessionIteracoes());
+        assertEquals(70_000, CredencialStorage.iteracoesDoCofre().getAsInt());
+        List<Credencial> loaded = CredencialStorage.carregaCredenciais();
+        assertEquals("pass1", EncriptacaoService.decrypt(loaded.get(0).senhaEncriptada()));
+        assertEquals("pass2", EncriptacaoService.decrypt(loaded.get(1).senhaEncriptada()));
+
+        // A sessão com as iterações antigas não abre mais o cofre
+        EncriptacaoService.setSessionKeyAndSalt("testMasterPassword", "testSalt123");
+        assertThrows(Exception.class, CredencialStorage::carregaCredenciais);
+    }
+
+    /**
+     * Tests that TOTP seeds are saved, reloaded and re-encrypted along with the passwords.
+     */
+    @Test
+    @DisplayName("Should keep TOTP seeds across saves and re-parameterization")
+    void testTotpSeedsArePersisted() throws Exception {
+        List<Credencial> credentials = new ArrayList<>();
+        credentials.add(new Credencial("service1", "user1", EncriptacaoService.encrypt("pass1"),
+                EncriptacaoService.encrypt("JBSWY3DPEHPK3PXP")));
+        credentials.add(new Credencial("service2", "user2", EncriptacaoService.encrypt("pass2")));
+        CredencialStorage.saveCredenciais(credentials);
+
+        List<Credencial> loaded = CredencialStorage.carregaCredenciais();
+        assertEquals(credentials, loaded);
+
+        CredencialStorage.reparametriza("testMasterPassword", "testSalt123", 70_000);
+        loaded = CredencialStorage.carregaCredenciais();
+        assertEquals("JBSWY3DPEHPK3PXP", EncriptacaoService.decrypt(loaded.get(0).seedTotpEncriptada()));
+        assertFalse(loaded.get(1).possuiSeedTotp());
+    }
+
+    /**
+     * Tests that there is no vault iteration count before anything is saved.
+     */
+    @Test
+    @DisplayName("Should report no iteration count when there is no vault")
+    void testIteracoesDoCofreWithoutVault() throws Exception {
+        assertFalse(CredencialStorage.iteracoesDoCofre().isPresent());
+    }
+
     /**
      * Deletes any leftover files and clears the encryption session after each test.
      */
@@ -76,6 +317,7 @@ class CredentialStorageTest {
     void tearDown() throws Exception {
         Files.deleteIfExists(TEST_FILE_PATH);
         Files.deleteIfExists(BACKUP_FILE_PATH);
+        Files.deleteIfExists(LEGACY_FILE_PATH);
         EncriptacaoService.clearSessionKeyAndSalt();
     }
 }
\ No newline at end of file
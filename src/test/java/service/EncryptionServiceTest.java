@@ -3,8 +3,18 @@ package service;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
+import javax.crypto.AEADBadTagException;
+import javax.crypto.SecretKey;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
  * Unit tests for the EncryptionService utility.
@@ -74,6 +84,77 @@ class EncryptionServiceTest {
         EncriptacaoService.clearSessionKeyAndSalt();
     }
 
+    /**
+     * Ensures the session key is derived once and reused until the password or salt changes,
+     * and that clearing the session wipes the cached key.
+     */
+    @Test
+    @DisplayName("Should reuse the derived session key until password or salt changes")
+    void testSessionKeyIsCachedAndWiped() {
+        EncriptacaoService.setSessionKeyAndSalt("masterPass", "uniqueSalt!");
+        SecretKey first = EncriptacaoService.getSessionSecretKey();
+        EncriptacaoService.setSessionKeyAndSalt("masterPass", "uniqueSalt!");
+        assertSame(first, EncriptacaoService.getSessionSecretKey());
+
+        EncriptacaoService.setSessionKeyAndSalt("masterPass", "otherSalt!");
+        SecretKey second = EncriptacaoService.getSessionSecretKey();
+        assertNotSame(first, second);
+        assertTrue(first.isDestroyed(), "The previous key must be wiped after re-derivation.");
+
+        EncriptacaoService.clearSessionKeyAndSalt();
+        assertTrue(second.isDestroyed(), "The key must be wiped when the session is cleared.");
+        assertThrows(IllegalStateException.class, EncriptacaoService::getSessionSecretKey);
+    }
+
+    /**
+     * Tests the byte[] API, including in-place decryption and tamper detection.
+     *
+     * @throws Exception if an error occurs during encryption/decryption
+     */
+    @Test
+    @DisplayName("Should encrypt and decrypt byte arrays in place")
+    void testEncryptDecryptBytes() throws Exception {
+        EncriptacaoService.setSessionKeyAndSalt("masterPass", "uniqueSalt!");
+        byte[] original = "SensitiveData123!".getBytes(StandardCharsets.UTF_8);
+
+        byte[] encrypted = EncriptacaoService.encryptBytes(original);
+        assertEquals(EncriptacaoService.encryptedLength(original.length), encrypted.length);
+        assertArrayEquals(original, EncriptacaoService.decryptBytes(encrypted));
+
+        byte[] buffer = encrypted.clone();
+        int length = EncriptacaoService.decryptInPlace(buffer, 0, buffer.length);
+        assertEquals(original.length, length);
+        assertArrayEquals(original, Arrays.copyOf(buffer, length));
+
+        encrypted[encrypted.length - 1] ^= 1;
+        assertThrows(AEADBadTagException.class, () -> EncriptacaoService.decryptBytes(encrypted));
+        EncriptacaoService.clearSessionKeyAndSalt();
+    }
+
+    /**
+     * Tests the ByteBuffer API with direct buffers.
+     *
+     * @throws Exception if an error occurs during encryption/decryption
+     */
+    @Test
+    @DisplayName("Should encrypt and decrypt ByteBuffers")
+    void testEncryptDecryptByteBuffers() throws Exception {
+        EncriptacaoService.setSessionKeyAndSalt("masterPass", "uniqueSalt!");
+        byte[] original = "SensitiveData123!".getBytes(StandardCharsets.UTF_8);
+
+        ByteBuffer encrypted = ByteBuffer.allocateDirect(EncriptacaoService.encryptedLength(original.length));
+        int written = EncriptacaoService.encrypt(ByteBuffer.wrap(original), encrypted);
+        assertEquals(encrypted.capacity(), written);
+
+        encrypted.flip();
+        ByteBuffer decrypted = ByteBuffer.allocateDirect(original.length);
+        assertEquals(original.length, EncriptacaoService.decrypt(encrypted, decrypted));
+        byte[] result = new byte[original.length];
+        decrypted.flip().get(result);
+        assertArrayEquals(original, result);
+        EncriptacaoService.clearSessionKeyAndSalt();
+    }
+
     /**
      * Tests persistent salt generation and ensures consistency across calls.
      *
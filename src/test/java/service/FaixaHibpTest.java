@@ -0,0 +1,143 @@
+package service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HexFormat;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for the compact form of a Pwned Passwords range response.
+ */
+@DisplayName("FaixaHibp Unit Tests")
+class FaixaHibpTest {
+
+    private static final String FIRST = "00000000000000000000000000000000000";
+    private static final String MIDDLE = "0018A45C4D1DEF81644B54AB7F969B88D65";
+    private static final String LAST = "FFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFFF";
+
+    /**
+     * Tests parsing a response and looking up present, absent and malformed suffixes.
+     */
+    @Test
+    @DisplayName("Should find the counts of the suffixes in a response")
+    void testLookup() throws IOException {
+        FaixaHibp range = FaixaHibp.deResposta(FIRST + ":3\r\n" + MIDDLE + ":10\r\n" + LAST + ":7\r\n");
+
+        assertEquals(3, range.tamanho());
+        assertEquals(3, range.ocorrencias(FIRST));
+        assertEquals(10, range.ocorrencias(MIDDLE.toLowerCase()));
+        assertEquals(7, range.ocorrencias(LAST));
+        assertEquals(0, range.ocorrencias("0018A45C4D1DEF81644B54AB7F969B88D66"));
+        assertEquals(0, range.ocorrencias("00000"));
+        assertEquals(0, range.ocorrencias("ZZZZZZZZZZZZZZZZZZZZZZZZZZZZZZZZZZZ"));
+    }
+
+    /**
+     * Tests that an unsorted response is still searchable and that bad lines are rejected.
+     */
+    @Test
+    @DisplayName("Should sort unsorted responses and reject malformed lines")
+    void testUnsortedAndInvalid() throws IOException {
+        FaixaHibp range = FaixaHibp.deResposta(LAST + ":7\n" + FIRST + ":3\n\n" + MIDDLE + ":10\n");
+        assertEquals(3, range.ocorrencias(FIRST));
+        assertEquals(10, range.ocorrencias(MIDDLE));
+        assertEquals(7, range.ocorrencias(LAST));
+
+        assertThrows(IOException.class, () -> FaixaHibp.deResposta("ABC:1\n"));
+        assertThrows(IOException.class, () -> FaixaHibp.deResposta(MIDDLE + ":x\n"));
+        assertThrows(IOException.class, () -> FaixaHibp.deResposta(MIDDLE.replace('A', 'G') + ":1\n"));
+    }
+
+    /**
+     * Tests that the binary form round-trips and that truncated data is rejected.
+     */
+    @Test
+    @DisplayName("Should serialize and deserialize a range")
+    void testSerialization() throws IOException {
+        FaixaHibp range = FaixaHibp.deResposta(FIRST + ":3\n" + MIDDLE + ":10\n" + LAST + ":" + Long.MAX_VALUE + "\n");
+        byte[] bytes = range.serializa();
+        assertEquals(4 + 3 * 22, bytes.length);
+
+        FaixaHibp copy = FaixaHibp.desserializa(bytes);
+        assertEquals(3, copy.ocorrencias(FIRST));
+        assertEquals(10, copy.ocorrencias(MIDDLE));
+        assertEquals(Integer.MAX_VALUE, copy.ocorrencias(LAST));
+
+        byte[] truncated = java.util.Arrays.copyOf(bytes, bytes.length - 1);
+        assertThrows(IOException.class, () -> FaixaHibp.desserializa(truncated));
+    }
+
+    /**
+     * Stream that hands out one byte per read and records how far it was consumed.
+     */
+    private static final class TrickleStream extends InputStream {
+        private final byte[] data;
+        private int position;
+
+        TrickleStream(String text) {
+            data = text.getBytes(StandardCharsets.US_ASCII);
+        }
+
+        @Override
+        public int read() {
+            return position < data.length ? data[position++] : -1;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) {
+            if (position == data.length) {
+                return -1;
+            }
+            buffer[offset] = data[position++];
+            return 1;
+        }
+    }
+
+    private static byte[] sha1(String prefix, String suffix) {
+        return HexFormat.of().parseHex(prefix + suffix);
+    }
+
+    /**
+     * Tests that padding rows are dropped and that lines split across reads are parsed.
+     */
+    @Test
+    @DisplayName("Should drop padding rows and parse byte by byte")
+    void testPaddingAndTrickle() throws IOException {
+        String body = FIRST + ":0\r\n" + MIDDLE + ":10\r\n" + "1234567890123456789012345678901234A:0\r\n" + LAST + ":7";
+        FaixaHibp range = FaixaHibp.le(new TrickleStream(body));
+
+        assertEquals(2, range.tamanho());
+        assertEquals(0, range.ocorrencias(FIRST));
+        assertEquals(10, range.ocorrencias(MIDDLE));
+        assertEquals(7, range.ocorrencias(LAST));
+        assertEquals(10, range.ocorrencias(sha1("ABCDE", MIDDLE)));
+        assertEquals(7, range.ocorrencias(sha1("ABCDE", LAST)));
+        assertEquals(0, range.ocorrencias(sha1("ABCDE", FIRST)));
+        assertEquals("ABCDE", FaixaHibp.prefixo(sha1("ABCDE", MIDDLE)));
+    }
+
+    /**
+     * Tests the streaming lookup, including that it stops reading once the suffix is passed.
+     */
+    @Test
+    @DisplayName("Should find a hash in a stream and stop after passing it")
+    void testStreamingLookup() throws IOException {
+        String body = FIRST + ":0\r\n" + MIDDLE + ":10\r\n" + LAST + ":7\r\n";
+        assertEquals(10, FaixaHibp.procura(new ByteArrayInputStream(body.getBytes(StandardCharsets.US_ASCII)),
+                sha1("00000", MIDDLE)));
+        assertEquals(7, FaixaHibp.procura(new ByteArrayInputStream(body.getBytes(StandardCharsets.US_ASCII)),
+                sha1("00000", LAST)));
+
+        TrickleStream stream = new TrickleStream(body + "not even a hash line\n");
+        assertEquals(0, FaixaHibp.procura(stream, sha1("00000", "0018A45C4D1DEF81644B54AB7F969B88D64")));
+        assertTrue(stream.position < body.length() - LAST.length(), "The scan should stop at the first larger suffix.");
+    }
+}
@@ -0,0 +1,145 @@
+package service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for the Bloom filter pre-check of breached passwords.
+ */
+@DisplayName("FiltroVazamentos Unit Tests")
+class FiltroVazamentosTest {
+
+    @TempDir
+    Path directory;
+
+    private static List<byte[]> randomHashes(long seed, int count) {
+        Random random = new Random(seed);
+        List<byte[]> hashes = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            byte[] hash = new byte[20];
+            random.nextBytes(hash);
+            hashes.add(hash);
+        }
+        return hashes;
+    }
+
+    private static double falsePositiveRate(FiltroVazamentos filter) {
+        List<byte[]> probes = randomHashes(7, 200_000);
+        return probes.stream().filter(filter::podeConter).count() / (double) probes.size();
+    }
+
+    /**
+     * Tests that there are no false negatives and that the false positive rate follows the configuration.
+     */
+    @Test
+    @DisplayName("Should never miss an added hash and keep the configured false positive rate")
+    void testFalsePositiveRate() {
+        List<byte[]> hashes = randomHashes(1, 50_000);
+        for (double rate : new double[]{0.01, 0.001}) {
+            FiltroVazamentos.Construtor builder = FiltroVazamentos.construtor(hashes.size(), rate);
+            hashes.forEach(builder::adiciona);
+            FiltroVazamentos filter = builder.constroi();
+
+            assertTrue(hashes.stream().allMatch(filter::podeConter), "A Bloom filter must not have false negatives.");
+            double measured = falsePositiveRate(filter);
+            assertTrue(measured <= rate * 1.3, "Measured rate " + measured + " above " + rate);
+            assertTrue(filter.taxaEstimada() <= rate * 1.3);
+            assertEquals(50_000, filter.elementos());
+        }
+    }
+
+    /**
+     * Tests memory reporting against the classic sizing formula.
+     */
+    @Test
+    @DisplayName("Should report memory close to the theoretical size")
+    void testMemoryUsage() {
+        FiltroVazamentos filter = FiltroVazamentos.construtor(1_000_000, 0.01).constroi();
+        double classicBytes = 1_000_000 * -Math.log(0.01) / (Math.log(2) * Math.log(2)) / 8;
+        assertTrue(filter.bytesMemoria() >= classicBytes && filter.bytesMemoria() <= classicBytes * 1.2,
+                "Unexpected size: " + filter.bytesMemoria());
+        assertThrows(IllegalArgumentException.class, () -> FiltroVazamentos.construtor(10, 0));
+        assertThrows(IllegalArgumentException.class, () -> FiltroVazamentos.construtor(10, 1));
+    }
+
+    /**
+     * Tests building from a hash list file and a save/load round trip.
+     */
+    @Test
+    @DisplayName("Should build from a hash list and survive a save and load")
+    void testBuildSaveAndLoad() throws Exception {
+        List<byte[]> hashes = randomHashes(3, 10_000);
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < hashes.size(); i++) {
+            text.append(HexFormat.of().withUpperCase().formatHex(hashes.get(i)));
+            text.append(i % 2 == 0 ? ":" + i : "").append('\n');
+        }
+        Path list = directory.resolve("hashes.txt");
+        Files.writeString(list, text);
+
+        FiltroVazamentos filter = FiltroVazamentos.constroi(list, 0.01);
+        Path file = directory.resolve("hibp.bloom");
+        filter.salva(file);
+        FiltroVazamentos loaded = FiltroVazamentos.carrega(file);
+
+        assertEquals(filter.elementos(), loaded.elementos());
+        assertEquals(filter.bytesMemoria(), loaded.bytesMemoria());
+        assertTrue(hashes.stream().allMatch(loaded::podeConter));
+        for (byte[] probe : randomHashes(9, 10_000)) {
+            assertEquals(filter.podeConter(probe), loaded.podeConter(probe));
+        }
+
+        Files.writeString(list, "not a hash\n");
+        assertThrows(IOException.class, () -> FiltroVazamentos.constroi(list, 0.01));
+        assertThrows(IOException.class, () -> FiltroVazamentos.carrega(list));
+    }
+
+    /**
+     * Tests that the breach checker trusts a negative filter answer without an exact lookup.
+     */
+    @Test
+    @DisplayName("Should skip the exact lookup when the filter rules a password out")
+    void testCheckerUsesFilter() throws Exception {
+        String breached = HexFormat.of().withUpperCase().formatHex(BaseVazamentos.sha1("123456"));
+        Path dump = directory.resolve("dump.txt");
+        Files.writeString(dump, breached + ":37359195\n");
+        Path database = directory.resolve("hibp.dat");
+        BaseVazamentos.importa(dump, database);
+        VerificadorSenha.usaBaseLocal(database);
+
+        FiltroVazamentos.Construtor builder = FiltroVazamentos.construtor(1, 0.0001);
+        builder.adiciona(BaseVazamentos.sha1("qwerty"));
+        Path file = directory.resolve("hibp.bloom");
+        builder.constroi().salva(file);
+        VerificadorSenha.usaFiltro(file);
+
+        assertFalse(FiltroVazamentos.carrega(file).podeConter("123456"));
+        assertEquals(0, VerificadorSenha.checarSenha("123456"), "A negative filter answer must be final.");
+        VerificadorSenha.usaFiltro(null);
+        assertEquals(37_359_195, VerificadorSenha.checarSenha("123456"));
+    }
+
+    /**
+     * Restores the default local database and filter paths.
+     */
+    @AfterEach
+    void tearDown() {
+        VerificadorSenha.usaBaseLocal(VerificadorSenha.BASE_LOCAL_PADRAO);
+        VerificadorSenha.usaFiltro(VerificadorSenha.FILTRO_PADRAO);
+    }
+}
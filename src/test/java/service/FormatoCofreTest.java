@@ -0,0 +1,81 @@
+package service;
+
+import model.Credencial;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.AEADBadTagException;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Unit tests for the binary record encoding in {@link FormatoCofre}.
+ */
+@DisplayName("FormatoCofre Unit Tests")
+class FormatoCofreTest {
+
+    /**
+     * Sets a session key and salt before each test to enable encryption/decryption.
+     */
+    @BeforeEach
+    void setUp() {
+        EncriptacaoService.setSessionKeyAndSalt("testMasterPassword", "testSalt123");
+    }
+
+    /**
+     * Tests that a record round-trips, including non-ASCII names.
+     */
+    @Test
+    @DisplayName("Should encode and decode a record")
+    void testRecordRoundTrip() throws Exception {
+        Credencial credential = new Credencial("Serviço", "usuário@exemplo.com", EncriptacaoService.encrypt("pass"));
+
+        assertEquals(credential, FormatoCofre.decodificaRegistro(FormatoCofre.codificaRegistro(credential)));
+    }
+
+    /**
+     * Tests that a record with a TOTP seed round-trips, and that a record without one keeps
+     * the v3 layout.
+     */
+    @Test
+    @DisplayName("Should encode and decode a record with a TOTP seed")
+    void testRecordWithSeedRoundTrip() throws Exception {
+        Credencial withSeed = new Credencial("service", "user", EncriptacaoService.encrypt("pass"),
+                EncriptacaoService.encrypt("GEZDGNBVGY3TQOJQGEZDGNBVGY3TQOJQ"));
+        Credencial withoutSeed = new Credencial("service", "user", withSeed.senhaEncriptada());
+
+        assertEquals(withSeed, FormatoCofre.decodificaRegistro(FormatoCofre.codificaRegistro(withSeed)));
+        Credencial decoded = FormatoCofre.decodificaRegistro(FormatoCofre.codificaRegistro(withoutSeed));
+        assertEquals(withoutSeed, decoded);
+        assertNull(decoded.seedTotpEncriptada());
+        assertEquals(FormatoCofre.codificaRegistro(withoutSeed).length
+                        + 2 + Base64.getDecoder().decode(withSeed.seedTotpEncriptada()).length,
+                FormatoCofre.codificaRegistro(withSeed).length);
+    }
+
+    /**
+     * Tests that the stored password ciphertext is authenticated together with the record.
+     */
+    @Test
+    @DisplayName("Should reject a record whose password ciphertext was altered")
+    void testTamperedPasswordIsRejected() throws Exception {
+        Credencial credential = new Credencial("service", "user", EncriptacaoService.encrypt("pass"));
+        byte[] record = FormatoCofre.codificaRegistro(credential);
+        record[5] ^= 1;
+
+        assertThrows(AEADBadTagException.class, () -> FormatoCofre.decodificaRegistro(record));
+    }
+
+    /**
+     * Clears the encryption session after each test.
+     */
+    @AfterEach
+    void tearDown() {
+        EncriptacaoService.clearSessionKeyAndSalt();
+    }
+}
@@ -0,0 +1,218 @@
+package service;
+
+import model.Credencial;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for {@link ImportadorCsv}.
+ */
+@DisplayName("ImportadorCsv Unit Tests")
+class ImportadorCsvTest {
+
+    private static final String SEED = "JBSWY3DPEHPK3PXP";
+
+    private final ImportadorCsv importador = new ImportadorCsv(2);
+
+    @BeforeEach
+    void setUp() {
+        EncriptacaoService.setSessionKeyAndSalt("testMasterPassword", "testSalt123");
+    }
+
+    private ImportadorCsv.Resultado importa(String csv) throws Exception {
+        return importador.importa(new StringReader(csv), new CredentialRepository());
+    }
+
+    /**
+     * Tests the Chrome export, where the service comes from the name column.
+     */
+    @Test
+    @DisplayName("Should import a Chrome export")
+    void testChrome() throws Exception {
+        ImportadorCsv.Resultado resultado = importa("""
+                name,url,username,password,note
+                GitHub,https://github.com/login,ana,s3cret!,
+                Mail,https://mail.example.com/,ana@example.com,"multi
+                line",
+                """);
+
+        assertEquals(ImportadorCsv.Formato.CHROME, resultado.formato());
+        assertEquals(2, resultado.linhas());
+        assertEquals(0, resultado.rejeitadas());
+        Credencial primeira = resultado.importadas().getFirst();
+        assertEquals("GitHub", primeira.nomeServico());
+        assertEquals("ana", primeira.nomeUsuario());
+        assertEquals("s3cret!", EncriptacaoService.decrypt(primeira.senhaEncriptada()));
+        assertNull(primeira.seedTotpEncriptada());
+        assertEquals("multi\nline", EncriptacaoService.decrypt(resultado.importadas().get(1).senhaEncriptada()));
+    }
+
+    /**
+     * Tests the Firefox export, where the service is the host of the URL.
+     */
+    @Test
+    @DisplayName("Should import a Firefox export using the URL host")
+    void testFirefox() throws Exception {
+        ImportadorCsv.Resultado resultado = importa("""
+                "url","username","password","httpRealm","formActionOrigin","guid","timeCreated"
+                "https://www.example.com","bob","pw1",,"https://www.example.com","{1}","1"
+                "https://accounts.example.org:8443/path?a=1,2","bob","pw2",,"","{2}","2"
+                """);
+
+        assertEquals(ImportadorCsv.Formato.FIREFOX, resultado.formato());
+        assertEquals(List.of("example.com", "accounts.example.org"),
+                resultado.importadas().stream().map(Credencial::nomeServico).toList());
+    }
+
+    /**
+     * Tests the Bitwarden export: TOTP seeds, otpauth URIs and items that are not logins.
+     */
+    @Test
+    @DisplayName("Should import a Bitwarden export with TOTP seeds")
+    void testBitwarden() throws Exception {
+        ImportadorCsv.Resultado resultado = importa("""
+                folder,favorite,type,name,notes,fields,reprompt,login_uri,login_username,login_password,login_totp
+                ,,login,Bank,,,0,https://bank.example,carol,pw,jbsw y3dp ehpk 3pxp
+                ,,login,Cloud,,,0,,carol,pw,otpauth://totp/Cloud:carol?secret=%s&issuer=Cloud
+                ,,note,Secret note,text,,0,,,,
+                ,,login,Other,,,0,,carol,pw,otpauth://totp/Other?secret=%s&digits=8
+                """.formatted(SEED, SEED));
+
+        assertEquals(ImportadorCsv.Formato.BITWARDEN, resultado.formato());
+        assertEquals(4, resultado.linhas());
+        assertEquals(2, resultado.importadas().size());
+        for (Credencial credencial : resultado.importadas()) {
+            assertEquals(SEED, EncriptacaoService.decrypt(credencial.seedTotpEncriptada()));
+        }
+        assertEquals(2, resultado.rejeitadas());
+        assertEquals(4, resultado.rejeicoes().getFirst().linha());
+        assertTrue(resultado.rejeicoes().getFirst().motivo().contains("não é um login"));
+        assertEquals(5, resultado.rejeicoes().get(1).linha());
+        assertTrue(resultado.rejeicoes().get(1).motivo().contains("8 dígitos"));
+    }
+
+    /**
+     * Tests that invalid rows are rejected with the reason and their line, without stopping the import.
+     */
+    @Test
+    @DisplayName("Should reject invalid rows with their reasons")
+    void testRejections() throws Exception {
+        CredentialRepository existentes = new CredentialRepository(List.of(
+                new Credencial("github", "ana", EncriptacaoService.encrypt("old"))));
+
+        ImportadorCsv.Resultado resultado = importador.importa(new StringReader("""
+                name,url,username,password
+                GitHub,,ana,pw
+                Site,,,pw
+                "Evil,Site",,dan,pw
+                Site,,dan,pw
+                site,,dan,other
+                Short,,dan
+                """), existentes);
+
+        assertEquals(6, resultado.linhas());
+        assertEquals(5, resultado.rejeitadas());
+        assertEquals(1, resultado.importadas().size());
+        assertEquals("Site", resultado.importadas().getFirst().nomeServico());
+        List<ImportadorCsv.Rejeicao> rejeicoes = resultado.rejeicoes();
+        assertEquals(List.of(2L, 3L, 4L, 6L, 7L), rejeicoes.stream().map(ImportadorCsv.Rejeicao::linha).toList());
+        assertTrue(rejeicoes.get(0).motivo().startsWith("duplicada"));
+        assertTrue(rejeicoes.get(1).motivo().startsWith("usuário:"));
+        assertTrue(rejeicoes.get(2).motivo().contains("inseguros"));
+        assertTrue(rejeicoes.get(3).motivo().startsWith("duplicada"));
+        assertTrue(rejeicoes.get(4).motivo().contains("colunas"));
+    }
+
+    /**
+     * Tests that a file from an unknown exporter fails before any row is imported.
+     */
+    @Test
+    @DisplayName("Should reject an unknown header")
+    void testUnknownHeader() {
+        assertThrows(IOException.class, () -> importa("site,login,secret\na,b,c\n"));
+        assertThrows(IOException.class, () -> importa(""));
+    }
+
+    /**
+     * Tests that a malformed file fails the import instead of returning a partial result.
+     */
+    @Test
+    @DisplayName("Should fail on a malformed file")
+    void testMalformedFile() {
+        assertThrows(IOException.class, () -> importa("name,url,username,password\n\"open,,a,b\n"));
+    }
+
+    /**
+     * Tests a file spanning many batches: every row is counted and the file order is kept.
+     */
+    @Test
+    @DisplayName("Should keep the file order across many batches")
+    void testManyBatches(@TempDir Path dir) throws Exception {
+        int linhas = ImportadorCsv.LINHAS_POR_LOTE * 10 + 17;
+        StringBuilder csv = new StringBuilder("name,url,username,password\n");
+        for (int i = 0; i < linhas; i++) {
+            csv.append("service").append(i).append(",,").append(i % 7 == 0 ? "" : "user").append(",pw").append(i)
+                    .append('\n');
+        }
+        Path arquivo = dir.resolve("export.csv");
+        Files.writeString(arquivo, csv, StandardCharsets.UTF_8);
+
+        ImportadorCsv.Resultado resultado = new ImportadorCsv(3).importa(arquivo, new CredentialRepository());
+
+        long rejeitadas = (linhas + 6) / 7;
+        assertEquals(linhas, resultado.linhas());
+        assertEquals(rejeitadas, resultado.rejeitadas());
+        assertEquals(linhas - rejeitadas, resultado.importadas().size());
+        int anterior = -1;
+        for (Credencial credencial : resultado.importadas()) {
+            int indice = Integer.parseInt(credencial.nomeServico().substring("service".length()));
+            assertTrue(indice > anterior);
+            assertFalse(indice % 7 == 0);
+            anterior = indice;
+        }
+        assertTrue(resultado.linhasPorSegundo() > 0);
+    }
+
+    /**
+     * Tests that the detailed rejections are the first ones in the file even when batches finish out of order.
+     */
+    @Test
+    @DisplayName("Should keep the first rejections by line when batches arrive out of order")
+    void testDetailedRejectionsAreFirstByLine() throws Exception {
+        int linhas = ImportadorCsv.LIMITE_REJEICOES_DETALHADAS * 3;
+        StringBuilder csv = new StringBuilder("name,url,username,password\n");
+        for (int i = 0; i < linhas; i++) {
+            csv.append("service").append(i).append(",,,pw\n");
+        }
+
+        ImportadorCsv.Resultado resultado = new ImportadorCsv(4).importa(new StringReader(csv.toString()),
+                new CredentialRepository());
+
+        assertEquals(linhas, resultado.rejeitadas());
+        assertEquals(ImportadorCsv.LIMITE_REJEICOES_DETALHADAS, resultado.rejeicoes().size());
+        for (int i = 0; i < resultado.rejeicoes().size(); i++) {
+            assertEquals(i + 2, resultado.rejeicoes().get(i).linha());
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        EncriptacaoService.clearSessionKeyAndSalt();
+    }
+}
@@ -0,0 +1,273 @@
+package service;
+
+import model.Credencial;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for the append-only credentials journal.
+ */
+@DisplayName("JournalCredenciais Unit Tests")
+class JournalCredenciaisTest {
+
+    private static final Path FILE_PATH = Paths.get("credentials.dat");
+    private static final Path BACKUP_FILE_PATH = Paths.get("credentials_backup.dat");
+    private static final Path JOURNAL_PATH = Paths.get("credentials.journal");
+    private static final Path FROZEN_JOURNAL_PATH = Paths.get("credentials.journal.compactando");
+
+    /**
+     * Sets a session key and salt before each test to enable encryption/decryption.
+     */
+    @BeforeEach
+    void setUp() {
+        EncriptacaoService.setSessionKeyAndSalt("testMasterPassword", "testSalt123");
+    }
+
+    private static Credencial credential(int i) throws Exception {
+        return new Credencial("service" + i, "user" + i, EncriptacaoService.encrypt("pass" + i));
+    }
+
+    /**
+     * Writes a full base file straight to disk, as the storage does during compaction.
+     */
+    private static void writeBase(List<Credencial> credentials, long generation) throws Exception {
+        try (FormatoCofre.Escritor writer = new FormatoCofre.Escritor(FILE_PATH, generation)) {
+            for (Credencial credential : credentials) {
+                writer.escreve(FormatoCofre.codificaRegistro(credential));
+            }
+        }
+    }
+
+    /**
+     * Tests that additions and removals are visible to the next load without a full save.
+     */
+    @Test
+    @DisplayName("Should replay additions and removals on load")
+    void testJournalIsReplayedOnLoad() throws Exception {
+        List<Credencial> base = new ArrayList<>(List.of(credential(0), credential(1), credential(2)));
+        CredencialStorage.saveCredenciais(base);
+        byte[] baseFile = Files.readAllBytes(FILE_PATH);
+
+        CredentialRepository repository = CredencialStorage.carregaRepositorio();
+        long secondId = repository.entradas().get(1).getKey();
+        Credencial added = credential(3);
+        Credencial last = credential(4);
+        try (JournalCredenciais journal = CredencialStorage.abreJournal(repository)) {
+            journal.adiciona(added);
+            assertEquals(base.get(1), journal.remove(secondId));
+            journal.adiciona(last);
+        }
+
+        assertEquals(baseFile.length, Files.readAllBytes(FILE_PATH).length, "The base file must not be rewritten.");
+        assertEquals(List.of(base.get(0), base.get(2), added, last), repository.credenciais());
+        assertEquals(repository.credenciais(), CredencialStorage.carregaCredenciais());
+    }
+
+    /**
+     * Tests that concurrent appends sharing fsyncs are all durable and replayed.
+     */
+    @Test
+    @DisplayName("Should keep every entry appended concurrently")
+    void testConcurrentAppends() throws Exception {
+        CredentialRepository repository = new CredentialRepository();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try (JournalCredenciais journal = CredencialStorage.abreJournal(repository)) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                Credencial credential = credential(i);
+                futures.add(executor.submit(() -> {
+                    journal.adiciona(credential);
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        List<Credencial> loaded = CredencialStorage.carregaCredenciais();
+        assertEquals(200, loaded.size());
+        assertEquals(new HashSet<>(repository.credenciais()), new HashSet<>(loaded));
+    }
+
+    /**
+     * Tests that reaching the ratio threshold rotates the journal and writes a new base in the background.
+     */
+    @Test
+    @DisplayName("Should compact the journal into a new base file")
+    void testBackgroundCompaction() throws Exception {
+        List<Credencial> base = new ArrayList<>(List.of(credential(0), credential(1)));
+        writeBase(base, 0);
+
+        CredentialRepository repository = CredencialStorage.carregaRepositorio();
+        try (JournalCredenciais journal = JournalCredenciais.abre(JOURNAL_PATH, repository, 0,
+                JournalCredenciaisTest::writeBase, Long.MAX_VALUE, 1.0, 4)) {
+            for (int i = 2; i < 6; i++) {
+                journal.adiciona(credential(i));
+            }
+            journal.aguardaCompactacao();
+            journal.adiciona(credential(6));
+        }
+
+        assertFalse(Files.exists(FROZEN_JOURNAL_PATH), "The frozen journal must be deleted after compaction.");
+        try (FormatoCofre.Leitor reader = new FormatoCofre.Leitor(FILE_PATH)) {
+            assertEquals(1, reader.getGeracaoJournal());
+        }
+        assertEquals(repository.credenciais(), CredencialStorage.carregaCredenciais());
+        assertEquals(7, repository.tamanho());
+    }
+
+    /**
+     * Tests that a failed compaction keeps both journals valid and is redone on the next open.
+     */
+    @Test
+    @DisplayName("Should recover from an interrupted compaction")
+    void testInterruptedCompaction() throws Exception {
+        CredentialRepository repository = new CredentialRepository();
+        try (JournalCredenciais journal = JournalCredenciais.abre(JOURNAL_PATH, repository, 0,
+                (snapshot, generation) -> {
+                    throw new IllegalStateException("disk full");
+                }, Long.MAX_VALUE, 0.0, 2)) {
+            for (int i = 0; i < 5; i++) {
+                journal.adiciona(credential(i));
+            }
+        }
+        assertTrue(Files.exists(FROZEN_JOURNAL_PATH));
+
+        CredentialRepository loaded = CredencialStorage.carregaRepositorio();
+        assertEquals(repository.credenciais(), loaded.credenciais());
+
+        try (JournalCredenciais journal = CredencialStorage.abreJournal(loaded)) {
+            assertFalse(Files.exists(FROZEN_JOURNAL_PATH));
+            assertFalse(JournalCredenciais.temEntradas(JOURNAL_PATH));
+            journal.adiciona(credential(5));
+        }
+        assertEquals(6, loaded.tamanho());
+        assertEquals(loaded.credenciais(), CredencialStorage.carregaCredenciais());
+    }
+
+    /**
+     * Tests that a partially written entry at the end of the journal is discarded.
+     */
+    @Test
+    @DisplayName("Should discard a torn entry at the end of the journal")
+    void testTornTailIsDiscarded() throws Exception {
+        CredentialRepository repository = new CredentialRepository();
+        try (JournalCredenciais journal = CredencialStorage.abreJournal(repository)) {
+            journal.adiciona(credential(0));
+        }
+        Files.write(JOURNAL_PATH, new byte[]{JournalCredenciais.OPERACAO_ADICAO, 0, 0, 1}, StandardOpenOption.APPEND);
+
+        CredentialRepository loaded = CredencialStorage.carregaRepositorio();
+        assertEquals(repository.credenciais(), loaded.credenciais());
+
+        try (JournalCredenciais journal = CredencialStorage.abreJournal(loaded)) {
+            journal.adiciona(credential(1));
+        }
+        assertEquals(loaded.credenciais(), CredencialStorage.carregaCredenciais());
+        assertEquals(2, loaded.tamanho());
+    }
+
+    /**
+     * Tests that a full save folds the journal into the base file and deletes it.
+     */
+    @Test
+    @DisplayName("Should discard the journal after a full save")
+    void testFullSaveDiscardsJournal() throws Exception {
+        CredentialRepository repository = new CredentialRepository();
+        try (JournalCredenciais journal = CredencialStorage.abreJournal(repository)) {
+            journal.adiciona(credential(0));
+        }
+
+        CredencialStorage.saveCredenciais(repository.credenciais());
+
+        assertFalse(Files.exists(JOURNAL_PATH));
+        assertEquals(repository.credenciais(), CredencialStorage.carregaCredenciais());
+    }
+
+    /**
+     * Tests that a failed fsync undoes the change in memory and drops its entry from the journal, so the
+     * vault reloaded from disk matches what the caller was told.
+     */
+    @Test
+    @DisplayName("Should undo the change in memory and on disk when the journal cannot be synced")
+    void testFailedSyncUndoesChange() throws Exception {
+        CredencialStorage.saveCredenciais(List.of(credential(0), credential(1)));
+        CredentialRepository repository = CredencialStorage.carregaRepositorio();
+        List<Credencial> before = repository.credenciais();
+        long firstId = repository.entradas().getFirst().getKey();
+        try (JournalCredenciais journal = CredencialStorage.abreJournal(repository)) {
+            journal.defineSincronizador(canal -> {
+                throw new IOException("disk full");
+            });
+
+            assertThrows(IOException.class, () -> journal.adiciona(credential(2)));
+            assertEquals(before, repository.credenciais());
+
+            assertThrows(IOException.class, () -> journal.remove(firstId));
+            assertEquals(before.getFirst(), repository.busca(firstId).orElseThrow());
+            assertEquals(List.of(before.getFirst()), repository.buscaPorServico("service0"));
+            assertEquals(before, repository.credenciais(), "The restored credential keeps its position.");
+        }
+
+        assertEquals(before, CredencialStorage.carregaCredenciais());
+    }
+
+    /**
+     * Tests that the journal recovers after a failed fsync: the next change rewrites the base file and
+     * later changes are journaled and reloaded as usual.
+     */
+    @Test
+    @DisplayName("Should recover from a failed sync by rewriting the base file")
+    void testRecoveryAfterFailedSync() throws Exception {
+        CredencialStorage.saveCredenciais(List.of(credential(0), credential(1)));
+        CredentialRepository repository = CredencialStorage.carregaRepositorio();
+        long firstId = repository.entradas().getFirst().getKey();
+        try (JournalCredenciais journal = CredencialStorage.abreJournal(repository)) {
+            journal.defineSincronizador(canal -> {
+                throw new IOException("disk full");
+            });
+            assertThrows(IOException.class, () -> journal.adiciona(credential(2)));
+
+            journal.defineSincronizador(canal -> canal.force(false));
+            Credencial added = credential(3);
+            journal.adiciona(added);
+            journal.remove(firstId);
+            assertEquals(List.of(repository.credenciais().getFirst(), added), repository.credenciais());
+        }
+
+        assertEquals(repository.credenciais(), CredencialStorage.carregaCredenciais());
+    }
+
+    /**
+     * Deletes any leftover files and clears the encryption session after each test.
+     */
+    @AfterEach
+    void tearDown() throws Exception {
+        Files.deleteIfExists(FILE_PATH);
+        Files.deleteIfExists(BACKUP_FILE_PATH);
+        JournalCredenciais.descarta(JOURNAL_PATH);
+        EncriptacaoService.clearSessionKeyAndSalt();
+    }
+}
@@ -0,0 +1,74 @@
+package service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Unit tests for {@link LeitorCsv}.
+ */
+@DisplayName("LeitorCsv Unit Tests")
+class LeitorCsvTest {
+
+    /**
+     * Tests plain records with both line break styles and blank lines in between.
+     */
+    @Test
+    @DisplayName("Should read records with LF, CRLF and blank lines")
+    void testLineBreaks() throws IOException {
+        try (LeitorCsv leitor = new LeitorCsv(new StringReader("a,b,c\r\n\r\nd,,f\ng,h,i"))) {
+            assertArrayEquals(new String[]{"a", "b", "c"}, leitor.proximo());
+            assertEquals(1, leitor.getLinha());
+            assertArrayEquals(new String[]{"d", "", "f"}, leitor.proximo());
+            assertEquals(3, leitor.getLinha());
+            assertArrayEquals(new String[]{"g", "h", "i"}, leitor.proximo());
+            assertEquals(4, leitor.getLinha());
+            assertNull(leitor.proximo());
+        }
+    }
+
+    /**
+     * Tests quoted fields containing separators, line breaks and escaped quotes.
+     */
+    @Test
+    @DisplayName("Should read quoted fields with commas, quotes and line breaks")
+    void testQuotedFields() throws IOException {
+        String csv = "\"a,b\",\"say \"\"hi\"\"\",\"line1\r\nline2\"\n\"\",x\n";
+        try (LeitorCsv leitor = new LeitorCsv(new StringReader(csv))) {
+            assertArrayEquals(new String[]{"a,b", "say \"hi\"", "line1\r\nline2"}, leitor.proximo());
+            assertArrayEquals(new String[]{"", "x"}, leitor.proximo());
+            assertEquals(3, leitor.getLinha());
+            assertNull(leitor.proximo());
+        }
+    }
+
+    /**
+     * Tests that the UTF-8 byte order mark written by some exporters is skipped.
+     */
+    @Test
+    @DisplayName("Should skip a leading byte order mark")
+    void testByteOrderMark() throws IOException {
+        try (LeitorCsv leitor = new LeitorCsv(new StringReader("\uFEFFname,url\n"))) {
+            assertArrayEquals(new String[]{"name", "url"}, leitor.proximo());
+        }
+    }
+
+    /**
+     * Tests that an unterminated quote fails instead of reading the rest of the file as one field.
+     */
+    @Test
+    @DisplayName("Should reject an unterminated quoted field")
+    void testUnterminatedQuote() throws IOException {
+        try (LeitorCsv leitor = new LeitorCsv(new StringReader("a,b\n\"open,c\nd,e\n"))) {
+            leitor.proximo();
+            assertThrows(IOException.class, leitor::proximo);
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import com.sun.management.ThreadMXBean;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for {@link MotorTOTP}, checked against the RFC 6238 appendix B test vectors.
+ */
+@DisplayName("MotorTOTP Unit Tests")
+class MotorTOTPTest {
+
+    private static final byte[] SEED_SHA1 = "12345678901234567890".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] SEED_SHA256 = "12345678901234567890123456789012".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] SEED_SHA512 =
+            "1234567890123456789012345678901234567890123456789012345678901234".getBytes(StandardCharsets.US_ASCII);
+
+    private static byte[] seed(MotorTOTP.Algoritmo algoritmo) {
+        return switch (algoritmo) {
+            case SHA1 -> SEED_SHA1;
+            case SHA256 -> SEED_SHA256;
+            case SHA512 -> SEED_SHA512;
+        };
+    }
+
+    /**
+     * Tests the 8-digit codes of RFC 6238 appendix B for every hash function.
+     */
+    @ParameterizedTest(name = "{1} at {0}")
+    @CsvSource({
+            "59, SHA1, 94287082", "59, SHA256, 46119246", "59, SHA512, 90693936",
+            "1111111109, SHA1, 07081804", "1111111109, SHA256, 68084774", "1111111109, SHA512, 25091201",
+            "1111111111, SHA1, 14050471", "1111111111, SHA256, 67062674", "1111111111, SHA512, 99943326",
+            "1234567890, SHA1, 89005924", "1234567890, SHA256, 91819424", "1234567890, SHA512, 93441116",
+            "2000000000, SHA1, 69279037", "2000000000, SHA256, 90698825", "2000000000, SHA512, 38618901",
+            "20000000000, SHA1, 65353130", "20000000000, SHA256, 77737706", "20000000000, SHA512, 47863826"
+    })
+    @DisplayName("Should match the RFC 6238 test vectors")
+    void testRfc6238Vectors(long time, MotorTOTP.Algoritmo algoritmo, String expected) {
+        MotorTOTP motor = new MotorTOTP(seed(algoritmo), algoritmo, 8, 30);
+
+        assertEquals(expected, motor.formata(motor.gera(time)));
+        assertTrue(motor.valida(expected, time));
+
+        MotorTOTP seisDigitos = new MotorTOTP(seed(algoritmo), algoritmo, 6, 30);
+        assertEquals(expected.substring(2), seisDigitos.formata(seisDigitos.gera(time)));
+    }
+
+    /**
+     * Tests that the previous and next windows are accepted, and nothing further away.
+     */
+    @Test
+    @DisplayName("Should accept only the adjacent windows")
+    void testWindowTolerance() {
+        MotorTOTP motor = new MotorTOTP(SEED_SHA1);
+        long agora = 1_111_111_111L;
+        long janela = agora / 30;
+
+        for (int deslocamento = -1; deslocamento <= 1; deslocamento++) {
+            String codigo = motor.formata(motor.geraNaJanela(janela + deslocamento));
+            assertTrue(motor.valida(codigo, agora));
+            assertEquals(janela + deslocamento, motor.janelaDe(motor.converte(codigo), agora));
+        }
+        String distante = motor.formata(motor.geraNaJanela(janela + 5));
+        assertFalse(motor.valida(distante, agora));
+    }
+
+    /**
+     * Tests that malformed input is rejected without throwing.
+     */
+    @Test
+    @DisplayName("Should reject malformed codes")
+    void testMalformedCodes() {
+        MotorTOTP motor = new MotorTOTP(SEED_SHA1);
+
+        assertFalse(motor.valida(null, 59));
+        assertFalse(motor.valida("28708", 59));
+        assertFalse(motor.valida("2870822", 59));
+        assertFalse(motor.valida("28708a", 59));
+        assertFalse(motor.valida("-28708", 59));
+        assertEquals(-1, motor.converte("12 456"));
+        assertEquals(287082, motor.converte("287082"));
+    }
+
+    /**
+     * Tests that secrets longer than the hash block are hashed first, as HMAC specifies.
+     */
+    @Test
+    @DisplayName("Should hash keys longer than the block size")
+    void testLongKey() throws Exception {
+        byte[] chave = new byte[100];
+        for (int i = 0; i < chave.length; i++) {
+            chave[i] = (byte) i;
+        }
+        MotorTOTP motor = new MotorTOTP(chave, MotorTOTP.Algoritmo.SHA256, 8, 30);
+
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(chave, "HmacSHA256"));
+        byte[] hmac = mac.doFinal(ByteBuffer.allocate(8).putLong(42).array());
+        int offset = hmac[hmac.length - 1] & 0x0F;
+        int expected = (ByteBuffer.wrap(hmac, offset, 4).getInt() & 0x7FFFFFFF) % 100_000_000;
+
+        assertEquals(expected, motor.geraNaJanela(42));
+    }
+
+    /**
+     * Tests that invalid parameters are rejected.
+     */
+    @Test
+    @DisplayName("Should reject invalid parameters")
+    void testInvalidParameters() {
+        assertThrows(IllegalArgumentException.class, () -> new MotorTOTP(new byte[0]));
+        assertThrows(IllegalArgumentException.class, () -> new MotorTOTP(SEED_SHA1, MotorTOTP.Algoritmo.SHA1, 5, 30));
+        assertThrows(IllegalArgumentException.class, () -> new MotorTOTP(SEED_SHA1, MotorTOTP.Algoritmo.SHA1, 9, 30));
+        assertThrows(IllegalArgumentException.class, () -> new MotorTOTP(SEED_SHA1, MotorTOTP.Algoritmo.SHA1, 6, 0));
+    }
+
+    /**
+     * Tests that validation allocates nothing once the thread's state exists.
+     */
+    @Test
+    @DisplayName("Should validate codes without allocating")
+    void testValidationDoesNotAllocate() {
+        MotorTOTP motor = new MotorTOTP(SEED_SHA512, MotorTOTP.Algoritmo.SHA512, 8, 30);
+        boolean aceito = false;
+        for (int i = 0; i < 20_000; i++) {
+            aceito |= motor.valida("90693936", 59);
+        }
+        var threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long id = Thread.currentThread().threadId();
+
+        long antes = threads.getThreadAllocatedBytes(id);
+        for (int i = 0; i < 10_000; i++) {
+            aceito |= motor.valida("90693936", 59);
+        }
+        long alocados = threads.getThreadAllocatedBytes(id) - antes;
+
+        assertTrue(aceito);
+        // Margem para a própria medição; uma alocação por chamada passaria de 100 KiB
+        assertTrue(alocados < 4096, "Alocados " + alocados + " bytes em 10.000 validações");
+    }
+}
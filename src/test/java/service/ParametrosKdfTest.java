@@ -0,0 +1,113 @@
+package service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mindrot.jbcrypt.BCrypt;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for {@link ParametrosKdf}: calibration bounds, persistence and BCrypt cost parsing.
+ */
+@DisplayName("ParametrosKdf Unit Tests")
+class ParametrosKdfTest {
+
+    @TempDir
+    Path tempDir;
+
+    /**
+     * Tests that a target too small for any derivation falls back to the legacy floor.
+     */
+    @Test
+    @DisplayName("Should never calibrate below the legacy parameters")
+    void testCalibraRespectsFloor() {
+        ParametrosKdf parametros = ParametrosKdf.calibra(Duration.ofNanos(1));
+
+        assertEquals(ParametrosKdf.MINIMO, parametros);
+    }
+
+    /**
+     * Tests that a generous target yields parameters within the bounds, in whole thousands of iterations.
+     */
+    @Test
+    @DisplayName("Should calibrate within bounds for a larger target")
+    void testCalibraWithinBounds() {
+        ParametrosKdf parametros = ParametrosKdf.calibra(Duration.ofMillis(400));
+
+        assertTrue(parametros.iteracoesPbkdf2() >= ParametrosKdf.MINIMO.iteracoesPbkdf2());
+        assertTrue(parametros.iteracoesPbkdf2() <= ParametrosKdf.MAXIMO_ITERACOES);
+        assertTrue(parametros.custoBcrypt() >= ParametrosKdf.MINIMO.custoBcrypt());
+        assertTrue(parametros.custoBcrypt() <= ParametrosKdf.MAXIMO_CUSTO_BCRYPT);
+        assertTrue(parametros.iteracoesPbkdf2() % 1000 == 0
+                || parametros.iteracoesPbkdf2() == ParametrosKdf.MINIMO.iteracoesPbkdf2());
+    }
+
+    /**
+     * Tests that the parameters survive a save and load.
+     */
+    @Test
+    @DisplayName("Should save and load the parameters")
+    void testSalvaECarrega() throws IOException {
+        Path arquivo = tempDir.resolve("kdf_params.dat");
+        ParametrosKdf parametros = new ParametrosKdf(310_000, 12);
+
+        parametros.salva(arquivo);
+
+        assertEquals(Optional.of(parametros), ParametrosKdf.carrega(arquivo));
+    }
+
+    /**
+     * Tests that a missing file means a vault created before calibration.
+     */
+    @Test
+    @DisplayName("Should return empty when the file does not exist")
+    void testCarregaMissingFile() throws IOException {
+        assertFalse(ParametrosKdf.carrega(tempDir.resolve("ausente.dat")).isPresent());
+    }
+
+    /**
+     * Tests that a malformed file is rejected instead of silently using defaults.
+     */
+    @Test
+    @DisplayName("Should reject a malformed parameters file")
+    void testCarregaMalformedFile() throws IOException {
+        Path arquivo = tempDir.resolve("kdf_params.dat");
+        Files.writeString(arquivo, "pbkdf2-sha256=abc\nbcrypt=12\n");
+        assertThrows(IOException.class, () -> ParametrosKdf.carrega(arquivo));
+
+        Files.writeString(arquivo, "bcrypt=12\n");
+        assertThrows(IOException.class, () -> ParametrosKdf.carrega(arquivo));
+    }
+
+    /**
+     * Tests that invalid parameters are rejected.
+     */
+    @Test
+    @DisplayName("Should reject invalid parameters")
+    void testInvalidParameters() {
+        assertThrows(IllegalArgumentException.class, () -> new ParametrosKdf(0, 10));
+        assertThrows(IllegalArgumentException.class, () -> new ParametrosKdf(100_000, 3));
+        assertThrows(IllegalArgumentException.class, () -> new ParametrosKdf(100_000, 32));
+    }
+
+    /**
+     * Tests that the cost is read back from a BCrypt hash.
+     */
+    @Test
+    @DisplayName("Should read the cost of a BCrypt hash")
+    void testCustoDoHash() {
+        assertEquals(4, ParametrosKdf.custoDoHash(BCrypt.hashpw("senha", BCrypt.gensalt(4))));
+        assertEquals(10, ParametrosKdf.custoDoHash(BCrypt.hashpw("senha", BCrypt.gensalt())));
+        assertThrows(IllegalArgumentException.class, () -> ParametrosKdf.custoDoHash("nao-e-bcrypt"));
+    }
+}
@@ -111,6 +111,35 @@ public class TOTPServiceTest {
 	        //noinspection SpellCheckingInspection
 	        assertFalse(TOTPService.validateCode(base64Secret, "abcdef"));
         }
+
+        /**
+         * Tests that the code currently shown by an authenticator app is accepted.
+         */
+        @Test
+        @DisplayName("Should accept the current code")
+        void testValidateCurrentCode() {
+            MotorTOTP motor = TOTPService.motor(base64Secret);
+            String code = motor.formata(motor.gera(System.currentTimeMillis() / 1000));
+
+            assertTrue(TOTPService.validateCode(base64Secret, code));
+        }
+    }
+
+    /**
+     * Tests that Base32 seeds are normalized and produce the RFC 6238 codes.
+     */
+    @Test
+    @DisplayName("Should build an engine from a Base32 seed")
+    void testMotorDaSemente() {
+        assertEquals("GEZDGNBVGY3TQOJQGEZDGNBVGY3TQOJQ",
+                TOTPService.normalizaSemente("gezd gnbv gy3t qojq gezd gnbv gy3t qojq"));
+
+        MotorTOTP motor = TOTPService.motorDaSemente("GEZDGNBVGY3TQOJQGEZDGNBVGY3TQOJQ");
+        assertEquals("287082", motor.formata(motor.gera(59)));
+
+        assertThrows(IllegalArgumentException.class, () -> TOTPService.normalizaSemente("ABC1"));
+        assertThrows(IllegalArgumentException.class, () -> TOTPService.normalizaSemente(" = "));
+        assertThrows(IllegalArgumentException.class, () -> TOTPService.normalizaSemente("A".repeat(65)));
     }
 
     /**
@@ -0,0 +1,196 @@
+package service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for {@link VerificadorTOTP}.
+ */
+@DisplayName("VerificadorTOTP Unit Tests")
+class VerificadorTOTPTest {
+
+    private static final byte[] SEED_ALICE = "12345678901234567890".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] SEED_BOB = "abcdefghijabcdefghij".getBytes(StandardCharsets.US_ASCII);
+    private static final long NOW = 1_111_111_111L;
+
+    private VerificadorTOTP verificador;
+    private MotorTOTP alice;
+
+    @BeforeEach
+    void setUp() {
+        verificador = new VerificadorTOTP();
+        verificador.registra("alice", SEED_ALICE);
+        verificador.registra("bob", SEED_BOB);
+        alice = new MotorTOTP(SEED_ALICE);
+    }
+
+    /**
+     * Tests that a valid code is accepted once and rejected when replayed.
+     */
+    @Test
+    @DisplayName("Should accept a code once and reject its replay")
+    void testReplayRejected() {
+        String code = alice.formata(alice.gera(NOW));
+
+        assertTrue(verificador.valida("alice", code, NOW));
+        assertFalse(verificador.valida("alice", code, NOW));
+
+        VerificadorTOTP.Estatisticas stats = verificador.getEstatisticas();
+        assertEquals(1, stats.aceitos());
+        assertEquals(1, stats.repetidos());
+        assertEquals(0, stats.recusados());
+    }
+
+    /**
+     * Tests that a code from an older window is rejected once a newer window was used.
+     */
+    @Test
+    @DisplayName("Should reject an older window after a newer one")
+    void testOlderWindowRejected() {
+        long window = NOW / 30;
+        String next = alice.formata(alice.geraNaJanela(window + 1));
+        String current = alice.formata(alice.geraNaJanela(window));
+
+        assertTrue(verificador.valida("alice", next, NOW));
+        assertFalse(verificador.valida("alice", current, NOW));
+        assertTrue(verificador.valida("alice", alice.formata(alice.geraNaJanela(window + 2)), NOW + 30));
+    }
+
+    /**
+     * Tests that replay protection is tracked per user.
+     */
+    @Test
+    @DisplayName("Should track used windows per user")
+    void testReplayIsPerUser() {
+        MotorTOTP bob = new MotorTOTP(SEED_BOB);
+
+        assertTrue(verificador.valida("alice", alice.formata(alice.gera(NOW)), NOW));
+        assertTrue(verificador.valida("bob", bob.formata(bob.gera(NOW)), NOW));
+        assertFalse(verificador.valida("bob", alice.formata(alice.gera(NOW + 30)), NOW + 30));
+    }
+
+    /**
+     * Tests that unknown users and malformed codes are rejected without throwing.
+     */
+    @Test
+    @DisplayName("Should reject unknown users and malformed codes")
+    void testUnknownUserAndMalformedCode() {
+        String code = alice.formata(alice.gera(NOW));
+
+        assertFalse(verificador.valida("carol", code, NOW));
+        assertFalse(verificador.valida(null, code, NOW));
+        assertFalse(verificador.valida("alice", "12a456", NOW));
+        assertFalse(verificador.valida("alice", null, NOW));
+        assertEquals(4, verificador.getEstatisticas().recusados());
+
+        assertTrue(verificador.remove("alice"));
+        assertFalse(verificador.valida("alice", code, NOW));
+        assertEquals(1, verificador.tamanho());
+    }
+
+    /**
+     * Tests loading secrets from a file, skipping blank lines and comments.
+     */
+    @Test
+    @DisplayName("Should load user secrets from a file")
+    void testLoadFromFile(@TempDir Path tempDir) throws IOException {
+        Path file = tempDir.resolve("totp_users.dat");
+        Files.writeString(file, "# operators\n\ncarol:" + Base64.getEncoder().encodeToString(SEED_ALICE) + "\n"
+                + "dave: " + Base64.getEncoder().encodeToString(SEED_BOB) + "\n");
+
+        assertEquals(2, verificador.carrega(file));
+        assertEquals(4, verificador.tamanho());
+        assertTrue(verificador.valida("carol", alice.formata(alice.gera(NOW)), NOW));
+    }
+
+    /**
+     * Tests that reloading the secrets file keeps each user's last accepted window, so a code used just
+     * before the reload cannot be replayed right after it.
+     */
+    @Test
+    @DisplayName("Should reject a replay across a reload of the secrets file")
+    void testReplayAcrossReload(@TempDir Path tempDir) throws IOException {
+        Path file = tempDir.resolve("totp_users.dat");
+        Files.writeString(file, "alice:" + Base64.getEncoder().encodeToString(SEED_ALICE) + "\n");
+        String code = alice.formata(alice.gera(NOW));
+        assertTrue(verificador.valida("alice", code, NOW));
+
+        verificador.carrega(file);
+
+        assertFalse(verificador.valida("alice", code, NOW));
+        assertEquals(1, verificador.getEstatisticas().repetidos());
+        assertTrue(verificador.valida("alice", alice.formata(alice.gera(NOW + 30)), NOW + 30));
+    }
+
+    /**
+     * Tests that malformed lines fail the load with an IOException.
+     */
+    @Test
+    @DisplayName("Should reject malformed secret files")
+    void testLoadMalformedFile(@TempDir Path tempDir) throws IOException {
+        Path noSeparator = tempDir.resolve("a.dat");
+        Files.writeString(noSeparator, "carol\n");
+        Path badBase64 = tempDir.resolve("b.dat");
+        Files.writeString(badBase64, "carol:not base64!\n");
+        Path emptySecret = tempDir.resolve("c.dat");
+        Files.writeString(emptySecret, "carol:\n");
+
+        assertThrows(IOException.class, () -> verificador.carrega(noSeparator));
+        assertThrows(IOException.class, () -> verificador.carrega(badBase64));
+        assertThrows(IOException.class, () -> verificador.carrega(emptySecret));
+    }
+
+    /**
+     * Tests that when many threads submit the same code at once, exactly one is accepted.
+     */
+    @Test
+    @DisplayName("Should accept a code exactly once under concurrency")
+    void testConcurrentReplay() throws Exception {
+        String code = alice.formata(alice.gera(NOW));
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            for (int round = 0; round < 50; round++) {
+                long instant = NOW + round * 30L;
+                String roundCode = round == 0 ? code : alice.formata(alice.gera(instant));
+                CountDownLatch start = new CountDownLatch(1);
+                List<Future<Boolean>> results = new ArrayList<>();
+                for (int t = 0; t < threads; t++) {
+                    results.add(executor.submit(() -> {
+                        start.await();
+                        return verificador.valida("alice", roundCode, instant);
+                    }));
+                }
+                start.countDown();
+                int accepted = 0;
+                for (Future<Boolean> result : results) {
+                    accepted += result.get() ? 1 : 0;
+                }
+                assertEquals(1, accepted, "Round " + round);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(50, verificador.getEstatisticas().aceitos());
+        assertEquals(50L * (threads - 1), verificador.getEstatisticas().repetidos());
+    }
+}
@@ -0,0 +1,139 @@
+package utils;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for {@link InputSanitizer}.
+ */
+@DisplayName("InputSanitizer Unit Tests")
+class InputSanitizerTest {
+
+    /**
+     * The regex-based implementation the single-pass version replaced, kept as the reference.
+     */
+    private static String reference(String input, int maxLength, boolean numericOnly) {
+        if (input == null) {
+            throw new IllegalArgumentException("A entrada não pode ser nula.");
+        }
+        input = input.trim();
+        if (input.isEmpty() || input.length() > maxLength) {
+            throw new IllegalArgumentException("A entrada é inválida ou excede o comprimento permitido.");
+        }
+        if (numericOnly && !input.matches("\\d+")) {
+            throw new IllegalArgumentException("A entrada deve conter apenas caracteres numéricos.");
+        }
+        if (!numericOnly && input.indexOf(';') >= 0 || input.indexOf('\'') >= 0 || input.indexOf('"') >= 0
+                || input.indexOf('<') >= 0 || input.indexOf('>') >= 0 || input.indexOf(',') >= 0) {
+            throw new IllegalArgumentException("A entrada contém caracteres inseguros.");
+        }
+        return input;
+    }
+
+    private static String outcome(String input, int maxLength, boolean numericOnly, boolean useReference) {
+        try {
+            return "ok:" + (useReference ? reference(input, maxLength, numericOnly)
+                    : InputSanitizer.sanitize(input, maxLength, numericOnly));
+        } catch (IllegalArgumentException e) {
+            return "erro:" + e.getMessage();
+        }
+    }
+
+    /**
+     * Tests that the single-pass implementation matches the reference on edge cases.
+     */
+    @ParameterizedTest
+    @ValueSource(strings = {"", " ", "\t\n", "  abc  ", "123456", " 123 ", "12a", "abc;", "a'b", "a\"b", "<x>",
+            "a,b", "ação", "١٢٣", "0", "x\u0000y", "\u0000ok\u0001", "12;3", "   ;   "})
+    @DisplayName("Should match the reference implementation on edge cases")
+    void testMatchesReferenceOnEdgeCases(String input) {
+        for (boolean numericOnly : new boolean[]{false, true}) {
+            for (int maxLength : new int[]{1, 3, 50}) {
+                assertEquals(outcome(input, maxLength, numericOnly, true), outcome(input, maxLength, numericOnly, false),
+                        () -> "Input '" + input + "'");
+            }
+        }
+    }
+
+    /**
+     * Tests that the single-pass implementation matches the reference on random inputs.
+     */
+    @Test
+    @DisplayName("Should match the reference implementation on random inputs")
+    void testMatchesReferenceOnRandomInputs() {
+        Random random = new Random(42);
+        String alphabet = " \t0123456789abcXYZ;'\"<>,-_@.çé€\u0001";
+        for (int i = 0; i < 20_000; i++) {
+            StringBuilder input = new StringBuilder();
+            int length = random.nextInt(12);
+            for (int j = 0; j < length; j++) {
+                input.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+            boolean numericOnly = random.nextBoolean();
+            int maxLength = 1 + random.nextInt(10);
+            assertEquals(outcome(input.toString(), maxLength, numericOnly, true),
+                    outcome(input.toString(), maxLength, numericOnly, false), () -> "Input '" + input + "'");
+        }
+    }
+
+    /**
+     * Tests that null input is rejected and untrimmed input is returned as is.
+     */
+    @Test
+    @DisplayName("Should reject null and keep untouched input")
+    void testNullAndUntouchedInput() {
+        assertThrows(IllegalArgumentException.class, () -> InputSanitizer.sanitize(null, 10, false));
+        String clean = "servico";
+        assertSame(clean, InputSanitizer.sanitize(clean, 10, false));
+    }
+
+    /**
+     * Tests that a batch collects every violation and trims the valid fields in place.
+     */
+    @Test
+    @DisplayName("Should collect all violations in a batch")
+    void testValidateAll() {
+        List<String[]> records = new ArrayList<>();
+        records.add(new String[]{" gmail ", "ana", "123456"});
+        records.add(new String[]{"bad;name", null, "12a456"});
+        records.add(new String[]{"", "bob", " 000001 "});
+
+        List<InputSanitizer.Violation> violations = InputSanitizer.validateAll(records,
+                new InputSanitizer.FieldRule(50, false), new InputSanitizer.FieldRule(50, false),
+                new InputSanitizer.FieldRule(6, true));
+
+        assertEquals(List.of(
+                new InputSanitizer.Violation(1, 0, InputSanitizer.Reason.UNSAFE),
+                new InputSanitizer.Violation(1, 1, InputSanitizer.Reason.NULL),
+                new InputSanitizer.Violation(1, 2, InputSanitizer.Reason.NOT_NUMERIC),
+                new InputSanitizer.Violation(2, 0, InputSanitizer.Reason.EMPTY_OR_TOO_LONG)), violations);
+        assertEquals("gmail", records.get(0)[0]);
+        assertEquals("000001", records.get(2)[2]);
+        assertEquals("bad;name", records.get(1)[0]);
+        assertEquals("A entrada contém caracteres inseguros.", violations.getFirst().reason().message());
+    }
+
+    /**
+     * Tests that a record with the wrong number of fields is rejected.
+     */
+    @Test
+    @DisplayName("Should reject records with the wrong number of fields")
+    void testValidateAllFieldCount() {
+        List<String[]> records = List.<String[]>of(new String[]{"a"});
+
+        assertThrows(IllegalArgumentException.class, () -> InputSanitizer.validateAll(records,
+                new InputSanitizer.FieldRule(5, false), new InputSanitizer.FieldRule(5, false)));
+        assertTrue(InputSanitizer.validateAll(records, new InputSanitizer.FieldRule(5, false)).isEmpty());
+    }
+}
@@ -0,0 +1,93 @@
+package utils;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for the {@link MotorSenhas} password engine.
+ */
+@DisplayName("MotorSenhas Unit Tests")
+class MotorSenhasTest {
+
+    /**
+     * Tests that passwords follow the policy and only the requested range of the buffer is written.
+     */
+    @Test
+    @DisplayName("Should write policy characters into the requested buffer range")
+    void testBufferRange() {
+        MotorSenhas engine = new MotorSenhas(new PoliticaSenha(12, false, true, true, false));
+        assertTrue(new String(engine.gera()).matches("[a-z0-9]{12}"));
+
+        char[] buffer = new char[20];
+        Arrays.fill(buffer, '#');
+        engine.gera(buffer, 4, 10);
+        String text = new String(buffer);
+        assertEquals("####", text.substring(0, 4));
+        assertTrue(text.substring(4, 14).matches("[a-z0-9]{10}"), text);
+        assertEquals("######", text.substring(14));
+
+        assertThrows(IndexOutOfBoundsException.class, () -> engine.gera(buffer, 15, 10));
+        assertThrows(IllegalArgumentException.class, () -> new PoliticaSenha(8, false, false, false, false));
+    }
+
+    /**
+     * Tests that every character of the alphabet is drawn with about the same frequency.
+     */
+    @Test
+    @DisplayName("Should draw characters uniformly")
+    void testUniformity() {
+        // 79 symbols: without rejection, 256 % 79 = 19 of them would come up 25% more often
+        MotorSenhas engine = new MotorSenhas(PoliticaSenha.completa(1000));
+        int[] counts = new int[128];
+        char[] password = new char[1000];
+        for (int i = 0; i < 790; i++) {
+            engine.gera(password);
+            for (char c : password) {
+                counts[c]++;
+            }
+        }
+        int symbols = 0;
+        for (int count : counts) {
+            if (count > 0) {
+                symbols++;
+                assertTrue(Math.abs(count - 10_000) < 600, "Count " + count + " is too far from 10000");
+            }
+        }
+        assertEquals(79, symbols);
+    }
+
+    /**
+     * Tests that concurrent callers get independent output.
+     */
+    @Test
+    @DisplayName("Should generate independent passwords from many threads")
+    void testConcurrentCallers() throws Exception {
+        MotorSenhas engine = new MotorSenhas(PoliticaSenha.completa(16));
+        Set<String> passwords = ConcurrentHashMap.newKeySet();
+        Callable<Void> task = () -> {
+            for (int i = 0; i < 1000; i++) {
+                passwords.add(new String(engine.gera()));
+            }
+            return null;
+        };
+        try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+            for (Future<Void> future : executor.invokeAll(List.of(task, task, task, task, task, task, task, task))) {
+                future.get();
+            }
+        }
+        assertEquals(8000, passwords.size());
+    }
+}
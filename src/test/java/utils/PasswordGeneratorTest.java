@@ -1,12 +1,32 @@
 package utils;
 
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
+import service.AuditoriaVazamentos;
+import service.FaixaHibp;
+import service.FonteFaixas;
+import service.VerificadorSenha;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -129,4 +149,112 @@ class PasswordGeneratorTest {
             assertEquals(length, password.length());
         }
     }
-}
\ No newline at end of file
+
+    @Nested
+    @DisplayName("Batch generation tests") // Group for generateBatch
+    class BatchTests {
+
+        // Single digit passwords: the whole candidate space is known, so the fake API can flag some of it
+        private final PoliticaSenha digits = new PoliticaSenha(1, false, false, true, false);
+        private final Set<String> breached = Set.of("0", "1", "2", "3", "4");
+        private final Set<String> fetched = ConcurrentHashMap.newKeySet();
+
+        @BeforeEach
+        void setUp() {
+            VerificadorSenha.usaBaseLocal(null);
+            VerificadorSenha.usaFiltro(null);
+        }
+
+        @AfterEach
+        void tearDown() {
+            VerificadorSenha.usaBaseLocal(VerificadorSenha.BASE_LOCAL_PADRAO);
+            VerificadorSenha.usaFiltro(VerificadorSenha.FILTRO_PADRAO);
+        }
+
+        private static String sha1(String password) {
+            try {
+                return HexFormat.of().withUpperCase().formatHex(
+                        MessageDigest.getInstance("SHA-1").digest(password.getBytes(StandardCharsets.UTF_8)));
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        private FonteFaixas fakeApi(Set<String> breachedPasswords) {
+            return prefix -> {
+                fetched.add(prefix);
+                String body = breachedPasswords.stream().map(PasswordGeneratorTest.BatchTests::sha1)
+                        .filter(hash -> hash.startsWith(prefix))
+                        .map(hash -> hash.substring(5) + ":100\n")
+                        .collect(Collectors.joining());
+                return FaixaHibp.deResposta(body);
+            };
+        }
+
+        /**
+         * Tests that a batch only contains passwords the breach check accepted.
+         */
+        @Test
+        @DisplayName("Should regenerate only rejected passwords")
+        void testBatchRejectsBreached() {
+            AuditoriaVazamentos audit = new AuditoriaVazamentos(4, fakeApi(breached));
+            List<String> passwords;
+            try (Stream<String> batch = PasswordGenerator.generateBatch(200, digits, audit)) {
+                passwords = batch.toList();
+            }
+            assertEquals(200, passwords.size());
+            assertTrue(passwords.stream().noneMatch(breached::contains), passwords.toString());
+            assertTrue(fetched.size() <= 10, "Each prefix is fetched at most once per round.");
+
+            assertEquals(0, PasswordGenerator.generateBatch(0, digits, audit).count());
+            assertThrows(IllegalArgumentException.class, () -> PasswordGenerator.generateBatch(-1, digits, audit));
+        }
+
+        /**
+         * Tests that the first passwords are available while other ranges are still being checked.
+         */
+        @Test
+        @DisplayName("Should stream passwords before the batch is finished")
+        void testStreaming() {
+            CountDownLatch release = new CountDownLatch(1);
+            String slowPrefix = sha1("9").substring(0, 5);
+            FonteFaixas api = fakeApi(breached);
+            AuditoriaVazamentos audit = new AuditoriaVazamentos(10, prefix -> {
+                if (prefix.equals(slowPrefix)) {
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        throw new IOException(e);
+                    }
+                }
+                return api.baixa(prefix);
+            });
+
+            try (Stream<String> batch = PasswordGenerator.generateBatch(50, digits, audit)) {
+                Iterator<String> passwords = batch.iterator();
+                assertTrue(passwords.hasNext());
+                assertFalse(passwords.next().equals("9"), "The held range cannot have been delivered yet.");
+                release.countDown();
+                int count = 1;
+                while (passwords.hasNext()) {
+                    passwords.next();
+                    count++;
+                }
+                assertEquals(50, count);
+            }
+        }
+
+        /**
+         * Tests that a policy whose every password is breached fails instead of looping forever.
+         */
+        @Test
+        @DisplayName("Should give up when every candidate is breached")
+        void testAllBreached() {
+            Set<String> all = Set.of("0", "1", "2", "3", "4", "5", "6", "7", "8", "9");
+            AuditoriaVazamentos audit = new AuditoriaVazamentos(4, fakeApi(all));
+            try (Stream<String> batch = PasswordGenerator.generateBatch(5, digits, audit)) {
+                assertThrows(IllegalStateException.class, batch::toList);
+            }
+        }
+    }
+}